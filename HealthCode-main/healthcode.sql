@@ -92,6 +92,10 @@ CREATE TABLE itinerary_code (
 -- health_code_place_code数据库
 CREATE DATABASE IF NOT EXISTS health_code_place_code;
 USE health_code_place_code;
+
+-- 以下为场所码服务的基线表结构（迁移版本 V1），之后的结构变更由服务启动时的 Flyway 迁移执行，
+-- 见 place-code/src/main/resources/db/migration
+
 -- 场所信息表
 CREATE TABLE place_info (
     pid BIGINT PRIMARY KEY COMMENT '场所唯一标识',
@@ -120,6 +124,9 @@ CREATE TABLE place_mapping (
 CREATE DATABASE IF NOT EXISTS health_code_nucleic_acids;
 USE health_code_nucleic_acids;
 
+-- 以下为核酸检测服务的基线表结构（迁移版本 V1），之后的结构变更由服务启动时的 Flyway 迁移执行，
+-- 见 nucleic-acids/src/main/resources/db/migration
+
 -- 核酸检测记录表
 CREATE TABLE nucleic_acid_test (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '核酸检测记录的唯一标识',
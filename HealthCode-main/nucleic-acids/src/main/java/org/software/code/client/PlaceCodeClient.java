@@ -1,10 +1,14 @@
 package org.software.code.client;
 
 import org.software.code.common.result.Result;
+import org.software.code.dto.CountVisitorsDto;
 import org.software.code.dto.GetPlacesByUserListDto;
+import org.software.code.dto.PlaceRiskDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 地点码服务的 Feign 客户端接口，使用 Spring Cloud OpenFeign 实现与 "place - code" 服务的远程调用。
  * 通过该接口可以方便地调用地点码服务提供的各种功能。
@@ -36,6 +40,16 @@ public interface PlaceCodeClient {
                              @RequestParam("start_time") String startTime,
                              @RequestParam("end_time") String endTime);
 
+    /**
+     * 调用地点码服务的 /place-code/countVisitorsByPids 接口，批量统计一批地点在 [start_time, end_time) 内的
+     * 到访人数和阳性人数。
+     *
+     * @param request 包含地点 ID 列表、时间范围和阳性人员列表的请求体。
+     * @return 返回一个封装了结果信息的 Result 对象，其中包含与地点列表一一对应的到访人数和阳性人数。
+     */
+    @PostMapping("/place-code/countVisitorsByPids")
+    Result<?> countVisitorsByPids(@RequestBody CountVisitorsDto request);
+
     /**
      * 调用地点码服务的 /place-code/getAllPids 接口，获取所有地点的 ID 信息。
      *
@@ -53,4 +67,13 @@ public interface PlaceCodeClient {
      */
     @PutMapping("/place-code/setPlaceRisk")
     Result<?> setPlaceRisk(@RequestParam("pid") Long pid, @RequestParam("risk") String risk);
-}
\ No newline at end of file
+
+    /**
+     * 调用地点码服务的 /place-code/setPlaceRisks 接口，批量设置地点的风险等级。
+     *
+     * @param risks 地点风险等级列表。
+     * @return 返回一个封装了结果信息的 Result 对象，其中包含风险等级发生变化的地点数。
+     */
+    @PutMapping("/place-code/setPlaceRisks")
+    Result<?> setPlaceRisks(@RequestBody List<PlaceRiskDto> risks);
+}
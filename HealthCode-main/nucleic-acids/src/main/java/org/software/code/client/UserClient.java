@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 /**
  * 这是一个使用 Spring Cloud OpenFeign 实现的 Feign 客户端接口，
@@ -38,6 +39,24 @@ public interface UserClient {
     @GetMapping("/user/getUserByID")
     Result<?> getUserByID(@RequestParam(name = "identity_card") String identity_card);
 
+    /**
+     * 调用用户服务的 /user/getUserListByUIDList 接口，根据用户唯一标识（UID）列表批量获取用户信息。
+     *
+     * @param uidList 用户唯一标识列表，作为请求体传递给用户服务。
+     * @return 返回一个封装了结果信息的 Result 对象，其中包含查询到的用户信息列表，不存在的用户会被忽略。
+     */
+    @PostMapping("/user/getUserListByUIDList")
+    Result<?> getUserListByUIDList(@RequestBody List<Long> uidList);
+
+    /**
+     * 调用用户服务的 /user/getUserListByIDList 接口，根据身份证号码列表批量获取用户信息。
+     *
+     * @param identityCardList 用户身份证号码列表，作为请求体传递给用户服务。
+     * @return 返回一个封装了结果信息的 Result 对象，其中包含查询到的用户信息列表，不存在的用户会被忽略。
+     */
+    @PostMapping("/user/getUserListByIDList")
+    Result<?> getUserListByIDList(@RequestBody List<String> identityCardList);
+
     /**
      * 调用用户服务的 /user/area_code 接口，根据传入的 ID 获取对应的地区码信息。
      *
@@ -66,4 +85,13 @@ public interface UserClient {
      */
     @PostMapping("/user/area_code/id/list")
     Result<?> getAreaCodeIDList(@Valid @RequestBody AreaCodeDto dto);
-}
\ No newline at end of file
+
+    /**
+     * 调用用户服务的 /user/area_code/all 接口，获取全部区域编码的快照。
+     *
+     * @param version 本地已缓存的版本号，首次获取时为 null。
+     * @return 返回一个封装了结果信息的 Result 对象，其中包含区域编码快照，版本号未变化时不包含区域编码列表。
+     */
+    @GetMapping("/user/area_code/all")
+    Result<?> getAreaCodeSnapshot(@RequestParam(name = "version", required = false) String version);
+}
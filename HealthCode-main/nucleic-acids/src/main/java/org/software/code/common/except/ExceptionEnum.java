@@ -47,6 +47,16 @@ public enum ExceptionEnum {
     RISK_CALCULATION_NOT_FIND("50005", "地区风险策略不存在"),
     // 通知用户进行复检时出现异常
     RETEST_NOTIFICATION_EXCEPTION("50006", "通知复检时异常"),
+    // 采样记录提交队列已满或等待写入超时
+    SWAB_COLLECTOR_BUSY("50007", "采样记录提交繁忙，请稍后重试"),
+    // 试管编号不在任何已发放的批次中，或与试管类型不符
+    TUBE_NOT_ISSUED("50008", "试管编号无效或未发放"),
+    // 单管试管已被使用过
+    TUBE_ALREADY_USED("50009", "试管已被使用"),
+    // 试管批次不存在
+    TUBE_BATCH_NOT_FIND("50010", "试管批次不存在"),
+    // 试管批次数量超出范围
+    TUBE_BATCH_SIZE_INVALID("50011", "试管批次数量超出范围"),
 
     ;
 
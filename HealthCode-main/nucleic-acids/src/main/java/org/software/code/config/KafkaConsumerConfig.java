@@ -0,0 +1,83 @@
+package org.software.code.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.RecoveringBatchErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Kafka 消费者配置类，为通知消息提供批量、并发的监听容器。
+ * 处理失败的消息会按固定间隔重试，超过最大尝试次数后转发到死信主题（原主题名加 ".DLT" 后缀），
+ * 避免无法处理的消息被无限次重新投递而阻塞整个分区。
+ * 另外为每个实例都要消费全部事件的监听器提供不提交位点的容器，这类监听器手动分配分区，
+ * 启动时自行定位消费位置，不需要也不应该在 Kafka 中留下消费组的位点。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * 每个监听器的消费线程数，不超过主题分区数时每个线程负责一个或多个分区。
+     */
+    @Value("${notification.consumer.concurrency:3}")
+    private int concurrency;
+
+    /**
+     * 单条消息的最大尝试次数（包括第一次处理）。
+     */
+    @Value("${notification.consumer.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 两次重试之间的间隔（毫秒）。
+     */
+    @Value("${notification.consumer.backoff-ms:1000}")
+    private long backoffMs;
+
+    /**
+     * 创建通知消息的批量监听容器工厂。
+     *
+     * @param consumerFactory 由 Spring Boot 根据 spring.kafka.consumer 配置创建的消费者工厂
+     * @param kafkaTemplate   用于向死信主题发送消息的 KafkaTemplate
+     * @return 批量监听容器工厂
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchNotificationContainerFactory(
+            ConsumerFactory<String, String> consumerFactory, KafkaTemplate<String, String> kafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        // 一次拉取的多条消息作为一个批次交给监听方法
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        // 失败消息之前的消息正常提交，失败消息重试 maxAttempts - 1 次后转发到死信主题，分区由 Kafka 自行选择
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(record.topic() + ".DLT", -1));
+        factory.setBatchErrorHandler(new RecoveringBatchErrorHandler(recoverer,
+                new FixedBackOff(backoffMs, Math.max(0, maxAttempts - 1))));
+        return factory;
+    }
+
+    /**
+     * 创建回放事件的监听容器工厂。
+     * 确认模式为 MANUAL 且监听方法不确认，容器不会提交位点；监听器还应设置 enable.auto.commit 为 false。
+     *
+     * @param consumerFactory 由 Spring Boot 根据 spring.kafka.consumer 配置创建的消费者工厂
+     * @return 不提交位点的监听容器工厂
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> replayContainerFactory(
+            ConsumerFactory<String, String> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -5,7 +5,12 @@ import org.software.code.dto.AddNucleicAcidTestingInstitutionsDto;
 import org.software.code.dto.AreaCodeDto;
 import org.software.code.dto.UpdateNucleicAcidTestingInstitutionsDto;
 import org.software.code.service.NucleicAcidTestingInstitutionsService;
+import org.software.code.service.cache.InstitutionsSnapshot;
 import org.software.code.vo.NucleicAcidTestingInstitutionsVo;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
@@ -77,14 +82,23 @@ public class NucleicAcidTestingInstitutionsController {
 
     /**
      * 查询所有核酸检测机构信息。
-     * 调用服务层的查询方法获取所有核酸检测机构的信息列表。
+     * 直接返回检测机构快照中预先序列化好的响应体，响应内容与 Result.success(机构列表) 相同；
+     * 请求携带的 If-None-Match 与快照的 ETag 一致时返回 304，不再传输响应体。
      *
-     * @return 若查询成功，返回包含核酸检测机构列表的成功结果信息；否则返回相应的错误信息。
+     * @param ifNoneMatch 客户端缓存的 ETag
+     * @return 包含核酸检测机构列表的成功结果信息
      */
     @GetMapping("/testing-institutions")
-    public Result<?>  getAllNucleicAcidTestingInstitutions() {
-        List<NucleicAcidTestingInstitutionsVo> list = institutionsService.getAllNucleicAcidTestingInstitutions();
-        return Result.success(list);
+    public ResponseEntity<byte[]> getAllNucleicAcidTestingInstitutions(
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        InstitutionsSnapshot.Snapshot snapshot = institutionsService.getInstitutionsSnapshot();
+        if (snapshot.getEtag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
     }
 
     @PostMapping("/testing-institutionsByArea")
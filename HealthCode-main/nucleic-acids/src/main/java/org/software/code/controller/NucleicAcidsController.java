@@ -8,8 +8,10 @@ import org.software.code.common.util.JWTUtil;
 import org.software.code.dto.AddNucleicAcidTestRecordByIDDto;
 import org.software.code.dto.AddNucleicAcidTestRecordDto;
 import org.software.code.dto.NucleicAcidTestRecordInputDto;
+import org.software.code.dto.SwabSyncItemDto;
 import org.software.code.service.NucleicAcidsService;
 import org.software.code.vo.NucleicAcidTestResultVo;
+import org.software.code.vo.SwabSyncResultVo;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -110,6 +112,24 @@ public class NucleicAcidsController {
         return Result.success();
     }
 
+    /**
+     * 批量同步采样设备离线期间缓存的采样记录。
+     *
+     * @param token 请求头中的 JWT 令牌，用于提取检测人员 ID
+     * @param items 设备缓存的采样记录列表
+     * @return 包含每条记录处理结果的结果对象，与请求中的记录按下标一一对应
+     */
+    @PostMapping("/syncSwabRecords")
+    public Result<?> syncSwabRecords(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
+                                     @Valid @RequestBody List<@Valid SwabSyncItemDto> items) {
+        // 从 JWT 令牌中提取检测人员 ID
+        long tid = JWTUtil.extractID(token);
+        // 调用服务层方法批量同步采样记录
+        List<SwabSyncResultVo> results = nucleicAcidsService.syncSwabRecords(tid, items);
+        // 返回每条记录的处理结果
+        return Result.success(results);
+    }
+
     /**
      * 批量录入核酸检测记录。
      *
@@ -5,17 +5,28 @@ import org.apache.logging.log4j.Logger;
 import org.software.code.common.result.Result;
 import org.software.code.dto.NucleicAcidTestRecordDto;
 import org.software.code.dto.NucleicAcidTestRecordInputDto;
+import org.software.code.kafaka.NotificationConsumer;
+import org.software.code.kafaka.NotificationProducer;
 import org.software.code.service.NucleicAcidsService;
+import org.software.code.service.strategy.RiskCalculationContext;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * NucleicAcidsInternalController 是一个 RESTful 控制器，主要用于处理与核酸检测记录相关的内部接口请求。
@@ -35,6 +46,18 @@ public class NucleicAcidsInternalController {
     @Resource
     private NucleicAcidsService nucleicAcidsService;
 
+    // 注入通知消息生产者，用于获取发送统计信息
+    @Resource
+    private NotificationProducer notificationProducer;
+
+    // 注入通知消息消费者，用于获取消费统计信息
+    @Resource
+    private NotificationConsumer notificationConsumer;
+
+    // 注入风险计算上下文，用于查询和切换风险计算策略
+    @Resource
+    private RiskCalculationContext riskCalculationContext;
+
     // 日期格式化对象，用于将字符串日期转换为 Date 对象
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
@@ -78,6 +101,41 @@ public class NucleicAcidsInternalController {
         return Result.success(nucleicAcidsService.getLastNucleicAcidTestRecordByUID(uid));
     }
 
+    /**
+     * 导入检测仪器导出的结果文件，替代将结果整理为 JSON 后调用 enterNucleicAcidTestRecordList。
+     * 上传的文件先保存为临时文件，再以内存映射方式解析，导入完成后删除。
+     *
+     * @param file 结果文件
+     * @param format 文件格式，csv 或 fixed
+     * @param testingOrganization 检测机构名称
+     * @return 包含导入统计的成功结果对象
+     * @throws IOException 保存或读取文件失败时抛出
+     */
+    @PostMapping("/importResultFile")
+    public Result<?> importResultFile(@RequestParam("file") MultipartFile file,
+                                      @RequestParam(value = "format", defaultValue = "csv") String format,
+                                      @RequestParam("testing_organization") @NotBlank(message = "testing_organization不能为空") String testingOrganization) throws IOException {
+        Path tmp = Files.createTempFile("nucleic-acids-result-", ".dat");
+        try {
+            file.transferTo(tmp.toFile());
+            return Result.success(nucleicAcidsService.importResultFile(tmp, format, testingOrganization));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 根据用户 ID 列表批量获取用户的最后一条核酸检测记录。
+     *
+     * @param uids 用户唯一标识列表，使用 @NotEmpty 注解确保该参数不为空
+     * @return 包含用户 ID 到最后一条核酸检测记录映射的成功结果对象
+     */
+    @PostMapping("/getLastNucleicAcidTestRecordByUIDList")
+    public Result<?> getLastNucleicAcidTestRecordByUIDList(@RequestBody @NotEmpty(message = "uid列表不能为空") List<Long> uids) {
+        // 调用服务层方法批量获取用户的最后一条核酸检测记录
+        return Result.success(nucleicAcidsService.getLastNucleicAcidTestRecordByUIDList(uids));
+    }
+
     /**
      * 根据用户 ID 获取用户的所有核酸检测记录。
      *
@@ -90,6 +148,28 @@ public class NucleicAcidsInternalController {
         return Result.success(nucleicAcidsService.getNucleicAcidTestRecordByUID(uid));
     }
 
+    /**
+     * 根据用户 ID 和日期范围获取用户的历史核酸检测记录，包括已归档的记录。
+     *
+     * @param uid 用户的唯一标识，使用 @NotNull 注解确保该参数不为空
+     * @param startTime 开始日期，格式为 "yyyy-MM-dd"，使用 @NotNull 注解确保该参数不为空
+     * @param endTime 结束日期（包含），格式为 "yyyy-MM-dd"，使用 @NotNull 注解确保该参数不为空
+     * @return 包含用户历史核酸检测记录的成功结果对象，若解析日期出错则返回失败结果
+     */
+    @GetMapping("/getNucleicAcidTestHistoryByUID")
+    public Result<?> getNucleicAcidTestHistoryByUID(@RequestParam @NotNull(message = "uid不能为空") Long uid,
+                                                    @RequestParam("start_time") @NotNull(message = "开始时间不能为空") String startTime,
+                                                    @RequestParam("end_time") @NotNull(message = "结束时间不能为空") String endTime) {
+        try {
+            Date startDate = dateFormat.parse(startTime);
+            Date endDate = dateFormat.parse(endTime);
+            return Result.success(nucleicAcidsService.getNucleicAcidTestHistoryByUID(uid, startDate, endDate));
+        } catch (ParseException e) {
+            logger.error("Date parsing error: {}", e.getMessage());
+            return Result.failed("服务执行失败，请稍后重试");
+        }
+    }
+
     /**
      * 根据时间范围获取核酸检测信息。
      *
@@ -175,4 +255,44 @@ public class NucleicAcidsInternalController {
         // 返回操作成功的结果
         return Result.success();
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取通知消息的统计信息。
+     * producer 部分包括提交数、成功数、失败数、写入重试队列数和重新投递数，
+     * consumer 部分包括各消息类型的已处理数和消费延迟。
+     *
+     * @return 包含统计信息的成功结果对象
+     */
+    @GetMapping("/notificationMetrics")
+    public Result<?> notificationMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("producer", notificationProducer.getMetrics());
+        metrics.put("consumer", notificationConsumer.getMetrics());
+        return Result.success(metrics);
+    }
+
+    /**
+     * 获取当前使用的风险计算策略以及所有可用的策略。
+     *
+     * @return 包含当前策略名称（active）和可用策略名称列表（available）的成功结果对象
+     */
+    @GetMapping("/riskStrategy")
+    public Result<?> getRiskStrategy() {
+        Map<String, Object> strategy = new LinkedHashMap<>();
+        strategy.put("active", riskCalculationContext.getActiveStrategyName());
+        strategy.put("available", riskCalculationContext.getStrategyNames());
+        return Result.success(strategy);
+    }
+
+    /**
+     * 切换风险计算策略，所有实例在下一次读取配置时生效，无需重启。
+     *
+     * @param name 策略名称，如 RiskCalculationStrategy202006
+     * @return 表示切换成功的结果对象
+     */
+    @PutMapping("/riskStrategy")
+    public Result<?> switchRiskStrategy(@RequestParam(name = "name") @NotBlank(message = "name不能为空") String name) {
+        riskCalculationContext.switchStrategy(name);
+        return Result.success();
+    }
+}
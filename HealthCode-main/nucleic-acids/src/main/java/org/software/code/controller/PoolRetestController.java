@@ -0,0 +1,47 @@
+package org.software.code.controller;
+
+import org.software.code.common.result.Result;
+import org.software.code.service.pool.PoolRetestService;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import javax.validation.constraints.NotNull;
+
+/**
+ * 混管复检 Controller 类，用于查询混管阳性后生成的单管复检单以及混管周转统计。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Validated
+@RestController
+@RequestMapping("/nucleic-acids")
+public class PoolRetestController {
+
+    @Resource
+    private PoolRetestService poolRetestService;
+
+    /**
+     * 查询用户的单管复检单。
+     *
+     * @param uid 用户 ID
+     * @return 包含该用户复检单列表的成功结果对象，按生成时间倒序排列
+     */
+    @GetMapping("/retest-orders")
+    public Result<?> getRetestOrders(@RequestParam(name = "uid") @NotNull(message = "uid不能为空") Long uid) {
+        return Result.success(poolRetestService.getOrdersByUid(uid));
+    }
+
+    /**
+     * 获取混管复检的统计信息，包括混管从采样到出结果、复检单从生成到完成的周转时间。
+     *
+     * @return 包含统计信息的成功结果对象
+     */
+    @GetMapping("/pools/metrics")
+    public Result<?> poolMetrics() {
+        return Result.success(poolRetestService.getMetrics());
+    }
+}
@@ -0,0 +1,107 @@
+package org.software.code.controller;
+
+import org.software.code.common.result.Result;
+import org.software.code.common.util.JWTUtil;
+import org.software.code.dto.AllocateTubeBatchDto;
+import org.software.code.entity.TubeBatch;
+import org.software.code.service.tube.TubeBarcodeRenderer;
+import org.software.code.service.tube.TubeRegistry;
+import org.software.code.vo.TubeBatchVo;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+
+/**
+ * 试管批次 Controller 类，用于为核酸检测机构预分配试管编号并批量下载条形码图片。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Validated
+@RestController
+@RequestMapping("/nucleic-acids")
+public class TubeBatchController {
+
+    @Resource
+    private TubeRegistry tubeRegistry;
+
+    @Resource
+    private TubeBarcodeRenderer tubeBarcodeRenderer;
+
+    /**
+     * 为核酸检测机构预分配一批试管编号。
+     *
+     * @param token 管理员的 JWT 令牌
+     * @param dto   包含检测机构 ID、试管类型和数量的数据传输对象
+     * @return 包含新分配批次的成功结果对象
+     */
+    @PostMapping("/tube-batches")
+    public Result<?> allocateTubeBatch(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
+                                       @RequestBody @Valid AllocateTubeBatchDto dto) {
+        // 校验 JWT 令牌
+        JWTUtil.extractID(token);
+        TubeBatch batch = tubeRegistry.allocate(dto.getInstitution_id(), dto.getKind(), dto.getCount());
+        return Result.success(toVo(batch));
+    }
+
+    /**
+     * 根据 ID 查询试管批次。
+     *
+     * @param token 管理员的 JWT 令牌
+     * @param id    批次 ID
+     * @return 包含试管批次的成功结果对象
+     */
+    @GetMapping("/tube-batches/{id}")
+    public Result<?> getTubeBatch(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
+                                  @PathVariable Long id) {
+        // 校验 JWT 令牌
+        JWTUtil.extractID(token);
+        return Result.success(toVo(tubeRegistry.getBatch(id)));
+    }
+
+    /**
+     * 下载试管批次的全部条形码图片，以 zip 压缩包返回。
+     *
+     * @param token    管理员的 JWT 令牌
+     * @param id       批次 ID
+     * @param response HTTP 响应，压缩包直接写入响应体
+     * @throws IOException 写出失败时抛出
+     */
+    @GetMapping("/tube-batches/{id}/barcodes")
+    public void downloadBarcodes(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
+                                 @PathVariable Long id, HttpServletResponse response) throws IOException {
+        // 校验 JWT 令牌
+        JWTUtil.extractID(token);
+        TubeBatch batch = tubeRegistry.getBatch(id);
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=tube-batch-" + id + ".zip");
+        tubeBarcodeRenderer.writeArchive(batch, response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    /**
+     * 获取试管登记簿的统计信息。
+     *
+     * @return 包含各试管类型已发放数量和登记次数的成功结果对象
+     */
+    @GetMapping("/tube-registry/metrics")
+    public Result<?> tubeRegistryMetrics() {
+        return Result.success(tubeRegistry.getMetrics());
+    }
+
+    private static TubeBatchVo toVo(TubeBatch batch) {
+        TubeBatchVo vo = new TubeBatchVo();
+        vo.setId(batch.getId());
+        vo.setInstitution_id(batch.getInstitutionId());
+        vo.setKind(batch.getKind());
+        vo.setFirst_barcode(TubeRegistry.toBarcode(TubeRegistry.toTubeid(batch.getKind(), batch.getStartSeq())));
+        vo.setLast_barcode(TubeRegistry.toBarcode(
+                TubeRegistry.toTubeid(batch.getKind(), batch.getStartSeq() + batch.getCount() - 1)));
+        vo.setCount(batch.getCount());
+        return vo;
+    }
+}
@@ -0,0 +1,41 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * AllocateTubeBatchDto 是一个数据传输对象（DTO），用于封装为核酸检测机构预分配试管编号所需的数据。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class AllocateTubeBatchDto {
+
+    /**
+     * 领取试管的核酸检测机构 ID。
+     */
+    @NotNull(message = "institution_id不能为空")
+    @JsonProperty("institution_id")
+    private Long institution_id;
+
+    /**
+     * 试管类型，0 单管， 1 十人混管， 2 二十人混管。
+     */
+    @NotNull(message = "kind不能为空")
+    @Min(value = 0, message = "kind取值为0、1、2")
+    @Max(value = 2, message = "kind取值为0、1、2")
+    @JsonProperty("kind")
+    private Integer kind;
+
+    /**
+     * 本批次的试管数量。
+     */
+    @NotNull(message = "count不能为空")
+    @Min(value = 1, message = "count必须大于0")
+    @JsonProperty("count")
+    private Integer count;
+}
@@ -0,0 +1,69 @@
+package org.software.code.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * ArchivedTestRecordDto 是一个数据传输对象（DTO），用于封装一条核酸检测记录及其试管结果。
+ * 归档分区时按该结构导出到归档文件，查询历史记录时从归档文件和在线表读出的记录也统一为该结构。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class ArchivedTestRecordDto {
+    /**
+     * 核酸检测记录的唯一标识。
+     */
+    private Long id;
+
+    /**
+     * 被采样用户的唯一标识。
+     */
+    private Long uid;
+
+    /**
+     * 采样人员的唯一标识。
+     */
+    private Long tid;
+
+    /**
+     * 试管的唯一标识。
+     */
+    private Long tubeid;
+
+    /**
+     * 试管类型，0 单管， 1 十人混管， 2 二十人混管。
+     */
+    private Integer kind;
+
+    /**
+     * 检测地址。
+     */
+    private String testAddress;
+
+    /**
+     * 是否已复检。
+     */
+    private Integer reTest;
+
+    /**
+     * 采样时间。
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 记录更新时间。
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * 试管检测结果，0 阴性，1 阳性，2 未出，试管信息不存在时为空。
+     */
+    private Integer result;
+
+    /**
+     * 检测机构名称。
+     */
+    private String testingOrganization;
+}
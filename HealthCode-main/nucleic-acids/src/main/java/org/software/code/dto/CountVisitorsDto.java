@@ -0,0 +1,40 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * CountVisitorsDto 是一个数据传输对象（DTO），用于批量统计一批场所在时间范围内的到访人数和阳性人数，
+ * 自动修改场所风险等级时以该对象作为请求体调用场所码服务。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class CountVisitorsDto {
+
+    /**
+     * 要统计的场所 ID 列表，在 JSON 序列化和反序列化时对应 "pids" 字段。
+     */
+    @JsonProperty("pids")
+    private List<Long> pids;
+
+    /**
+     * 统计的开始时间（包含），在 JSON 序列化和反序列化时对应 "start_time" 字段。
+     */
+    @JsonProperty("start_time")
+    private String start_time;
+
+    /**
+     * 统计的结束时间（不包含），在 JSON 序列化和反序列化时对应 "end_time" 字段。
+     */
+    @JsonProperty("end_time")
+    private String end_time;
+
+    /**
+     * 阳性人员的用户 ID 列表，在 JSON 序列化和反序列化时对应 "positive_uids" 字段。
+     */
+    @JsonProperty("positive_uids")
+    private List<Long> positive_uids;
+}
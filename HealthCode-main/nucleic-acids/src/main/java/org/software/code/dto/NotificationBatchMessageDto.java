@@ -0,0 +1,29 @@
+package org.software.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * NotificationBatchMessageDto 是一个数据传输对象（DTO），用于封装批量通知消息。
+ * 同一类型的通知会合并为一条消息发送，消息中携带全部接收人，
+ * 避免为每个人单独发送一条 Kafka 消息。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationBatchMessageDto {
+    /**
+     * 通知消息的类型，例如 SMS、COMMUNITY、EPIDEMIC，与 NotificationMessageDto 中的类型一致。
+     */
+    private String type;
+
+    /**
+     * 通知的接收人列表，每个接收人包含姓名、电话和身份证号码。
+     */
+    private List<NotificationMessageDto> recipients;
+}
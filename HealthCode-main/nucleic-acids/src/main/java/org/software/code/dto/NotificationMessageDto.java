@@ -11,6 +11,11 @@ import lombok.Data;
  */
 @Data
 public class NotificationMessageDto {
+    /**
+     * 通知消息所关联的用户 ID，用作 Kafka 消息键，保证同一用户的通知落在同一分区。
+     */
+    private Long uid;
+
     /**
      * 通知消息所关联的人员姓名，可用于明确通知的对象。
      */
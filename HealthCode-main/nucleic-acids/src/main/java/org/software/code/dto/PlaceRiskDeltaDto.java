@@ -0,0 +1,55 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PlaceRiskDeltaDto 是一个数据传输对象（DTO），用于封装场所风险等级的变化事件。
+ * 场所风险实时计算引擎在某个场所的风险等级发生变化时，
+ * 会向 Kafka 主题 "place-risk-topic" 发送该事件，供场所码、行程码等服务订阅。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlaceRiskDeltaDto {
+
+    /**
+     * 场所的唯一标识，在 JSON 序列化和反序列化时对应 "pid" 字段。
+     */
+    @JsonProperty("pid")
+    private Long pid;
+
+    /**
+     * 变化前的风险等级，首次计算时为 null，在 JSON 序列化和反序列化时对应 "old_risk" 字段。
+     */
+    @JsonProperty("old_risk")
+    private String oldRisk;
+
+    /**
+     * 变化后的风险等级，在 JSON 序列化和反序列化时对应 "new_risk" 字段。
+     */
+    @JsonProperty("new_risk")
+    private String newRisk;
+
+    /**
+     * 窗口内到访的去重人数，在 JSON 序列化和反序列化时对应 "population" 字段。
+     */
+    @JsonProperty("population")
+    private Integer population;
+
+    /**
+     * 窗口内到访的阳性人数，在 JSON 序列化和反序列化时对应 "positive" 字段。
+     */
+    @JsonProperty("positive")
+    private Integer positive;
+
+    /**
+     * 风险等级变化的毫秒时间戳，在 JSON 序列化和反序列化时对应 "time" 字段。
+     */
+    @JsonProperty("time")
+    private Long time;
+}
@@ -0,0 +1,30 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PlaceRiskDto 是一个数据传输对象（DTO），用于封装单个场所的风险等级，
+ * 自动修改场所风险等级时以该对象的列表作为请求体，批量调用场所码服务。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlaceRiskDto {
+
+    /**
+     * 场所的唯一标识，在 JSON 序列化和反序列化时对应 "pid" 字段。
+     */
+    @JsonProperty("pid")
+    private Long pid;
+
+    /**
+     * 风险等级，取值为 green、yellow 或 red，在 JSON 序列化和反序列化时对应 "risk" 字段。
+     */
+    @JsonProperty("risk")
+    private String risk;
+}
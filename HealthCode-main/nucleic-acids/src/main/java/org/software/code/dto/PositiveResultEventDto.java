@@ -0,0 +1,37 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PositiveResultEventDto 是一个数据传输对象（DTO），用于封装单管阳性结果事件。
+ * 录入单管阳性结果时，核酸检测服务会向 Kafka 主题 "positive-result-topic" 发送该事件，
+ * 场所风险实时计算引擎据此更新相关场所的阳性到访人数。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PositiveResultEventDto {
+
+    /**
+     * 阳性人员的用户唯一标识，在 JSON 序列化和反序列化时对应 "uid" 字段。
+     */
+    @JsonProperty("uid")
+    private Long uid;
+
+    /**
+     * 阳性检测管编号，在 JSON 序列化和反序列化时对应 "tubeid" 字段。
+     */
+    @JsonProperty("tubeid")
+    private Long tubeid;
+
+    /**
+     * 结果录入时间的毫秒时间戳，在 JSON 序列化和反序列化时对应 "time" 字段。
+     */
+    @JsonProperty("time")
+    private Long time;
+}
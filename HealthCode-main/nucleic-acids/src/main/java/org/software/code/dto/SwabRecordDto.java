@@ -0,0 +1,55 @@
+package org.software.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * SwabRecordDto 是一个数据传输对象（DTO），用于封装一条待写入数据库的采样记录。
+ * 采样点提交的记录先进入写入队列，再由 SwabBatchWriter 合并为批次统一写入。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SwabRecordDto {
+    /**
+     * 被采样用户的唯一标识。
+     */
+    private Long uid;
+
+    /**
+     * 采样人员的唯一标识。
+     */
+    private Long tid;
+
+    /**
+     * 试管的唯一标识。
+     */
+    private Long tubeid;
+
+    /**
+     * 检测类型，0 表示单管，其他值表示混管。
+     */
+    private Integer kind;
+
+    /**
+     * 检测地址。
+     */
+    private String testAddress;
+
+    /**
+     * 采样时间，为空时使用数据库写入时间。
+     */
+    private LocalDateTime collectedAt;
+
+    /**
+     * 创建一条以写入时间为采样时间的记录。
+     */
+    public SwabRecordDto(Long uid, Long tid, Long tubeid, Integer kind, String testAddress) {
+        this(uid, tid, tubeid, kind, testAddress, null);
+    }
+}
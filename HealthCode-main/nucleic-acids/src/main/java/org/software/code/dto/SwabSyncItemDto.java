@@ -0,0 +1,58 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * SwabSyncItemDto 是一个数据传输对象（DTO），用于封装采样设备离线期间缓存的一条采样记录。
+ * 被采样人可以通过身份证号或用户令牌二选一进行标识，设备恢复网络后批量上传。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class SwabSyncItemDto {
+
+    /**
+     * 被检测人员的身份证号，在 JSON 序列化和反序列化时对应 "identity_card" 字段。
+     * 与 token 二选一，同时提供时以 token 为准。
+     */
+    @JsonProperty("identity_card")
+    private String identity_card;
+
+    /**
+     * 被检测人员的用户令牌，在 JSON 序列化和反序列化时对应 "token" 字段。
+     */
+    @JsonProperty("token")
+    private String token;
+
+    /**
+     * 核酸检测的类型，在 JSON 序列化和反序列化时对应 "kind" 字段。
+     */
+    @NotNull(message = "kind不能为空")
+    @JsonProperty("kind")
+    private Integer kind;
+
+    /**
+     * 试管的唯一标识，在 JSON 序列化和反序列化时对应 "tubeid" 字段。
+     */
+    @NotNull(message = "tubeid不能为空")
+    @JsonProperty("tubeid")
+    private Long tubeid;
+
+    /**
+     * 检测地址，在 JSON 序列化和反序列化时对应 "test_address" 字段。
+     */
+    @NotBlank(message = "test_address不能为空")
+    @JsonProperty("test_address")
+    private String test_address;
+
+    /**
+     * 设备上记录的采样时间（毫秒时间戳），在 JSON 序列化和反序列化时对应 "collected_at" 字段。
+     * 为空时以上传时间为准。
+     */
+    @JsonProperty("collected_at")
+    private Long collected_at;
+}
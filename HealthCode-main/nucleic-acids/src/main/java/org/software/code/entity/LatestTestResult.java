@@ -0,0 +1,71 @@
+package org.software.code.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 每个用户最近一次核酸检测及其结果，由采样写入和结果录入同步维护。
+ * @TableName latest_test_result
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@TableName(value = "latest_test_result")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatestTestResult implements Serializable {
+    /**
+     * 用户唯一标识
+     */
+    @TableId(value = "uid", type = IdType.INPUT)
+    private Long uid;
+
+    /**
+     * 最近一次检测的检测管编号
+     */
+    @TableField(value = "tubeid")
+    private Long tubeid;
+
+    /**
+     * 0 单管， 1 十人混管， 2 二十人混管
+     */
+    @TableField(value = "kind")
+    private Integer kind;
+
+    /**
+     * 0：阴性，1：阳性，2未出
+     */
+    @TableField(value = "result")
+    private Integer result;
+
+    /**
+     * 检测机构名称
+     */
+    @TableField(value = "testing_organization")
+    private String testingOrganization;
+
+    /**
+     * 采样时间
+     */
+    @TableField(value = "tested_at")
+    private LocalDateTime testedAt;
+
+    /**
+     * 记录更新时间
+     */
+    @TableField(value = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
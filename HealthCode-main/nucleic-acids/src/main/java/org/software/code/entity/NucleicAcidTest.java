@@ -48,6 +48,12 @@ public class NucleicAcidTest implements Serializable {
     @TableField(value = "tubeid")
     private Long tubeid;
 
+    /**
+     * 试管类型，0 单管， 1 十人混管， 2 二十人混管
+     */
+    @TableField(value = "kind")
+    private Integer kind;
+
     /**
      * 核酸检测地址
      */
@@ -91,6 +97,7 @@ public class NucleicAcidTest implements Serializable {
             && (this.getUid() == null ? other.getUid() == null : this.getUid().equals(other.getUid()))
             && (this.getTid() == null ? other.getTid() == null : this.getTid().equals(other.getTid()))
             && (this.getTubeid() == null ? other.getTubeid() == null : this.getTubeid().equals(other.getTubeid()))
+            && (this.getKind() == null ? other.getKind() == null : this.getKind().equals(other.getKind()))
             && (this.getTestAddress() == null ? other.getTestAddress() == null : this.getTestAddress().equals(other.getTestAddress()))
             && (this.getReTest() == null ? other.getReTest() == null : this.getReTest().equals(other.getReTest()))
             && (this.getCreatedAt() == null ? other.getCreatedAt() == null : this.getCreatedAt().equals(other.getCreatedAt()))
@@ -105,6 +112,7 @@ public class NucleicAcidTest implements Serializable {
         result = prime * result + ((getUid() == null) ? 0 : getUid().hashCode());
         result = prime * result + ((getTid() == null) ? 0 : getTid().hashCode());
         result = prime * result + ((getTubeid() == null) ? 0 : getTubeid().hashCode());
+        result = prime * result + ((getKind() == null) ? 0 : getKind().hashCode());
         result = prime * result + ((getTestAddress() == null) ? 0 : getTestAddress().hashCode());
         result = prime * result + ((getReTest() == null) ? 0 : getReTest().hashCode());
         result = prime * result + ((getCreatedAt() == null) ? 0 : getCreatedAt().hashCode());
@@ -122,6 +130,7 @@ public class NucleicAcidTest implements Serializable {
         sb.append(", uid=").append(uid);
         sb.append(", tid=").append(tid);
         sb.append(", tubeid=").append(tubeid);
+        sb.append(", kind=").append(kind);
         sb.append(", testAddress=").append(testAddress);
         sb.append(", reTest=").append(reTest);
         sb.append(", createdAt=").append(createdAt);
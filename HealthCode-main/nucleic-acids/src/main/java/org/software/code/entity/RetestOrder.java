@@ -0,0 +1,71 @@
+package org.software.code.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 混管阳性后为管内用户生成的单管复检单。
+ * @TableName retest_order
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@TableName(value = "retest_order")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RetestOrder implements Serializable {
+    /**
+     * 复检单的唯一标识
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 阳性混管的检测管编号
+     */
+    @TableField(value = "pool_tubeid")
+    private Long poolTubeid;
+
+    /**
+     * 阳性混管的类型，1 十人混管， 2 二十人混管
+     */
+    @TableField(value = "pool_kind")
+    private Integer poolKind;
+
+    /**
+     * 需要复检的用户唯一标识
+     */
+    @TableField(value = "uid")
+    private Long uid;
+
+    /**
+     * 0：待复检，1：已复检
+     */
+    @TableField(value = "status")
+    private Integer status;
+
+    /**
+     * 记录创建时间
+     */
+    @TableField(value = "created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 完成复检的时间
+     */
+    @TableField(value = "completed_at")
+    private LocalDateTime completedAt;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
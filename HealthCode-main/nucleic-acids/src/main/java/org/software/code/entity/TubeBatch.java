@@ -0,0 +1,65 @@
+package org.software.code.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 发放给核酸检测机构的一段连续试管编号。
+ * @TableName tube_batch
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@TableName(value = "tube_batch")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TubeBatch implements Serializable {
+    /**
+     * 批次的唯一标识
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 领取试管的核酸检测机构 ID
+     */
+    @TableField(value = "institution_id")
+    private Long institutionId;
+
+    /**
+     * 0 单管， 1 十人混管， 2 二十人混管
+     */
+    @TableField(value = "kind")
+    private Integer kind;
+
+    /**
+     * 批次第一支试管的序号（不含类型前缀）
+     */
+    @TableField(value = "start_seq")
+    private Long startSeq;
+
+    /**
+     * 批次包含的试管数量
+     */
+    @TableField(value = "count")
+    private Integer count;
+
+    /**
+     * 记录创建时间
+     */
+    @TableField(value = "created_at")
+    private LocalDateTime createdAt;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
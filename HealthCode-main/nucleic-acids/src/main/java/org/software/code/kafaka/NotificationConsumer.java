@@ -2,16 +2,28 @@ package org.software.code.kafaka; // 注意：这里包名可能拼写错误，
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.logging.log4j.Logger;
-import org.software.code.common.except.BusinessException;
-import org.software.code.common.except.ExceptionEnum;
+import org.software.code.dto.NotificationBatchMessageDto;
 import org.software.code.dto.NotificationMessageDto;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * NotificationConsumer 是一个 Kafka 消费者服务类，用于从 Kafka 主题中消费通知消息，
  * 并根据消息类型执行相应的通知操作。
+ * 消息以批量方式消费，并发度、重试次数等参数见 KafkaConsumerConfig。
  *
  * @author “101”计划《软件工程》实践教材案例团队
  */
@@ -21,45 +33,143 @@ public class NotificationConsumer {
     private final ObjectMapper objectMapper = new ObjectMapper();
     // 日志记录器，用于记录关键信息和错误信息
     private static final Logger logger = LogManager.getLogger(NotificationConsumer.class);
+    // 各消息类型已处理的通知数
+    private final Map<String, LongAdder> processedByType = new ConcurrentHashMap<>();
+    // 各消息类型最近一条消息的消费延迟（毫秒）
+    private final Map<String, AtomicLong> lagByType = new ConcurrentHashMap<>();
+
+    // 用于重新发布部分接收人处理失败的批量通知
+    @Resource
+    private NotificationProducer notificationProducer;
 
     /**
-     * 监听 Kafka 主题 "notification-topic" 中的消息，处理接收到的通知消息。
+     * 批量监听 Kafka 主题 "notification-topic" 中的消息，逐条处理接收到的通知消息。
+     * 某条消息处理失败时抛出 BatchListenerFailedException 指明失败位置，
+     * 由容器提交之前已成功的消息，并对失败消息重试，超过最大尝试次数后转发到死信主题。
      *
-     * @param messageStr 从 Kafka 主题接收到的消息字符串
+     * @param records 从 Kafka 主题接收到的一批消息
      */
-    @KafkaListener(topics = "notification-topic", groupId = "notification-group")
-    public void consumeNotification(String messageStr) {
-        try {
-            // 将接收到的 JSON 字符串消息反序列化为 NotificationMessageDto 对象
-            NotificationMessageDto message = objectMapper.readValue(messageStr, NotificationMessageDto.class);
+    @KafkaListener(topics = "notification-topic", groupId = "notification-group",
+            containerFactory = "batchNotificationContainerFactory")
+    public void consumeNotification(List<ConsumerRecord<String, String>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            try {
+                // 将接收到的 JSON 字符串消息反序列化为 NotificationMessageDto 对象
+                NotificationMessageDto message = objectMapper.readValue(record.value(), NotificationMessageDto.class);
+                dispatch(message);
+                recordMetrics(message.getType(), 1, record.timestamp());
+            } catch (Exception e) {
+                logger.error("Failed to consume notification at offset {}, message: {}", record.offset(), e.getMessage());
+                throw new BatchListenerFailedException("Failed to consume notification", e, i);
+            }
+        }
+    }
 
-            // 根据消息类型执行相应的通知操作
-            switch (message.getType()) {
-                case "SMS":
-                    // 若消息类型为 "SMS"，则调用发送短信通知的方法
-                    sendSmsNotification(message);
-                    break;
-                case "COMMUNITY":
-                    // 若消息类型为 "COMMUNITY"，则调用上报社区的方法
-                    reportToCommunity(message);
-                    break;
-                case "EPIDEMIC":
-                    // 若消息类型为 "EPIDEMIC"，则调用上报疫情防控办的方法
-                    reportToEpidemicPrevention(message);
-                    break;
-                case "POSITIVE":
-                    // 若消息类型为 "POSITIVE"，则调用处理单管阳性情况的方法
-                    reportPositive(message);
-                    break;
-                default:
-                    // 若消息类型不匹配任何已知类型，则不做处理
-                    break;
+    /**
+     * 批量监听 Kafka 主题 "notification-batch-topic" 中的批量通知消息，
+     * 对消息中的每个接收人按消息类型执行相应的通知操作。
+     * 全部接收人都处理失败时按 consumeNotification 的方式由容器重试该消息；
+     * 部分接收人处理失败时，只把失败的接收人重新发布为一条新的批量消息，
+     * 已处理的接收人不会因重试再次收到通知。每次重新发布都至少处理成功一个接收人，因此重新发布的次数有限。
+     *
+     * @param records 从 Kafka 主题接收到的一批消息
+     */
+    @KafkaListener(topics = "notification-batch-topic", groupId = "notification-group",
+            containerFactory = "batchNotificationContainerFactory")
+    public void consumeBatchNotification(List<ConsumerRecord<String, String>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            NotificationBatchMessageDto batch;
+            try {
+                // 将接收到的 JSON 字符串消息反序列化为 NotificationBatchMessageDto 对象
+                batch = objectMapper.readValue(record.value(), NotificationBatchMessageDto.class);
+            } catch (Exception e) {
+                logger.error("Failed to consume batch notification at offset {}, message: {}", record.offset(), e.getMessage());
+                throw new BatchListenerFailedException("Failed to consume batch notification", e, i);
+            }
+            List<NotificationMessageDto> failed = new ArrayList<>();
+            Exception cause = null;
+            for (NotificationMessageDto message : batch.getRecipients()) {
+                message.setType(batch.getType());
+                try {
+                    dispatch(message);
+                } catch (Exception e) {
+                    failed.add(message);
+                    cause = e;
+                }
             }
-        } catch (Exception e) {
-            // 打印异常堆栈信息
-            e.printStackTrace();
-            // 抛出业务异常，异常信息由 ExceptionEnum.RETEST_NOTIFICATION_EXCEPTION 定义
-            throw new BusinessException(ExceptionEnum.RETEST_NOTIFICATION_EXCEPTION);
+            recordMetrics(batch.getType(), batch.getRecipients().size() - failed.size(), record.timestamp());
+            if (failed.isEmpty()) {
+                continue;
+            }
+            if (failed.size() == batch.getRecipients().size()) {
+                // 没有接收人处理成功，重试整条消息不会重复通知
+                logger.error("Failed to consume batch notification at offset {}, message: {}", record.offset(), cause.getMessage());
+                throw new BatchListenerFailedException("Failed to consume batch notification", cause, i);
+            }
+            logger.warn("{} of {} recipients failed in batch notification at offset {}, republish them, message: {}",
+                    failed.size(), batch.getRecipients().size(), record.offset(), cause.getMessage());
+            notificationProducer.sendMessage(record.topic(), record.key(),
+                    new NotificationBatchMessageDto(batch.getType(), failed));
+        }
+    }
+
+    /**
+     * 获取各消息类型的消费统计信息。
+     *
+     * @return 键为消息类型，值包含已处理的通知数（processed）和最近一条消息的消费延迟毫秒数（lag_ms）
+     */
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> metrics = new TreeMap<>();
+        processedByType.forEach((type, processed) -> {
+            Map<String, Long> item = new LinkedHashMap<>();
+            item.put("processed", processed.sum());
+            item.put("lag_ms", lagByType.get(type).get());
+            metrics.put(type, item);
+        });
+        return metrics;
+    }
+
+    /**
+     * 记录某类消息的处理数量和消费延迟（当前时间与消息写入 Kafka 时间之差）。
+     */
+    private void recordMetrics(String type, int count, long timestamp) {
+        String key = type == null ? "UNKNOWN" : type;
+        lagByType.computeIfAbsent(key, k -> new AtomicLong()).set(System.currentTimeMillis() - timestamp);
+        processedByType.computeIfAbsent(key, k -> new LongAdder()).add(count);
+    }
+
+    /**
+     * 根据消息类型执行相应的通知操作。
+     *
+     * @param message 包含通知信息的消息对象
+     */
+    private void dispatch(NotificationMessageDto message) {
+        switch (message.getType()) {
+            case "SMS":
+                // 若消息类型为 "SMS"，则调用发送短信通知的方法
+                sendSmsNotification(message);
+                break;
+            case "COMMUNITY":
+                // 若消息类型为 "COMMUNITY"，则调用上报社区的方法
+                reportToCommunity(message);
+                break;
+            case "EPIDEMIC":
+                // 若消息类型为 "EPIDEMIC"，则调用上报疫情防控办的方法
+                reportToEpidemicPrevention(message);
+                break;
+            case "POSITIVE":
+                // 若消息类型为 "POSITIVE"，则调用处理单管阳性情况的方法
+                reportPositive(message);
+                break;
+            case "RETEST":
+                // 若消息类型为 "RETEST"，则调用通知混管阳性用户单管复检的方法
+                sendRetestNotification(message);
+                break;
+            default:
+                // 若消息类型不匹配任何已知类型，则不做处理
+                break;
         }
     }
 
@@ -106,4 +216,17 @@ public class NotificationConsumer {
         logger.info("single tubei positive: Name={}, Identity Card={}, Phone={}", message.getName(), message.getIdentity_card(), message.getPhone());
         // TODO 单管阳性
     }
-}
\ No newline at end of file
+
+    /**
+     * 通知混管阳性的用户进行单管复检。复检通知通过短信通道下发，与阳性结果的短信通知走同一条发送路径，
+     * 消息类型仍为 "RETEST"，消费统计中与普通短信分开计数。
+     *
+     * @param message 包含通知信息的消息对象
+     */
+    private void sendRetestNotification(NotificationMessageDto message) {
+        // 记录单管复检通知的日志信息
+        logger.info("Sending retest notification to user: Name={}, Identity Card={}, Phone={}", message.getName(), message.getIdentity_card(), message.getPhone());
+        // 通过短信通道通知用户尽快进行单管复检
+        sendSmsNotification(message);
+    }
+}
@@ -1,21 +1,42 @@
 package org.software.code.kafaka; // 这里包名可能拼写有误，应该是 "kafka"
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.software.code.dto.NotificationMessageDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * NotificationProducer 是一个 Kafka 生产者服务类，
  * 主要用于将通知消息发送到指定的 Kafka 主题。
+ * 消息以异步方式发送，发送结果通过回调统计；发送失败的消息写入本地重试队列，
+ * 由独立的重试线程定期重新投递，避免通知高峰时阻塞请求线程或丢失消息。
+ * 一轮重新投递最长等待 retry-ack-timeout-ms，重试线程不占用 Spring 的单个调度线程，Kafka 不可用时不会阻塞其他定时任务。
+ * 批量发送、延迟和压缩等参数在 application.yml 的 spring.kafka.producer 中配置。
  *
  * @author “101”计划《软件工程》实践教材案例团队
  */
 @Service
 public class NotificationProducer {
 
+    // 日志记录器，用于记录发送失败等错误信息
+    private static final Logger logger = LogManager.getLogger(NotificationProducer.class);
+
     /**
      * 注入 KafkaTemplate，用于与 Kafka 进行交互，发送消息到指定主题。
      * 这里使用的 KafkaTemplate 泛型为 <String, String>，表示消息的键和值都为字符串类型。
@@ -23,27 +44,231 @@ public class NotificationProducer {
     @Resource
     private KafkaTemplate<String, String> kafkaTemplate;
 
+    /**
+     * 注入本地重试队列，用于保存发送失败的消息。
+     */
+    @Resource
+    private NotificationRetrySpool retrySpool;
+
     /**
      * ObjectMapper 用于将 Java 对象序列化为 JSON 字符串，
      * 以便将 NotificationMessageDto 对象转换为适合在 Kafka 中传输的格式。
      */
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * 一条消息从重试队列重新发送的最大次数，超过后转入死信文件。
+     */
+    @Value("${notification.producer.max-retries:10}")
+    private int maxRetries;
+
+    /**
+     * 等待一轮重新发送全部得到确认的最长时间（毫秒），应大于生产者的 delivery.timeout.ms。
+     */
+    @Value("${notification.producer.retry-ack-timeout-ms:150000}")
+    private long retryAckTimeoutMs;
+
+    /**
+     * 上一轮重新投递结束到下一轮开始的间隔（毫秒）。
+     */
+    @Value("${notification.producer.retry-interval-ms:30000}")
+    private long retryIntervalMs;
+
+    private ScheduledExecutorService retryScheduler;
+
+    // 已提交给 KafkaTemplate 的消息数
+    private final LongAdder submitted = new LongAdder();
+
+    // Broker 确认成功的消息数
+    private final LongAdder succeeded = new LongAdder();
+
+    // 发送失败的消息数（包括提交时失败和回调失败）
+    private final LongAdder failed = new LongAdder();
+
+    // 写入重试队列的消息数
+    private final LongAdder spooled = new LongAdder();
+
+    // 从重试队列重新投递的消息数
+    private final LongAdder retried = new LongAdder();
+
+    // 重试次数达到上限而转入死信文件的消息数
+    private final LongAdder deadLettered = new LongAdder();
+
+    /**
+     * 启动重试线程。
+     */
+    @PostConstruct
+    public void init() {
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler.scheduleWithFixedDelay(this::retrySpooled, retryIntervalMs, retryIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止重试线程，未完成的一轮保留取出的文件，下次启动时重新投递。
+     */
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+
     /**
      * 向指定的 Kafka 主题发送通知消息。
+     * 消息以用户 ID 作为键（没有用户 ID 时使用身份证号码），保证同一用户的通知落在同一分区内并保持顺序。
      *
      * @param topic 要发送消息的 Kafka 主题名称。
      * @param message 包含通知信息的 NotificationMessageDto 对象。
      */
     public void sendNotification(String topic, NotificationMessageDto message) {
+        String key = message.getUid() != null ? String.valueOf(message.getUid()) : message.getIdentity_card();
+        sendMessage(topic, key, message);
+    }
+
+    /**
+     * 向指定的 Kafka 主题发送任意事件消息，不指定消息键，由 Kafka 将消息均匀分布到各分区。
+     *
+     * @param topic 要发送消息的 Kafka 主题名称。
+     * @param payload 要发送的事件对象，会被序列化为 JSON 字符串。
+     */
+    public void sendMessage(String topic, Object payload) {
+        sendMessage(topic, null, payload);
+    }
+
+    /**
+     * 向指定的 Kafka 主题发送任意事件消息，如扫码事件、阳性结果事件、场所风险变化事件等。
+     *
+     * @param topic 要发送消息的 Kafka 主题名称。
+     * @param key 消息键，相同键的消息会被发送到同一分区，可以为 null。
+     * @param payload 要发送的事件对象，会被序列化为 JSON 字符串。
+     */
+    public void sendMessage(String topic, String key, Object payload) {
+        String messageStr;
+        try {
+            // 将事件对象序列化为 JSON 字符串
+            messageStr = objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            // 序列化失败的消息重试也无法成功，只记录日志
+            failed.increment();
+            logger.error("Failed to serialize message for topic {}, message: {}", topic, e.getMessage());
+            return;
+        }
+        send(topic, key, messageStr);
+    }
+
+    /**
+     * 定期将重试队列中的消息重新投递，投递仍然失败的消息会被再次写入重试队列，
+     * 重试次数达到上限的消息转入死信文件。全部消息得到确认后才删除取出的文件，
+     * 等待超时时保留文件，下一轮重新投递。
+     */
+    public void retrySpooled() {
         try {
-            // 将 NotificationMessageDto 对象序列化为 JSON 字符串
-            String messageStr = objectMapper.writeValueAsString(message);
-            // 使用 KafkaTemplate 将消息字符串发送到指定的 Kafka 主题
-            kafkaTemplate.send(topic, messageStr);
+            List<NotificationRetrySpool.Record> records = retrySpool.drain();
+            if (records.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>(records.size());
+            for (NotificationRetrySpool.Record record : records) {
+                retried.increment();
+                futures.add(resend(record));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(retryAckTimeoutMs, TimeUnit.MILLISECONDS);
+            retrySpool.complete();
+            logger.info("Retried {} spooled messages", records.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            // 若在序列化或发送消息过程中出现异常，打印异常堆栈信息
-            e.printStackTrace();
+            // 任务抛出异常会取消后续调度，这里只记录日志
+            logger.error("Spooled messages were not acknowledged in time, keep spool file, message: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * 获取生产者的发送统计信息。
+     *
+     * @return 各项计数的快照
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("submitted", submitted.sum());
+        metrics.put("succeeded", succeeded.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("spooled", spooled.sum());
+        metrics.put("retried", retried.sum());
+        metrics.put("deadLettered", deadLettered.sum());
+        return metrics;
+    }
+
+    /**
+     * 异步发送一条消息，并注册完成回调。
+     */
+    private void send(String topic, String key, String messageStr) {
+        try {
+            // 使用 KafkaTemplate 将消息字符串异步发送到指定的 Kafka 主题
+            kafkaTemplate.send(topic, key, messageStr).addCallback(
+                    result -> succeeded.increment(),
+                    ex -> onFailure(topic, key, messageStr, ex));
+            submitted.increment();
+        } catch (Exception e) {
+            // 获取元数据超时或缓冲区已满时，send 会直接抛出异常
+            onFailure(topic, key, messageStr, e);
+        }
+    }
+
+    /**
+     * 处理发送失败的消息，写入本地重试队列。
+     */
+    private void onFailure(String topic, String key, String messageStr, Throwable ex) {
+        failed.increment();
+        logger.error("Failed to send message to topic {}, message: {}", topic, ex.getMessage());
+        if (retrySpool.append(topic, key, messageStr)) {
+            spooled.increment();
+        }
+    }
+
+    /**
+     * 重新发送一条重试队列中的消息，返回的 Future 在消息发送成功、重新入队或转入死信后完成。
+     */
+    private CompletableFuture<Void> resend(NotificationRetrySpool.Record record) {
+        CompletableFuture<?> sent;
+        try {
+            sent = kafkaTemplate.send(record.getTopic(), record.getKey(), record.getValue()).completable();
+            submitted.increment();
+        } catch (Exception e) {
+            onRetryFailure(record, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return sent.handle((result, ex) -> {
+            if (ex == null) {
+                succeeded.increment();
+            } else {
+                onRetryFailure(record, ex);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 处理重新发送失败的消息，未达到重试上限时重新入队，否则转入死信文件。
+     */
+    private void onRetryFailure(NotificationRetrySpool.Record record, Throwable ex) {
+        failed.increment();
+        if (record.getAttempts() + 1 >= maxRetries) {
+            logger.error("Message to topic {} failed after {} retries, move to dead letter file, message: {}",
+                    record.getTopic(), record.getAttempts() + 1, ex.getMessage());
+            if (retrySpool.deadLetter(record)) {
+                deadLettered.increment();
+            }
+            return;
+        }
+        logger.error("Failed to resend message to topic {}, message: {}", record.getTopic(), ex.getMessage());
+        if (retrySpool.retryLater(record)) {
+            spooled.increment();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package org.software.code.kafaka; // 这里包名可能拼写有误，应该是 "kafka"
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NotificationRetrySpool 是 Kafka 消息的本地磁盘重试队列。
+ * 发送失败的消息会以 "主题\t键\t已重试次数\t消息体" 的行格式追加到本地文件中，
+ * 由 NotificationProducer 定期取出重新发送，保证在 Kafka 不可用期间消息不会丢失。
+ * 消息体是单行 JSON，其中的制表符和换行符均已被转义，因此可以安全地按行、按制表符切分。
+ * 取出的文件在本轮重新发送全部得到确认后才删除，中途崩溃时下次启动会重新发送，消息至少投递一次；
+ * 重试次数达到上限的消息转入死信文件，不再重试。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class NotificationRetrySpool {
+
+    private static final Logger logger = LogManager.getLogger(NotificationRetrySpool.class);
+
+    // 表示消息没有键的占位符
+    private static final String NULL_KEY = "-";
+
+    /**
+     * 重试队列文件路径。
+     */
+    @Value("${notification.producer.spool-file:notification-spool.data}")
+    private String spoolFile;
+
+    /**
+     * 死信文件路径，重试次数达到上限的消息写入该文件，需要人工处理。
+     */
+    @Value("${notification.producer.dead-letter-file:notification-dead-letter.data}")
+    private String deadLetterFile;
+
+    /**
+     * 重试队列中的一条消息。
+     */
+    public static final class Record {
+
+        private final String topic;
+
+        private final String key;
+
+        private final String value;
+
+        private final int attempts;
+
+        private Record(String topic, String key, String value, int attempts) {
+            this.topic = topic;
+            this.key = key;
+            this.value = value;
+            this.attempts = attempts;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * 已从重试队列重新发送的次数。
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    /**
+     * 将一条发送失败的消息追加到重试队列。
+     *
+     * @param topic 消息主题
+     * @param key   消息键，可以为 null
+     * @param value 消息体
+     * @return 写入成功返回 true
+     */
+    public boolean append(String topic, String key, String value) {
+        return append(spoolFile, topic, key, value, 0);
+    }
+
+    /**
+     * 将一条重新发送仍然失败的消息追加到重试队列，重试次数加一。
+     *
+     * @param record 重新发送的消息
+     * @return 写入成功返回 true
+     */
+    public boolean retryLater(Record record) {
+        return append(spoolFile, record.topic, record.key, record.value, record.attempts + 1);
+    }
+
+    /**
+     * 将一条重试次数达到上限的消息写入死信文件。
+     *
+     * @param record 重新发送的消息
+     * @return 写入成功返回 true
+     */
+    public boolean deadLetter(Record record) {
+        return append(deadLetterFile, record.topic, record.key, record.value, record.attempts + 1);
+    }
+
+    private synchronized boolean append(String path, String topic, String key, String value, int attempts) {
+        String line = topic + '\t' + (key == null ? NULL_KEY : key) + '\t' + attempts + '\t' + value + '\n';
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(path).toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to spool message to {}, topic: {}, message: {}", path, topic, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 取出重试队列中的全部消息。
+     * 先将文件原子重命名，再读取重命名后的文件，取出期间新追加的消息会写入新文件，不会丢失。
+     * 重命名后的文件保留到调用 complete 为止，上一轮未完成时本轮重新读取该文件。
+     *
+     * @return 队列中的消息
+     */
+    public List<Record> drain() {
+        List<Record> records = new ArrayList<>();
+        File file = new File(spoolFile);
+        File draining = drainingFile();
+        synchronized (this) {
+            // 上一次取出过程中断时，先处理残留的文件
+            if (!draining.exists()) {
+                if (!file.exists()) {
+                    return records;
+                }
+                try {
+                    Files.move(file.toPath(), draining.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    logger.error("Failed to rotate spool file {}, message: {}", spoolFile, e.getMessage());
+                    return records;
+                }
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(draining.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record = parse(line);
+                if (record == null) {
+                    logger.warn("Skip malformed spool record: {}", line);
+                    continue;
+                }
+                records.add(record);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read spool file {}, message: {}", draining, e.getMessage());
+            return new ArrayList<>();
+        }
+        return records;
+    }
+
+    /**
+     * 删除已取出的文件，应在取出的消息全部发送成功、重新入队或转入死信后调用。
+     */
+    public void complete() {
+        try {
+            Files.deleteIfExists(drainingFile().toPath());
+        } catch (IOException e) {
+            logger.error("Failed to delete spool file {}, message: {}", drainingFile(), e.getMessage());
+        }
+    }
+
+    private File drainingFile() {
+        return new File(spoolFile + ".draining");
+    }
+
+    /**
+     * 解析一行记录，兼容不含重试次数的旧格式 "主题\t键\t消息体"。
+     */
+    private static Record parse(String line) {
+        String[] parts = line.split("\t", 4);
+        if (parts.length < 3) {
+            return null;
+        }
+        String key = NULL_KEY.equals(parts[1]) ? null : parts[1];
+        if (parts.length == 3) {
+            return new Record(parts[0], key, parts[2], 0);
+        }
+        try {
+            return new Record(parts[0], key, parts[3], Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
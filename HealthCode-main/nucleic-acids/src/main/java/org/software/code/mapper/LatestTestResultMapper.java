@@ -0,0 +1,38 @@
+package org.software.code.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.software.code.entity.LatestTestResult;
+
+import java.util.Collection;
+
+/**
+* @description 针对表【latest_test_result】的数据库操作Mapper
+* @Entity org.software.code.entity.LatestTestResult
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+*/
+public interface LatestTestResultMapper extends BaseMapper<LatestTestResult> {
+
+    /**
+     * 批量写入用户的最近一次检测，已有记录只在新检测的采样时间不早于原记录时覆盖。
+     * tested_at 必须最后赋值，前面的条件才能比较到原记录的采样时间。
+     *
+     * @param rows 每个用户的最近一次检测
+     * @return 影响行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO latest_test_result (uid, tubeid, kind, result, testing_organization, tested_at) VALUES "
+            + "<foreach collection='rows' item='r' separator=','>"
+            + "(#{r.uid}, #{r.tubeid}, #{r.kind}, #{r.result}, #{r.testingOrganization}, #{r.testedAt})"
+            + "</foreach> "
+            + "ON DUPLICATE KEY UPDATE "
+            + "tubeid = IF(VALUES(tested_at) >= tested_at, VALUES(tubeid), tubeid), "
+            + "kind = IF(VALUES(tested_at) >= tested_at, VALUES(kind), kind), "
+            + "result = IF(VALUES(tested_at) >= tested_at, VALUES(result), result), "
+            + "testing_organization = IF(VALUES(tested_at) >= tested_at, VALUES(testing_organization), testing_organization), "
+            + "tested_at = GREATEST(tested_at, VALUES(tested_at))"
+            + "</script>")
+    int upsertBatch(@Param("rows") Collection<LatestTestResult> rows);
+}
@@ -1,7 +1,17 @@
 package org.software.code.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.software.code.dto.ArchivedTestRecordDto;
+import org.software.code.entity.LatestTestResult;
 import org.software.code.entity.NucleicAcidTest;
+import org.software.code.vo.NucleicAcidTestResultVo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
 * @description 针对表【nucleic_acid_test】的数据库操作Mapper
@@ -12,8 +22,118 @@ import org.software.code.entity.NucleicAcidTest;
 */
 public interface NucleicAcidTestMapper extends BaseMapper<NucleicAcidTest> {
 
-}
+    /**
+     * 一次查询获取用户在指定时间之后的核酸检测结果，按采样时间降序排列。
+     * 检测记录与试管信息按 (tubeid, kind) 关联，避免同一编号的单管和混管互相匹配；
+     * 没有记录试管类型的旧数据仍按 tubeid 关联。
+     *
+     * @param uid   用户 ID
+     * @param since 起始时间
+     * @return 核酸检测结果列表
+     */
+    @Select("SELECT n.created_at, t.result, t.testing_organization "
+            + "FROM nucleic_acid_test n "
+            + "JOIN tube_info t ON t.tubeid = n.tubeid AND (n.kind IS NULL OR t.kind = n.kind) "
+            + "WHERE n.uid = #{uid} AND n.created_at >= #{since} "
+            + "ORDER BY n.created_at DESC")
+    List<NucleicAcidTestResultVo> selectResultsByUidSince(@Param("uid") long uid, @Param("since") LocalDateTime since);
+
+    /**
+     * 批量查询用户最近一次核酸检测及其试管结果，用于补齐 latest_test_result 中缺失的用户。
+     * 同一用户最近时间有多条记录时会返回多行，由调用方取其中一行。
+     *
+     * @param uids 用户 ID 列表，不能为空
+     * @return 最近一次检测列表，没有检测记录的用户不在其中
+     */
+    @Select("<script>"
+            + "SELECT n.uid, n.tubeid, t.kind, t.result, t.testing_organization, n.created_at AS tested_at "
+            + "FROM nucleic_acid_test n "
+            + "JOIN tube_info t ON t.tubeid = n.tubeid AND (n.kind IS NULL OR t.kind = n.kind) "
+            + "JOIN (SELECT l.uid, MAX(l.created_at) AS created_at FROM nucleic_acid_test l "
+            + "JOIN tube_info lt ON lt.tubeid = l.tubeid AND (l.kind IS NULL OR lt.kind = l.kind) "
+            + "WHERE l.uid IN <foreach collection='uids' item='uid' open='(' separator=',' close=')'>#{uid}</foreach> "
+            + "GROUP BY l.uid) m ON m.uid = n.uid AND m.created_at = n.created_at"
+            + "</script>")
+    List<LatestTestResult> selectLatestResultsByUids(@Param("uids") Collection<Long> uids);
+
+    /**
+     * 查询用户在 [start, end) 时间范围内的检测记录及其试管结果，用于合并在线表和归档文件的历史记录。
+     *
+     * @param uid   用户 ID
+     * @param start 起始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 检测记录列表
+     */
+    @Select("SELECT n.id, n.uid, n.tid, n.tubeid, n.kind, n.test_address, n.re_test, n.created_at, n.updated_at, "
+            + "t.result, t.testing_organization "
+            + "FROM nucleic_acid_test n "
+            + "LEFT JOIN tube_info t ON t.tubeid = n.tubeid AND (n.kind IS NULL OR t.kind = n.kind) "
+            + "WHERE n.uid = #{uid} AND n.created_at >= #{start} AND n.created_at < #{end}")
+    List<ArchivedTestRecordDto> selectRecordsByUidBetween(@Param("uid") long uid,
+                                                          @Param("start") LocalDateTime start,
+                                                          @Param("end") LocalDateTime end);
 
+    /**
+     * 按 (uid, id) 顺序分页读取一个分区中的检测记录及其试管结果，用于导出归档文件。
+     * 同一用户的记录在归档文件中相邻，行组的用户 ID 范围互不重叠，按用户查询时可以跳过其余行组。
+     *
+     * @param partition 分区名，由调用方校验格式
+     * @param afterUid  上一页最后一条记录的用户 ID
+     * @param afterId   上一页最后一条记录的 ID
+     * @param limit     每页条数
+     * @return 检测记录列表，按用户 ID 和 ID 升序排列
+     */
+    @Select("SELECT n.id, n.uid, n.tid, n.tubeid, n.kind, n.test_address, n.re_test, n.created_at, n.updated_at, "
+            + "t.result, t.testing_organization "
+            + "FROM nucleic_acid_test PARTITION (${partition}) n FORCE INDEX (nucleic_acid_test_idx_uid_id) "
+            + "LEFT JOIN tube_info t ON t.tubeid = n.tubeid AND (n.kind IS NULL OR t.kind = n.kind) "
+            + "WHERE n.uid > #{afterUid} OR (n.uid = #{afterUid} AND n.id > #{afterId}) "
+            + "ORDER BY n.uid, n.id LIMIT #{limit}")
+    List<ArchivedTestRecordDto> selectPartitionPage(@Param("partition") String partition,
+                                                    @Param("afterUid") long afterUid,
+                                                    @Param("afterId") long afterId,
+                                                    @Param("limit") int limit);
 
+    /**
+     * 统计一个分区中的记录数。
+     *
+     * @param partition 分区名，由调用方校验格式
+     * @return 记录数
+     */
+    @Select("SELECT COUNT(*) FROM nucleic_acid_test PARTITION (${partition})")
+    long countPartition(@Param("partition") String partition);
 
+    /**
+     * 按顺序查询 nucleic_acid_test 的分区名，表未分区时返回一个 null 元素。
+     *
+     * @return 分区名列表
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'nucleic_acid_test' "
+            + "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> selectPartitionNames();
 
+    /**
+     * 查询最早的采样时间，用于首次划分月分区。
+     *
+     * @return 最早的采样时间，表为空时返回 null
+     */
+    @Select("SELECT MIN(created_at) FROM nucleic_acid_test")
+    LocalDateTime selectMinCreatedAt();
+
+    /**
+     * 将兜底分区 p_max 拆分为若干新的月分区和新的 p_max。
+     *
+     * @param partitions 分区定义列表，由调用方生成
+     */
+    @Update("ALTER TABLE nucleic_acid_test REORGANIZE PARTITION p_max INTO (${partitions})")
+    void reorganizeMaxPartition(@Param("partitions") String partitions);
+
+    /**
+     * 删除一个已归档的分区。
+     *
+     * @param partition 分区名，由调用方校验格式
+     */
+    @Update("ALTER TABLE nucleic_acid_test DROP PARTITION ${partition}")
+    void dropPartition(@Param("partition") String partition);
+}
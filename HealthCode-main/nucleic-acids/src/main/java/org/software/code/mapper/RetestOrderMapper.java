@@ -0,0 +1,31 @@
+package org.software.code.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.software.code.entity.RetestOrder;
+
+import java.util.Collection;
+
+/**
+* @description 针对表【retest_order】的数据库操作Mapper
+* @Entity org.software.code.entity.RetestOrder
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+*/
+public interface RetestOrderMapper extends BaseMapper<RetestOrder> {
+
+    /**
+     * 批量生成复检单，同一混管同一用户已有复检单时跳过，重复录入同一混管结果不会重复生成。
+     *
+     * @param orders 复检单
+     * @return 实际生成的复检单数量
+     */
+    @Insert("<script>"
+            + "INSERT IGNORE INTO retest_order (pool_tubeid, pool_kind, uid, status) VALUES "
+            + "<foreach collection='orders' item='o' separator=','>"
+            + "(#{o.poolTubeid}, #{o.poolKind}, #{o.uid}, 0)"
+            + "</foreach>"
+            + "</script>")
+    int insertIgnoreBatch(@Param("orders") Collection<RetestOrder> orders);
+}
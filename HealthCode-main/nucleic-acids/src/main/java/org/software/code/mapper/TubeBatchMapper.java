@@ -0,0 +1,14 @@
+package org.software.code.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.software.code.entity.TubeBatch;
+
+/**
+* @description 针对表【tube_batch】的数据库操作Mapper
+* @Entity org.software.code.entity.TubeBatch
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+*/
+public interface TubeBatchMapper extends BaseMapper<TubeBatch> {
+
+}
@@ -5,6 +5,7 @@ import org.software.code.dto.AddNucleicAcidTestingInstitutionsDto;
 import org.software.code.dto.AreaCodeDto;
 import org.software.code.dto.UpdateNucleicAcidTestingInstitutionsDto;
 import org.software.code.entity.NucleicAcidTestingInstitutions;
+import org.software.code.service.cache.InstitutionsSnapshot;
 import org.software.code.vo.NucleicAcidTestingInstitutionsVo;
 
 import java.util.List;
@@ -58,6 +59,14 @@ public interface NucleicAcidTestingInstitutionsService extends IService<NucleicA
      */
     List<NucleicAcidTestingInstitutionsVo> getAllNucleicAcidTestingInstitutions();
 
+    /**
+     * 获取全部核酸检测机构的快照。
+     * 快照包含不可修改的机构列表和预先序列化好的响应体，只在机构信息增删改后重建。
+     *
+     * @return 核酸检测机构快照
+     */
+    InstitutionsSnapshot.Snapshot getInstitutionsSnapshot();
+
     /**
      * 根据区域编码查询核酸检测机构信息。
      * 该方法接收一个 AreaCodeDto 对象，根据其中的区域编码信息查询符合条件的核酸检测机构信息，
@@ -4,13 +4,19 @@ import org.software.code.dto.AddNucleicAcidTestRecordByIDDto;
 import org.software.code.dto.AddNucleicAcidTestRecordDto;
 import org.software.code.dto.NucleicAcidTestRecordDto;
 import org.software.code.dto.NucleicAcidTestRecordInputDto;
+import org.software.code.dto.SwabSyncItemDto;
 import org.software.code.vo.NucleicAcidTestInfoVo;
 import org.software.code.vo.NucleicAcidTestResultVo;
 import org.software.code.vo.PositiveInfoVo;
+import org.software.code.vo.ResultImportVo;
+import org.software.code.vo.SwabSyncResultVo;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * NucleicAcidsService 是一个服务接口，用于定义与核酸检测相关的业务逻辑操作。
@@ -44,6 +50,14 @@ public interface NucleicAcidsService {
      */
     NucleicAcidTestResultVo getLastNucleicAcidTestRecordByUID(long uid);
 
+    /**
+     * 根据用户唯一标识列表批量获取用户的最后一条核酸检测记录。
+     *
+     * @param uids 用户唯一标识列表
+     * @return 用户唯一标识到最后一条核酸检测记录的映射，没有检测记录的用户不在其中
+     */
+    Map<Long, NucleicAcidTestResultVo> getLastNucleicAcidTestRecordByUIDList(List<Long> uids);
+
     /**
      * 根据用户唯一标识获取用户的近14天核酸检测记录。
      *
@@ -52,6 +66,16 @@ public interface NucleicAcidsService {
      */
     List<NucleicAcidTestResultVo> getNucleicAcidTestRecordByUID(long uid);
 
+    /**
+     * 获取用户在指定日期范围内的全部核酸检测记录，早于在线表保留期的记录从归档文件读取。
+     *
+     * @param uid       用户的唯一标识
+     * @param startTime 开始日期（包含）
+     * @param endTime   结束日期（包含）
+     * @return 核酸检测结果视图对象列表，按采样时间降序排列
+     */
+    List<NucleicAcidTestResultVo> getNucleicAcidTestHistoryByUID(long uid, Date startTime, Date endTime);
+
     /**
      * 根据指定的时间范围获取核酸检测信息。
      *
@@ -98,4 +122,25 @@ public interface NucleicAcidsService {
      * @param acidTestRecordByIDDto 包含核酸检测记录信息的数据传输对象
      */
     void addNucleicAcidTestRecordByID(long tid, AddNucleicAcidTestRecordByIDDto acidTestRecordByIDDto);
-}
\ No newline at end of file
+
+    /**
+     * 批量同步采样设备离线期间缓存的采样记录。
+     * 被采样人的身份批量解析，同一用户和试管的记录只写入一次，结果与请求中的记录按下标一一对应。
+     *
+     * @param tid   检测人员的唯一标识
+     * @param items 设备缓存的采样记录列表
+     * @return 每条记录的处理结果
+     */
+    List<SwabSyncResultVo> syncSwabRecords(long tid, List<SwabSyncItemDto> items);
+
+    /**
+     * 导入检测仪器导出的结果文件，按段批量更新试管结果并处理相关用户。
+     *
+     * @param file                结果文件
+     * @param format              文件格式，csv 或 fixed
+     * @param testingOrganization 检测机构名称
+     * @return 导入统计
+     * @throws IOException 读取文件失败时抛出
+     */
+    ResultImportVo importResultFile(Path file, String format, String testingOrganization) throws IOException;
+}
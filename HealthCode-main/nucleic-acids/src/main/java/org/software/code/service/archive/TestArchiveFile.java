@@ -0,0 +1,364 @@
+package org.software.code.service.archive;
+
+import org.software.code.dto.ArchivedTestRecordDto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * TestArchiveFile 定义核酸检测记录归档文件的列式格式，整个文件经过 gzip 压缩。
+ * 文件由文件头和若干行组组成，以行数为 0 的行组结束。每个行组先写出行数、用户 ID 的最小值和最大值以及列数据的字节数，
+ * 再依次写出各列：ID 和采样时间按差值编码，数值列按定长写出，检测地址和检测机构按字典编码。
+ * 同一列的数据连续存放，重复值多、压缩率高。记录按 (uid, id) 顺序写入，各行组的用户 ID 范围互不重叠且递增，
+ * 按用户查询时先比较行组的用户 ID 范围，跳过不含该用户的行组，越过该用户后不再读取；
+ * 范围内的行组也只在用户 ID 列命中后才解码其余列。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public final class TestArchiveFile {
+
+    // 文件头魔数 "NATA"
+    private static final int MAGIC = 0x4E415441;
+
+    private static final int VERSION = 1;
+
+    // 空值的编码
+    private static final byte NULL_BYTE = -1;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_CODE = -1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private TestArchiveFile() {
+    }
+
+    /**
+     * 打开归档文件用于写入。
+     *
+     * @param file 文件路径
+     * @return 写入器
+     * @throws IOException 创建文件失败时抛出
+     */
+    public static Writer create(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    /**
+     * 归档文件写入器，每次写入一个行组，关闭时写出结束标记。
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        private long rows;
+
+        private Writer(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        /**
+         * 写入一个行组。
+         *
+         * @param records 行组中的记录，不能为空，应按 (uid, id) 升序排列
+         * @throws IOException 写入失败时抛出
+         */
+        public void writeGroup(List<ArchivedTestRecordDto> records) throws IOException {
+            int count = records.size();
+            long minUid = Long.MAX_VALUE;
+            long maxUid = Long.MIN_VALUE;
+            for (ArchivedTestRecordDto record : records) {
+                minUid = Math.min(minUid, record.getUid());
+                maxUid = Math.max(maxUid, record.getUid());
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(count * 64);
+            DataOutputStream columns = new DataOutputStream(bytes);
+            long previous = 0;
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeLong(record.getId() - previous);
+                previous = record.getId();
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeLong(record.getUid());
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeLong(record.getTid());
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeLong(record.getTubeid());
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeByte(toByte(record.getKind()));
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeByte(toByte(record.getReTest()));
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeByte(toByte(record.getResult()));
+            }
+            previous = 0;
+            for (ArchivedTestRecordDto record : records) {
+                long createdAt = toSeconds(record.getCreatedAt());
+                columns.writeLong(createdAt - previous);
+                previous = createdAt;
+            }
+            for (ArchivedTestRecordDto record : records) {
+                columns.writeLong(record.getUpdatedAt() == null ? NULL_TIME : toSeconds(record.getUpdatedAt()));
+            }
+            List<String> addresses = new ArrayList<>(count);
+            List<String> organizations = new ArrayList<>(count);
+            for (ArchivedTestRecordDto record : records) {
+                addresses.add(record.getTestAddress());
+                organizations.add(record.getTestingOrganization());
+            }
+            writeDictionary(columns, addresses);
+            writeDictionary(columns, organizations);
+            columns.flush();
+
+            out.writeInt(count);
+            out.writeLong(minUid);
+            out.writeLong(maxUid);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+            rows += count;
+        }
+
+        /**
+         * 获取已写入的记录数。
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeInt(0);
+            out.close();
+        }
+    }
+
+    /**
+     * 读取归档文件中某个用户的全部记录。
+     *
+     * @param file 文件路径
+     * @param uid  用户 ID
+     * @return 该用户的记录列表，按文件中的顺序排列
+     * @throws IOException 读取失败或文件格式错误时抛出
+     */
+    public static List<ArchivedTestRecordDto> readByUid(Path file, long uid) throws IOException {
+        List<ArchivedTestRecordDto> matches = new ArrayList<>();
+        try (DataInputStream in = open(file)) {
+            int count;
+            while ((count = in.readInt()) > 0) {
+                long minUid = in.readLong();
+                long maxUid = in.readLong();
+                int length = in.readInt();
+                if (uid < minUid) {
+                    // 之后的行组用户 ID 都更大
+                    break;
+                }
+                if (uid > maxUid) {
+                    skipFully(in, length);
+                    continue;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                readGroup(new DataInputStream(new ByteArrayInputStream(bytes)), count, uid, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 统计归档文件中的记录数，只读取行组头，用于写入后校验文件完整。
+     *
+     * @param file 文件路径
+     * @return 记录数
+     * @throws IOException 读取失败或文件格式错误时抛出
+     */
+    public static long countRows(Path file) throws IOException {
+        long rows = 0;
+        try (DataInputStream in = open(file)) {
+            int count;
+            while ((count = in.readInt()) > 0) {
+                in.readLong();
+                in.readLong();
+                skipFully(in, in.readInt());
+                rows += count;
+            }
+        }
+        return rows;
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown archive format: " + file);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    /**
+     * 解码一个行组，用户 ID 列没有命中时不再解码其余列。
+     */
+    private static void readGroup(DataInputStream columns, int count, long uid,
+                                  List<ArchivedTestRecordDto> matches) throws IOException {
+        long[] ids = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += columns.readLong();
+            ids[i] = previous;
+        }
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (columns.readLong() == uid) {
+                rows.add(i);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        long[] tids = readLongs(columns, count);
+        long[] tubeids = readLongs(columns, count);
+        byte[] kinds = readBytes(columns, count);
+        byte[] reTests = readBytes(columns, count);
+        byte[] results = readBytes(columns, count);
+        long[] createdAts = new long[count];
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += columns.readLong();
+            createdAts[i] = previous;
+        }
+        long[] updatedAts = readLongs(columns, count);
+        String[] addresses = readDictionary(columns, count);
+        String[] organizations = readDictionary(columns, count);
+
+        for (int i : rows) {
+            ArchivedTestRecordDto record = new ArchivedTestRecordDto();
+            record.setId(ids[i]);
+            record.setUid(uid);
+            record.setTid(tids[i]);
+            record.setTubeid(tubeids[i]);
+            record.setKind(toInteger(kinds[i]));
+            record.setReTest(toInteger(reTests[i]));
+            record.setResult(toInteger(results[i]));
+            record.setCreatedAt(toDateTime(createdAts[i]));
+            record.setUpdatedAt(updatedAts[i] == NULL_TIME ? null : toDateTime(updatedAts[i]));
+            record.setTestAddress(addresses[i]);
+            record.setTestingOrganization(organizations[i]);
+            matches.add(record);
+        }
+    }
+
+    /**
+     * 字典编码一列字符串：先写出去重后的字典，再为每行写出字典下标，空值写出 -1。
+     */
+    private static void writeDictionary(DataOutputStream out, List<String> values) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] rowCodes = new int[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value == null) {
+                rowCodes[i] = NULL_CODE;
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            rowCodes[i] = code;
+        }
+        out.writeInt(dictionary.size());
+        for (String value : dictionary) {
+            out.writeUTF(value);
+        }
+        for (int code : rowCodes) {
+            out.writeInt(code);
+        }
+    }
+
+    private static String[] readDictionary(DataInputStream in, int count) throws IOException {
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.readUTF();
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int code = in.readInt();
+            values[i] = code == NULL_CODE ? null : dictionary[code];
+        }
+        return values;
+    }
+
+    private static long[] readLongs(DataInputStream in, int count) throws IOException {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static byte[] readBytes(DataInputStream in, int count) throws IOException {
+        byte[] values = new byte[count];
+        in.readFully(values);
+        return values;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException("Truncated archive");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static byte toByte(Integer value) {
+        return value == null ? NULL_BYTE : value.byteValue();
+    }
+
+    private static Integer toInteger(byte value) {
+        return value == NULL_BYTE ? null : (int) value;
+    }
+
+    // 采样时间只精确到秒，按 UTC 偏移换算，不受时区和夏令时影响
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
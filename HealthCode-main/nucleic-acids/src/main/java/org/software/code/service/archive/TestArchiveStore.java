@@ -0,0 +1,157 @@
+package org.software.code.service.archive;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.dto.ArchivedTestRecordDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TestArchiveStore 管理本地磁盘上的核酸检测记录归档文件，每个月一个文件，格式见 TestArchiveFile。
+ * 维护任务把过期的月分区导出为归档文件，历史查询按月份只读取与时间范围重叠的文件。
+ * 归档文件只追加不修改，多个实例共享时归档目录应挂载到同一存储上。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class TestArchiveStore {
+
+    private static final Logger logger = LogManager.getLogger(TestArchiveStore.class);
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final Pattern FILE_NAME = Pattern.compile("nucleic_acid_test_(\\d{6})\\.nat\\.gz");
+
+    /**
+     * 分页读取待归档记录的数据源。
+     */
+    public interface PageSource {
+        /**
+         * 读取 (uid, id) 大于 (afterUid, afterId) 的下一页记录。
+         *
+         * @param afterUid 上一页最后一条记录的用户 ID
+         * @param afterId  上一页最后一条记录的 ID
+         * @return 按用户 ID 和 ID 升序排列的记录，没有更多记录时返回空列表
+         */
+        List<ArchivedTestRecordDto> next(long afterUid, long afterId);
+    }
+
+    @Value("${test-archive.dir:archive/nucleic-acid-test}")
+    private String archiveDir;
+
+    /**
+     * 将一个月的记录按 (uid, id) 顺序导出为归档文件，先写入临时文件，校验完整后再替换正式文件。
+     *
+     * @param month  月份
+     * @param source 该月记录的数据源
+     * @return 写入的记录数
+     * @throws IOException 写入失败或校验不通过时抛出
+     */
+    public long export(YearMonth month, PageSource source) throws IOException {
+        Path file = fileOf(month);
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        try (TestArchiveFile.Writer writer = TestArchiveFile.create(tmp)) {
+            long afterUid = Long.MIN_VALUE;
+            long afterId = 0;
+            List<ArchivedTestRecordDto> page;
+            while (!(page = source.next(afterUid, afterId)).isEmpty()) {
+                // 试管信息重复时关联查询会返回同一记录多次，只保留第一条
+                List<ArchivedTestRecordDto> group = new ArrayList<>(page.size());
+                for (ArchivedTestRecordDto record : page) {
+                    if (record.getUid() > afterUid || (record.getUid() == afterUid && record.getId() > afterId)) {
+                        group.add(record);
+                        afterUid = record.getUid();
+                        afterId = record.getId();
+                    }
+                }
+                if (!group.isEmpty()) {
+                    writer.writeGroup(group);
+                }
+            }
+            rows = writer.getRows();
+        }
+        long written = TestArchiveFile.countRows(tmp);
+        if (written != rows) {
+            throw new IOException("Archive " + tmp + " has " + written + " rows, expected " + rows);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * 查询用户在 [start, end) 时间范围内的归档记录。
+     *
+     * @param uid   用户 ID
+     * @param start 起始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 归档记录列表
+     */
+    public List<ArchivedTestRecordDto> findByUid(long uid, LocalDateTime start, LocalDateTime end) {
+        List<ArchivedTestRecordDto> records = new ArrayList<>();
+        for (YearMonth month : getArchivedMonths()) {
+            if (!month.atDay(1).atStartOfDay().isBefore(end)
+                    || !month.plusMonths(1).atDay(1).atStartOfDay().isAfter(start)) {
+                continue;
+            }
+            try {
+                for (ArchivedTestRecordDto record : TestArchiveFile.readByUid(fileOf(month), uid)) {
+                    if (!record.getCreatedAt().isBefore(start) && record.getCreatedAt().isBefore(end)) {
+                        records.add(record);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Failed to read test archive of {}, message: {}", month, e.getMessage());
+                throw new BusinessException(ExceptionEnum.NUCLEIC_ACID_TEST_SELECT_FAIL);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 获取已归档的月份。
+     *
+     * @return 按时间升序排列的月份
+     */
+    public TreeSet<YearMonth> getArchivedMonths() {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        Path dir = Paths.get(archiveDir);
+        if (!Files.isDirectory(dir)) {
+            return months;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    months.add(YearMonth.parse(matcher.group(1), MONTH_FORMAT));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list test archive directory {}, message: {}", dir, e.getMessage());
+            throw new BusinessException(ExceptionEnum.NUCLEIC_ACID_TEST_SELECT_FAIL);
+        }
+        return months;
+    }
+
+    private Path fileOf(YearMonth month) {
+        return Paths.get(archiveDir, "nucleic_acid_test_" + month.format(MONTH_FORMAT) + ".nat.gz");
+    }
+}
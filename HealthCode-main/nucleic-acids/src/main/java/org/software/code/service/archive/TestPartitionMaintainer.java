@@ -0,0 +1,225 @@
+package org.software.code.service.archive;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.mapper.NucleicAcidTestMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TestPartitionMaintainer 定期维护 nucleic_acid_test 的月分区。
+ * 表按采样时间划分为 pYYYYMM 分区和兜底分区 p_max，维护任务提前从 p_max 中拆分出未来月份的分区；
+ * 超过保留月数的分区先导出为归档文件并校验行数，再删除分区，在线表只保留最近几个月的数据。
+ * 分区 DDL 通过 Redis 锁保证同一时间只有一个实例执行。
+ * 导出和 REORGANIZE PARTITION 可能持续数小时，维护任务在独立线程上执行，不占用 Spring 的单个调度线程，
+ * 避免阻塞自动调整场所风险、通知重试等其他定时任务。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class TestPartitionMaintainer {
+
+    private static final Logger logger = LogManager.getLogger(TestPartitionMaintainer.class);
+
+    // 维护任务的 Redis 锁
+    private static final String LOCK_KEY = "nucleic-acids:test-partition-lock";
+
+    // 只有锁仍由自己持有时才删除
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p(\\d{6})");
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // 导出分区时每页读取的记录数，也是归档文件的行组大小
+    private static final int EXPORT_PAGE_SIZE = 20000;
+
+    /**
+     * 在线表保留的月数，不含当前月。
+     */
+    @Value("${test-archive.retention-months:3}")
+    private int retentionMonths;
+
+    /**
+     * 提前创建的未来月份分区数。
+     */
+    @Value("${test-archive.months-ahead:2}")
+    private int monthsAhead;
+
+    /**
+     * 维护任务持有锁的最长时间（秒），应大于导出一个分区的耗时。
+     */
+    @Value("${test-archive.lock-seconds:7200}")
+    private long lockSeconds;
+
+    /**
+     * 服务启动后首次执行维护的延迟（毫秒）。
+     */
+    @Value("${test-archive.initial-delay-ms:60000}")
+    private long initialDelayMs;
+
+    /**
+     * 上次维护结束到下次开始的间隔（毫秒）。
+     */
+    @Value("${test-archive.maintenance-interval-ms:3600000}")
+    private long maintenanceIntervalMs;
+
+    @Resource
+    private NucleicAcidTestMapper nucleicAcidTestMapper;
+
+    @Resource
+    private TestArchiveStore testArchiveStore;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 启动维护线程。
+     */
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-partition-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, initialDelayMs, maintenanceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止维护线程。
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 定期创建未来月份的分区，并归档删除过期分区。
+     */
+    public void maintain() {
+        String owner = UUID.randomUUID().toString();
+        Boolean locked;
+        try {
+            locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, Duration.ofSeconds(lockSeconds));
+        } catch (Exception e) {
+            // 任务抛出异常会取消后续调度，获取锁失败时只记录日志，等待下次执行
+            logger.error("Failed to acquire test partition lock, message: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            List<String> partitions = nucleicAcidTestMapper.selectPartitionNames();
+            if (partitions.isEmpty() || partitions.contains(null)) {
+                logger.warn("Table nucleic_acid_test is not partitioned, skip maintenance");
+                return;
+            }
+            TreeSet<YearMonth> months = toMonths(partitions);
+            createPartitions(months);
+            archivePartitions(months);
+        } catch (Exception e) {
+            logger.error("Failed to maintain nucleic_acid_test partitions, message: {}", e.getMessage());
+        } finally {
+            // 比较并删除在 Redis 中原子执行，锁过期后被其他实例获得时不会误删
+            try {
+                stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(LOCK_KEY), owner);
+            } catch (Exception e) {
+                logger.error("Failed to release test partition lock, message: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从 p_max 中拆分出缺少的月分区，直到当前月之后 monthsAhead 个月。
+     * 首次执行时从最早一条记录所在的月份开始，已有数据会被移入对应的月分区。
+     */
+    private void createPartitions(TreeSet<YearMonth> months) {
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        YearMonth first;
+        if (!months.isEmpty()) {
+            first = months.last().plusMonths(1);
+        } else {
+            LocalDateTime minCreatedAt = nucleicAcidTestMapper.selectMinCreatedAt();
+            first = minCreatedAt == null ? YearMonth.now() : YearMonth.from(minCreatedAt);
+        }
+        if (first.isAfter(last)) {
+            return;
+        }
+        StringBuilder definitions = new StringBuilder();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.append("PARTITION ").append(partitionOf(month))
+                    .append(" VALUES LESS THAN (UNIX_TIMESTAMP('")
+                    .append(month.plusMonths(1).atDay(1).atStartOfDay().format(BOUND_FORMAT))
+                    .append("')), ");
+            months.add(month);
+        }
+        definitions.append("PARTITION p_max VALUES LESS THAN MAXVALUE");
+        nucleicAcidTestMapper.reorganizeMaxPartition(definitions.toString());
+        logger.info("Created nucleic_acid_test partitions from {} to {}", first, last);
+    }
+
+    /**
+     * 导出并删除超过保留月数的分区，导出行数与分区行数不一致时保留分区，下次重新导出。
+     */
+    private void archivePartitions(TreeSet<YearMonth> months) throws IOException {
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        for (YearMonth month : months.headSet(oldestKept)) {
+            String partition = partitionOf(month);
+            long expected = nucleicAcidTestMapper.countPartition(partition);
+            long exported = testArchiveStore.export(month,
+                    (afterUid, afterId) -> nucleicAcidTestMapper.selectPartitionPage(
+                            partition, afterUid, afterId, EXPORT_PAGE_SIZE));
+            if (exported != expected) {
+                logger.error("Archive of partition {} has {} rows, expected {}, keep partition",
+                        partition, exported, expected);
+                continue;
+            }
+            nucleicAcidTestMapper.dropPartition(partition);
+            logger.info("Archived and dropped partition {} with {} rows", partition, exported);
+        }
+    }
+
+    private static TreeSet<YearMonth> toMonths(List<String> partitions) {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        for (String partition : partitions) {
+            Matcher matcher = MONTH_PARTITION.matcher(partition);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), MONTH_FORMAT));
+            }
+        }
+        return months;
+    }
+
+    private static String partitionOf(YearMonth month) {
+        return "p" + month.format(MONTH_FORMAT);
+    }
+}
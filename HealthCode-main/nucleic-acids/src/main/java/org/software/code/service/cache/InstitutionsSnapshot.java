@@ -0,0 +1,105 @@
+package org.software.code.service.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.common.result.Result;
+import org.software.code.vo.NucleicAcidTestingInstitutionsVo;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * InstitutionsSnapshot 保存全部核酸检测机构的不可变快照，以及预先序列化好的响应体。
+ * 快照只在检测机构新增、修改、删除后重建，公开的"在哪里做核酸"页面直接返回序列化好的字节，
+ * 不再查询数据库、远程调用用户服务或逐次序列化。
+ * 快照中的列表不可修改，调用方也不应修改其中的元素。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class InstitutionsSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(InstitutionsSnapshot.class);
+
+    /**
+     * 一次构建的快照，构建后不再修改，整体替换以保证读取方看到一致的列表和响应体。
+     */
+    public static final class Snapshot {
+
+        private final List<NucleicAcidTestingInstitutionsVo> institutions;
+
+        private final byte[] body;
+
+        private final String etag;
+
+        private Snapshot(List<NucleicAcidTestingInstitutionsVo> institutions, byte[] body) {
+            this.institutions = institutions;
+            this.body = body;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+
+        /**
+         * 获取全部检测机构，列表不可修改。
+         */
+        public List<NucleicAcidTestingInstitutionsVo> getInstitutions() {
+            return institutions;
+        }
+
+        /**
+         * 获取序列化好的响应体，即 Result.success(全部检测机构) 的 JSON，调用方不应修改。
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * 获取响应体的 ETag，由响应体的摘要生成。
+         */
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    // 与接口响应使用同一个 ObjectMapper，保证序列化结果与普通接口一致
+    @Resource
+    private MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter;
+
+    // 当前快照，尚未构建时为 null
+    private volatile Snapshot snapshot;
+
+    /**
+     * 获取当前快照。
+     *
+     * @return 当前快照，尚未构建时返回 null
+     */
+    public Snapshot get() {
+        return snapshot;
+    }
+
+    /**
+     * 用新的检测机构列表重建快照。
+     *
+     * @param institutions 全部检测机构
+     * @return 新的快照
+     */
+    public Snapshot rebuild(List<NucleicAcidTestingInstitutionsVo> institutions) {
+        List<NucleicAcidTestingInstitutionsVo> copy = Collections.unmodifiableList(new ArrayList<>(institutions));
+        byte[] body;
+        try {
+            body = mappingJackson2HttpMessageConverter.getObjectMapper().writeValueAsBytes(Result.success(copy));
+        } catch (Exception e) {
+            logger.error("Failed to serialize institutions snapshot, message: {}", e.getMessage());
+            throw new BusinessException(ExceptionEnum.RUN_EXCEPTION);
+        }
+        Snapshot rebuilt = new Snapshot(copy, body);
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+}
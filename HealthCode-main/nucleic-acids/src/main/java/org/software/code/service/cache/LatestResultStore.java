@@ -0,0 +1,228 @@
+package org.software.code.service.cache;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.entity.LatestTestResult;
+import org.software.code.mapper.LatestTestResultMapper;
+import org.software.code.mapper.NucleicAcidTestMapper;
+import org.software.code.vo.NucleicAcidTestResultVo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LatestResultStore 维护 latest_test_result 表，即每个用户最近一次核酸检测及其结果。
+ * 采样写入时更新用户的最近一次检测，试管录入结果时同步更新持有该试管的用户，
+ * 读取时按主键查询，单个和批量读取都不再需要排序和关联试管信息。
+ * 表中没有的用户（如该表上线前的历史数据）在第一次读取时用一条批量查询从检测记录补齐，
+ * 仍然没有检测记录的用户在 Redis 中写入一个带过期时间的标记，过期前不再查询检测记录。
+ * 用户采样后表中就有了该用户，标记不再被读取，因此不需要在采样时删除标记。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class LatestResultStore {
+
+    private static final Logger logger = LogManager.getLogger(LatestResultStore.class);
+
+    // 批量读取时单条 IN 查询的最大用户数
+    private static final int QUERY_BATCH_SIZE = 1000;
+
+    // 没有检测记录的用户标记的键前缀，完整的键为前缀加用户 ID
+    private static final String ABSENT_KEY_PREFIX = "nucleic-acids:no-test-result:";
+
+    /**
+     * 没有检测记录的用户标记的过期时间（秒）。
+     */
+    @Value("${result.cache.absent-ttl-seconds:86400}")
+    private long absentTtlSeconds;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private LatestTestResultMapper latestTestResultMapper;
+
+    @Resource
+    private NucleicAcidTestMapper nucleicAcidTestMapper;
+
+    /**
+     * 记录一批用户的新检测，需要在写入检测记录的同一事务中调用。
+     *
+     * @param rows 每个用户的新检测
+     */
+    public void recordSwabs(Collection<LatestTestResult> rows) {
+        if (!rows.isEmpty()) {
+            latestTestResultMapper.upsertBatch(rows);
+        }
+    }
+
+    /**
+     * 试管录入结果后，更新最近一次检测为该试管的用户。
+     *
+     * @param tubeid              检测管编号
+     * @param kind                试管类型
+     * @param result              检测结果
+     * @param testingOrganization 检测机构
+     */
+    public void recordResult(Long tubeid, Integer kind, Integer result, String testingOrganization) {
+        LambdaUpdateWrapper<LatestTestResult> updateWrapper = Wrappers.lambdaUpdate();
+        updateWrapper.set(LatestTestResult::getResult, result)
+                .set(LatestTestResult::getTestingOrganization, testingOrganization)
+                .eq(LatestTestResult::getTubeid, tubeid)
+                // 没有记录试管类型的旧数据按试管编号匹配
+                .and(w -> w.eq(LatestTestResult::getKind, kind).or().isNull(LatestTestResult::getKind));
+        latestTestResultMapper.update(null, updateWrapper);
+    }
+
+    /**
+     * 一批同类型、同结果的试管录入结果后，用一条语句更新最近一次检测为这些试管的用户。
+     *
+     * @param tubeids             检测管编号列表
+     * @param kind                试管类型
+     * @param result              检测结果
+     * @param testingOrganization 检测机构
+     */
+    public void recordResults(Collection<Long> tubeids, Integer kind, Integer result, String testingOrganization) {
+        if (tubeids.isEmpty()) {
+            return;
+        }
+        LambdaUpdateWrapper<LatestTestResult> updateWrapper = Wrappers.lambdaUpdate();
+        updateWrapper.set(LatestTestResult::getResult, result)
+                .set(LatestTestResult::getTestingOrganization, testingOrganization)
+                .in(LatestTestResult::getTubeid, tubeids)
+                // 没有记录试管类型的旧数据按试管编号匹配
+                .and(w -> w.eq(LatestTestResult::getKind, kind).or().isNull(LatestTestResult::getKind));
+        latestTestResultMapper.update(null, updateWrapper);
+    }
+
+    /**
+     * 获取用户最近一次核酸检测结果。
+     *
+     * @param uid 用户 ID
+     * @return 核酸检测结果视图对象，没有检测记录时返回 null
+     */
+    public NucleicAcidTestResultVo get(long uid) {
+        return getAll(Collections.singletonList(uid)).get(uid);
+    }
+
+    /**
+     * 批量获取用户最近一次核酸检测结果。
+     *
+     * @param uids 用户 ID 列表
+     * @return 用户 ID 到结果的映射，按传入顺序排列，没有检测记录的用户不在其中
+     */
+    public Map<Long, NucleicAcidTestResultVo> getAll(Collection<Long> uids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(uids));
+        Map<Long, LatestTestResult> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += QUERY_BATCH_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + QUERY_BATCH_SIZE, distinct.size()));
+            for (LatestTestResult row : latestTestResultMapper.selectBatchIds(chunk)) {
+                found.put(row.getUid(), row);
+            }
+        }
+
+        // 补齐表中没有的用户，已标记为没有检测记录的用户跳过
+        List<Long> missing = new ArrayList<>();
+        for (Long uid : distinct) {
+            if (!found.containsKey(uid)) {
+                missing.add(uid);
+            }
+        }
+        missing.removeAll(getAbsent(missing));
+        List<LatestTestResult> backfill = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += QUERY_BATCH_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + QUERY_BATCH_SIZE, missing.size()));
+            for (LatestTestResult row : nucleicAcidTestMapper.selectLatestResultsByUids(chunk)) {
+                if (found.putIfAbsent(row.getUid(), row) == null) {
+                    backfill.add(row);
+                }
+            }
+        }
+        recordSwabs(backfill);
+        List<Long> absent = new ArrayList<>();
+        for (Long uid : missing) {
+            if (!found.containsKey(uid)) {
+                absent.add(uid);
+            }
+        }
+        markAbsent(absent);
+
+        Map<Long, NucleicAcidTestResultVo> results = new LinkedHashMap<>();
+        for (Long uid : distinct) {
+            LatestTestResult row = found.get(uid);
+            if (row != null) {
+                results.put(uid, toResultVo(row));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 查询已标记为没有检测记录的用户，Redis 不可用时视为没有标记。
+     */
+    private List<Long> getAbsent(List<Long> uids) {
+        List<Long> absent = new ArrayList<>();
+        if (uids.isEmpty()) {
+            return absent;
+        }
+        List<String> keys = new ArrayList<>(uids.size());
+        for (Long uid : uids) {
+            keys.add(ABSENT_KEY_PREFIX + uid);
+        }
+        try {
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; values != null && i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    absent.add(uids.get(i));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read absent result markers, message: {}", e.getMessage());
+        }
+        return absent;
+    }
+
+    /**
+     * 用一次管道写入没有检测记录的用户标记。
+     */
+    private void markAbsent(List<Long> uids) {
+        if (uids.isEmpty()) {
+            return;
+        }
+        byte[] value = "1".getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                for (Long uid : uids) {
+                    connection.setEx((ABSENT_KEY_PREFIX + uid).getBytes(StandardCharsets.UTF_8), absentTtlSeconds, value);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to write absent result markers, message: {}", e.getMessage());
+        }
+    }
+
+    private static NucleicAcidTestResultVo toResultVo(LatestTestResult row) {
+        NucleicAcidTestResultVo resultVo = new NucleicAcidTestResultVo();
+        resultVo.setCreatedAt(row.getTestedAt());
+        resultVo.setResult(row.getResult());
+        resultVo.setTestingOrganization(row.getTestingOrganization());
+        return resultVo;
+    }
+}
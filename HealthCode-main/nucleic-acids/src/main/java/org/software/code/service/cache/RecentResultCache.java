@@ -0,0 +1,103 @@
+package org.software.code.service.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.vo.NucleicAcidTestResultVo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecentResultCache 在 Redis 中缓存每个用户最近 14 天的核酸检测结果。
+ * 用户在检测当天反复刷新"我的结果"时直接读取缓存；
+ * 用户有新的采样记录或其试管录入结果后，对应用户的缓存被删除，下次读取时重新查询。
+ * Redis 不可用时读取直接回落到数据库查询，不影响业务。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class RecentResultCache {
+
+    private static final Logger logger = LogManager.getLogger(RecentResultCache.class);
+
+    // 缓存键前缀，完整的键为前缀加用户 ID
+    private static final String KEY_PREFIX = "nucleic-acids:recent-results:";
+
+    /**
+     * 缓存过期时间（秒），作为删除失败时的兜底。
+     */
+    @Value("${result.cache.recent-ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 用于缓存值的序列化，需要支持 LocalDateTime
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    /**
+     * 读取用户最近的核酸检测结果。
+     *
+     * @param uid 用户 ID
+     * @return 缓存的结果列表，未命中或读取失败时返回 null
+     */
+    public List<NucleicAcidTestResultVo> get(long uid) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + uid);
+            if (value == null) {
+                return null;
+            }
+            return objectMapper.readValue(value, new TypeReference<List<NucleicAcidTestResultVo>>() {});
+        } catch (Exception e) {
+            logger.warn("Failed to read recent results of uid {} from cache, message: {}", uid, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入用户最近的核酸检测结果。
+     *
+     * @param uid     用户 ID
+     * @param results 结果列表
+     */
+    public void put(long uid, List<NucleicAcidTestResultVo> results) {
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + uid, objectMapper.writeValueAsString(results),
+                    ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warn("Failed to write recent results of uid {} to cache, message: {}", uid, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除一批用户的缓存。
+     *
+     * @param uids 用户 ID 集合
+     */
+    public void evict(Collection<Long> uids) {
+        if (uids.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(uids.size());
+        for (Long uid : uids) {
+            keys.add(KEY_PREFIX + uid);
+        }
+        try {
+            stringRedisTemplate.delete(keys);
+        } catch (Exception e) {
+            logger.warn("Failed to evict recent results of {} users, message: {}", uids.size(), e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,7 @@
 package org.software.code.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.software.code.client.UserClient;
 import org.software.code.common.result.Result;
 import org.software.code.dto.AddNucleicAcidTestingInstitutionsDto;
@@ -13,13 +10,14 @@ import org.software.code.dto.UpdateNucleicAcidTestingInstitutionsDto;
 import org.software.code.entity.NucleicAcidTestingInstitutions;
 import org.software.code.mapper.NucleicAcidTestingInstitutionsMapper;
 import org.software.code.service.NucleicAcidTestingInstitutionsService;
+import org.software.code.service.cache.AreaCodeCache;
+import org.software.code.service.cache.InstitutionsSnapshot;
 import org.software.code.vo.AreaCodeVo;
 import org.software.code.vo.NucleicAcidTestingInstitutionsVo;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -38,6 +36,12 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
     @Resource
     NucleicAcidTestingInstitutionsMapper institutionsMapper;
 
+    @Resource
+    AreaCodeCache areaCodeCache;
+
+    @Resource
+    InstitutionsSnapshot institutionsSnapshot;
+
     /**
      * 添加核酸检测机构信息
      *
@@ -58,6 +62,7 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
     public void deleteNucleicAcidTestingInstitutionsById(Long id) {
         // 调用 MyBatis-Plus 提供的 removeById 方法根据 ID 从数据库中删除核酸检测机构信息
         this.removeById(id);
+        rebuildInstitutionsSnapshot();
     }
 
     /**
@@ -84,16 +89,44 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
     }
 
     /**
-     * 获取所有核酸检测机构信息
+     * 获取所有核酸检测机构信息，直接读取检测机构快照
      *
-     * @return 包含所有核酸检测机构信息的列表，如果没有记录则返回空列表
+     * @return 包含所有核酸检测机构信息的不可修改列表，如果没有记录则返回空列表
      */
     @Override
     public List<NucleicAcidTestingInstitutionsVo> getAllNucleicAcidTestingInstitutions() {
-        List<NucleicAcidTestingInstitutions> records = this.list();
-        return records.stream()
+        return getInstitutionsSnapshot().getInstitutions();
+    }
+
+    /**
+     * 获取全部核酸检测机构的快照，尚未构建时先构建
+     *
+     * @return 检测机构快照
+     */
+    @Override
+    public InstitutionsSnapshot.Snapshot getInstitutionsSnapshot() {
+        InstitutionsSnapshot.Snapshot snapshot = institutionsSnapshot.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = institutionsSnapshot.get();
+            return snapshot != null ? snapshot : rebuildInstitutionsSnapshot();
+        }
+    }
+
+    /**
+     * 从数据库重新构建检测机构快照。检测机构的增删改会立即重建本实例的快照，
+     * 定期重建用于同步其他实例上发生的修改，应用启动后也会立即构建一次
+     *
+     * @return 新的检测机构快照
+     */
+    @Scheduled(fixedDelayString = "${institutions.snapshot.refresh-interval-ms:300000}")
+    public synchronized InstitutionsSnapshot.Snapshot rebuildInstitutionsSnapshot() {
+        List<NucleicAcidTestingInstitutionsVo> institutions = this.list().stream()
                 .map(this::convertToVo)
                 .collect(Collectors.toList());
+        return institutionsSnapshot.rebuild(institutions);
     }
 
     /**
@@ -103,33 +136,11 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
      */
     @Override
     public List<NucleicAcidTestingInstitutionsVo> getInstitutionsByArea(AreaCodeDto areaCodeDto) {
-        // 调用 userClient 的 getAreaCodeID 方法，根据 areaCodeDto 获取地区代码 ID 的结果
-        Result<?> result = userClient.getAreaCodeIDList(areaCodeDto);
-        // 这里建议添加对 result 的判空和结果状态码的检查，确保数据正常获取
-        if (result == null || result.getData() == null) {
-            return new ArrayList<>();
-        }
-        List<AreaCodeVo> areaCodeVoList = getAreaCodeVoList(result);
-        List<Long> ids = areaCodeVoList.stream().map(AreaCodeVo::getId).collect(Collectors.toList());
-
-        // 如果 ids 列表为空，直接返回空列表
-        if (ids.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // 创建 LambdaQueryWrapper 对象，用于构建查询条件
-        LambdaQueryWrapper<NucleicAcidTestingInstitutions> queryWrapper = Wrappers.lambdaQuery();
-
-        // 使用 eq 方法指定查询条件，根据传入的区域代码 DTO 进行查询
-        // 假设 NucleicAcidTestingInstitutions 类中有对应的 community、street 和 district 属性
-        queryWrapper.in(NucleicAcidTestingInstitutions::getAreaId, ids);
-
-        // 执行查询，获取核酸检测机构实体列表
-        List<NucleicAcidTestingInstitutions> records = institutionsMapper.selectList(queryWrapper);
-
-        // 使用 Stream API 将实体对象转换为 VO 对象并收集到列表中
-        return records.stream()
-                .map(this::convertToVo)
+        // 快照中的检测机构已经带有区、街道和社区编号，直接在内存中按传入的非空条件筛选
+        return getInstitutionsSnapshot().getInstitutions().stream()
+                .filter(vo -> areaCodeDto.getDistrict() == null || areaCodeDto.getDistrict().equals(vo.getDistrict()))
+                .filter(vo -> areaCodeDto.getStreet() == null || areaCodeDto.getStreet().equals(vo.getStreet()))
+                .filter(vo -> areaCodeDto.getCommunity() == null || areaCodeDto.getCommunity().equals(vo.getCommunity()))
                 .collect(Collectors.toList());
     }
 
@@ -142,7 +153,9 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
         AreaCodeDto areaCodeDto = new AreaCodeDto();
         BeanUtil.copyProperties(dto, areaCodeDto);
         Result<?> result = userClient.getAreaCodeID(areaCodeDto);
-        AreaCodeVo areaCodeVo = getAreaCodeVo(result);
+        AreaCodeVo areaCodeVo = AreaCodeCache.toAreaCodeVo(result.getData());
+        // 新建的区域编码在下次刷新前不在本地缓存中，先写入缓存
+        areaCodeCache.put(areaCodeVo);
 
         NucleicAcidTestingInstitutions nucleicAcidTestingInstitutions = new NucleicAcidTestingInstitutions();
         BeanUtil.copyProperties(dto, nucleicAcidTestingInstitutions);
@@ -155,6 +168,7 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
             // 调用 MyBatis-Plus 提供的 save 方法将核酸检测机构信息保存到数据库
             this.save(nucleicAcidTestingInstitutions);
         }
+        rebuildInstitutionsSnapshot();
     }
 
     /**
@@ -167,48 +181,17 @@ public class NucleicAcidTestingInstitutionsServiceImpl extends ServiceImpl<Nucle
         if (nucleicAcidTestingInstitutions == null) {
             return null;
         }
-        // 调用 userClient 的 getAreaCodeID 方法，根据 areaCodeDto 获取地区代码 ID 的结果
-        Result<?> result = userClient.getAreaCodeByID(nucleicAcidTestingInstitutions.getAreaId());
-        AreaCodeVo areaCodeVo = getAreaCodeVo(result);
+        // 从本地区域编码缓存获取区域信息，缓存未命中时才远程调用用户服务
+        AreaCodeVo areaCodeVo = areaCodeCache.get(nucleicAcidTestingInstitutions.getAreaId());
 
         NucleicAcidTestingInstitutionsVo nucleicAcidTestingInstitutionsVo = new NucleicAcidTestingInstitutionsVo();
         BeanUtil.copyProperties(nucleicAcidTestingInstitutions, nucleicAcidTestingInstitutionsVo);
-        nucleicAcidTestingInstitutionsVo.setCommunity(areaCodeVo.getCommunity());
-        nucleicAcidTestingInstitutionsVo.setDistrict(areaCodeVo.getDistrict());
-        nucleicAcidTestingInstitutionsVo.setStreet(areaCodeVo.getStreet());
-
-        return nucleicAcidTestingInstitutionsVo;
-    }
-
-    /**
-     * 从 Result 对象中获取 AreaCodeVo 列表
-     * @param result Result 对象
-     * @return AreaCodeVo 列表
-     */
-    private List<AreaCodeVo> getAreaCodeVoList(Result<?> result) {
-        if (result == null || result.getData() == null) {
-            return Collections.emptyList();
+        if (areaCodeVo != null) {
+            nucleicAcidTestingInstitutionsVo.setCommunity(areaCodeVo.getCommunity());
+            nucleicAcidTestingInstitutionsVo.setDistrict(areaCodeVo.getDistrict());
+            nucleicAcidTestingInstitutionsVo.setStreet(areaCodeVo.getStreet());
         }
 
-        // 直接将 result.getData() 强制转换为 List<AreaCodeVo>
-        if (result.getData() instanceof List<?>) {
-            List<?> rawList = (List<?>) result.getData();
-            return rawList.stream().map(vo -> {
-                ObjectMapper objectMapper = new ObjectMapper();
-                  return objectMapper.convertValue(vo, AreaCodeVo.class);
-                })
-                .collect(Collectors.toList());
-        }
-        return Collections.emptyList();
-    }
-
-    /**
-     * 从 Result 对象中获取 AreaCodeVo
-     * @param result Result 对象
-     * @return AreaCodeVo 对象
-     */
-    private AreaCodeVo getAreaCodeVo(Result<?> result) {
-        ObjectMapper objectMapper = new ObjectMapper();
-      return objectMapper.convertValue(result.getData(), AreaCodeVo.class);
+        return nucleicAcidTestingInstitutionsVo;
     }
-}
\ No newline at end of file
+}
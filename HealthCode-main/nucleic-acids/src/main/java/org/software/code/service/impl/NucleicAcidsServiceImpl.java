@@ -5,44 +5,86 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Resource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.software.code.client.HealthCodeClient;
 import org.software.code.client.PlaceCodeClient;
 import org.software.code.client.UserClient;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
 import org.software.code.common.result.Result;
+import org.software.code.common.util.JWTUtil;
+import org.software.code.common.util.LongHashSet;
 import org.software.code.dto.AddNucleicAcidTestRecordByIDDto;
 import org.software.code.dto.AddNucleicAcidTestRecordDto;
+import org.software.code.dto.CountVisitorsDto;
+import org.software.code.dto.ArchivedTestRecordDto;
 import org.software.code.dto.NotificationMessageDto;
 import org.software.code.dto.NucleicAcidTestRecordDto;
 import org.software.code.dto.NucleicAcidTestRecordInputDto;
+import org.software.code.dto.PlaceRiskDto;
+import org.software.code.dto.PositiveResultEventDto;
+import org.software.code.dto.SwabRecordDto;
+import org.software.code.dto.SwabSyncItemDto;
 import org.software.code.dto.TranscodingEventsDto;
+import org.software.code.entity.LatestTestResult;
 import org.software.code.entity.NucleicAcidTest;
 import org.software.code.entity.TubeInfo;
 import org.software.code.kafaka.NotificationProducer;
 import org.software.code.mapper.NucleicAcidTestMapper;
 import org.software.code.mapper.TubeInfoMapper;
 import org.software.code.service.NucleicAcidsService;
+import org.software.code.service.archive.TestArchiveStore;
+import org.software.code.service.cache.LatestResultStore;
+import org.software.code.service.importer.ResultChunk;
+import org.software.code.service.importer.ResultFileParser;
+import org.software.code.service.cache.RecentResultCache;
 import org.software.code.service.notification.CommunityNotificationHandler;
 import org.software.code.service.notification.EpidemicPreventionNotificationHandler;
 import org.software.code.service.notification.NotificationChain;
 import org.software.code.service.notification.SmsNotificationHandler;
+import org.software.code.service.pool.PoolMembershipIndex;
+import org.software.code.service.pool.PoolRetestService;
 import org.software.code.service.strategy.RiskCalculationContext;
+import org.software.code.service.strategy.RiskCalculationStrategy;
+import org.software.code.service.swab.SwabBatchWriter;
+import org.software.code.service.swab.SwabRecordCollector;
+import org.software.code.service.tube.TubeRegistry;
 import org.software.code.vo.NucleicAcidTestInfoVo;
 import org.software.code.vo.NucleicAcidTestResultVo;
 import org.software.code.vo.PositiveInfoVo;
+import org.software.code.vo.ResultImportVo;
+import org.software.code.vo.SwabSyncResultVo;
 import org.software.code.vo.UserInfoVo;
+import org.software.code.vo.VisitorCountVo;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * @author “101”计划《软件工程》实践教材案例团队
@@ -50,6 +92,21 @@ import org.springframework.stereotype.Service;
 @Service // 标记该类为Spring的服务组件
 public class NucleicAcidsServiceImpl implements NucleicAcidsService {
 
+    // 复检通知每批处理的人数，同时用于批量查询用户信息和合并通知消息
+    private static final int NOTICE_BATCH_SIZE = 500;
+
+    // 自动修改场所风险等级时每次调用场所码服务写入的场所数
+    private static final int PLACE_RISK_BATCH_SIZE = 1000;
+
+    // 离线采样记录同步时每批查询和写入的记录数
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    // 日志记录器，用于记录批量同步中的错误信息
+    private static final Logger logger = LogManager.getLogger(NucleicAcidsServiceImpl.class);
+
+    // 用于转换远程调用返回的数据，ObjectMapper 线程安全，所有方法共用一个实例
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Resource // 注入核酸检测Mapper，用于操作核酸检测相关数据库表
     private NucleicAcidTestMapper nucleicAcidTestMapper;
 
@@ -71,6 +128,47 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
     @Resource // 注入风险计算上下文，用于风险计算相关业务
     private RiskCalculationContext riskCalculationContext;
 
+    @Resource // 注入采样记录组提交收集器，用于合并写入采样记录
+    private SwabRecordCollector swabRecordCollector;
+
+    @Resource // 注入采样记录批量写入器，用于离线采样记录的批量同步
+    private SwabBatchWriter swabBatchWriter;
+
+    @Resource // 注入最近结果缓存，用于缓存用户最近 14 天的核酸检测结果
+    private RecentResultCache recentResultCache;
+
+    @Resource // 注入最近检测结果存储，用于维护和读取每个用户的最近一次检测结果
+    private LatestResultStore latestResultStore;
+
+    @Resource // 注入试管发放登记簿，用于在采样时校验试管编号
+    private TubeRegistry tubeRegistry;
+
+    @Resource // 注入混管成员索引，用于在结果录入时获取混管内的用户
+    private PoolMembershipIndex poolMembershipIndex;
+
+    @Resource // 注入混管复检服务，用于在混管阳性时生成复检单并通知
+    private PoolRetestService poolRetestService;
+
+    @Resource // 注入检测记录归档存储，用于查询已归档的历史检测记录
+    private TestArchiveStore testArchiveStore;
+
+    // 结果文件导入时每段的结果条数
+    @Value("${result.import.chunk-size:5000}")
+    private int importChunkSize;
+
+    // 定长结果文件中试管编号的起始位置和长度，以及试管类型和检测结果所在的位置
+    @Value("${result.import.fixed.tubeid-start:0}")
+    private int fixedTubeidStart;
+
+    @Value("${result.import.fixed.tubeid-length:19}")
+    private int fixedTubeidLength;
+
+    @Value("${result.import.fixed.kind-offset:19}")
+    private int fixedKindOffset;
+
+    @Value("${result.import.fixed.result-offset:20}")
+    private int fixedResultOffset;
+
     /**
      * 添加核酸检测记录
      * @param nucleicAcidTestRecordDto 核酸检测记录的数据传输对象，包含核酸检测相关信息
@@ -105,10 +203,38 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
 
             // 调用 MyBatis-Plus 的 update 方法进行更新
             nucleicAcidTestMapper.update(null, updateWrapper);
+            // 完成该用户待复检的复检单
+            poolRetestService.completeOrders(Collections.singletonList(nucleicAcidTest.getUid()));
         }
 
         // 插入核酸检测记录到数据库
         nucleicAcidTestMapper.insert(nucleicAcidTest);
+        // 更新该用户的最近一次检测，并删除其最近结果缓存
+        latestResultStore.recordSwabs(Collections.singletonList(LatestTestResult.builder()
+                .uid(nucleicAcidTest.getUid())
+                .tubeid(tubeInfo.getTubeid())
+                .kind(tubeInfo.getKind())
+                .result(2) // 未出
+                .testingOrganization(tubeInfo.getTestingOrganization())
+                .testedAt(LocalDateTime.now())
+                .build()));
+        recentResultCache.evict(Collections.singletonList(nucleicAcidTest.getUid()));
+        // 混管采样的用户追加到混管成员索引，在事务中调用时等提交后再追加，回滚的采样不会出现在索引中
+        if (PoolMembershipIndex.isPooled(tubeInfo.getKind())) {
+            final long swabbedAt = System.currentTimeMillis();
+            Runnable addMember = () -> poolMembershipIndex.addMembers(tubeInfo.getTubeid(), tubeInfo.getKind(),
+                    Collections.singletonList(nucleicAcidTest.getUid()), swabbedAt);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        addMember.run();
+                    }
+                });
+            } else {
+                addMember.run();
+            }
+        }
 
 //        AreaCodeDto areaCodeDto = new AreaCodeDto();
 //        BeanUtil.copyProperties(nucleicAcidTestRecordDto, areaCodeDto);
@@ -173,51 +299,76 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
                     .eq(TubeInfo::getKind, input.getKind());
             // 更新 TubeInfo 表检测结果信息
             tubeInfoMapper.update(null, updateWrapper);
+            // 同步更新最近一次检测为该试管的用户结果
+            latestResultStore.recordResult(input.getTubeid(), input.getKind(), input.getResult(), input.getTesting_organization());
+
+            // 获取该试管关联的用户 ID 列表，混管优先从成员索引获取
+            List<Long> uids = PoolMembershipIndex.isPooled(input.getKind())
+                    ? poolMembershipIndex.getMembers(input.getTubeid(), input.getKind())
+                    : getUidsByTubeid(input.getTubeid());
+            // 试管结果已变化，删除相关用户的最近结果缓存
+            recentResultCache.evict(uids);
+
+            // 按检测结果处理相关用户
+            applyResultEffects(input.getTubeid(), input.getKind(), input.getResult(), uids);
+        }
+    }
 
-            // 获取该试管关联的用户 ID 列表
-            List<Long> uids = getUidsByTubeid(input.getTubeid());
-
-            // 混管且阳性，相关用户转黄码
-            if (input.getKind() != 0 && input.getResult() == 1) {
-                for (Long uid : uids) {
-                    TranscodingEventsDto transcodingEventsDto = new TranscodingEventsDto(uid, 1);
-                    healthCodeClient.transcodingHealthCodeEvents(transcodingEventsDto);
-                }
-                // 构建核酸检测记录更新条件
-                LambdaUpdateWrapper<NucleicAcidTest> nucleicAcidTestLambdaUpdateWrapper = Wrappers.lambdaUpdate();
-                nucleicAcidTestLambdaUpdateWrapper.set(NucleicAcidTest::getReTest, false)
-                        .eq(NucleicAcidTest::getTubeid, input.getTubeid());
-                // 更新核酸检测记录
-                nucleicAcidTestMapper.update(null, nucleicAcidTestLambdaUpdateWrapper);
+    /**
+     * 试管录入结果后，按结果对试管关联的用户进行转码、通知等后续处理
+     * @param tubeid 试管 ID
+     * @param kind 试管类型
+     * @param result 检测结果
+     * @param uids 该试管关联的用户 ID 列表
+     */
+    private void applyResultEffects(Long tubeid, Integer kind, Integer result, List<Long> uids) {
+        // 混管出结果，移出成员索引，阳性时批量生成单管复检单并为整管发送一条复检通知
+        if (kind != 0 && result != 2) {
+            poolRetestService.onPoolResult(tubeid, kind, result, uids);
+        }
+        // 混管且阳性，相关用户转黄码
+        if (kind != 0 && result == 1) {
+            for (Long uid : uids) {
+                TranscodingEventsDto transcodingEventsDto = new TranscodingEventsDto(uid, 1);
+                healthCodeClient.transcodingHealthCodeEvents(transcodingEventsDto);
             }
-            // 单管且阳性，发送通知并相关用户转红码
-            else if (input.getKind() == 0 && input.getResult() == 1) {
-                for (Long uid : uids) {
-                    // 获取用户核酸检测记录
-                    NucleicAcidTest nucleicAcidTest = findTestRecordsByUidAndTubeid(uid, input.getTubeid());
-                    NotificationMessageDto message = new NotificationMessageDto();
-                    // 获取用户信息
-                    Result<?> result = userClient.getUserByUID(uid);
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    UserInfoVo userInfoVo = objectMapper.convertValue(result.getData(), UserInfoVo.class);
-                    // 设置通知消息信息
-                    message.setName(userInfoVo.getName());
-                    message.setIdentity_card(userInfoVo.getIdentityCard());
-                    message.setPhone(userInfoVo.getPhoneNumber());
-                    message.setType("POSITIVE");
-                    // 发送通知消息
-                    notificationProducer.sendNotification("notification-topic", message);
-                    TranscodingEventsDto transcodingEventsDto = new TranscodingEventsDto(uid, 2);
-                    // 执行转码操作
-                    healthCodeClient.transcodingHealthCodeEvents(transcodingEventsDto);
-                }
+            // 构建核酸检测记录更新条件
+            LambdaUpdateWrapper<NucleicAcidTest> nucleicAcidTestLambdaUpdateWrapper = Wrappers.lambdaUpdate();
+            nucleicAcidTestLambdaUpdateWrapper.set(NucleicAcidTest::getReTest, false)
+                    .eq(NucleicAcidTest::getTubeid, tubeid);
+            // 更新核酸检测记录
+            nucleicAcidTestMapper.update(null, nucleicAcidTestLambdaUpdateWrapper);
+        }
+        // 单管且阳性，发送通知并相关用户转红码
+        else if (kind == 0 && result == 1) {
+            for (Long uid : uids) {
+                // 获取用户核酸检测记录
+                NucleicAcidTest nucleicAcidTest = findTestRecordsByUidAndTubeid(uid, tubeid);
+                NotificationMessageDto message = new NotificationMessageDto();
+                // 获取用户信息
+                Result<?> userResult = userClient.getUserByUID(uid);
+                UserInfoVo userInfoVo = objectMapper.convertValue(userResult.getData(), UserInfoVo.class);
+                // 设置通知消息信息
+                message.setUid(uid);
+                message.setName(userInfoVo.getName());
+                message.setIdentity_card(userInfoVo.getIdentityCard());
+                message.setPhone(userInfoVo.getPhoneNumber());
+                message.setType("POSITIVE");
+                // 发送通知消息
+                notificationProducer.sendNotification("notification-topic", message);
+                // 发送阳性结果事件，供场所风险实时计算引擎使用
+                notificationProducer.sendMessage("positive-result-topic", String.valueOf(uid),
+                        new PositiveResultEventDto(uid, tubeid, System.currentTimeMillis()));
+                TranscodingEventsDto transcodingEventsDto = new TranscodingEventsDto(uid, 2);
+                // 执行转码操作
+                healthCodeClient.transcodingHealthCodeEvents(transcodingEventsDto);
             }
-            // 阴性，相关用户转绿码
-            else if (input.getResult() == 0) {
-                for (Long uid : uids) {
-                    TranscodingEventsDto transcodingEventsDto = new TranscodingEventsDto(uid, 0);
-                    healthCodeClient.transcodingHealthCodeEvents(transcodingEventsDto);
-                }
+        }
+        // 阴性，相关用户转绿码
+        else if (result == 0) {
+            for (Long uid : uids) {
+                TranscodingEventsDto transcodingEventsDto = new TranscodingEventsDto(uid, 0);
+                healthCodeClient.transcodingHealthCodeEvents(transcodingEventsDto);
             }
         }
     }
@@ -229,42 +380,18 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
      */
     @Override
     public NucleicAcidTestResultVo getLastNucleicAcidTestRecordByUID(long uid) {
-        // 使用 LambdaQueryWrapper 构建查询条件，筛选出指定用户 ID 的记录，并按创建时间降序排列，取第一条记录
-        LambdaQueryWrapper<NucleicAcidTest> queryWrapper = Wrappers.lambdaQuery();
-        queryWrapper.eq(NucleicAcidTest::getUid, uid)
-                .orderByDesc(NucleicAcidTest::getCreatedAt)
-                .last("LIMIT 1");
-
-        // 调用 MyBatis-Plus 的 selectOne 方法进行查询，获取符合条件的核酸检测记录
-        NucleicAcidTest nucleicAcidTest = nucleicAcidTestMapper.selectOne(queryWrapper);
-        // 若未查询到记录，则返回 null
-        if (nucleicAcidTest == null) {
-            return null;
-        }
-
-        // 根据查询到的核酸检测记录，获取对应的核酸检测结果视图对象
-        return getNucleicAcidTestResultVoByTubeid(nucleicAcidTest);
+        // 按主键读取该用户的最近一次检测结果，若没有记录则返回 null
+        return latestResultStore.get(uid);
     }
 
     /**
-     * 根据核酸检测记录的试管 ID 获取对应的核酸检测结果视图对象
-     * @param nucleicAcidTest 核酸检测记录实体
-     * @return 核酸检测结果视图对象
+     * 批量获取用户的最后一条核酸检测记录
+     * @param uids 用户 ID 列表
+     * @return 用户 ID 到核酸检测结果视图对象的映射，没有检测记录的用户不在其中
      */
-    private NucleicAcidTestResultVo getNucleicAcidTestResultVoByTubeid(NucleicAcidTest nucleicAcidTest) {
-        // 创建 TubeInfo 的查询条件包装器
-        LambdaQueryWrapper<TubeInfo> tubeInfoLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        // 设置查询条件，筛选出试管 ID 与传入核酸检测记录的试管 ID 相同的记录
-        tubeInfoLambdaQueryWrapper.eq(TubeInfo::getTubeid, nucleicAcidTest.getTubeid());
-        // 执行查询，获取符合条件的 TubeInfo 记录
-        TubeInfo tubeInfo = tubeInfoMapper.selectOne(tubeInfoLambdaQueryWrapper);
-
-        // 创建核酸检测结果视图对象
-        NucleicAcidTestResultVo resultDto = new NucleicAcidTestResultVo();
-        // 将 TubeInfo 对象的属性复制到核酸检测结果视图对象中
-        BeanUtils.copyProperties(tubeInfo, resultDto);
-        // 返回核酸检测结果视图对象
-        return resultDto;
+    @Override
+    public Map<Long, NucleicAcidTestResultVo> getLastNucleicAcidTestRecordByUIDList(List<Long> uids) {
+        return latestResultStore.getAll(uids);
     }
 
     /**
@@ -274,24 +401,50 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
      */
     @Override
     public List<NucleicAcidTestResultVo> getNucleicAcidTestRecordByUID(long uid) {
-
-        // 创建 LambdaQueryWrapper 用于构建查询条件
-        LambdaQueryWrapper<NucleicAcidTest> queryWrapper = Wrappers.lambdaQuery();
+        // 优先读取缓存，缓存在用户有新采样记录或试管录入结果时失效
+        List<NucleicAcidTestResultVo> cached = recentResultCache.get(uid);
+        if (cached != null) {
+            return cached;
+        }
 
         // 计算 14 天前的时间
         LocalDateTime fourteenDaysAgo = LocalDateTime.now().minusDays(14);
-        // 将 LocalDateTime 转换为 Date 类型，用于后续查询
-        Date fourteenDaysAgoDate = Date.from(fourteenDaysAgo.atZone(ZoneId.systemDefault()).toInstant());
+        // 一次关联查询获取检测记录及其试管结果
+        List<NucleicAcidTestResultVo> results = nucleicAcidTestMapper.selectResultsByUidSince(uid, fourteenDaysAgo);
+        recentResultCache.put(uid, results);
+        return results;
+    }
 
-        // 设置查询条件：用户 ID 等于传入的 uid 且创建时间大于等于 14 天前
-        queryWrapper.eq(NucleicAcidTest::getUid, uid)
-                .ge(NucleicAcidTest::getCreatedAt, fourteenDaysAgoDate);
+    /**
+     * 获取用户在指定日期范围内的全部核酸检测记录
+     * @param uid 用户 ID
+     * @param startTime 开始日期（包含）
+     * @param endTime 结束日期（包含）
+     * @return 核酸检测结果视图对象列表，按采样时间降序排列
+     */
+    @Override
+    public List<NucleicAcidTestResultVo> getNucleicAcidTestHistoryByUID(long uid, Date startTime, Date endTime) {
+        LocalDateTime start = convertDateToLocalDateTime(startTime).toLocalDate().atStartOfDay();
+        LocalDateTime end = convertDateToLocalDateTime(endTime).toLocalDate().plusDays(1).atStartOfDay();
+
+        // 分区导出后到删除前的短暂时间内，同一记录可能同时存在于在线表和归档文件，按 ID 去重
+        Map<Long, ArchivedTestRecordDto> records = new LinkedHashMap<>();
+        for (ArchivedTestRecordDto record : nucleicAcidTestMapper.selectRecordsByUidBetween(uid, start, end)) {
+            records.putIfAbsent(record.getId(), record);
+        }
+        for (ArchivedTestRecordDto record : testArchiveStore.findByUid(uid, start, end)) {
+            records.putIfAbsent(record.getId(), record);
+        }
 
-        // 执行查询，获取符合条件的核酸检测记录列表
-        List<NucleicAcidTest> records = nucleicAcidTestMapper.selectList(queryWrapper);
-        // 将查询到的核酸检测记录列表转换为核酸检测结果视图对象列表并返回
-        return records.stream()
-                .map(this::getNucleicAcidTestResultVoByTubeid)
+        return records.values().stream()
+                .sorted(Comparator.comparing(ArchivedTestRecordDto::getCreatedAt).reversed())
+                .map(record -> {
+                    NucleicAcidTestResultVo resultVo = new NucleicAcidTestResultVo();
+                    resultVo.setCreatedAt(record.getCreatedAt());
+                    resultVo.setResult(record.getResult());
+                    resultVo.setTestingOrganization(record.getTestingOrganization());
+                    return resultVo;
+                })
                 .collect(Collectors.toList());
     }
 
@@ -421,6 +574,8 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
      * @return 管 ID 列表
      */
     private List<Long> getTubeIds(LambdaQueryWrapper<TubeInfo> queryWrapper) {
+        // 只查询管 ID，使查询可以直接从 (kind, result, created_at, tubeid) 索引返回结果
+        queryWrapper.select(TubeInfo::getTubeid);
         // 执行查询并将结果转换为管 ID 列表
         return tubeInfoMapper.selectList(queryWrapper).stream()
                 .map(TubeInfo::getTubeid)
@@ -509,7 +664,6 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
 
                     // 调用 userClient 的 getUserByUID 方法，根据 uid 获取用户信息
                     Result<?> result = userClient.getUserByUID(record.getUid());
-                    ObjectMapper objectMapper = new ObjectMapper();
                     // 将获取到的用户信息转换为 UserInfoVo 对象
                     UserInfoVo userInfoVo = objectMapper.convertValue(result.getData(), UserInfoVo.class);
                     // 将 UserInfoVo 对象的属性复制到 PositiveInfoVo 对象中
@@ -523,156 +677,144 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
     /**
      * 获取需要通知复检的核酸检测记录，并发送通知。
      * 该方法会查询三天内未进行复检的核酸检测记录，
-     * 然后构建通知链，依次添加短信通知处理器、社区通知处理器和疫情防控通知处理器。
-     * 对于每一条查询到的核酸检测记录，获取对应的用户信息并构建通知消息，
-     * 最后通过通知链执行通知操作。
+     * 查询结果按用户去重，再分批批量获取用户信息并构建通知消息，
+     * 最后构建通知链，依次添加短信通知处理器、社区通知处理器和疫情防控通知处理器，
+     * 每个处理器对每批接收人只发送一条合并后的消息。
      */
     @Override
     public void getNoticeReTestRecords() {
         // 计算三天前的日期
         Date threeDaysAgo = new Date(System.currentTimeMillis() - 3L * 24 * 60 * 60 * 1000);
 
-        // 使用 LambdaQueryWrapper 构建查询条件
+        // 使用 LambdaQueryWrapper 构建查询条件，只查询用户 ID
         LambdaQueryWrapper<NucleicAcidTest> queryWrapper = Wrappers.lambdaQuery();
-        queryWrapper.eq(NucleicAcidTest::getReTest, false)
+        queryWrapper.select(NucleicAcidTest::getUid)
+                .eq(NucleicAcidTest::getReTest, false)
                 .ge(NucleicAcidTest::getCreatedAt, threeDaysAgo);
-        // 调用 MyBatis-Plus 的 selectList 方法进行查询
-        List<NucleicAcidTest> nucleicAcidTests = nucleicAcidTestMapper.selectList(queryWrapper);
+        // 同一用户可能有多条未复检记录，按用户去重，保证每人只通知一次
+        List<Long> uids = nucleicAcidTestMapper.selectList(queryWrapper).stream()
+                .map(NucleicAcidTest::getUid)
+                .distinct()
+                .collect(Collectors.toList());
+        if (uids.isEmpty()) {
+            return;
+        }
+
+        // 分批批量获取用户信息，每批只发起一次远程调用
+        List<NotificationMessageDto> recipients = new ArrayList<>(uids.size());
+        for (int from = 0; from < uids.size(); from += NOTICE_BATCH_SIZE) {
+            List<Long> batch = uids.subList(from, Math.min(from + NOTICE_BATCH_SIZE, uids.size()));
+            Result<?> result = userClient.getUserListByUIDList(new ArrayList<>(batch));
+            List<UserInfoVo> userInfoVoList = objectMapper.convertValue(result.getData(),
+                    new TypeReference<List<UserInfoVo>>() {});
+            for (UserInfoVo userInfoVo : userInfoVoList) {
+                // 构建通知消息
+                NotificationMessageDto message = new NotificationMessageDto();
+                message.setUid(userInfoVo.getUid());
+                message.setName(userInfoVo.getName());
+                message.setIdentity_card(userInfoVo.getIdentityCard());
+                message.setPhone(userInfoVo.getPhoneNumber());
+                recipients.add(message);
+            }
+        }
 
         // 构建通知链，依次添加短信通知处理器、社区通知处理器和疫情防控通知处理器
         NotificationChain notificationChain = new NotificationChain()
                 .addHandler(new SmsNotificationHandler(notificationProducer))
                 .addHandler(new CommunityNotificationHandler(notificationProducer))
                 .addHandler(new EpidemicPreventionNotificationHandler(notificationProducer));
-
-        for (NucleicAcidTest record : nucleicAcidTests) {
-            // 根据核酸检测记录的 uid 获取用户信息
-            Result<?> result = userClient.getUserByUID(record.getUid());
-            ObjectMapper objectMapper = new ObjectMapper();
-            UserInfoVo userInfoVo = objectMapper.convertValue(result.getData(), UserInfoVo.class);
-
-            // 构建通知消息
-            NotificationMessageDto message = new NotificationMessageDto();
-            message.setName(userInfoVo.getName());
-            message.setIdentity_card(userInfoVo.getIdentityCard());
-            message.setPhone(userInfoVo.getPhoneNumber());
-            // 通过通知链执行通知操作
-            notificationChain.execute(message);
-        }
+        // 通过通知链批量执行通知操作，每个处理器每批只发送一条消息
+        notificationChain.executeBatch(recipients, NOTICE_BATCH_SIZE);
     }
 
     /**
      * 自动修改场所风险等级的方法。
      * 该方法会计算出一天前的日期，并将当前日期和一天前的日期格式化为指定格式的字符串。
-     * 接着获取所有场所码，对于每个场所码，获取前一天到过该场所的人员列表并去重，统计总人数。
-     * 然后构建查询条件，查询出前一天单管阳性的检测管信息，根据这些检测管信息进一步查询出阳性人员的 uid 列表。
-     * 最后统计出阳性人员数量，调用风险计算上下文计算该场所的风险等级，并设置场所的风险等级。
+     * 先查询出前一天单管阳性的检测管信息，进一步查询出阳性人员的 uid 集合，该集合与场所无关，只查询一次。
+     * 接着获取所有场所码，分批调用场所码服务统计每个场所前一天的到访人数和阳性人数，写入原始类型数组，
+     * 到访人员在场所码服务中从内存索引读取并去重，不需要逐个场所拉取到访人员列表。
+     * 最后调用风险计算上下文一次批量计算所有场所的风险等级，并分批设置场所的风险等级。
      */
     @Override
     public void autoModify() {
-        ObjectMapper objectMapper = new ObjectMapper();
         Date oneDayAgo = new Date(System.currentTimeMillis() - (long) 24 * 60 * 60 * 1000);
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         String oneDayAgoFormatted = dateFormat.format(oneDayAgo);
         Date now = new Date();
         String nowFormatted = dateFormat.format(now);
-        //获取所有场所码
-        List<Long> pids = objectMapper.convertValue(placeCodeClient.getAllPids().getData(), List.class);
-        //对于每个场所
-        for (Long pid : pids) {
-            // 获取前一天到过该场所的人员
-            List<Long> uids = objectMapper.convertValue(placeCodeClient.getRecordByPid(pid, oneDayAgoFormatted, nowFormatted).getData(), List.class);
-            uids = uids.stream().distinct().collect(Collectors.toList()); //去重
-            int totalPersons = uids.size();  // 获取总人数
-
-            // 使用 LambdaQueryWrapper 构建查询条件
-            LambdaQueryWrapper<TubeInfo> queryWrapper = Wrappers.lambdaQuery();
-            queryWrapper.eq(TubeInfo::getKind, 0)
-                    .eq(TubeInfo::getResult, 1)
-                    .apply("DATE(created_at) = {0}", oneDayAgo);
-            // 调用 MyBatis-Plus 的 selectList 方法进行查询
-            List<Long> tubeids =  getTubeIds(queryWrapper);
-
 
+        // 使用 LambdaQueryWrapper 构建查询条件，查询前一天单管阳性的检测管；
+        // 用 [昨天零点, 今天零点) 的范围代替 DATE(created_at)，使查询可以使用 (kind, result, created_at) 索引
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        LambdaQueryWrapper<TubeInfo> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.eq(TubeInfo::getKind, 0)
+                .eq(TubeInfo::getResult, 1)
+                .ge(TubeInfo::getCreatedAt, today.minusDays(1))
+                .lt(TubeInfo::getCreatedAt, today);
+        List<Long> tubeids = getTubeIds(queryWrapper);
+        // 获取阳性人员并去重
+        LongHashSet positiveUids = new LongHashSet();
+        if (!tubeids.isEmpty()) {
             LambdaQueryWrapper<NucleicAcidTest> queryWrapper2 = Wrappers.lambdaQuery();
-            queryWrapper2.in(NucleicAcidTest::getTubeid, tubeids);
-            // 获取阳性人数
-            List<Long> positiveUids = nucleicAcidTestMapper.selectList(queryWrapper2)
-                    .stream()
-                    .map(NucleicAcidTest::getUid)
-                    .collect(Collectors.toList());
-
-            Set<Long> positivePersons = uids.stream()
-                    .filter(positiveUids::contains)
-                    .collect(Collectors.toSet());
-
-            int positiveCount = positivePersons.size();
-            String risk = riskCalculationContext.calculateRiskLevel(totalPersons, positiveCount);
-            placeCodeClient.setPlaceRisk(pid, risk);
+            queryWrapper2.select(NucleicAcidTest::getUid)
+                    .in(NucleicAcidTest::getTubeid, tubeids);
+            for (NucleicAcidTest test : nucleicAcidTestMapper.selectList(queryWrapper2)) {
+                positiveUids.add(test.getUid());
+            }
+        }
+        List<Long> positiveUidList = Arrays.stream(positiveUids.toArray()).boxed().collect(Collectors.toList());
+
+        //获取所有场所码
+        List<Long> pids = objectMapper.convertValue(placeCodeClient.getAllPids().getData(),
+                new TypeReference<List<Long>>() {});
+        int[] populations = new int[pids.size()];
+        int[] positives = new int[pids.size()];
+        // 分批统计前一天到过各场所的人数和其中的阳性人数，每批一次远程调用
+        for (int from = 0; from < pids.size(); from += PLACE_RISK_BATCH_SIZE) {
+            int to = Math.min(from + PLACE_RISK_BATCH_SIZE, pids.size());
+            CountVisitorsDto request = new CountVisitorsDto();
+            request.setPids(new ArrayList<>(pids.subList(from, to)));
+            request.setStart_time(oneDayAgoFormatted);
+            request.setEnd_time(nowFormatted);
+            request.setPositive_uids(positiveUidList);
+            VisitorCountVo countVo = objectMapper.convertValue(
+                    placeCodeClient.countVisitorsByPids(request).getData(), VisitorCountVo.class);
+            System.arraycopy(countVo.getVisitors(), 0, populations, from, to - from);
+            System.arraycopy(countVo.getPositives(), 0, positives, from, to - from);
+        }
+
+        // 整批使用同一个策略计算所有场所的风险代码
+        byte[] codes = riskCalculationContext.calculateRiskCodes(populations, positives);
+        // 分批写入场所风险等级，每批一次远程调用，场所码服务只更新风险等级发生变化的场所
+        for (int from = 0; from < pids.size(); from += PLACE_RISK_BATCH_SIZE) {
+            int to = Math.min(from + PLACE_RISK_BATCH_SIZE, pids.size());
+            List<PlaceRiskDto> risks = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                risks.add(new PlaceRiskDto(pids.get(i), RiskCalculationStrategy.toRiskLevel(codes[i])));
+            }
+            placeCodeClient.setPlaceRisks(risks);
         }
     }
 
 
     /**
-     * 根据令牌添加核酸检测记录
+     * 根据令牌添加核酸检测记录。
+     * 试管编号需已发放给检测机构，单管试管不能重复使用；
+     * 单管采样会将该用户三天内未复检的记录标记为已复检，试管信息不存在时新建一条结果未出的记录，
+     * 具体写入由 SwabBatchWriter 按批次完成。
      * @param tid 测试ID
      * @param uid 用户ID
      * @param acidTestRecordDto 核酸检测记录数据传输对象
      */
     @Override
     public void addNucleicAcidTestRecordByToken(long tid, long uid, AddNucleicAcidTestRecordDto acidTestRecordDto) {
-        // 获取核酸检测类型
-        int kind = acidTestRecordDto.getKind();
-        // 获取试管ID
-        Long tubeid = acidTestRecordDto.getTubeid();
-        // 获取检测地址
-        String testAddress = acidTestRecordDto.getTest_address();
-
-        // 如果为单管类型，将该uid三天内的其他核酸检测记录标记为已复检状态，否则不处理
-        if (kind == 0) {
-            // 计算三天前的日期
-            Date oneDayAgo = new Date(System.currentTimeMillis() - 3L * 24 * 60 * 60 * 1000);
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String threeDayAgoFormatted = dateFormat.format(oneDayAgo);
-
-            // 使用 LambdaUpdateWrapper 构建更新条件
-            LambdaUpdateWrapper<NucleicAcidTest> updateWrapper = Wrappers.lambdaUpdate();
-            updateWrapper.set(NucleicAcidTest::getReTest, true)
-                    .eq(NucleicAcidTest::getUid, uid)
-                    .ge(NucleicAcidTest::getCreatedAt, threeDayAgoFormatted)
-                    .eq(NucleicAcidTest::getReTest, false);
-            // 调用 MyBatis-Plus 的 update 方法进行更新
-            nucleicAcidTestMapper.update(null, updateWrapper);
-        }
-
-        // 构建核酸检测记录实体
-        NucleicAcidTest nucleicAcidTest = NucleicAcidTest.builder()
-                .uid(uid)
-                .tid(tid)
-                .tubeid(tubeid)
-                .testAddress(testAddress)
-                .reTest(0)
-                .build();
-        nucleicAcidTestMapper.insert(nucleicAcidTest); // 插入核酸检测记录
-
-        // 构建查询条件，检查是否存在符合条件的试管信息
-        LambdaQueryWrapper<TubeInfo> queryWrapper = Wrappers.lambdaQuery();
-        queryWrapper.eq(TubeInfo::getTubeid, tubeid)
-                .eq(TubeInfo::getKind, kind);
-        // 执行查询，判断是否存在符合条件的数据
-        boolean exists = tubeInfoMapper.selectCount(queryWrapper) > 0;
-
-        if (!exists) {
-            // 构建试管信息实体
-            TubeInfo tubeInfo = TubeInfo.builder()
-                    .tubeid(tubeid)
-                    .kind(kind)
-                    .result(2) // 未出
-                    .testingOrganization(testAddress) // 设置检测机构
-                    .build();
-            // 插入试管信息
-            tubeInfoMapper.insert(tubeInfo);
-        }
+        // 在登记簿中校验并登记试管，未发放或已使用的试管直接拒绝
+        tubeRegistry.acquire(acidTestRecordDto.getTubeid(), acidTestRecordDto.getKind());
+        // 交给组提交收集器与其他采样点的记录合并写入，方法返回时记录已经提交到数据库；
+        // 只有确定没有写入时才撤销登记，等待超时的记录仍可能提交，不撤销
+        swabRecordCollector.submit(new SwabRecordDto(uid, tid, acidTestRecordDto.getTubeid(),
+                        acidTestRecordDto.getKind(), acidTestRecordDto.getTest_address()),
+                () -> tubeRegistry.release(acidTestRecordDto.getTubeid(), acidTestRecordDto.getKind()));
     }
 
     /**
@@ -684,8 +826,6 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
     public void addNucleicAcidTestRecordByID(long tid, AddNucleicAcidTestRecordByIDDto acidTestRecordByIDDto) {
         // 通过用户客户端根据身份证号获取用户信息
         Result<?> result = userClient.getUserByID(acidTestRecordByIDDto.getIdentity_card());
-        // 创建ObjectMapper对象，用于JSON数据处理
-        ObjectMapper objectMapper = new ObjectMapper();
         // 将获取到的用户信息结果数据转换为UserInfoVo对象
         UserInfoVo userInfoVo = objectMapper.convertValue(result.getData(), UserInfoVo.class);
         // 获取用户的UID
@@ -717,4 +857,237 @@ public class NucleicAcidsServiceImpl implements NucleicAcidsService {
         // 并从 ZonedDateTime 对象中提取出 LocalDateTime 对象
         return instant.atZone(zoneId).toLocalDateTime();
     }
+
+    /**
+     * 批量同步采样设备离线期间缓存的采样记录。
+     * 先解析令牌并批量查询身份证号对应的用户，再按（用户，试管）去重，
+     * 已写入过的记录直接返回 DUPLICATE，便于设备安全地重传；
+     * 剩余记录按采样时间排序后分批在事务中写入，某批失败时逐条重试以定位失败记录。
+     *
+     * @param tid   检测人员的唯一标识
+     * @param items 设备缓存的采样记录列表
+     * @return 每条记录的处理结果
+     */
+    @Override
+    public List<SwabSyncResultVo> syncSwabRecords(long tid, List<SwabSyncItemDto> items) {
+        SwabSyncResultVo[] results = new SwabSyncResultVo[items.size()];
+        Long[] uids = new Long[items.size()];
+
+        // 解析用户令牌，收集需要批量查询的身份证号
+        Set<String> identityCards = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            SwabSyncItemDto item = items.get(i);
+            if (item.getToken() != null && !item.getToken().isEmpty()) {
+                try {
+                    uids[i] = JWTUtil.extractID(item.getToken());
+                } catch (BusinessException e) {
+                    logger.warn("Invalid user token in swab sync, index: {}", i);
+                }
+            } else if (item.getIdentity_card() != null && !item.getIdentity_card().isEmpty()) {
+                identityCards.add(item.getIdentity_card());
+            }
+        }
+        Map<String, Long> uidByIdentityCard = getUidsByIdentityCards(new ArrayList<>(identityCards));
+        for (int i = 0; i < items.size(); i++) {
+            if (uids[i] == null && items.get(i).getIdentity_card() != null) {
+                uids[i] = uidByIdentityCard.get(items.get(i).getIdentity_card());
+            }
+            if (uids[i] == null) {
+                results[i] = new SwabSyncResultVo(i, items.get(i).getTubeid(), SwabSyncResultVo.UNKNOWN_USER);
+            }
+        }
+
+        // 按（用户，试管）去重，包括本次请求内的重复和数据库中已存在的记录
+        Set<Long> tubeids = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (uids[i] != null) {
+                tubeids.add(items.get(i).getTubeid());
+            }
+        }
+        Set<String> seen = getExistingUidTubePairs(new ArrayList<>(tubeids));
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (uids[i] == null) {
+                continue;
+            }
+            if (!seen.add(uids[i] + ":" + items.get(i).getTubeid())) {
+                results[i] = new SwabSyncResultVo(i, items.get(i).getTubeid(), SwabSyncResultVo.DUPLICATE);
+                continue;
+            }
+            // 在登记簿中校验并登记试管
+            try {
+                tubeRegistry.acquire(items.get(i).getTubeid(), items.get(i).getKind());
+                pending.add(i);
+            } catch (BusinessException e) {
+                results[i] = new SwabSyncResultVo(i, items.get(i).getTubeid(), SwabSyncResultVo.INVALID_TUBE);
+            }
+        }
+
+        // 按采样时间排序，保证单管复检标记的先后关系与现场一致
+        pending.sort(Comparator.comparingLong(i ->
+                items.get(i).getCollected_at() == null ? Long.MAX_VALUE : items.get(i).getCollected_at()));
+        for (int from = 0; from < pending.size(); from += SYNC_BATCH_SIZE) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + SYNC_BATCH_SIZE, pending.size()));
+            List<SwabRecordDto> records = new ArrayList<>(chunk.size());
+            for (Integer i : chunk) {
+                records.add(toSwabRecord(tid, uids[i], items.get(i)));
+            }
+            try {
+                swabBatchWriter.writeBatch(records);
+                for (Integer i : chunk) {
+                    results[i] = new SwabSyncResultVo(i, items.get(i).getTubeid(), SwabSyncResultVo.OK);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to write swab sync batch, message: {}", e.getMessage());
+                // 整批失败时逐条写入，定位具体失败的记录
+                for (int j = 0; j < chunk.size(); j++) {
+                    int i = chunk.get(j);
+                    String status = SwabSyncResultVo.OK;
+                    try {
+                        swabBatchWriter.writeBatch(Collections.singletonList(records.get(j)));
+                    } catch (Exception ex) {
+                        status = SwabSyncResultVo.FAILED;
+                        tubeRegistry.release(items.get(i).getTubeid(), items.get(i).getKind());
+                    }
+                    results[i] = new SwabSyncResultVo(i, items.get(i).getTubeid(), status);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 分批批量查询身份证号对应的用户 ID。
+     *
+     * @param identityCards 去重后的身份证号列表
+     * @return 身份证号到用户 ID 的映射，不存在的身份证号不在映射中
+     */
+    private Map<String, Long> getUidsByIdentityCards(List<String> identityCards) {
+        Map<String, Long> uidByIdentityCard = new HashMap<>();
+        for (int from = 0; from < identityCards.size(); from += SYNC_BATCH_SIZE) {
+            List<String> batch = identityCards.subList(from, Math.min(from + SYNC_BATCH_SIZE, identityCards.size()));
+            Result<?> result = userClient.getUserListByIDList(new ArrayList<>(batch));
+            List<UserInfoVo> userInfoVoList = objectMapper.convertValue(result.getData(),
+                    new TypeReference<List<UserInfoVo>>() {});
+            for (UserInfoVo userInfoVo : userInfoVoList) {
+                uidByIdentityCard.put(userInfoVo.getIdentityCard(), userInfoVo.getUid());
+            }
+        }
+        return uidByIdentityCard;
+    }
+
+    /**
+     * 分批查询指定试管上已存在的（用户，试管）组合。
+     *
+     * @param tubeids 试管 ID 列表
+     * @return 形如 "uid:tubeid" 的组合集合
+     */
+    private Set<String> getExistingUidTubePairs(List<Long> tubeids) {
+        Set<String> pairs = new HashSet<>();
+        for (int from = 0; from < tubeids.size(); from += SYNC_BATCH_SIZE) {
+            LambdaQueryWrapper<NucleicAcidTest> queryWrapper = Wrappers.lambdaQuery();
+            queryWrapper.select(NucleicAcidTest::getUid, NucleicAcidTest::getTubeid)
+                    .in(NucleicAcidTest::getTubeid, tubeids.subList(from, Math.min(from + SYNC_BATCH_SIZE, tubeids.size())));
+            for (NucleicAcidTest test : nucleicAcidTestMapper.selectList(queryWrapper)) {
+                pairs.add(test.getUid() + ":" + test.getTubeid());
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * 将设备上传的记录转换为待写入的采样记录。
+     */
+    private SwabRecordDto toSwabRecord(long tid, long uid, SwabSyncItemDto item) {
+        LocalDateTime collectedAt = item.getCollected_at() == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(item.getCollected_at()), ZoneId.systemDefault());
+        return new SwabRecordDto(uid, tid, item.getTubeid(), item.getKind(), item.getTest_address(), collectedAt);
+    }
+
+    /**
+     * 导入检测仪器导出的结果文件。
+     * 文件以内存映射方式逐段解析，每段结果按（试管类型，检测结果）分组批量更新试管信息和最近检测结果，
+     * 再用一次查询取得本段试管关联的用户，按与 enterNucleicAcidTestRecordList 相同的规则进行转码和通知。
+     *
+     * @param file                结果文件
+     * @param format              文件格式，csv 或 fixed
+     * @param testingOrganization 检测机构名称
+     * @return 导入统计
+     * @throws IOException 读取文件失败时抛出
+     */
+    @Override
+    public ResultImportVo importResultFile(Path file, String format, String testingOrganization) throws IOException {
+        ResultFileParser parser;
+        if ("csv".equalsIgnoreCase(format)) {
+            parser = new ResultFileParser(importChunkSize);
+        } else if ("fixed".equalsIgnoreCase(format)) {
+            parser = new ResultFileParser(ResultFileParser.Format.FIXED, importChunkSize,
+                    fixedTubeidStart, fixedTubeidLength, fixedKindOffset, fixedResultOffset);
+        } else {
+            throw new BusinessException(ExceptionEnum.REQUEST_PARAMETER_ERROR);
+        }
+
+        long start = System.currentTimeMillis();
+        long chunks = parser.parse(file, chunk -> applyResultChunk(chunk, testingOrganization));
+
+        ResultImportVo resultImportVo = new ResultImportVo();
+        resultImportVo.setRows(parser.getRows());
+        resultImportVo.setChunks(chunks);
+        resultImportVo.setSkipped(parser.getSkipped());
+        resultImportVo.setMalformed(parser.getMalformed());
+        resultImportVo.setMalformed_lines(parser.getMalformedLines());
+        resultImportVo.setElapsed_ms(System.currentTimeMillis() - start);
+        logger.info("Imported {} results from {} in {} ms, malformed: {}",
+                parser.getRows(), file.getFileName(), resultImportVo.getElapsed_ms(), parser.getMalformed());
+        return resultImportVo;
+    }
+
+    /**
+     * 将一段导入的结果写入数据库并处理相关用户。
+     *
+     * @param chunk               结果段
+     * @param testingOrganization 检测机构名称
+     */
+    private void applyResultChunk(ResultChunk chunk, String testingOrganization) {
+        // 按（试管类型，检测结果）分组，每组用一条语句更新
+        Map<Integer, List<Long>> groups = new HashMap<>();
+        List<Long> tubeids = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            groups.computeIfAbsent(chunk.kind(i) * 2 + chunk.result(i), key -> new ArrayList<>()).add(chunk.tubeid(i));
+            tubeids.add(chunk.tubeid(i));
+        }
+        for (Map.Entry<Integer, List<Long>> group : groups.entrySet()) {
+            int kind = group.getKey() / 2;
+            int result = group.getKey() % 2;
+            LambdaUpdateWrapper<TubeInfo> updateWrapper = Wrappers.lambdaUpdate();
+            updateWrapper.set(TubeInfo::getResult, result)
+                    .set(TubeInfo::getTestingOrganization, testingOrganization)
+                    .in(TubeInfo::getTubeid, group.getValue())
+                    .eq(TubeInfo::getKind, kind);
+            tubeInfoMapper.update(null, updateWrapper);
+            latestResultStore.recordResults(group.getValue(), kind, result, testingOrganization);
+        }
+
+        // 一次查询获取本段试管关联的用户
+        LambdaQueryWrapper<NucleicAcidTest> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.select(NucleicAcidTest::getUid, NucleicAcidTest::getTubeid, NucleicAcidTest::getKind)
+                .in(NucleicAcidTest::getTubeid, tubeids);
+        Map<Long, List<NucleicAcidTest>> testsByTubeid = nucleicAcidTestMapper.selectList(queryWrapper).stream()
+                .collect(Collectors.groupingBy(NucleicAcidTest::getTubeid));
+        Set<Long> affectedUids = new HashSet<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            List<Long> uids = new ArrayList<>();
+            for (NucleicAcidTest test : testsByTubeid.getOrDefault(chunk.tubeid(i), Collections.emptyList())) {
+                // 没有记录试管类型的旧数据按试管编号匹配
+                if (test.getKind() == null || test.getKind() == chunk.kind(i)) {
+                    uids.add(test.getUid());
+                }
+            }
+            affectedUids.addAll(uids);
+            applyResultEffects(chunk.tubeid(i), chunk.kind(i), chunk.result(i), uids);
+        }
+        // 删除相关用户的最近结果缓存
+        recentResultCache.evict(affectedUids);
+    }
 }
@@ -0,0 +1,69 @@
+package org.software.code.service.importer;
+
+/**
+ * ResultChunk 保存从结果文件中解析出的一段检测结果，按列存放在基本类型数组中。
+ * 解析器在整个导入过程中复用同一个实例，处理方只能在回调期间读取其中的数据。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public class ResultChunk {
+
+    // 试管编号
+    final long[] tubeids;
+
+    // 试管类型
+    final int[] kinds;
+
+    // 检测结果
+    final int[] results;
+
+    // 当前保存的结果条数
+    int size;
+
+    ResultChunk(int capacity) {
+        tubeids = new long[capacity];
+        kinds = new int[capacity];
+        results = new int[capacity];
+    }
+
+    /**
+     * 获取当前保存的结果条数。
+     *
+     * @return 结果条数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取第 i 条结果的试管编号。
+     */
+    public long tubeid(int i) {
+        return tubeids[i];
+    }
+
+    /**
+     * 获取第 i 条结果的试管类型。
+     */
+    public int kind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * 获取第 i 条结果的检测结果。
+     */
+    public int result(int i) {
+        return results[i];
+    }
+
+    boolean isFull() {
+        return size == tubeids.length;
+    }
+
+    void add(long tubeid, int kind, int result) {
+        tubeids[size] = tubeid;
+        kinds[size] = kind;
+        results[size] = result;
+        size++;
+    }
+}
@@ -0,0 +1,308 @@
+package org.software.code.service.importer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ResultFileParser 解析检测仪器导出的结果文件，文件每行一条结果，支持两种格式：
+ * CSV 格式为"试管编号,试管类型,检测结果"，其后的列被忽略，首行可以是表头；
+ * 定长格式按固定的字符位置读取试管编号、试管类型和检测结果。
+ * 文件按窗口内存映射后直接在字节上解析，结果写入复用的 ResultChunk，
+ * 每攒满一段交给处理方，解析过程不为每行创建字符串或对象，堆内存占用与文件大小无关。
+ * 每个实例只用于解析一个文件，不是线程安全的。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public class ResultFileParser {
+
+    /**
+     * 结果文件格式。
+     */
+    public enum Format {
+        CSV, FIXED
+    }
+
+    /**
+     * 结果段的处理方。
+     */
+    public interface ChunkHandler {
+        /**
+         * 处理一段解析出的结果，方法返回后结果段会被复用。
+         *
+         * @param chunk 结果段
+         */
+        void handle(ResultChunk chunk);
+    }
+
+    // 每次映射的文件窗口大小
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    // 最多记录的格式错误行号数量
+    private static final int MAX_MALFORMED_LINES = 20;
+
+    // 试管编号的最大位数
+    private static final int TUBEID_DIGITS = 19;
+
+    private final Format format;
+
+    // 定长格式中试管编号的起始位置和长度，以及试管类型和检测结果所在的位置
+    private final int tubeidStart;
+    private final int tubeidLength;
+    private final int kindOffset;
+    private final int resultOffset;
+
+    private final ResultChunk chunk;
+
+    // 当前解析位置
+    private int cursor;
+
+    // 已解析的有效结果数
+    private long rows;
+
+    // 跳过的表头和空行数
+    private long skipped;
+
+    // 格式错误的行数
+    private long malformed;
+
+    // 前若干个格式错误的行号
+    private final long[] malformedLines = new long[MAX_MALFORMED_LINES];
+
+    // 是否已经遇到过非空行，用于识别 CSV 表头
+    private boolean seenContent;
+
+    /**
+     * 创建 CSV 格式的解析器。
+     *
+     * @param chunkSize 每段的结果条数
+     */
+    public ResultFileParser(int chunkSize) {
+        this(Format.CSV, chunkSize, 0, 0, 0, 0);
+    }
+
+    /**
+     * 创建解析器。
+     *
+     * @param format       文件格式
+     * @param chunkSize    每段的结果条数
+     * @param tubeidStart  定长格式中试管编号的起始位置
+     * @param tubeidLength 定长格式中试管编号的长度
+     * @param kindOffset   定长格式中试管类型的位置
+     * @param resultOffset 定长格式中检测结果的位置
+     */
+    public ResultFileParser(Format format, int chunkSize, int tubeidStart, int tubeidLength,
+                            int kindOffset, int resultOffset) {
+        this.format = format;
+        this.chunk = new ResultChunk(chunkSize);
+        this.tubeidStart = tubeidStart;
+        this.tubeidLength = tubeidLength;
+        this.kindOffset = kindOffset;
+        this.resultOffset = resultOffset;
+    }
+
+    /**
+     * 解析整个文件，每攒满一段以及文件结束时调用处理方。
+     *
+     * @param file    结果文件
+     * @param handler 结果段的处理方
+     * @return 交给处理方的段数
+     * @throws IOException 读取失败或单行超过映射窗口大小时抛出
+     */
+    public long parse(Path file, ChunkHandler handler) throws IOException {
+        long chunks = 0;
+        long lineNo = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == size;
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) != '\n') {
+                        continue;
+                    }
+                    parseLine(buffer, lineStart, i, ++lineNo);
+                    lineStart = i + 1;
+                    if (chunk.isFull()) {
+                        handler.handle(chunk);
+                        chunk.size = 0;
+                        chunks++;
+                    }
+                }
+                if (lastWindow) {
+                    // 最后一行可能没有换行符
+                    if (lineStart < length) {
+                        parseLine(buffer, lineStart, length, ++lineNo);
+                    }
+                    position = size;
+                } else {
+                    if (lineStart == 0) {
+                        throw new IOException("Line " + (lineNo + 1) + " exceeds mapping window");
+                    }
+                    // 下一个窗口从未解析完的行首开始映射
+                    position += lineStart;
+                }
+            }
+        }
+        if (chunk.size > 0) {
+            handler.handle(chunk);
+            chunk.size = 0;
+            chunks++;
+        }
+        return chunks;
+    }
+
+    /**
+     * 获取已解析的有效结果数。
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * 获取跳过的表头和空行数。
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * 获取格式错误的行数。
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * 获取前若干个格式错误的行号。
+     */
+    public long[] getMalformedLines() {
+        return Arrays.copyOf(malformedLines, (int) Math.min(malformed, MAX_MALFORMED_LINES));
+    }
+
+    /**
+     * 解析 [start, end) 范围内的一行，end 处为换行符或文件末尾。
+     */
+    private void parseLine(MappedByteBuffer buffer, int start, int end, long lineNo) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (isBlank(buffer, start, end)) {
+            skipped++;
+            return;
+        }
+        boolean firstContent = !seenContent;
+        seenContent = true;
+        boolean parsed = format == Format.CSV ? parseCsv(buffer, start, end) : parseFixed(buffer, start, end);
+        if (parsed) {
+            return;
+        }
+        if (firstContent && format == Format.CSV && !isDigit(buffer.get(skipSpaces(buffer, start, end)))) {
+            // CSV 首行以非数字开头时视为表头
+            skipped++;
+            return;
+        }
+        if (malformed < MAX_MALFORMED_LINES) {
+            malformedLines[(int) malformed] = lineNo;
+        }
+        malformed++;
+    }
+
+    private boolean parseCsv(MappedByteBuffer buffer, int start, int end) {
+        cursor = start;
+        long tubeid = readNumber(buffer, end, TUBEID_DIGITS);
+        if (tubeid < 0 || !expectComma(buffer, end)) {
+            return false;
+        }
+        long kind = readNumber(buffer, end, 1);
+        if (kind < 0 || !expectComma(buffer, end)) {
+            return false;
+        }
+        long result = readNumber(buffer, end, 1);
+        if (result < 0 || (cursor < end && buffer.get(cursor) != ',')) {
+            return false;
+        }
+        return accept(tubeid, (int) kind, (int) result);
+    }
+
+    private boolean parseFixed(MappedByteBuffer buffer, int start, int end) {
+        int lineLength = end - start;
+        if (lineLength < tubeidStart + tubeidLength || lineLength <= kindOffset || lineLength <= resultOffset) {
+            return false;
+        }
+        cursor = start + tubeidStart;
+        long tubeid = readNumber(buffer, start + tubeidStart + tubeidLength, tubeidLength);
+        if (tubeid < 0 || cursor != start + tubeidStart + tubeidLength) {
+            return false;
+        }
+        byte kind = buffer.get(start + kindOffset);
+        byte result = buffer.get(start + resultOffset);
+        if (!isDigit(kind) || !isDigit(result)) {
+            return false;
+        }
+        return accept(tubeid, kind - '0', result - '0');
+    }
+
+    /**
+     * 校验取值范围后写入结果段。
+     */
+    private boolean accept(long tubeid, int kind, int result) {
+        if (kind > 2 || result > 1) {
+            return false;
+        }
+        chunk.add(tubeid, kind, result);
+        rows++;
+        return true;
+    }
+
+    /**
+     * 从 cursor 开始读取一个非负整数，允许前后有空格，超过 maxDigits 位或溢出时返回 -1。
+     */
+    private long readNumber(MappedByteBuffer buffer, int end, int maxDigits) {
+        cursor = skipSpaces(buffer, cursor, end);
+        long value = 0;
+        int digits = 0;
+        while (cursor < end && isDigit(buffer.get(cursor))) {
+            int digit = buffer.get(cursor) - '0';
+            if (++digits > maxDigits || value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+            cursor++;
+        }
+        if (digits == 0) {
+            return -1;
+        }
+        cursor = skipSpaces(buffer, cursor, end);
+        return value;
+    }
+
+    private boolean expectComma(MappedByteBuffer buffer, int end) {
+        if (cursor < end && buffer.get(cursor) == ',') {
+            cursor++;
+            return true;
+        }
+        return false;
+    }
+
+    private static int skipSpaces(MappedByteBuffer buffer, int from, int end) {
+        while (from < end && (buffer.get(from) == ' ' || buffer.get(from) == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isBlank(MappedByteBuffer buffer, int start, int end) {
+        return skipSpaces(buffer, start, end) == end;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -41,4 +41,20 @@ public class NotificationChain {
             handler.handle(message);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量执行通知处理链，将接收人按批次大小切分后，依次交给每个处理程序批量处理。
+     * 每个处理程序对每一批接收人只产生一次发送，而不是每人一次。
+     *
+     * @param recipients 要通知的接收人列表
+     * @param batchSize  每批接收人的最大数量，用于控制单条消息的大小
+     */
+    public void executeBatch(List<NotificationMessageDto> recipients, int batchSize) {
+        for (int from = 0; from < recipients.size(); from += batchSize) {
+            List<NotificationMessageDto> batch = recipients.subList(from, Math.min(from + batchSize, recipients.size()));
+            for (NotificationHandler handler : handlers) {
+                handler.handleBatch(batch);
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package org.software.code.service.notification;
 
 import org.software.code.dto.NotificationMessageDto;
 
+import java.util.List;
+
 /**
  * NotificationHandler 是一个通知处理程序的接口，它定义了处理通知消息的统一行为。
  * 不同类型的通知处理逻辑可以通过实现该接口来完成，例如向社区上报通知、向疫情防控部门上报通知等。
@@ -17,4 +19,16 @@ public interface NotificationHandler {
      * @param message 包含通知信息的消息对象，其具体信息封装在 NotificationMessageDto 中
      */
     void handle(NotificationMessageDto message);
-}
\ No newline at end of file
+
+    /**
+     * 批量处理通知消息的方法，一次处理同一批接收人。
+     * 默认逐条调用 handle 方法，实现类可以覆盖该方法，将整批接收人合并为一条消息发送。
+     *
+     * @param recipients 通知的接收人列表
+     */
+    default void handleBatch(List<NotificationMessageDto> recipients) {
+        for (NotificationMessageDto message : recipients) {
+            handle(message);
+        }
+    }
+}
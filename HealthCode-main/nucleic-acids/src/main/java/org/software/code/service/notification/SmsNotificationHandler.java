@@ -1,9 +1,12 @@
 package org.software.code.service.notification;
 
+import org.software.code.dto.NotificationBatchMessageDto;
 import org.software.code.dto.NotificationMessageDto;
 import org.software.code.kafaka.NotificationProducer;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * SmsNotificationHandler 是一个用于处理短信通知消息的处理器类。
  * 它实现了 NotificationHandler 接口，专门负责将通知消息封装为短信类型，并发送到 Kafka 主题。
@@ -41,4 +44,15 @@ public class SmsNotificationHandler implements NotificationHandler {
         // 调用 NotificationProducer 的 sendNotification 方法，将消息发送到指定的 Kafka 主题
         producer.sendNotification("notification-topic", message);
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量处理通知消息的方法，将整批接收人合并为一条类型为 "SMS" 的批量消息，
+     * 发送到名为 "notification-batch-topic" 的 Kafka 主题。
+     *
+     * @param recipients 通知的接收人列表
+     */
+    @Override
+    public void handleBatch(List<NotificationMessageDto> recipients) {
+        producer.sendMessage("notification-batch-topic", new NotificationBatchMessageDto("SMS", recipients));
+    }
+}
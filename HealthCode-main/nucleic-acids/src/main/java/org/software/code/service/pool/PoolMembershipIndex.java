@@ -0,0 +1,230 @@
+package org.software.code.service.pool;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import org.software.code.entity.NucleicAcidTest;
+import org.software.code.mapper.NucleicAcidTestMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PoolMembershipIndex 在内存中维护等待出结果的混管与管内用户的对应关系。
+ * 每支混管只保存一个 long 数组和首次采样时间，十人、二十人混管的成员在采样事务提交后追加，
+ * 用于统计混管周转时间和在线上观察待出结果的混管。
+ * 索引只记录本实例采样的成员，同一混管可能由多个实例采样，因此成员以核酸检测记录为准，
+ * 结果录入时按试管编号查询，再并上索引中的成员。
+ * 索引只保存最近的混管，超过保留时间仍未出结果的混管会被清除。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class PoolMembershipIndex {
+
+    /**
+     * 一支混管及其成员，创建后不再修改，追加成员时整体替换。
+     */
+    public static final class Pool {
+
+        private final long tubeid;
+
+        private final int kind;
+
+        private final long[] uids;
+
+        private final long swabbedAt;
+
+        private Pool(long tubeid, int kind, long[] uids, long swabbedAt) {
+            this.tubeid = tubeid;
+            this.kind = kind;
+            this.uids = uids;
+            this.swabbedAt = swabbedAt;
+        }
+
+        public long getTubeid() {
+            return tubeid;
+        }
+
+        public int getKind() {
+            return kind;
+        }
+
+        /**
+         * 获取管内用户 ID 列表。
+         */
+        public List<Long> getUids() {
+            List<Long> list = new ArrayList<>(uids.length);
+            for (long uid : uids) {
+                list.add(uid);
+            }
+            return list;
+        }
+
+        /**
+         * 获取管内用户数。
+         */
+        public int size() {
+            return uids.length;
+        }
+
+        /**
+         * 获取首次采样时间（毫秒时间戳）。
+         */
+        public long getSwabbedAt() {
+            return swabbedAt;
+        }
+    }
+
+    // 试管类型数量，下标为试管类型，单管不建索引
+    private static final int KIND_COUNT = 3;
+
+    /**
+     * 混管在索引中的最长保留时间（小时）。
+     */
+    @Value("${pool.index.retention-hours:72}")
+    private long retentionHours;
+
+    @Resource
+    private NucleicAcidTestMapper nucleicAcidTestMapper;
+
+    // 按试管类型分开的试管编号到混管的映射
+    private final List<ConcurrentHashMap<Long, Pool>> pools = new ArrayList<>(KIND_COUNT);
+
+    public PoolMembershipIndex() {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            pools.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 判断试管类型是否为混管。
+     *
+     * @param kind 试管类型
+     * @return 混管时返回 true
+     */
+    public static boolean isPooled(Integer kind) {
+        return kind != null && kind > 0 && kind < KIND_COUNT;
+    }
+
+    /**
+     * 向混管追加一批采样用户，混管不在索引中时以本次采样时间作为首次采样时间。
+     *
+     * @param tubeid    检测管编号
+     * @param kind      试管类型
+     * @param uids      新采样的用户 ID
+     * @param swabbedAt 采样时间（毫秒时间戳）
+     */
+    public void addMembers(long tubeid, int kind, Collection<Long> uids, long swabbedAt) {
+        if (!isPooled(kind) || uids.isEmpty()) {
+            return;
+        }
+        pools.get(kind).compute(tubeid, (key, pool) -> {
+            long[] merged;
+            int offset;
+            if (pool == null) {
+                merged = new long[uids.size()];
+                offset = 0;
+            } else {
+                merged = Arrays.copyOf(pool.uids, pool.uids.length + uids.size());
+                offset = pool.uids.length;
+            }
+            for (Long uid : uids) {
+                merged[offset++] = uid;
+            }
+            return new Pool(tubeid, kind, merged,
+                    pool == null ? swabbedAt : Math.min(pool.swabbedAt, swabbedAt));
+        });
+    }
+
+    /**
+     * 获取混管的成员。以核酸检测记录为准，再并上索引中的成员。
+     *
+     * @param tubeid 检测管编号
+     * @param kind   试管类型
+     * @return 管内用户 ID 列表，不含重复
+     */
+    public List<Long> getMembers(long tubeid, int kind) {
+        LambdaQueryWrapper<NucleicAcidTest> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.select(NucleicAcidTest::getUid)
+                .eq(NucleicAcidTest::getTubeid, tubeid)
+                // 没有记录试管类型的旧数据按试管编号匹配
+                .and(wrapper -> wrapper.isNull(NucleicAcidTest::getKind).or().eq(NucleicAcidTest::getKind, kind));
+        List<Long> stored = nucleicAcidTestMapper.selectObjs(queryWrapper);
+        Pool pool = isPooled(kind) ? pools.get(kind).get(tubeid) : null;
+        Set<Long> members = new LinkedHashSet<>(stored);
+        if (pool != null) {
+            for (long uid : pool.uids) {
+                members.add(uid);
+            }
+        }
+        return new ArrayList<>(members);
+    }
+
+    /**
+     * 混管出结果后将其移出索引。
+     *
+     * @param tubeid 检测管编号
+     * @param kind   试管类型
+     * @return 移出的混管，不在索引中时返回 null
+     */
+    public Pool remove(long tubeid, int kind) {
+        return isPooled(kind) ? pools.get(kind).remove(tubeid) : null;
+    }
+
+    /**
+     * 获取索引中的混管数。
+     */
+    public long poolCount() {
+        long count = 0;
+        for (ConcurrentHashMap<Long, Pool> map : pools) {
+            count += map.size();
+        }
+        return count;
+    }
+
+    /**
+     * 获取索引中的用户数。
+     */
+    public long memberCount() {
+        long count = 0;
+        for (ConcurrentHashMap<Long, Pool> map : pools) {
+            for (Pool pool : map.values()) {
+                count += pool.uids.length;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 定期清除超过保留时间仍未出结果的混管。
+     */
+    @Scheduled(fixedDelayString = "${pool.index.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - retentionHours * 3600_000L;
+        for (ConcurrentHashMap<Long, Pool> map : pools) {
+            map.values().removeIf(pool -> pool.swabbedAt < expireBefore);
+        }
+    }
+
+    /**
+     * 将采样时间转换为毫秒时间戳，采样时间为空时取当前时间。
+     *
+     * @param collectedAt 采样时间
+     * @return 毫秒时间戳
+     */
+    public static long toMillis(LocalDateTime collectedAt) {
+        return collectedAt == null ? System.currentTimeMillis()
+                : collectedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
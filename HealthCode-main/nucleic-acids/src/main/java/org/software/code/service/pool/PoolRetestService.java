@@ -0,0 +1,232 @@
+package org.software.code.service.pool;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.client.UserClient;
+import org.software.code.common.result.Result;
+import org.software.code.dto.NotificationBatchMessageDto;
+import org.software.code.dto.NotificationMessageDto;
+import org.software.code.entity.RetestOrder;
+import org.software.code.kafaka.NotificationProducer;
+import org.software.code.mapper.RetestOrderMapper;
+import org.software.code.vo.UserInfoVo;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * PoolRetestService 负责混管出结果后的复检流程。
+ * 混管阳性时一次批量生成管内所有用户的单管复检单，并为整管发送一条合并的复检通知消息；
+ * 用户单管采样后完成其待复检的复检单。
+ * 同时统计混管从采样到出结果、复检单从生成到完成的周转时间。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class PoolRetestService {
+
+    private static final Logger logger = LogManager.getLogger(PoolRetestService.class);
+
+    // 复检通知的消息类型
+    private static final String RETEST_TYPE = "RETEST";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Resource
+    private PoolMembershipIndex poolMembershipIndex;
+
+    @Resource
+    private RetestOrderMapper retestOrderMapper;
+
+    @Resource
+    private UserClient userClient;
+
+    @Resource
+    private NotificationProducer notificationProducer;
+
+    // 出结果的混管数、阳性混管数、不在索引中无法统计周转时间的混管数
+    private final LongAdder poolsResulted = new LongAdder();
+    private final LongAdder poolsPositive = new LongAdder();
+    private final LongAdder poolsUntracked = new LongAdder();
+
+    // 混管从首次采样到出结果的周转时间统计
+    private final LongAdder poolTurnaroundTotal = new LongAdder();
+    private final LongAdder poolTurnaroundCount = new LongAdder();
+    private final AtomicLong poolTurnaroundMax = new AtomicLong();
+
+    // 复检单的生成数、完成数以及从生成到完成的周转时间统计
+    private final LongAdder ordersCreated = new LongAdder();
+    private final LongAdder ordersCompleted = new LongAdder();
+    private final LongAdder retestTurnaroundTotal = new LongAdder();
+    private final AtomicLong retestTurnaroundMax = new AtomicLong();
+
+    /**
+     * 混管录入结果后调用：将混管移出成员索引并统计周转时间，阳性时生成复检单并通知管内用户。
+     *
+     * @param tubeid 检测管编号
+     * @param kind   试管类型
+     * @param result 检测结果
+     * @param uids   管内用户 ID
+     */
+    public void onPoolResult(long tubeid, int kind, int result, List<Long> uids) {
+        PoolMembershipIndex.Pool pool = poolMembershipIndex.remove(tubeid, kind);
+        poolsResulted.increment();
+        if (pool != null) {
+            long turnaround = System.currentTimeMillis() - pool.getSwabbedAt();
+            poolTurnaroundTotal.add(turnaround);
+            poolTurnaroundCount.increment();
+            poolTurnaroundMax.accumulateAndGet(turnaround, Math::max);
+        } else {
+            poolsUntracked.increment();
+        }
+        if (result != 1 || uids.isEmpty()) {
+            return;
+        }
+        poolsPositive.increment();
+
+        // 一次批量插入生成管内所有用户的复检单，重复录入同一混管结果时不会重复生成和通知
+        List<RetestOrder> orders = new ArrayList<>(uids.size());
+        for (Long uid : uids) {
+            orders.add(RetestOrder.builder().poolTubeid(tubeid).poolKind(kind).uid(uid).build());
+        }
+        int created = retestOrderMapper.insertIgnoreBatch(orders);
+        ordersCreated.add(created);
+        if (created == 0) {
+            return;
+        }
+        notifyPool(tubeid, uids);
+    }
+
+    /**
+     * 用户单管采样后完成其待复检的复检单，需要在写入采样记录的同一事务中调用。
+     *
+     * @param uids 单管采样的用户 ID
+     */
+    public void completeOrders(Collection<Long> uids) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, LocalDateTime> swabbedAt = new HashMap<>();
+        for (Long uid : uids) {
+            swabbedAt.put(uid, now);
+        }
+        completeOrders(swabbedAt);
+    }
+
+    /**
+     * 用户单管采样后完成其待复检的复检单，只完成在采样时间之前生成的复检单，
+     * 离线补录的较早采样不会完成之后才生成的复检单。需要在写入采样记录的同一事务中调用。
+     *
+     * @param swabbedAt 单管采样的用户 ID 到其采样时间的映射
+     */
+    public void completeOrders(Map<Long, LocalDateTime> swabbedAt) {
+        if (swabbedAt.isEmpty()) {
+            return;
+        }
+        LambdaQueryWrapper<RetestOrder> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.select(RetestOrder::getId, RetestOrder::getUid, RetestOrder::getCreatedAt)
+                .in(RetestOrder::getUid, swabbedAt.keySet())
+                .eq(RetestOrder::getStatus, 0);
+        List<RetestOrder> pending = new ArrayList<>();
+        for (RetestOrder order : retestOrderMapper.selectList(queryWrapper)) {
+            if (!order.getCreatedAt().isAfter(swabbedAt.get(order.getUid()))) {
+                pending.add(order);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<RetestOrder> updateWrapper = Wrappers.lambdaUpdate();
+        updateWrapper.set(RetestOrder::getStatus, 1)
+                .set(RetestOrder::getCompletedAt, now)
+                .in(RetestOrder::getId, pending.stream().map(RetestOrder::getId).collect(Collectors.toList()))
+                .eq(RetestOrder::getStatus, 0);
+        retestOrderMapper.update(null, updateWrapper);
+
+        long nowMillis = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (RetestOrder order : pending) {
+            long turnaround = nowMillis - order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            retestTurnaroundTotal.add(turnaround);
+            retestTurnaroundMax.accumulateAndGet(turnaround, Math::max);
+        }
+        ordersCompleted.add(pending.size());
+    }
+
+    /**
+     * 查询用户的复检单。
+     *
+     * @param uid 用户 ID
+     * @return 该用户的复检单，按生成时间倒序排列
+     */
+    public List<RetestOrder> getOrdersByUid(long uid) {
+        LambdaQueryWrapper<RetestOrder> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.eq(RetestOrder::getUid, uid)
+                .orderByDesc(RetestOrder::getCreatedAt);
+        return retestOrderMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 获取混管复检的统计信息。
+     *
+     * @return 统计项名称到数值的映射，时间单位为毫秒
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("pools_indexed", poolMembershipIndex.poolCount());
+        metrics.put("members_indexed", poolMembershipIndex.memberCount());
+        metrics.put("pools_resulted", poolsResulted.sum());
+        metrics.put("pools_positive", poolsPositive.sum());
+        metrics.put("pools_untracked", poolsUntracked.sum());
+        long poolCount = poolTurnaroundCount.sum();
+        metrics.put("pool_turnaround_avg_ms", poolCount == 0 ? 0 : poolTurnaroundTotal.sum() / poolCount);
+        metrics.put("pool_turnaround_max_ms", poolTurnaroundMax.get());
+        metrics.put("retest_orders_created", ordersCreated.sum());
+        long completed = ordersCompleted.sum();
+        metrics.put("retest_orders_completed", completed);
+        metrics.put("retest_turnaround_avg_ms", completed == 0 ? 0 : retestTurnaroundTotal.sum() / completed);
+        metrics.put("retest_turnaround_max_ms", retestTurnaroundMax.get());
+        return metrics;
+    }
+
+    /**
+     * 一次批量获取管内用户信息，为整管发送一条合并的复检通知消息，消息键为混管编号。
+     */
+    private void notifyPool(long tubeid, List<Long> uids) {
+        try {
+            Result<?> result = userClient.getUserListByUIDList(new ArrayList<>(uids));
+            List<UserInfoVo> userInfoVoList = OBJECT_MAPPER.convertValue(result.getData(),
+                    new TypeReference<List<UserInfoVo>>() {});
+            List<NotificationMessageDto> recipients = new ArrayList<>(userInfoVoList.size());
+            for (UserInfoVo userInfoVo : userInfoVoList) {
+                NotificationMessageDto message = new NotificationMessageDto();
+                message.setUid(userInfoVo.getUid());
+                message.setName(userInfoVo.getName());
+                message.setIdentity_card(userInfoVo.getIdentityCard());
+                message.setPhone(userInfoVo.getPhoneNumber());
+                recipients.add(message);
+            }
+            notificationProducer.sendMessage("notification-batch-topic", String.valueOf(tubeid),
+                    new NotificationBatchMessageDto(RETEST_TYPE, recipients));
+        } catch (Exception e) {
+            // 复检单已经生成，通知失败时可以通过复检通知接口补发
+            logger.error("Failed to notify retest of pool {}, message: {}", tubeid, e.getMessage());
+        }
+    }
+}
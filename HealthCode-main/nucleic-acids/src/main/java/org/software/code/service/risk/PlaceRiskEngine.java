@@ -0,0 +1,649 @@
+package org.software.code.service.risk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.client.PlaceCodeClient;
+import org.software.code.common.util.LongHashSet;
+import org.software.code.dto.PlaceRiskDeltaDto;
+import org.software.code.dto.PlaceRiskDto;
+import org.software.code.dto.PlaceScanEventDto;
+import org.software.code.dto.PositiveResultEventDto;
+import org.software.code.kafaka.NotificationProducer;
+import org.software.code.service.strategy.RiskCalculationContext;
+import org.software.code.service.strategy.RiskCalculationStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * PlaceRiskEngine 是场所风险的实时计算引擎。
+ * 它订阅场所扫码事件（"place-scan-topic"）和阳性结果事件（"positive-result-topic"），
+ * 在内存中按小时维护一个滑动时间窗口，窗口内记录每个场所的到访用户和阳性用户。
+ * 只有收到新事件或窗口滑动而受影响的场所才会被重新计算风险等级，
+ * 风险等级发生变化时通过场所码服务批量更新，并向 "place-risk-topic" 发送变化事件。
+ * <p>
+ * 部署多个实例时：扫码事件按场所分区，阳性事件按用户分区，任何一个实例只消费部分分区都无法得到正确的统计，
+ * 因此每个实例手动分配两个主题的全部分区，不加入消费组，也不提交位点，各自维护一份完整且一致的窗口。
+ * 只有持有 Redis 中负责人租约的实例更新场所风险等级并发送变化事件，其他实例只维护窗口，
+ * 负责人宕机后租约过期，由其他实例接替；接替时已知的场所全部重新计算并写入一次，不依赖上一个负责人的状态。
+ * <p>
+ * 引擎状态连同已处理到的各分区位点定期写入本地检查点文件，两者在同一把锁内更新，保持一致。
+ * 服务重启后从检查点恢复状态，并从检查点中的位点继续消费；没有检查点的分区从窗口起点开始回放，
+ * 因此检查点之后到重启之前的事件不会丢失。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class PlaceRiskEngine implements ConsumerSeekAware {
+
+    private static final Logger logger = LogManager.getLogger(PlaceRiskEngine.class);
+
+    // 一小时对应的毫秒数
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+
+    // 检查点文件格式版本号，格式变化时需要递增
+    private static final int CHECKPOINT_VERSION = 2;
+
+    // 无风险时的风险等级
+    private static final String GREEN = "green";
+
+    // 接替负责人后尚未写入场所码服务的风险等级，与任何风险等级都不相等
+    private static final String UNKNOWN = "";
+
+    // 每次批量更新场所风险等级的场所数
+    private static final int APPLY_BATCH_SIZE = 1000;
+
+    // 负责人租约的 Redis 键
+    private static final String OWNER_KEY = "nucleic-acids:place-risk-owner";
+
+    // 只有租约仍由自己持有时才续期
+    private static final RedisScript<Long> RENEW_OWNER_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    // 只有租约仍由自己持有时才删除
+    private static final RedisScript<Long> RELEASE_OWNER_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 滑动窗口的长度（小时）。
+     */
+    @Value("${risk.engine.window-hours:24}")
+    private int windowHours;
+
+    /**
+     * 检查点文件路径。
+     */
+    @Value("${risk.engine.checkpoint-file:place-risk-engine.data}")
+    private String checkpointFile;
+
+    /**
+     * 负责人租约的有效期（毫秒），应为计算间隔的数倍。
+     */
+    @Value("${risk.engine.owner-lease-ms:30000}")
+    private long ownerLeaseMs;
+
+    @Resource
+    private RiskCalculationContext riskCalculationContext;
+
+    @Resource
+    private PlaceCodeClient placeCodeClient;
+
+    @Resource
+    private NotificationProducer notificationProducer;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 本实例在负责人租约中的标识
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 本实例当前是否为负责人，只在计算任务中读写
+    private volatile boolean owner;
+
+    // 用于解析 Kafka 中的事件消息
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 按小时划分的时间桶，键为自 1970 年以来的小时序号
+    private final TreeMap<Long, HourBucket> buckets = new TreeMap<>();
+
+    // 需要重新计算风险等级的场所
+    private LongHashSet dirtyPids = new LongHashSet();
+
+    // 各场所最近一次计算出的风险等级
+    private final Map<Long, String> lastRisks = new HashMap<>();
+
+    // 各分区下一条待处理事件的位点，与以上状态一起写入检查点
+    private final Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+
+    // 保护以上内存状态的锁
+    private final Object lock = new Object();
+
+    /**
+     * 服务启动时从检查点文件恢复引擎状态。
+     */
+    @PostConstruct
+    public void init() {
+        loadCheckpoint();
+    }
+
+    /**
+     * 服务关闭时保存引擎状态，并交出负责人租约，让其他实例尽快接替。
+     */
+    @PreDestroy
+    public void destroy() {
+        saveCheckpoint();
+        if (owner) {
+            try {
+                stringRedisTemplate.execute(RELEASE_OWNER_SCRIPT, Collections.singletonList(OWNER_KEY), instanceId);
+            } catch (Exception e) {
+                logger.error("Failed to release place risk owner lease, message: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 监听场所扫码事件，手动分配主题的全部分区，不提交位点。
+     *
+     * @param record 扫码事件，值为 JSON 字符串
+     */
+    @KafkaListener(topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+            topic = "place-scan-topic", partitions = "#{@kafkaPartitionFinder.partitions('place-scan-topic')}"),
+            containerFactory = "replayContainerFactory", properties = "enable.auto.commit:false")
+    public void consumeScanEvent(ConsumerRecord<String, String> record) {
+        PlaceScanEventDto event = null;
+        try {
+            event = objectMapper.readValue(record.value(), PlaceScanEventDto.class);
+        } catch (Exception e) {
+            logger.error("Invalid place scan event: {}, message: {}", record.value(), e.getMessage());
+        }
+        synchronized (lock) {
+            if (event != null) {
+                addScan(event.getUid(), event.getPid(), event.getTime() == null ? record.timestamp() : event.getTime());
+            }
+            nextOffsets.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+        }
+    }
+
+    /**
+     * 监听阳性结果事件，手动分配主题的全部分区，不提交位点。
+     *
+     * @param record 阳性结果事件，值为 JSON 字符串
+     */
+    @KafkaListener(topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+            topic = "positive-result-topic", partitions = "#{@kafkaPartitionFinder.partitions('positive-result-topic')}"),
+            containerFactory = "replayContainerFactory", properties = "enable.auto.commit:false")
+    public void consumePositiveEvent(ConsumerRecord<String, String> record) {
+        PositiveResultEventDto event = null;
+        try {
+            event = objectMapper.readValue(record.value(), PositiveResultEventDto.class);
+        } catch (Exception e) {
+            logger.error("Invalid positive result event: {}, message: {}", record.value(), e.getMessage());
+        }
+        synchronized (lock) {
+            if (event != null) {
+                addPositive(event.getUid(), event.getTime() == null ? record.timestamp() : event.getTime());
+            }
+            nextOffsets.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+        }
+    }
+
+    /**
+     * 分配到分区时，检查点中有位点的分区从该位点继续消费，其余分区从窗口起点开始回放。
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<TopicPartition, Long> offsets;
+        synchronized (lock) {
+            offsets = new HashMap<>(nextOffsets);
+        }
+        List<TopicPartition> replay = new ArrayList<>();
+        for (TopicPartition partition : assignments.keySet()) {
+            Long offset = offsets.get(partition);
+            if (offset == null) {
+                replay.add(partition);
+            } else {
+                callback.seek(partition.topic(), partition.partition(), offset);
+            }
+        }
+        if (!replay.isEmpty()) {
+            callback.seekToTimestamp(replay, System.currentTimeMillis() - windowHours * HOUR_MILLIS);
+        }
+    }
+
+    /**
+     * 记录一次场所扫码，窗口外的过期事件直接丢弃。
+     *
+     * @param uid  扫码用户 ID
+     * @param pid  场所 ID
+     * @param time 扫码时间（毫秒）
+     */
+    public void onScan(long uid, long pid, long time) {
+        synchronized (lock) {
+            addScan(uid, pid, time);
+        }
+    }
+
+    /**
+     * 记录一个阳性用户，并将该用户在窗口内到访过的场所标记为待重新计算。
+     *
+     * @param uid  阳性用户 ID
+     * @param time 结果录入时间（毫秒）
+     */
+    public void onPositive(long uid, long time) {
+        synchronized (lock) {
+            addPositive(uid, time);
+        }
+    }
+
+    /**
+     * 记录一次场所扫码。调用方需持有锁。
+     */
+    private void addScan(long uid, long pid, long time) {
+        long hour = time / HOUR_MILLIS;
+        if (isExpired(hour)) {
+            return;
+        }
+        // 同一小时内重复扫码不会改变到访人数，无需重新计算
+        if (getOrCreateBucket(hour).addVisit(uid, pid)) {
+            dirtyPids.add(pid);
+        }
+    }
+
+    /**
+     * 记录一个阳性用户。调用方需持有锁。
+     */
+    private void addPositive(long uid, long time) {
+        long hour = time / HOUR_MILLIS;
+        if (isExpired(hour)) {
+            return;
+        }
+        if (!getOrCreateBucket(hour).positiveUids.add(uid)) {
+            return;
+        }
+        for (HourBucket bucket : buckets.values()) {
+            LongHashSet pids = bucket.pidsByUid.get(uid);
+            if (pids != null) {
+                pids.forEach(dirtyPids::add);
+            }
+        }
+    }
+
+    /**
+     * 定期滑动窗口并重新计算受影响场所的风险等级。
+     * 所有实例都滑动窗口，只有负责人计算并写入风险等级，其他实例的待计算场所留到接替时一并计算。
+     * 统计在锁内完成，远程调用和消息发送在锁外完成，避免阻塞事件消费。
+     */
+    @Scheduled(fixedDelayString = "${risk.engine.evaluate-interval-ms:5000}")
+    public void evaluate() {
+        boolean wasOwner = owner;
+        owner = acquireOwnership();
+        long[] pids;
+        int[] populations;
+        int[] positives;
+        synchronized (lock) {
+            evictExpiredBuckets();
+            if (!owner) {
+                return;
+            }
+            if (!wasOwner) {
+                takeOver();
+            }
+            if (dirtyPids.isEmpty()) {
+                return;
+            }
+            pids = dirtyPids.toArray();
+            dirtyPids = new LongHashSet();
+
+            // 窗口内所有阳性用户的并集
+            LongHashSet positiveUids = new LongHashSet();
+            for (HourBucket bucket : buckets.values()) {
+                bucket.positiveUids.forEach(positiveUids::add);
+            }
+
+            populations = new int[pids.length];
+            positives = new int[pids.length];
+            for (int i = 0; i < pids.length; i++) {
+                // 窗口内到访该场所的去重用户
+                LongHashSet visitors = new LongHashSet();
+                for (HourBucket bucket : buckets.values()) {
+                    LongHashSet uids = bucket.uidsByPid.get(pids[i]);
+                    if (uids != null) {
+                        uids.forEach(visitors::add);
+                    }
+                }
+                int[] positive = new int[1];
+                visitors.forEach(uid -> {
+                    if (positiveUids.contains(uid)) {
+                        positive[0]++;
+                    }
+                });
+                populations[i] = visitors.size();
+                positives[i] = positive[0];
+            }
+        }
+        byte[] codes;
+        try {
+            // 整批使用同一个策略计算风险代码，窗口内无人到访的场所为绿码
+            codes = riskCalculationContext.calculateRiskCodes(populations, positives);
+        } catch (Exception e) {
+            logger.error("Failed to calculate risk of {} places, message: {}", pids.length, e.getMessage());
+            synchronized (lock) {
+                for (long pid : pids) {
+                    dirtyPids.add(pid);
+                }
+            }
+            return;
+        }
+        applyRisks(pids, populations, positives, codes);
+    }
+
+    /**
+     * 应用一批场所的风险等级，风险等级发生变化的场所分批调用一次场所码服务，更新成功后再发送变化事件。
+     */
+    private void applyRisks(long[] pids, int[] populations, int[] positives, byte[] codes) {
+        List<PlaceRiskDto> changes = new ArrayList<>();
+        List<PlaceRiskDeltaDto> deltas = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            for (int i = 0; i < pids.length; i++) {
+                String newRisk = RiskCalculationStrategy.toRiskLevel(codes[i]);
+                String oldRisk = lastRisks.get(pids[i]);
+                if (newRisk.equals(oldRisk == null ? GREEN : oldRisk)) {
+                    if (populations[i] == 0) {
+                        lastRisks.remove(pids[i]);
+                    } else if (oldRisk == null) {
+                        lastRisks.put(pids[i], newRisk);
+                    }
+                    continue;
+                }
+                changes.add(new PlaceRiskDto(pids[i], newRisk));
+                deltas.add(new PlaceRiskDeltaDto(pids[i], UNKNOWN.equals(oldRisk) ? null : oldRisk, newRisk,
+                        populations[i], positives[i], now));
+            }
+        }
+        for (int from = 0; from < changes.size(); from += APPLY_BATCH_SIZE) {
+            int to = Math.min(from + APPLY_BATCH_SIZE, changes.size());
+            List<PlaceRiskDto> batch = changes.subList(from, to);
+            try {
+                placeCodeClient.setPlaceRisks(new ArrayList<>(batch));
+            } catch (Exception e) {
+                // 更新失败时重新标记，下一轮再尝试
+                logger.error("Failed to set risk of {} places, message: {}", batch.size(), e.getMessage());
+                synchronized (lock) {
+                    for (PlaceRiskDto risk : batch) {
+                        dirtyPids.add(risk.getPid());
+                    }
+                }
+                continue;
+            }
+            synchronized (lock) {
+                for (PlaceRiskDeltaDto delta : deltas.subList(from, to)) {
+                    if (delta.getPopulation() == 0) {
+                        lastRisks.remove(delta.getPid());
+                    } else {
+                        lastRisks.put(delta.getPid(), delta.getNewRisk());
+                    }
+                }
+            }
+            for (PlaceRiskDeltaDto delta : deltas.subList(from, to)) {
+                notificationProducer.sendMessage("place-risk-topic", String.valueOf(delta.getPid()), delta);
+            }
+        }
+    }
+
+    /**
+     * 获取或续期负责人租约，Redis 不可用时视为不是负责人。
+     *
+     * @return 本实例是否为负责人
+     */
+    private boolean acquireOwnership() {
+        try {
+            if (owner) {
+                Long renewed = stringRedisTemplate.execute(RENEW_OWNER_SCRIPT, Collections.singletonList(OWNER_KEY),
+                        instanceId, String.valueOf(ownerLeaseMs));
+                if (renewed != null && renewed == 1L) {
+                    return true;
+                }
+                logger.warn("Lost place risk owner lease");
+            }
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(OWNER_KEY, instanceId, Duration.ofMillis(ownerLeaseMs));
+            if (Boolean.TRUE.equals(acquired)) {
+                logger.info("Became place risk owner, instance: {}", instanceId);
+                return true;
+            }
+            return false;
+        } catch (Exception e) {
+            logger.error("Failed to acquire place risk owner lease, message: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 成为负责人时，上一个负责人写入的风险等级未知，窗口内和记录过风险等级的场所全部标记为待计算，
+     * 并视为尚未写入，计算后无论是否变化都写入一次。调用方需持有锁。
+     */
+    private void takeOver() {
+        for (HourBucket bucket : buckets.values()) {
+            for (Long pid : bucket.uidsByPid.keySet()) {
+                dirtyPids.add(pid);
+            }
+        }
+        for (Long pid : lastRisks.keySet()) {
+            dirtyPids.add(pid);
+        }
+        dirtyPids.forEach(pid -> lastRisks.put(pid, UNKNOWN));
+    }
+
+    /**
+     * 定期将引擎状态写入检查点文件。先写临时文件再原子替换，避免写入中断导致文件损坏。
+     */
+    @Scheduled(fixedDelayString = "${risk.engine.checkpoint-interval-ms:60000}")
+    public void saveCheckpoint() {
+        File file = new File(checkpointFile);
+        File tmp = new File(checkpointFile + ".tmp");
+        synchronized (lock) {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeInt(buckets.size());
+                for (HourBucket bucket : buckets.values()) {
+                    bucket.writeTo(out);
+                }
+                out.writeInt(lastRisks.size());
+                for (Map.Entry<Long, String> entry : lastRisks.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+                out.writeInt(nextOffsets.size());
+                for (Map.Entry<TopicPartition, Long> entry : nextOffsets.entrySet()) {
+                    out.writeUTF(entry.getKey().topic());
+                    out.writeInt(entry.getKey().partition());
+                    out.writeLong(entry.getValue());
+                }
+            } catch (IOException e) {
+                logger.error("Failed to write place risk checkpoint, message: {}", e.getMessage());
+                return;
+            }
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to replace place risk checkpoint, message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从检查点文件恢复引擎状态和各分区的位点，恢复后的场所全部标记为待重新计算。
+     * 检查点不存在或无法读取时状态为空，各分区从窗口起点开始回放。
+     */
+    private void loadCheckpoint() {
+        File file = new File(checkpointFile);
+        if (!file.exists()) {
+            return;
+        }
+        synchronized (lock) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (in.readInt() != CHECKPOINT_VERSION) {
+                    logger.warn("Ignore place risk checkpoint with unknown version");
+                    return;
+                }
+                int bucketCount = in.readInt();
+                for (int i = 0; i < bucketCount; i++) {
+                    HourBucket bucket = HourBucket.readFrom(in);
+                    buckets.put(bucket.hour, bucket);
+                }
+                int riskCount = in.readInt();
+                for (int i = 0; i < riskCount; i++) {
+                    lastRisks.put(in.readLong(), in.readUTF());
+                }
+                int offsetCount = in.readInt();
+                for (int i = 0; i < offsetCount; i++) {
+                    nextOffsets.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+                }
+            } catch (IOException e) {
+                logger.error("Failed to load place risk checkpoint, message: {}", e.getMessage());
+                buckets.clear();
+                lastRisks.clear();
+                nextOffsets.clear();
+                return;
+            }
+            for (HourBucket bucket : buckets.values()) {
+                for (Long pid : bucket.uidsByPid.keySet()) {
+                    dirtyPids.add(pid);
+                }
+            }
+            for (Long pid : lastRisks.keySet()) {
+                dirtyPids.add(pid);
+            }
+        }
+    }
+
+    /**
+     * 移除滑出窗口的时间桶，并将其中的场所标记为待重新计算。调用方需持有锁。
+     */
+    private void evictExpiredBuckets() {
+        Iterator<Map.Entry<Long, HourBucket>> iterator = buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, HourBucket> entry = iterator.next();
+            if (!isExpired(entry.getKey())) {
+                break;
+            }
+            for (Long pid : entry.getValue().uidsByPid.keySet()) {
+                dirtyPids.add(pid);
+            }
+            iterator.remove();
+        }
+    }
+
+    private boolean isExpired(long hour) {
+        return hour <= System.currentTimeMillis() / HOUR_MILLIS - windowHours;
+    }
+
+    private HourBucket getOrCreateBucket(long hour) {
+        return buckets.computeIfAbsent(hour, HourBucket::new);
+    }
+
+    /**
+     * 一小时内的到访与阳性记录。
+     */
+    private static final class HourBucket {
+
+        private final long hour;
+
+        // 场所 ID -> 到访用户
+        private final Map<Long, LongHashSet> uidsByPid = new HashMap<>();
+
+        // 用户 ID -> 到访场所，用于阳性事件到达时反查受影响的场所
+        private final Map<Long, LongHashSet> pidsByUid = new HashMap<>();
+
+        // 本小时内录入的阳性用户
+        private final LongHashSet positiveUids = new LongHashSet();
+
+        private HourBucket(long hour) {
+            this.hour = hour;
+        }
+
+        private boolean addVisit(long uid, long pid) {
+            if (!uidsByPid.computeIfAbsent(pid, k -> new LongHashSet(2)).add(uid)) {
+                return false;
+            }
+            pidsByUid.computeIfAbsent(uid, k -> new LongHashSet(2)).add(pid);
+            return true;
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(hour);
+            out.writeInt(uidsByPid.size());
+            for (Map.Entry<Long, LongHashSet> entry : uidsByPid.entrySet()) {
+                out.writeLong(entry.getKey());
+                writeSet(out, entry.getValue());
+            }
+            writeSet(out, positiveUids);
+        }
+
+        private static HourBucket readFrom(DataInputStream in) throws IOException {
+            HourBucket bucket = new HourBucket(in.readLong());
+            int pidCount = in.readInt();
+            for (int i = 0; i < pidCount; i++) {
+                long pid = in.readLong();
+                for (long uid : readSet(in)) {
+                    bucket.addVisit(uid, pid);
+                }
+            }
+            for (long uid : readSet(in)) {
+                bucket.positiveUids.add(uid);
+            }
+            return bucket;
+        }
+
+        private static void writeSet(DataOutputStream out, LongHashSet set) throws IOException {
+            long[] values = set.toArray();
+            out.writeInt(values.length);
+            for (long value : values) {
+                out.writeLong(value);
+            }
+        }
+
+        private static long[] readSet(DataInputStream in) throws IOException {
+            long[] values = new long[in.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readLong();
+            }
+            return values;
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package org.software.code.service.strategy;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.software.code.common.except.BusinessException;
 import org.software.code.common.except.ExceptionEnum;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
  * RiskCalculationContext 是一个风险计算上下文类，它基于策略模式来管理和使用不同的风险计算策略。
- * 该类负责维护所有可用的风险计算策略，并根据需求选择合适的策略进行风险等级计算。
+ * 该类负责维护所有可用的风险计算策略，并根据配置选择当前使用的策略进行风险等级计算。
+ * 当前策略在启动时取配置的默认策略，之后定期从 Redis 读取，切换策略后所有实例在下一次读取时生效，无需重启；
+ * Redis 不可用时保留当前策略。
  * 作为 Spring 组件，它会被自动扫描并注册到 Spring 应用上下文中。
  *
  * @author “101”计划《软件工程》实践教材案例团队
@@ -19,11 +30,29 @@ import java.util.stream.Collectors;
 @Component
 public class RiskCalculationContext {
 
+    private static final Logger logger = LogManager.getLogger(RiskCalculationContext.class);
+
+    // 保存当前策略名称的 Redis 键
+    private static final String STRATEGY_KEY = "nucleic-acids:risk-strategy";
+
     /**
      * 存储所有可用的风险计算策略，键为策略类的简单名称，值为对应的策略实例。
      */
     private final Map<String, RiskCalculationStrategy> strategies;
 
+    /**
+     * Redis 中没有配置时使用的默认策略名称。
+     */
+    @Value("${risk.strategy.default:RiskCalculationStrategy202006}")
+    private String defaultStrategyName;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 当前使用的策略及其名称
+    private volatile RiskCalculationStrategy activeStrategy;
+    private volatile String activeStrategyName;
+
     /**
      * 构造函数，通过依赖注入的方式接收所有实现了 RiskCalculationStrategy 接口的策略列表。
      * 并将这些策略实例存储到一个 Map 中，键为策略类的简单名称，方便后续根据名称查找策略。
@@ -34,13 +63,20 @@ public class RiskCalculationContext {
     public RiskCalculationContext(List<RiskCalculationStrategy> strategyList) {
         // 使用 Java 8 的 Stream API 将策略列表转换为 Map，键为策略类的简单名称，值为策略实例
         strategies = strategyList.stream().collect(Collectors.toMap(strategy -> strategy.getClass().getSimpleName(), strategy -> strategy));
-        // 打印所有策略，方便调试查看
-        System.out.println(strategies);
+        logger.info("Available risk calculation strategies: {}", strategies.keySet());
+    }
+
+    /**
+     * 启动时先使用默认策略，再尝试读取 Redis 中配置的策略。
+     */
+    @PostConstruct
+    public void init() {
+        activate(defaultStrategyName);
+        reload();
     }
 
     /**
      * 根据给定的人口数量和确诊病例数计算风险等级。
-     * 该方法会获取最新的风险计算策略，并调用该策略的 calculateRiskLevel 方法进行计算。
      *
      * @param population 给定区域的人口数量
      * @param confirmedCases 给定区域的确诊病例数
@@ -48,27 +84,95 @@ public class RiskCalculationContext {
      * @throws BusinessException 如果未找到合适的风险计算策略，抛出业务异常
      */
     public String calculateRiskLevel(int population, int confirmedCases) {
-        // 获取最新的风险计算策略
-        RiskCalculationStrategy strategy = getLatestStrategy();
-        // 如果未找到合适的策略，抛出业务异常
-        if (strategy == null) {
-            throw new BusinessException(ExceptionEnum.RISK_CALCULATION_NOT_FIND);
+        return getActiveStrategy().calculateRiskLevel(population, confirmedCases);
+    }
+
+    /**
+     * 批量计算风险代码，整批使用同一个策略。风险代码可以通过 RiskCalculationStrategy.toRiskLevel 转换为风险等级。
+     *
+     * @param populations 各区域的人口数量
+     * @param confirmedCases 各区域的确诊病例数，长度与 populations 相同
+     * @return 各区域的风险代码
+     * @throws BusinessException 如果未找到合适的风险计算策略，抛出业务异常
+     */
+    public byte[] calculateRiskCodes(int[] populations, int[] confirmedCases) {
+        if (populations.length != confirmedCases.length) {
+            throw new BusinessException(ExceptionEnum.REQUEST_PARAMETER_ERROR);
         }
-        // 调用策略的 calculateRiskLevel 方法计算风险等级
-        return strategy.calculateRiskLevel(population, confirmedCases);
+        byte[] codes = new byte[populations.length];
+        getActiveStrategy().calculateRiskCodes(populations, confirmedCases, codes, codes.length);
+        return codes;
+    }
+
+    /**
+     * 获取当前使用的策略名称。
+     *
+     * @return 当前策略名称
+     */
+    public String getActiveStrategyName() {
+        return activeStrategyName;
     }
 
     /**
-     * 获取最新的风险计算策略。
-     * 目前该方法硬编码了最新策略的名称为 "RiskCalculationStrategy202006"，
-     * 可以根据实际需求修改为动态获取最新策略的逻辑。
+     * 获取所有可用的策略名称。
      *
-     * @return 最新的风险计算策略实例，如果未找到则返回 null
+     * @return 按名称排序的策略名称
      */
-    private RiskCalculationStrategy getLatestStrategy() {
-        // 设置最新策略的名称
-        String latestStrategyName = "RiskCalculationStrategy202006";
-        // 根据策略名称从 Map 中获取对应的策略实例
-        return strategies.get(latestStrategyName);
+    public Set<String> getStrategyNames() {
+        return new TreeSet<>(strategies.keySet());
+    }
+
+    /**
+     * 切换当前策略，并写入 Redis 使其他实例在下一次读取时切换。
+     *
+     * @param name 策略名称
+     * @throws BusinessException 如果策略不存在，抛出业务异常
+     */
+    public void switchStrategy(String name) {
+        if (!strategies.containsKey(name)) {
+            throw new BusinessException(ExceptionEnum.RISK_CALCULATION_NOT_FIND);
+        }
+        stringRedisTemplate.opsForValue().set(STRATEGY_KEY, name);
+        activate(name);
+    }
+
+    /**
+     * 定期从 Redis 读取配置的策略，与当前策略不同时切换。
+     */
+    @Scheduled(fixedDelayString = "${risk.strategy.reload-interval-ms:10000}")
+    public void reload() {
+        String name;
+        try {
+            name = stringRedisTemplate.opsForValue().get(STRATEGY_KEY);
+        } catch (Exception e) {
+            logger.warn("Failed to read risk strategy from redis, message: {}", e.getMessage());
+            return;
+        }
+        if (name != null && !name.equals(activeStrategyName)) {
+            activate(name);
+        }
+    }
+
+    /**
+     * 切换到指定名称的策略，策略不存在时保留当前策略。
+     */
+    private void activate(String name) {
+        RiskCalculationStrategy strategy = strategies.get(name);
+        if (strategy == null) {
+            logger.warn("Risk calculation strategy {} not found, keep {}", name, activeStrategyName);
+            return;
+        }
+        activeStrategy = strategy;
+        activeStrategyName = name;
+        logger.info("Risk calculation strategy switched to {}", name);
+    }
+
+    private RiskCalculationStrategy getActiveStrategy() {
+        RiskCalculationStrategy strategy = activeStrategy;
+        // 如果未找到合适的策略，抛出业务异常
+        if (strategy == null) {
+            throw new BusinessException(ExceptionEnum.RISK_CALCULATION_NOT_FIND);
+        }
+        return strategy;
     }
-}
\ No newline at end of file
+}
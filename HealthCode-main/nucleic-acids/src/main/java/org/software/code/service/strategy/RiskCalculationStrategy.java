@@ -5,10 +5,37 @@ package org.software.code.service.strategy;
  * 此接口基于策略模式设计，允许根据不同的业务需求和场景，实现多种不同的风险计算策略。
  * 不同的实现类可以根据特定的规则和算法，根据给定的人口数量和确诊病例数计算出对应的风险等级。
  * 这样设计提高了代码的可扩展性和可维护性，方便后续添加或修改风险计算策略。
+ * 风险等级既可以用字符串表示，也可以用一个字节的风险代码表示，批量计算时使用风险代码以避免装箱和创建字符串。
  *
  * @author “101”计划《软件工程》实践教材案例团队
  */
 public interface RiskCalculationStrategy {
+
+    /**
+     * 低风险的风险代码，对应 "green"。
+     */
+    byte GREEN = 0;
+
+    /**
+     * 中风险的风险代码，对应 "yellow"。
+     */
+    byte YELLOW = 1;
+
+    /**
+     * 高风险的风险代码，对应 "red"。
+     */
+    byte RED = 2;
+
+    /**
+     * 根据给定区域的人口数量和确诊病例数计算该区域的风险代码。
+     * 人口数量为 0 时不能按感染率计算，没有确诊病例时为低风险，有确诊病例时为高风险。
+     *
+     * @param population 给定区域的人口数量
+     * @param confirmedCases 给定区域的确诊病例数
+     * @return 风险代码，取值为 GREEN、YELLOW 或 RED
+     */
+    byte calculateRiskCode(int population, int confirmedCases);
+
     /**
      * 根据给定区域的人口数量和确诊病例数计算该区域的风险等级。
      * 不同的实现类会有不同的计算逻辑，例如根据感染率的不同范围划分不同的风险等级。
@@ -17,5 +44,39 @@ public interface RiskCalculationStrategy {
      * @param confirmedCases 给定区域的确诊病例数
      * @return 计算得出的风险等级，通常以字符串形式表示，如 "green"（低风险）、"yellow"（中风险）、"red"（高风险）等
      */
-    String calculateRiskLevel(int population, int confirmedCases);
-}
\ No newline at end of file
+    default String calculateRiskLevel(int population, int confirmedCases) {
+        return toRiskLevel(calculateRiskCode(population, confirmedCases));
+    }
+
+    /**
+     * 批量计算风险代码，第 i 个区域的结果写入 codes[i]。
+     * 实现类可以覆盖该方法，在一个循环中直接对原始类型数组进行计算。
+     *
+     * @param populations 各区域的人口数量
+     * @param confirmedCases 各区域的确诊病例数
+     * @param codes 用于写入风险代码的数组
+     * @param length 需要计算的区域数量
+     */
+    default void calculateRiskCodes(int[] populations, int[] confirmedCases, byte[] codes, int length) {
+        for (int i = 0; i < length; i++) {
+            codes[i] = calculateRiskCode(populations[i], confirmedCases[i]);
+        }
+    }
+
+    /**
+     * 将风险代码转换为风险等级字符串。
+     *
+     * @param code 风险代码
+     * @return "green"、"yellow" 或 "red"
+     */
+    static String toRiskLevel(byte code) {
+        switch (code) {
+            case GREEN:
+                return "green";
+            case YELLOW:
+                return "yellow";
+            default:
+                return "red";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.software.code.service.strategy;
+
+/**
+ * ThresholdRiskCalculationStrategy 是按感染率阈值划分风险等级的策略基类。
+ * 感染率为确诊病例数除以人口数量，不超过中风险阈值时为低风险，不超过高风险阈值时为中风险，否则为高风险。
+ * 人口数量为 0 时感染率按 0（无确诊病例）或 1（有确诊病例）处理，避免除以 0。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public abstract class ThresholdRiskCalculationStrategy implements RiskCalculationStrategy {
+
+    // 低风险的感染率上限
+    private final double greenLimit;
+
+    // 中风险的感染率上限
+    private final double yellowLimit;
+
+    /**
+     * @param greenLimit  感染率不超过该值时为低风险
+     * @param yellowLimit 感染率不超过该值时为中风险
+     */
+    protected ThresholdRiskCalculationStrategy(double greenLimit, double yellowLimit) {
+        this.greenLimit = greenLimit;
+        this.yellowLimit = yellowLimit;
+    }
+
+    @Override
+    public byte calculateRiskCode(int population, int confirmedCases) {
+        return toCode(infectionRate(population, confirmedCases));
+    }
+
+    /**
+     * 在一个循环中直接对原始类型数组计算风险代码，不创建任何对象。
+     */
+    @Override
+    public void calculateRiskCodes(int[] populations, int[] confirmedCases, byte[] codes, int length) {
+        for (int i = 0; i < length; i++) {
+            codes[i] = toCode(infectionRate(populations[i], confirmedCases[i]));
+        }
+    }
+
+    private byte toCode(double infectionRate) {
+        if (infectionRate <= greenLimit) {
+            return GREEN;
+        }
+        return infectionRate <= yellowLimit ? YELLOW : RED;
+    }
+
+    private static double infectionRate(int population, int confirmedCases) {
+        if (population > 0) {
+            return (double) confirmedCases / population;
+        }
+        return confirmedCases > 0 ? 1.0 : 0.0;
+    }
+}
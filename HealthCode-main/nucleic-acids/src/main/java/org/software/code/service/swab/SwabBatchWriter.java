@@ -0,0 +1,224 @@
+package org.software.code.service.swab;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import org.software.code.dto.SwabRecordDto;
+import org.software.code.entity.LatestTestResult;
+import org.software.code.entity.NucleicAcidTest;
+import org.software.code.entity.TubeInfo;
+import org.software.code.mapper.NucleicAcidTestMapper;
+import org.software.code.mapper.TubeInfoMapper;
+import org.software.code.service.cache.LatestResultStore;
+import org.software.code.service.cache.RecentResultCache;
+import org.software.code.service.pool.PoolMembershipIndex;
+import org.software.code.service.pool.PoolRetestService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SwabBatchWriter 负责将一批采样记录在同一个事务中写入数据库。
+ * 与逐条写入相比，一批记录只需要一次复检标记更新、一次核酸记录批量插入、
+ * 一次试管信息查询、一次试管信息批量插入和一次最近检测结果更新。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class SwabBatchWriter {
+
+    @Resource
+    private NucleicAcidTestMapper nucleicAcidTestMapper;
+
+    @Resource
+    private TubeInfoMapper tubeInfoMapper;
+
+    @Resource
+    private RecentResultCache recentResultCache;
+
+    @Resource
+    private LatestResultStore latestResultStore;
+
+    @Resource
+    private PoolMembershipIndex poolMembershipIndex;
+
+    @Resource
+    private PoolRetestService poolRetestService;
+
+    /**
+     * 在一个事务中写入一批采样记录，语义与按采样时间逐条调用 addNucleicAcidTestRecordByToken 相同：
+     * 单管采样会将该用户采样时间之前三天内未复检的记录标记为已复检，并完成采样之前生成的待复检复检单，
+     * 试管信息不存在时新建一条结果未出的记录。
+     * 事务提交后混管采样的用户被追加到混管成员索引。
+     *
+     * @param records 按提交顺序排列的采样记录
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void writeBatch(List<SwabRecordDto> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        // 没有采样时间的记录按当前时间处理，与写入数据库时的默认值一致
+        LocalDateTime now = LocalDateTime.now();
+        // 每个用户在本批次中单管采样的时间，以及最晚的一次单管采样时间
+        Map<Long, Set<LocalDateTime>> singleSwabs = new HashMap<>();
+        Map<Long, LocalDateTime> lastSingle = new HashMap<>();
+        for (SwabRecordDto record : records) {
+            if (record.getKind() == 0) {
+                LocalDateTime at = collectedAt(record, now);
+                singleSwabs.computeIfAbsent(record.getUid(), uid -> new HashSet<>()).add(at);
+                lastSingle.merge(record.getUid(), at, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+
+        // 一次更新将单管采样之前三天内的记录标记为已复检，时间窗口以采样时间为准，
+        // 离线补录的较早采样不会把之后的记录标记为已复检
+        if (!singleSwabs.isEmpty()) {
+            LambdaUpdateWrapper<NucleicAcidTest> updateWrapper = Wrappers.lambdaUpdate();
+            updateWrapper.set(NucleicAcidTest::getReTest, true)
+                    .eq(NucleicAcidTest::getReTest, false)
+                    .and(wrapper -> singleSwabs.forEach((uid, times) -> {
+                        for (LocalDateTime at : times) {
+                            wrapper.or(window -> window.eq(NucleicAcidTest::getUid, uid)
+                                    .ge(NucleicAcidTest::getCreatedAt, at.minusDays(3))
+                                    .lt(NucleicAcidTest::getCreatedAt, at));
+                        }
+                    }));
+            nucleicAcidTestMapper.update(null, updateWrapper);
+            poolRetestService.completeOrders(lastSingle);
+        }
+
+        // 构建核酸检测记录，本批次中之后三天内还有同一用户单管采样的记录直接标记为已复检
+        List<NucleicAcidTest> tests = new ArrayList<>(records.size());
+        Map<String, SwabRecordDto> tubes = new LinkedHashMap<>();
+        for (SwabRecordDto record : records) {
+            tests.add(NucleicAcidTest.builder()
+                    .uid(record.getUid())
+                    .tid(record.getTid())
+                    .tubeid(record.getTubeid())
+                    .kind(record.getKind())
+                    .testAddress(record.getTestAddress())
+                    .reTest(isRetested(collectedAt(record, now), singleSwabs.get(record.getUid())) ? 1 : 0)
+                    .createdAt(record.getCollectedAt())
+                    .build());
+            tubes.putIfAbsent(tubeKey(record.getTubeid(), record.getKind()), record);
+        }
+        nucleicAcidTestMapper.insert(tests);
+
+        // 一次查询找出已存在的试管信息
+        LambdaQueryWrapper<TubeInfo> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.select(TubeInfo::getTubeid, TubeInfo::getKind, TubeInfo::getResult, TubeInfo::getTestingOrganization)
+                .in(TubeInfo::getTubeid, extractTubeids(tubes.values()));
+        Map<String, TubeInfo> existing = new HashMap<>();
+        for (TubeInfo tubeInfo : tubeInfoMapper.selectList(queryWrapper)) {
+            existing.put(tubeKey(tubeInfo.getTubeid(), tubeInfo.getKind()), tubeInfo);
+        }
+
+        // 批量插入不存在的试管信息
+        List<TubeInfo> newTubes = new ArrayList<>();
+        for (Map.Entry<String, SwabRecordDto> entry : tubes.entrySet()) {
+            if (existing.containsKey(entry.getKey())) {
+                continue;
+            }
+            SwabRecordDto record = entry.getValue();
+            newTubes.add(TubeInfo.builder()
+                    .tubeid(record.getTubeid())
+                    .kind(record.getKind())
+                    .result(2) // 未出
+                    .testingOrganization(record.getTestAddress()) // 设置检测机构
+                    .build());
+        }
+        if (!newTubes.isEmpty()) {
+            tubeInfoMapper.insert(newTubes);
+        }
+
+        // 更新每个用户的最近一次检测，已有结果的试管沿用其结果，新试管为未出
+        Map<Long, LatestTestResult> latest = new HashMap<>();
+        for (SwabRecordDto record : records) {
+            LocalDateTime testedAt = collectedAt(record, now);
+            LatestTestResult current = latest.get(record.getUid());
+            if (current != null && current.getTestedAt().isAfter(testedAt)) {
+                continue;
+            }
+            TubeInfo tubeInfo = existing.get(tubeKey(record.getTubeid(), record.getKind()));
+            latest.put(record.getUid(), LatestTestResult.builder()
+                    .uid(record.getUid())
+                    .tubeid(record.getTubeid())
+                    .kind(record.getKind())
+                    .result(tubeInfo != null ? tubeInfo.getResult() : Integer.valueOf(2))
+                    .testingOrganization(tubeInfo != null ? tubeInfo.getTestingOrganization() : record.getTestAddress())
+                    .testedAt(testedAt)
+                    .build());
+        }
+        latestResultStore.recordSwabs(latest.values());
+
+        // 事务提交后再删除这些用户的最近结果缓存，避免并发读取在提交前把旧数据重新写回缓存；
+        // 混管成员同样在提交后才写入索引，回滚的采样不会出现在索引中
+        final Set<Long> uids = new HashSet<>();
+        final Map<String, List<SwabRecordDto>> pooled = new LinkedHashMap<>();
+        for (SwabRecordDto record : records) {
+            uids.add(record.getUid());
+            if (PoolMembershipIndex.isPooled(record.getKind())) {
+                pooled.computeIfAbsent(tubeKey(record.getTubeid(), record.getKind()), key -> new ArrayList<>()).add(record);
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                recentResultCache.evict(uids);
+                for (List<SwabRecordDto> members : pooled.values()) {
+                    SwabRecordDto first = members.get(0);
+                    List<Long> memberUids = new ArrayList<>(members.size());
+                    long swabbedAt = Long.MAX_VALUE;
+                    for (SwabRecordDto member : members) {
+                        memberUids.add(member.getUid());
+                        swabbedAt = Math.min(swabbedAt, PoolMembershipIndex.toMillis(member.getCollectedAt()));
+                    }
+                    poolMembershipIndex.addMembers(first.getTubeid(), first.getKind(), memberUids, swabbedAt);
+                }
+            }
+        });
+    }
+
+    private static LocalDateTime collectedAt(SwabRecordDto record, LocalDateTime now) {
+        return record.getCollectedAt() != null ? record.getCollectedAt() : now;
+    }
+
+    /**
+     * 判断采样时间为 at 的记录是否在同一用户之后三天内的某次单管采样的复检窗口内。
+     */
+    private static boolean isRetested(LocalDateTime at, Set<LocalDateTime> singleSwabs) {
+        if (singleSwabs == null) {
+            return false;
+        }
+        for (LocalDateTime single : singleSwabs) {
+            if (at.isBefore(single) && !at.isBefore(single.minusDays(3))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<Long> extractTubeids(Iterable<SwabRecordDto> records) {
+        Set<Long> tubeids = new HashSet<>();
+        for (SwabRecordDto record : records) {
+            tubeids.add(record.getTubeid());
+        }
+        return tubeids;
+    }
+
+    private static String tubeKey(Long tubeid, Integer kind) {
+        return tubeid + ":" + kind;
+    }
+}
@@ -0,0 +1,225 @@
+package org.software.code.service.swab;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.dto.SwabRecordDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * SwabRecordCollector 是采样记录的组提交收集器。
+ * 各采样点提交的记录先进入内存队列，由单独的写入线程在几毫秒内攒成一批，
+ * 交给 SwabBatchWriter 在一个事务中写入数据库。
+ * 提交方会一直等待到所在批次的事务提交完成，因此返回成功时记录已经持久化。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class SwabRecordCollector {
+
+    private static final Logger logger = LogManager.getLogger(SwabRecordCollector.class);
+
+    /**
+     * 收到第一条记录后等待更多记录加入批次的最长时间（毫秒）。
+     */
+    @Value("${swab.collector.linger-ms:5}")
+    private long lingerMs;
+
+    /**
+     * 单个批次的最大记录数。
+     */
+    @Value("${swab.collector.max-batch-size:500}")
+    private int maxBatchSize;
+
+    /**
+     * 队列容量，队列满时拒绝新的提交，避免请求无限堆积。
+     */
+    @Value("${swab.collector.queue-capacity:20000}")
+    private int queueCapacity;
+
+    /**
+     * 提交方等待写入完成的最长时间（毫秒）。
+     */
+    @Value("${swab.collector.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Resource
+    private SwabBatchWriter swabBatchWriter;
+
+    // 待写入的记录队列
+    private BlockingQueue<PendingRecord> queue;
+
+    // 写入线程
+    private Thread writerThread;
+
+    // 收集器是否在运行
+    private volatile boolean running;
+
+    /**
+     * 启动写入线程。
+     */
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runLoop, "swab-record-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 停止写入线程，队列中剩余的记录会在退出前写完。
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(timeoutMs);
+    }
+
+    /**
+     * 提交一条采样记录，并等待其所在批次提交完成。
+     *
+     * @param record 采样记录
+     * @throws BusinessException 队列已满、等待超时或写入失败时抛出
+     */
+    public void submit(SwabRecordDto record) {
+        submit(record, null);
+    }
+
+    /**
+     * 提交一条采样记录，并等待其所在批次提交完成。
+     * 等待超时后记录仍可能被写入，因此 onFailed 只在确定记录没有写入时执行：
+     * 提交时队列已满，或所在批次写入失败（可能发生在提交方等待超时之后）。
+     *
+     * @param record   采样记录
+     * @param onFailed 确定记录没有写入时执行的回调，可以为 null
+     * @throws BusinessException 队列已满、等待超时或写入失败时抛出
+     */
+    public void submit(SwabRecordDto record, Runnable onFailed) {
+        PendingRecord pending = new PendingRecord(record);
+        if (!running || !queue.offer(pending)) {
+            if (onFailed != null) {
+                onFailed.run();
+            }
+            throw new BusinessException(ExceptionEnum.SWAB_COLLECTOR_BUSY);
+        }
+        if (onFailed != null) {
+            pending.future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    onFailed.run();
+                }
+            });
+        }
+        try {
+            pending.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new BusinessException(ExceptionEnum.NUCLEIC_ACID_TEST_INSERT_FAIL);
+        } catch (TimeoutException e) {
+            // 超时后记录仍可能被写入，由调用方决定是否重试
+            throw new BusinessException(ExceptionEnum.SWAB_COLLECTOR_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ExceptionEnum.SWAB_COLLECTOR_BUSY);
+        }
+    }
+
+    /**
+     * 写入线程的主循环：阻塞等待第一条记录，再在 lingerMs 内尽量凑满一个批次后写入。
+     */
+    private void runLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = running ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    // 先取走已经在队列中的记录，不足时再等待到截止时间
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 停止时被中断，继续写完已取出的记录和队列中的剩余记录
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一个批次，并通知该批次中所有等待的提交方。
+     */
+    private void flush(List<PendingRecord> batch) {
+        List<SwabRecordDto> records = new ArrayList<>(batch.size());
+        for (PendingRecord pending : batch) {
+            records.add(pending.record);
+        }
+        try {
+            swabBatchWriter.writeBatch(records);
+            for (PendingRecord pending : batch) {
+                pending.future.complete(null);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to write swab batch of {} records, message: {}", batch.size(), e.getMessage());
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // 整批回滚后逐条重写，避免一条异常记录导致同批次其他采样点全部失败
+            for (PendingRecord pending : batch) {
+                try {
+                    swabBatchWriter.writeBatch(Collections.singletonList(pending.record));
+                    pending.future.complete(null);
+                } catch (Exception ex) {
+                    pending.future.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 队列中等待写入的记录及其完成通知。
+     */
+    private static final class PendingRecord {
+        private final SwabRecordDto record;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingRecord(SwabRecordDto record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.software.code.service.tube;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.Code128Writer;
+import org.software.code.entity.TubeBatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * TubeBarcodeRenderer 将一个试管批次的全部条形码批量生成为 PNG 图片，
+ * 以 zip 压缩包的形式直接写入输出流，交给检测机构打印试管标签。
+ * 图片逐张生成并写出，内存占用与批次大小无关。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class TubeBarcodeRenderer {
+
+    /**
+     * 条形码图片宽度（像素）。
+     */
+    @Value("${tube.barcode.width:300}")
+    private int width;
+
+    /**
+     * 条形码图片高度（像素）。
+     */
+    @Value("${tube.barcode.height:80}")
+    private int height;
+
+    /**
+     * 将批次中每支试管的 CODE 128 条形码写入 zip 压缩包，文件名为 19 位条形码内容。
+     *
+     * @param batch 试管批次
+     * @param out   输出流，方法返回后压缩包已写完，但不会关闭输出流
+     * @throws IOException 写出失败时抛出
+     */
+    public void writeArchive(TubeBatch batch, OutputStream out) throws IOException {
+        Code128Writer writer = new Code128Writer();
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.MARGIN, 10);
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PNG 已经压缩过，不再重复压缩
+        zip.setLevel(0);
+        for (int i = 0; i < batch.getCount(); i++) {
+            String barcode = TubeRegistry.toBarcode(TubeRegistry.toTubeid(batch.getKind(), batch.getStartSeq() + i));
+            BitMatrix matrix;
+            try {
+                matrix = writer.encode(barcode, BarcodeFormat.CODE_128, width, height, hints);
+            } catch (WriterException e) {
+                throw new IOException(e);
+            }
+            zip.putNextEntry(new ZipEntry(barcode + ".png"));
+            MatrixToImageWriter.writeToStream(matrix, "png", zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+}
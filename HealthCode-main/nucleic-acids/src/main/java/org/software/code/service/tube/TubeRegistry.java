@@ -0,0 +1,408 @@
+package org.software.code.service.tube;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.entity.NucleicAcidTestingInstitutions;
+import org.software.code.entity.TubeBatch;
+import org.software.code.entity.TubeInfo;
+import org.software.code.mapper.NucleicAcidTestingInstitutionsMapper;
+import org.software.code.mapper.TubeBatchMapper;
+import org.software.code.mapper.TubeInfoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TubeRegistry 是试管发放登记簿。
+ * 试管编号为 19 位数字，首位为试管类型（0 单管， 1 十人混管， 2 二十人混管），后 18 位为该类型下的序号。
+ * 每次为核酸检测机构预分配一段连续序号并写入 tube_batch 表，内存中按类型保存已发放的序号区间，
+ * 采样时在内存中查找区间，不查询数据库就能拒绝未发放或类型不符的试管。
+ * 单管试管只能使用一次，已使用的序号记录在 Redis 位图中，由所有实例共享，
+ * SETBIT 返回原值，因此并发登记同一支试管时只有一个请求成功。
+ * 服务启动时把试管信息表中新增的单管试管补写到位图，Redis 数据丢失后会从试管信息表完整重建。
+ * 混管试管会被多人共用，只校验是否已发放。
+ * 登记簿上线前发放的试管不在任何批次中，因此默认不开启校验，待这些试管用完后再开启。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class TubeRegistry {
+
+    private static final Logger logger = LogManager.getLogger(TubeRegistry.class);
+
+    /**
+     * 试管类型前缀的权重，试管编号 = 类型 * KIND_BASE + 序号。
+     */
+    public static final long KIND_BASE = 1_000_000_000_000_000_000L;
+
+    // 试管类型数量
+    private static final int KIND_COUNT = 3;
+
+    // 已使用单管序号位图的键前缀，完整的键为前缀加页号，每页 2^USED_PAGE_BITS 位
+    private static final String USED_KEY_PREFIX = "nucleic-acids:tube-used:";
+
+    // 已补写到位图的试管信息表最大 ID
+    private static final String REPLAYED_ID_KEY = "nucleic-acids:tube-used-replayed-id";
+
+    private static final int USED_PAGE_BITS = 20;
+
+    // 补写位图时每次读取的试管信息条数
+    private static final int REPLAY_PAGE_SIZE = 10000;
+
+    /**
+     * 是否在采样时校验试管编号。登记簿上线前发放的试管不在任何批次中，
+     * 开启前需确认这些试管已经用完，否则会被拒绝。
+     */
+    @Value("${tube.registry.enforce:false}")
+    private boolean enforce;
+
+    /**
+     * 单个批次允许的最大试管数量。
+     */
+    @Value("${tube.registry.max-batch-size:100000}")
+    private int maxBatchSize;
+
+    /**
+     * 遇到未知试管时从数据库重新加载批次的最小间隔（毫秒），用于发现其他实例新分配的批次。
+     */
+    @Value("${tube.registry.reload-interval-ms:1000}")
+    private long reloadIntervalMs;
+
+    @Resource
+    private TubeBatchMapper tubeBatchMapper;
+
+    @Resource
+    private TubeInfoMapper tubeInfoMapper;
+
+    @Resource
+    private NucleicAcidTestingInstitutionsMapper institutionsMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 每种试管类型已发放的序号区间，键为区间起点，值为区间终点（不含）
+    private final List<TreeMap<Long, Long>> issued = new ArrayList<>();
+
+    // 已加载的最大批次 ID
+    private long lastBatchId;
+
+    // 上一次从数据库重新加载批次的时间
+    private volatile long lastReloadAt;
+
+    // 保护以上内存状态的锁
+    private final Object lock = new Object();
+
+    // 登记成功的试管数
+    private final LongAdder acquired = new LongAdder();
+
+    // 因未发放或类型不符被拒绝的次数
+    private final LongAdder rejectedNotIssued = new LongAdder();
+
+    // 因单管已使用被拒绝的次数
+    private final LongAdder rejectedUsed = new LongAdder();
+
+    /**
+     * 服务启动时加载已发放的批次，并把试管信息表中新增的单管试管补写到已使用位图。
+     */
+    @PostConstruct
+    public void init() {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            issued.add(new TreeMap<>());
+        }
+        loadBatches();
+        try {
+            replayTubeInfo();
+        } catch (Exception e) {
+            logger.error("Failed to replay tube records into tube registry, message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将试管类型和序号组合为试管编号。
+     *
+     * @param kind 试管类型
+     * @param seq  序号
+     * @return 试管编号
+     */
+    public static long toTubeid(int kind, long seq) {
+        return kind * KIND_BASE + seq;
+    }
+
+    /**
+     * 获取试管编号对应的 19 位条形码内容。
+     *
+     * @param tubeid 试管编号
+     * @return 左侧补零到 19 位的条形码内容
+     */
+    public static String toBarcode(long tubeid) {
+        return String.format("%019d", tubeid);
+    }
+
+    /**
+     * 为核酸检测机构预分配一段连续的试管编号。
+     *
+     * @param institutionId 核酸检测机构 ID
+     * @param kind          试管类型
+     * @param count         试管数量
+     * @return 新分配的批次
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public TubeBatch allocate(long institutionId, int kind, int count) {
+        if (count <= 0 || count > maxBatchSize) {
+            throw new BusinessException(ExceptionEnum.TUBE_BATCH_SIZE_INVALID);
+        }
+        NucleicAcidTestingInstitutions institution = institutionsMapper.selectById(institutionId);
+        if (institution == null) {
+            throw new BusinessException(ExceptionEnum.REQUEST_PARAMETER_ERROR);
+        }
+        // 锁定该类型的最后一个批次，保证多个实例并发分配时序号不重叠
+        LambdaQueryWrapper<TubeBatch> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.eq(TubeBatch::getKind, kind)
+                .orderByDesc(TubeBatch::getStartSeq)
+                .last("LIMIT 1 FOR UPDATE");
+        TubeBatch last = tubeBatchMapper.selectOne(queryWrapper);
+        long startSeq = last == null ? 1 : last.getStartSeq() + last.getCount();
+        if (startSeq + count > KIND_BASE) {
+            throw new BusinessException(ExceptionEnum.TUBE_BATCH_SIZE_INVALID);
+        }
+
+        final TubeBatch batch = TubeBatch.builder()
+                .institutionId(institutionId)
+                .kind(kind)
+                .startSeq(startSeq)
+                .count(count)
+                .build();
+        tubeBatchMapper.insert(batch);
+        // 事务提交后再登记到内存，回滚的批次不会被接受
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                synchronized (lock) {
+                    addBatch(batch);
+                }
+            }
+        });
+        return batch;
+    }
+
+    /**
+     * 获取试管批次。
+     *
+     * @param batchId 批次 ID
+     * @return 试管批次
+     */
+    public TubeBatch getBatch(long batchId) {
+        TubeBatch batch = tubeBatchMapper.selectById(batchId);
+        if (batch == null) {
+            throw new BusinessException(ExceptionEnum.TUBE_BATCH_NOT_FIND);
+        }
+        return batch;
+    }
+
+    /**
+     * 采样前登记试管的使用。
+     * 试管编号未发放或与试管类型不符时抛出 TUBE_NOT_ISSUED，单管试管已使用过时抛出 TUBE_ALREADY_USED。
+     * Redis 不可用时不校验单管是否已使用，避免阻断采样。
+     *
+     * @param tubeid 试管编号
+     * @param kind   试管类型
+     */
+    public void acquire(long tubeid, int kind) {
+        if (!enforce) {
+            return;
+        }
+        if (tubeid < 0 || kind < 0 || kind >= KIND_COUNT || tubeid / KIND_BASE != kind) {
+            rejectedNotIssued.increment();
+            throw new BusinessException(ExceptionEnum.TUBE_NOT_ISSUED);
+        }
+        long seq = tubeid % KIND_BASE;
+        if (!isIssued(kind, seq) && !(reloadBatches() && isIssued(kind, seq))) {
+            rejectedNotIssued.increment();
+            throw new BusinessException(ExceptionEnum.TUBE_NOT_ISSUED);
+        }
+        if (kind == 0) {
+            Boolean wasUsed;
+            try {
+                wasUsed = stringRedisTemplate.opsForValue().setBit(usedKey(seq), usedOffset(seq), true);
+            } catch (Exception e) {
+                logger.warn("Failed to mark tube {} as used, message: {}", tubeid, e.getMessage());
+                wasUsed = false;
+            }
+            if (Boolean.TRUE.equals(wasUsed)) {
+                rejectedUsed.increment();
+                throw new BusinessException(ExceptionEnum.TUBE_ALREADY_USED);
+            }
+        }
+        acquired.increment();
+    }
+
+    /**
+     * 采样记录确定没有写入时撤销单管试管的使用登记，使其可以重新使用。
+     * 只能在确定写入失败（事务已回滚或记录没有进入写入队列）时调用，等待超时的记录可能已经提交，不能撤销。
+     * 混管试管可能已有其他人使用，不撤销。
+     *
+     * @param tubeid 试管编号
+     * @param kind   试管类型
+     */
+    public void release(long tubeid, int kind) {
+        if (!enforce || kind != 0 || tubeid < 0 || tubeid / KIND_BASE != 0) {
+            return;
+        }
+        long seq = tubeid % KIND_BASE;
+        try {
+            stringRedisTemplate.opsForValue().setBit(usedKey(seq), usedOffset(seq), false);
+        } catch (Exception e) {
+            logger.warn("Failed to release tube {}, message: {}", tubeid, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取登记簿的统计信息。
+     *
+     * @return 各试管类型已发放的数量，以及本实例登记成功和拒绝的次数
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        synchronized (lock) {
+            for (int kind = 0; kind < KIND_COUNT; kind++) {
+                long issuedCount = 0;
+                for (Map.Entry<Long, Long> range : issued.get(kind).entrySet()) {
+                    issuedCount += range.getValue() - range.getKey();
+                }
+                metrics.put("issued_" + kind, issuedCount);
+            }
+        }
+        metrics.put("acquired", acquired.sum());
+        metrics.put("rejected_not_issued", rejectedNotIssued.sum());
+        metrics.put("rejected_used", rejectedUsed.sum());
+        return metrics;
+    }
+
+    /**
+     * 将试管信息表中尚未补写的单管试管登记到已使用位图，试管信息表中的每支试管都至少被使用过一次。
+     * 补写进度保存在 Redis 中，Redis 数据丢失时进度也随之丢失，从头完整重建。
+     * 多个实例同时补写只会重复置位，结果相同。
+     */
+    private void replayTubeInfo() {
+        String replayed = stringRedisTemplate.opsForValue().get(REPLAYED_ID_KEY);
+        long lastId = replayed == null ? 0 : Long.parseLong(replayed);
+        int total = 0;
+        while (true) {
+            LambdaQueryWrapper<TubeInfo> queryWrapper = Wrappers.lambdaQuery();
+            queryWrapper.select(TubeInfo::getId, TubeInfo::getTubeid, TubeInfo::getKind)
+                    .gt(TubeInfo::getId, lastId)
+                    .orderByAsc(TubeInfo::getId)
+                    .last("LIMIT " + REPLAY_PAGE_SIZE);
+            List<TubeInfo> page = tubeInfoMapper.selectList(queryWrapper);
+            if (page.isEmpty()) {
+                break;
+            }
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                for (TubeInfo tubeInfo : page) {
+                    long tubeid = tubeInfo.getTubeid();
+                    if (tubeInfo.getKind() == 0 && tubeid >= 0 && tubeid / KIND_BASE == 0) {
+                        connection.setBit(usedKey(tubeid).getBytes(StandardCharsets.UTF_8), usedOffset(tubeid), true);
+                    }
+                }
+                return null;
+            });
+            total += page.size();
+            lastId = page.get(page.size() - 1).getId();
+            stringRedisTemplate.opsForValue().set(REPLAYED_ID_KEY, String.valueOf(lastId));
+            if (page.size() < REPLAY_PAGE_SIZE) {
+                break;
+            }
+        }
+        logger.info("Replayed {} tube records into tube registry", total);
+    }
+
+    private static String usedKey(long seq) {
+        return USED_KEY_PREFIX + (seq >>> USED_PAGE_BITS);
+    }
+
+    private static long usedOffset(long seq) {
+        return seq & ((1L << USED_PAGE_BITS) - 1);
+    }
+
+    /**
+     * 加载所有已发放的批次。
+     */
+    private void loadBatches() {
+        LambdaQueryWrapper<TubeBatch> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.select(TubeBatch::getId, TubeBatch::getKind, TubeBatch::getStartSeq, TubeBatch::getCount);
+        List<TubeBatch> batches = tubeBatchMapper.selectList(queryWrapper);
+        synchronized (lock) {
+            for (TubeBatch batch : batches) {
+                addBatch(batch);
+            }
+        }
+    }
+
+    /**
+     * 加载其他实例新分配的批次，两次加载之间至少间隔 reloadIntervalMs。
+     *
+     * @return 本次是否从数据库加载了批次
+     */
+    private boolean reloadBatches() {
+        long now = System.currentTimeMillis();
+        if (now - lastReloadAt < reloadIntervalMs) {
+            return false;
+        }
+        lastReloadAt = now;
+        long since;
+        synchronized (lock) {
+            since = lastBatchId;
+        }
+        LambdaQueryWrapper<TubeBatch> queryWrapper = Wrappers.lambdaQuery();
+        queryWrapper.select(TubeBatch::getId, TubeBatch::getKind, TubeBatch::getStartSeq, TubeBatch::getCount)
+                .gt(TubeBatch::getId, since);
+        List<TubeBatch> batches = tubeBatchMapper.selectList(queryWrapper);
+        synchronized (lock) {
+            for (TubeBatch batch : batches) {
+                addBatch(batch);
+            }
+        }
+        return !batches.isEmpty();
+    }
+
+    /**
+     * 判断序号是否在已发放的区间内。
+     */
+    private boolean isIssued(int kind, long seq) {
+        synchronized (lock) {
+            Map.Entry<Long, Long> range = issued.get(kind).floorEntry(seq);
+            return range != null && seq < range.getValue();
+        }
+    }
+
+    /**
+     * 将批次登记到内存区间中，调用方需持有锁。
+     */
+    private void addBatch(TubeBatch batch) {
+        int kind = batch.getKind();
+        if (kind < 0 || kind >= KIND_COUNT) {
+            return;
+        }
+        issued.get(kind).put(batch.getStartSeq(), batch.getStartSeq() + batch.getCount());
+        lastBatchId = Math.max(lastBatchId, batch.getId());
+    }
+}
@@ -0,0 +1,49 @@
+package org.software.code.vo;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * ResultImportVo 是一个视图对象（Value Object），用于返回检测结果文件的导入统计。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class ResultImportVo {
+
+    /**
+     * 成功导入的结果条数。
+     */
+    @JsonProperty("rows")
+    private Long rows;
+
+    /**
+     * 分段写入数据库的段数。
+     */
+    @JsonProperty("chunks")
+    private Long chunks;
+
+    /**
+     * 跳过的表头和空行数。
+     */
+    @JsonProperty("skipped")
+    private Long skipped;
+
+    /**
+     * 格式错误而未导入的行数。
+     */
+    @JsonProperty("malformed")
+    private Long malformed;
+
+    /**
+     * 前若干个格式错误的行号，便于人工核对。
+     */
+    @JsonProperty("malformed_lines")
+    private long[] malformed_lines;
+
+    /**
+     * 导入耗时（毫秒）。
+     */
+    @JsonProperty("elapsed_ms")
+    private Long elapsed_ms;
+}
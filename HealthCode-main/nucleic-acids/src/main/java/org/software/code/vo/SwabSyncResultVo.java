@@ -0,0 +1,57 @@
+package org.software.code.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * SwabSyncResultVo 是一个视图对象（Value Object），用于返回批量同步中每条采样记录的处理结果。
+ * 结果与请求中的记录按下标一一对应，设备据此决定哪些记录可以从本地缓存中删除。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SwabSyncResultVo {
+
+    /**
+     * 写入成功。
+     */
+    public static final String OK = "OK";
+
+    /**
+     * 同一用户和试管的记录已存在（本次请求中重复或之前已同步），视为成功，无需重传。
+     */
+    public static final String DUPLICATE = "DUPLICATE";
+
+    /**
+     * 身份证号或令牌无法对应到用户，需要人工核对。
+     */
+    public static final String UNKNOWN_USER = "UNKNOWN_USER";
+
+    /**
+     * 试管编号未发放、与试管类型不符或单管试管已被使用，需要人工核对。
+     */
+    public static final String INVALID_TUBE = "INVALID_TUBE";
+
+    /**
+     * 写入数据库失败，可以稍后重传。
+     */
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 记录在请求列表中的下标。
+     */
+    private Integer index;
+
+    /**
+     * 试管的唯一标识。
+     */
+    private Long tubeid;
+
+    /**
+     * 处理结果，取值为 OK、DUPLICATE、UNKNOWN_USER、INVALID_TUBE、FAILED。
+     */
+    private String status;
+}
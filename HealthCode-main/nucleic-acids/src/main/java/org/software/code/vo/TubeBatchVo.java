@@ -0,0 +1,49 @@
+package org.software.code.vo;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * TubeBatchVo 是一个视图对象（Value Object），用于返回为核酸检测机构预分配的试管批次。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class TubeBatchVo {
+
+    /**
+     * 批次 ID，用于下载该批次的条形码图片。
+     */
+    @JsonProperty("id")
+    private Long id;
+
+    /**
+     * 领取试管的核酸检测机构 ID。
+     */
+    @JsonProperty("institution_id")
+    private Long institution_id;
+
+    /**
+     * 试管类型，0 单管， 1 十人混管， 2 二十人混管。
+     */
+    @JsonProperty("kind")
+    private Integer kind;
+
+    /**
+     * 批次第一支试管的条形码。
+     */
+    @JsonProperty("first_barcode")
+    private String first_barcode;
+
+    /**
+     * 批次最后一支试管的条形码。
+     */
+    @JsonProperty("last_barcode")
+    private String last_barcode;
+
+    /**
+     * 批次包含的试管数量。
+     */
+    @JsonProperty("count")
+    private Integer count;
+}
@@ -0,0 +1,41 @@
+-- 核酸检测服务的基线表结构，即引入迁移之前的表结构，与 healthcode.sql 中 health_code_nucleic_acids 部分一致。
+-- 已用 healthcode.sql 初始化的库由 baseline-on-migrate 标记为该版本，不会重复执行。
+
+-- 核酸检测记录表
+CREATE TABLE nucleic_acid_test (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '核酸检测记录的唯一标识',
+    uid BIGINT NOT NULL COMMENT '用户唯一标识',
+    tid BIGINT NOT NULL COMMENT '核酸检测人员唯一标识',
+    tubeid BIGINT NOT NULL COMMENT '检测管编号',
+    test_address VARCHAR(255) NOT NULL COMMENT '核酸检测地址',
+    re_test BOOLEAN COMMENT 'false：未复检，true：已复检',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '记录更新时间',
+    INDEX nucleic_acid_test_idx_tubeid (tubeid),
+    INDEX nucleic_acid_test_idx_uid_created_at (uid, created_at DESC)
+);
+
+-- 检测管信息表（新增）
+CREATE TABLE tube_info (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '检测管信息记录的唯一标识',
+    tubeid BIGINT NOT NULL COMMENT '检测管编号',
+    kind INT NOT NULL COMMENT '0 单管， 1 十人混管， 2 二十人混管',
+    result INT COMMENT '0：阴性，1：阳性，2未出',
+    testing_organization VARCHAR(255) COMMENT '检测机构名称',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '记录更新时间',
+    INDEX tube_info_idx_tubeid (tubeid),
+    INDEX tube_info_idx_created_at (created_at DESC)
+);
+
+-- 核酸检测机构（新增）
+CREATE TABLE nucleic_acid_testing_institutions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '核酸检测机构的唯一标识',
+    name VARCHAR(255) NOT NULL COMMENT '机构名称',
+    area_id BIGINT NOT NULL COMMENT '所在区域的 ID',
+    address VARCHAR(255) NOT NULL COMMENT '详细地址',
+    test_time VARCHAR(255) NOT NULL COMMENT '检测时间',
+    contact_number VARCHAR(255) NOT NULL COMMENT '联系电话',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '记录更新时间'
+);
@@ -0,0 +1,4 @@
+-- 核酸检测记录增加试管类型，按 (tubeid, kind) 区分编号相同的单管和混管；
+-- 已有记录的 kind 为空，查询时按试管编号匹配
+ALTER TABLE nucleic_acid_test
+    ADD COLUMN kind INT COMMENT '0 单管， 1 十人混管， 2 二十人混管，与 tube_info.kind 对应' AFTER tubeid;
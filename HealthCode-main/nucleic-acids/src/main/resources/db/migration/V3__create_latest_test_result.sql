@@ -0,0 +1,12 @@
+-- 用户最近一次核酸检测结果表，由采样写入和结果录入同步维护；
+-- 表为空时由服务按需从核酸检测记录回填
+CREATE TABLE latest_test_result (
+    uid BIGINT PRIMARY KEY COMMENT '用户唯一标识',
+    tubeid BIGINT NOT NULL COMMENT '最近一次检测的检测管编号',
+    kind INT NOT NULL COMMENT '0 单管， 1 十人混管， 2 二十人混管',
+    result INT COMMENT '0：阴性，1：阳性，2未出',
+    testing_organization VARCHAR(255) COMMENT '检测机构名称',
+    tested_at TIMESTAMP NOT NULL COMMENT '采样时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '记录更新时间',
+    INDEX latest_test_result_idx_tubeid_kind (tubeid, kind)
+);
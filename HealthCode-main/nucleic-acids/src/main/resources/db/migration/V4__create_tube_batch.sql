@@ -0,0 +1,11 @@
+-- 试管发放批次表，每个批次是发放给检测机构的一段连续试管序号，试管编号 = 类型 * 10^18 + 序号
+CREATE TABLE tube_batch (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '批次的唯一标识',
+    institution_id BIGINT NOT NULL COMMENT '领取试管的核酸检测机构 ID',
+    kind INT NOT NULL COMMENT '0 单管， 1 十人混管， 2 二十人混管',
+    start_seq BIGINT NOT NULL COMMENT '批次第一支试管的序号',
+    count INT NOT NULL COMMENT '批次包含的试管数量',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    UNIQUE INDEX tube_batch_idx_kind_start_seq (kind, start_seq),
+    INDEX tube_batch_idx_institution_id (institution_id)
+);
@@ -0,0 +1,12 @@
+-- 混管复检单表，混管阳性时为管内每个用户生成一张单管复检单，用户单管采样后完成
+CREATE TABLE retest_order (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '复检单的唯一标识',
+    pool_tubeid BIGINT NOT NULL COMMENT '阳性混管的检测管编号',
+    pool_kind INT NOT NULL COMMENT '阳性混管的类型，1 十人混管， 2 二十人混管',
+    uid BIGINT NOT NULL COMMENT '需要复检的用户唯一标识',
+    status INT NOT NULL DEFAULT 0 COMMENT '0：待复检，1：已复检',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    completed_at TIMESTAMP NULL COMMENT '完成复检的时间',
+    UNIQUE INDEX retest_order_idx_pool_uid (pool_tubeid, pool_kind, uid),
+    INDEX retest_order_idx_uid_status (uid, status)
+);
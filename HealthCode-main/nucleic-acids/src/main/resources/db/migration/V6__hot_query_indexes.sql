@@ -0,0 +1,20 @@
+-- 热点查询的复合索引和覆盖索引
+
+-- 按试管查询管内用户（结果录入、混管成员回落查询）以及按用户和试管查询检测记录，
+-- (tubeid, uid, kind) 覆盖这些查询所需的全部列，取代原来的单列索引
+ALTER TABLE nucleic_acid_test
+    DROP INDEX nucleic_acid_test_idx_tubeid,
+    ADD INDEX nucleic_acid_test_idx_tubeid_uid_kind (tubeid, uid, kind);
+
+-- 复检通知按 re_test 和采样时间查询用户，索引包含 uid 以避免回表
+ALTER TABLE nucleic_acid_test
+    ADD INDEX nucleic_acid_test_idx_re_test_created_at (re_test, created_at, uid);
+
+-- 关联 tube_info 时按 (tubeid, kind) 匹配
+ALTER TABLE tube_info
+    DROP INDEX tube_info_idx_tubeid,
+    ADD INDEX tube_info_idx_tubeid_kind (tubeid, kind);
+
+-- 按试管类型、结果和时间范围统计试管，索引包含 tubeid 以避免回表
+ALTER TABLE tube_info
+    ADD INDEX tube_info_idx_kind_result_created_at (kind, result, created_at, tubeid);
@@ -0,0 +1,14 @@
+-- nucleic_acid_test 按采样时间做月分区，过期分区由 TestPartitionMaintainer 导出归档后删除
+
+-- 分区键必须包含在每个唯一索引中，主键改为 (id, created_at)，id 仍然自增且唯一；
+-- 分区键不能为空，created_at 改为 NOT NULL
+ALTER TABLE nucleic_acid_test
+    MODIFY created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+-- 初始只有兜底分区 p_max，维护任务启动后按已有数据的月份拆分出 pYYYYMM 分区，并提前创建未来月份的分区
+ALTER TABLE nucleic_acid_test
+    PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,4 @@
+-- 归档导出按 (uid, id) 顺序分页读取月分区，使同一用户的记录在归档文件中相邻，
+-- 该索引让每一页都是一次索引范围扫描，不必对整个分区排序
+ALTER TABLE nucleic_acid_test
+    ADD INDEX nucleic_acid_test_idx_uid_id (uid, id);
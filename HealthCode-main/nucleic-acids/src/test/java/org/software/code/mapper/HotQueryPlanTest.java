@@ -0,0 +1,176 @@
+package org.software.code.mapper;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热点查询执行计划的回归测试。
+ * 在嵌入式 MariaDB 上执行 Flyway 迁移并写入测试数据，对每个热点查询执行 EXPLAIN，
+ * 断言其使用预期的索引且不是全表扫描，防止索引或查询修改后执行计划悄悄退化。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class HotQueryPlanTest {
+
+    private static final String SCHEMA = "health_code_nucleic_acids";
+
+    private static DB db;
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(SCHEMA);
+        String url = config.getURL(SCHEMA);
+
+        Flyway.configure().dataSource(url, "root", "").locations("classpath:db/migration").load().migrate();
+
+        connection = DriverManager.getConnection(url, "root", "");
+        try (Statement statement = connection.createStatement()) {
+            // 数据量足够大时优化器才会按真实场景选择索引
+            statement.execute("INSERT INTO nucleic_acid_test (uid, tid, tubeid, kind, test_address, re_test, created_at) "
+                    + "SELECT seq % 5000, 1, seq DIV 10, seq % 3, 'address', seq % 2, NOW() - INTERVAL (seq % 30) DAY "
+                    + "FROM seq_1_to_50000");
+            statement.execute("INSERT INTO tube_info (tubeid, kind, result, testing_organization, created_at) "
+                    + "SELECT seq, seq % 3, seq % 3, 'organization', NOW() - INTERVAL (seq % 30) DAY "
+                    + "FROM seq_0_to_4999");
+            statement.execute("ANALYZE TABLE nucleic_acid_test, tube_info");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    @Test
+    void recentResultsUseUidCreatedAtAndTubeidKind() throws SQLException {
+        List<Plan> plans = explain("SELECT n.created_at, t.result, t.testing_organization "
+                + "FROM nucleic_acid_test n "
+                + "JOIN tube_info t ON t.tubeid = n.tubeid AND (n.kind IS NULL OR t.kind = n.kind) "
+                + "WHERE n.uid = 42 AND n.created_at >= NOW() - INTERVAL 14 DAY "
+                + "ORDER BY n.created_at DESC");
+        assertUses(plan(plans, "n"), "nucleic_acid_test_idx_uid_created_at");
+        assertUses(plan(plans, "t"), "tube_info_idx_tubeid_kind");
+    }
+
+    @Test
+    void uidsByTubeidAreCovered() throws SQLException {
+        Plan plan = explain("SELECT uid FROM nucleic_acid_test WHERE tubeid = 42 AND (kind IS NULL OR kind = 1)").get(0);
+        assertUses(plan, "nucleic_acid_test_idx_tubeid_uid_kind");
+        assertCovered(plan);
+    }
+
+    @Test
+    void recordByUidAndTubeidUsesComposite() throws SQLException {
+        Plan plan = explain("SELECT * FROM nucleic_acid_test WHERE uid = 42 AND tubeid = 4 LIMIT 1").get(0);
+        assertUses(plan, "nucleic_acid_test_idx_tubeid_uid_kind");
+    }
+
+    @Test
+    void retestNoticeIsCovered() throws SQLException {
+        Plan plan = explain("SELECT uid FROM nucleic_acid_test "
+                + "WHERE re_test = 0 AND created_at >= NOW() - INTERVAL 3 DAY").get(0);
+        assertUses(plan, "nucleic_acid_test_idx_re_test_created_at");
+        assertCovered(plan);
+    }
+
+    @Test
+    void positiveTubesOfDayUseRange() throws SQLException {
+        Plan plan = explain("SELECT tubeid FROM tube_info "
+                + "WHERE kind = 0 AND result = 1 AND created_at >= CURDATE() - INTERVAL 1 DAY AND created_at < CURDATE()").get(0);
+        assertUses(plan, "tube_info_idx_kind_result_created_at");
+        assertEquals("range", plan.type);
+        assertCovered(plan);
+    }
+
+    @Test
+    void archiveExportPagesInUidIdOrder() throws SQLException {
+        List<Plan> plans = explain("SELECT n.id, n.uid, t.result "
+                + "FROM nucleic_acid_test PARTITION (p_max) n FORCE INDEX (nucleic_acid_test_idx_uid_id) "
+                + "LEFT JOIN tube_info t ON t.tubeid = n.tubeid AND (n.kind IS NULL OR t.kind = n.kind) "
+                + "WHERE n.uid > 42 OR (n.uid = 42 AND n.id > 4242) ORDER BY n.uid, n.id LIMIT 20000");
+        Plan plan = plan(plans, "n");
+        assertUses(plan, "nucleic_acid_test_idx_uid_id");
+        assertFalse(plan.extra != null && plan.extra.contains("filesort"), "Export page is sorted: " + plan);
+    }
+
+    private static List<Plan> explain(String sql) throws SQLException {
+        List<Plan> plans = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            while (resultSet.next()) {
+                plans.add(new Plan(resultSet.getString("table"), resultSet.getString("type"),
+                        resultSet.getString("key"), resultSet.getString("Extra")));
+            }
+        }
+        return plans;
+    }
+
+    private static Plan plan(List<Plan> plans, String table) {
+        for (Plan plan : plans) {
+            if (table.equals(plan.table)) {
+                return plan;
+            }
+        }
+        throw new AssertionError("No plan row for table " + table + ": " + plans);
+    }
+
+    private static void assertUses(Plan plan, String index) {
+        assertNotEquals("ALL", plan.type, "Full table scan: " + plan);
+        assertEquals(index, plan.key, "Unexpected index: " + plan);
+    }
+
+    private static void assertCovered(Plan plan) {
+        assertTrue(plan.extra != null && plan.extra.contains("Using index"), "Not a covering index: " + plan);
+    }
+
+    private static final class Plan {
+
+        private final String table;
+
+        private final String type;
+
+        private final String key;
+
+        private final String extra;
+
+        private Plan(String table, String type, String key, String extra) {
+            this.table = table;
+            this.type = type;
+            this.key = key;
+            this.extra = extra;
+        }
+
+        @Override
+        public String toString() {
+            return "table=" + table + ", type=" + type + ", key=" + key + ", extra=" + extra;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.software.code.service.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.software.code.dto.ArchivedTestRecordDto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TestArchiveFile 的单元测试，覆盖各列的编解码、空值、跨行组按用户查询和行数校验。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class TestArchiveFileTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 8, 30, 15);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsAllColumns() throws IOException {
+        Path file = dir.resolve("p202403.nata");
+        ArchivedTestRecordDto full = record(11, 100, "东区采样点", "第一检测中心");
+        full.setUpdatedAt(BASE.plusHours(6));
+        ArchivedTestRecordDto empty = record(12, 100, null, null);
+        empty.setKind(null);
+        empty.setReTest(null);
+        empty.setResult(null);
+        try (TestArchiveFile.Writer writer = TestArchiveFile.create(file)) {
+            writer.writeGroup(Arrays.asList(full, empty));
+            assertEquals(2, writer.getRows());
+        }
+
+        List<ArchivedTestRecordDto> records = TestArchiveFile.readByUid(file, 100);
+
+        assertEquals(Arrays.asList(full, empty), records);
+        assertNull(records.get(1).getUpdatedAt());
+        assertNull(records.get(1).getKind());
+    }
+
+    @Test
+    void readsOnlyMatchingUserAcrossGroups() throws IOException {
+        Path file = dir.resolve("p202404.nata");
+        try (TestArchiveFile.Writer writer = TestArchiveFile.create(file)) {
+            writer.writeGroup(Arrays.asList(
+                    record(1, 10, "A", "X"), record(2, 10, "B", "X"), record(3, 20, "A", "Y")));
+            writer.writeGroup(Arrays.asList(record(4, 20, "C", "Y"), record(5, 30, "A", "X")));
+            writer.writeGroup(Collections.singletonList(record(6, 40, "A", "X")));
+        }
+
+        assertEquals(Arrays.asList(3L, 4L), ids(TestArchiveFile.readByUid(file, 20)));
+        assertEquals(Arrays.asList(1L, 2L), ids(TestArchiveFile.readByUid(file, 10)));
+        assertEquals(Collections.singletonList(6L), ids(TestArchiveFile.readByUid(file, 40)));
+        // 落在行组范围内但不存在、小于全部、大于全部的用户
+        assertTrue(TestArchiveFile.readByUid(file, 25).isEmpty());
+        assertTrue(TestArchiveFile.readByUid(file, 5).isEmpty());
+        assertTrue(TestArchiveFile.readByUid(file, 50).isEmpty());
+        assertEquals(6, TestArchiveFile.countRows(file));
+    }
+
+    @Test
+    void emptyArchiveHasNoRows() throws IOException {
+        Path file = dir.resolve("empty.nata");
+        TestArchiveFile.create(file).close();
+
+        assertEquals(0, TestArchiveFile.countRows(file));
+        assertTrue(TestArchiveFile.readByUid(file, 1).isEmpty());
+    }
+
+    @Test
+    void rejectsUnknownFormat() throws IOException {
+        Path file = dir.resolve("plain.txt");
+        Files.write(file, "not an archive".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> TestArchiveFile.countRows(file));
+    }
+
+    private static ArchivedTestRecordDto record(long id, long uid, String address, String organization) {
+        ArchivedTestRecordDto record = new ArchivedTestRecordDto();
+        record.setId(id);
+        record.setUid(uid);
+        record.setTid(id * 7);
+        record.setTubeid(id * 1000);
+        record.setKind(1);
+        record.setReTest(0);
+        record.setResult(0);
+        record.setCreatedAt(BASE.plusMinutes(id));
+        record.setTestAddress(address);
+        record.setTestingOrganization(organization);
+        return record;
+    }
+
+    private static List<Long> ids(List<ArchivedTestRecordDto> records) {
+        Long[] ids = new Long[records.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = records.get(i).getId();
+        }
+        return Arrays.asList(ids);
+    }
+}
@@ -0,0 +1,123 @@
+package org.software.code.service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ResultFileParser 的单元测试，覆盖 CSV 与定长两种格式、表头和空行、格式错误行以及分段交付。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class ResultFileParserTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesCsvWithHeaderBlankLinesAndCrlf() throws IOException {
+        Path file = write("tubeid,kind,result\r\n"
+                + "1001,0,1\r\n"
+                + "\r\n"
+                + " 1002 , 1 , 0 ,extra\r\n"
+                + "1003,2,0");
+        ResultFileParser parser = new ResultFileParser(100);
+        List<long[]> results = new ArrayList<>();
+
+        long chunks = parser.parse(file, chunk -> collect(chunk, results));
+
+        assertEquals(1, chunks);
+        assertEquals(3, parser.getRows());
+        assertEquals(2, parser.getSkipped());
+        assertEquals(0, parser.getMalformed());
+        assertArrayEquals(new long[]{1001, 0, 1}, results.get(0));
+        assertArrayEquals(new long[]{1002, 1, 0}, results.get(1));
+        assertArrayEquals(new long[]{1003, 2, 0}, results.get(2));
+    }
+
+    @Test
+    void recordsMalformedLineNumbers() throws IOException {
+        Path file = write("1001,0,1\n"
+                + "1002,3,0\n"
+                + "1003,0,2\n"
+                + "abc,0,1\n"
+                + "12345678901234567890,0,1\n"
+                + "1004,0\n"
+                + "1005,1,1\n");
+        ResultFileParser parser = new ResultFileParser(100);
+        List<long[]> results = new ArrayList<>();
+
+        parser.parse(file, chunk -> collect(chunk, results));
+
+        assertEquals(2, parser.getRows());
+        assertEquals(5, parser.getMalformed());
+        // 非首行的非数字开头不视为表头
+        assertArrayEquals(new long[]{2, 3, 4, 5, 6}, parser.getMalformedLines());
+        assertArrayEquals(new long[]{1005, 1, 1}, results.get(1));
+    }
+
+    @Test
+    void deliversFullChunksAndRemainder() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 7; i++) {
+            content.append(i).append(",0,0\n");
+        }
+        ResultFileParser parser = new ResultFileParser(3);
+        List<Integer> sizes = new ArrayList<>();
+
+        long chunks = parser.parse(write(content.toString()), chunk -> sizes.add(chunk.size()));
+
+        assertEquals(3, chunks);
+        assertEquals(3, sizes.get(0).intValue());
+        assertEquals(3, sizes.get(1).intValue());
+        assertEquals(1, sizes.get(2).intValue());
+        assertEquals(7, parser.getRows());
+    }
+
+    @Test
+    void parsesFixedWidthLines() throws IOException {
+        // 试管编号位于 [2, 8)，试管类型位于 9，检测结果位于 11
+        Path file = write("AB000123-1-0\n"
+                + "AB000456-0-1\n"
+                + "AB00x789-0-1\n"
+                + "short\n");
+        ResultFileParser parser = new ResultFileParser(ResultFileParser.Format.FIXED, 100, 2, 6, 9, 11);
+        List<long[]> results = new ArrayList<>();
+
+        parser.parse(file, chunk -> collect(chunk, results));
+
+        assertEquals(2, parser.getRows());
+        assertEquals(2, parser.getMalformed());
+        assertArrayEquals(new long[]{123, 1, 0}, results.get(0));
+        assertArrayEquals(new long[]{456, 0, 1}, results.get(1));
+    }
+
+    @Test
+    void emptyFileProducesNoChunks() throws IOException {
+        ResultFileParser parser = new ResultFileParser(10);
+
+        assertEquals(0, parser.parse(write(""), chunk -> { }));
+        assertEquals(0, parser.getRows());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("results.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void collect(ResultChunk chunk, List<long[]> results) {
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(new long[]{chunk.tubeid(i), chunk.kind(i), chunk.result(i)});
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 /**
  * UserClient 是一个基于 Spring Cloud OpenFeign 的客户端接口，
@@ -32,6 +33,17 @@ public interface UserClient {
     @GetMapping("/user/getUserByUID")
     Result<?> getUserByUID(@RequestParam(name = "uid") Long uid);
 
+    /**
+     * 通过用户唯一标识符（UID）列表批量获取用户信息。
+     * 该方法会向名为 "user" 的服务发送一个 HTTP POST 请求，
+     * 请求路径为 "/user/getUserListByUIDList"，并将 UID 列表作为请求体发送。
+     *
+     * @param uidList 用户唯一标识符的列表
+     * @return 封装了请求结果的 Result 对象，其中包含查询到的用户信息列表，不存在的用户会被忽略
+     */
+    @PostMapping("/user/getUserListByUIDList")
+    Result<?> getUserListByUIDList(@RequestBody List<Long> uidList);
+
     /**
      * 通过用户身份证号码获取用户信息。
      * 该方法会向名为 "user" 的服务发送一个 HTTP GET 请求，
@@ -43,6 +55,17 @@ public interface UserClient {
     @GetMapping("/user/getUserByID")
     Result<?> getUserByID(@RequestParam(name = "identity_card") String identity_card);
 
+    /**
+     * 通过用户身份证号码列表批量获取用户信息。
+     * 该方法会向名为 "user" 的服务发送一个 HTTP POST 请求，
+     * 请求路径为 "/user/getUserListByIDList"，并将身份证号码列表作为请求体发送。
+     *
+     * @param identityCardList 用户身份证号码的列表
+     * @return 封装了请求结果的 Result 对象，其中包含查询到的用户信息列表，不存在的用户会被忽略
+     */
+    @PostMapping("/user/getUserListByIDList")
+    Result<?> getUserListByIDList(@RequestBody List<String> identityCardList);
+
     /**
      * 通过 ID 获取区域代码信息。
      * 该方法会向名为 "user" 的服务发送一个 HTTP GET 请求，
@@ -66,4 +89,15 @@ public interface UserClient {
      */
     @PostMapping("/user/area_code/id")
     Result<?> getAreaCodeID(@Valid @RequestBody AreaCodeDto dto);
-}
\ No newline at end of file
+
+    /**
+     * 获取全部区域编码的快照。
+     * 该方法会向名为 "user" 的服务发送一个 HTTP GET 请求，
+     * 请求路径为 "/user/area_code/all"，并携带本地已缓存的版本号作为请求参数。
+     *
+     * @param version 本地已缓存的版本号，首次获取时为 null
+     * @return 封装了请求结果的 Result 对象，其中包含区域编码快照，版本号未变化时不包含区域编码列表
+     */
+    @GetMapping("/user/area_code/all")
+    Result<?> getAreaCodeSnapshot(@RequestParam(name = "version", required = false) String version);
+}
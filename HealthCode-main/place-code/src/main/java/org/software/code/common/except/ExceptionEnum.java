@@ -60,6 +60,16 @@ public enum ExceptionEnum {
 
     /** 场所码不存在 */
     PLACE_CODE_NOT_FIND("60009", "场所码不存在"),
+    /** 扫码记录提交繁忙 */
+    PLACE_SCAN_BUSY("60010", "扫码记录提交繁忙，请稍后重试"),
+    /** 到访索引尚未就绪，无法追踪密接 */
+    PLACE_TRACE_UNAVAILABLE("60011", "到访索引尚未就绪，请稍后重试"),
+    /** 密接追踪的时间范围无效 */
+    PLACE_TRACE_RANGE_INVALID("60012", "追踪时间范围无效或超出到访索引覆盖范围"),
+    /** 区域编码缓存尚未加载，无法按区域筛选场所 */
+    PLACE_AREA_UNAVAILABLE("60013", "区域编码暂不可用，请稍后重试"),
+    /** 实时客流统计未启用 */
+    PLACE_OCCUPANCY_DISABLED("60014", "实时客流统计未启用"),
 
     ;
 
@@ -0,0 +1,168 @@
+package org.software.code.common.util;
+
+import java.util.Arrays;
+
+/**
+ * LongByteHashMap 是一个基于开放寻址法的 long 到 byte 的哈希映射，
+ * 用于在内存中保存场所 ID 到风险代码这类数量大、取值小的映射，避免使用 HashMap&lt;Long, Byte&gt; 带来的装箱和节点开销。
+ * 该类不是线程安全的，由调用方负责加锁或只在发布后读取。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public class LongByteHashMap {
+
+    // 空槽位标记，业务中的 ID 均为正数，因此使用 0 表示空槽位
+    private static final long EMPTY = 0L;
+
+    // 存储键的数组，长度始终为 2 的幂
+    private long[] keys;
+
+    // 与键位置对应的值
+    private byte[] values;
+
+    // 是否包含键 0（0 与空槽位标记冲突，单独记录）
+    private boolean containsZero;
+
+    // 键 0 对应的值
+    private byte zeroValue;
+
+    // 当前键值对数量
+    private int size;
+
+    /**
+     * 创建一个默认容量的映射。
+     */
+    public LongByteHashMap() {
+        this(16);
+    }
+
+    /**
+     * 创建一个指定初始容量的映射。
+     *
+     * @param expectedSize 预计键值对数量
+     */
+    public LongByteHashMap(int expectedSize) {
+        int capacity = 4;
+        // 按 0.5 的装载因子计算容量
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new byte[capacity];
+    }
+
+    /**
+     * 复制一个映射。
+     *
+     * @param other 被复制的映射
+     */
+    public LongByteHashMap(LongByteHashMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        containsZero = other.containsZero;
+        zeroValue = other.zeroValue;
+        size = other.size;
+    }
+
+    /**
+     * 写入键值对，键已存在时覆盖原值。
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void put(long key, byte value) {
+        if (key == EMPTY) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        // 装载因子超过 0.5 时扩容
+        if (size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 获取键对应的值。
+     *
+     * @param key          键
+     * @param defaultValue 键不存在时返回的值
+     * @return 键对应的值，不存在时返回 defaultValue
+     */
+    public byte get(long key, byte defaultValue) {
+        if (key == EMPTY) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 获取键值对数量。
+     *
+     * @return 键值对数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空映射，保留已分配的数组。
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * 对键做哈希扰动，避免雪花 ID 低位规律导致聚集。
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 扩容并重新散列全部键值对。
+     */
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new byte[newCapacity];
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = mix(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
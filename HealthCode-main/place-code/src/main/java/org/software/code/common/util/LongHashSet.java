@@ -0,0 +1,242 @@
+package org.software.code.common.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * LongHashSet 是一个基于开放寻址法的 long 类型哈希集合，
+ * 用于在内存中保存大量用户 ID、场所 ID 等长整型标识，避免使用 HashSet&lt;Long&gt; 带来的装箱和对象头开销。
+ * 该类不是线程安全的，由调用方负责加锁。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public class LongHashSet {
+
+    // 空槽位标记，业务中的 ID 均为正数，因此使用 0 表示空槽位
+    private static final long EMPTY = 0L;
+
+    // 存储元素的数组，长度始终为 2 的幂
+    private long[] table;
+
+    // 是否包含元素 0（0 与空槽位标记冲突，单独记录）
+    private boolean containsZero;
+
+    // 当前元素数量
+    private int size;
+
+    /**
+     * 创建一个默认容量的集合。
+     */
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * 创建一个指定初始容量的集合。
+     *
+     * @param expectedSize 预计元素数量
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = 4;
+        // 按 0.5 的装载因子计算容量
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+    }
+
+    /**
+     * 向集合中添加元素。
+     *
+     * @param value 要添加的元素
+     * @return 如果集合中原本不存在该元素则返回 true
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        size++;
+        // 装载因子超过 0.5 时扩容
+        if (size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * 判断集合中是否包含指定元素。
+     *
+     * @param value 要判断的元素
+     * @return 包含返回 true，否则返回 false
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 从集合中移除指定元素，采用回移法保持探测链连续。
+     *
+     * @param value 要移除的元素
+     * @return 如果元素存在并被移除则返回 true
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                shiftKeys(index);
+                size--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 获取集合中的元素数量。
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 判断集合是否为空。
+     *
+     * @return 为空返回 true
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空集合，保留已分配的数组。
+     */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * 将集合中的元素导出为数组，顺序不固定。
+     *
+     * @return 包含全部元素的 long 数组
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsZero) {
+            result[i++] = EMPTY;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 遍历集合中的每个元素，避免导出数组带来的额外分配。
+     *
+     * @param action 对每个元素执行的操作
+     */
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(EMPTY);
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * 对元素做哈希扰动，避免雪花 ID 低位规律导致聚集。
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 删除元素后，将后续探测链上的元素前移。
+     */
+    private void shiftKeys(int pos) {
+        int mask = table.length - 1;
+        int last;
+        int slot;
+        long current;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((current = table[pos]) == EMPTY) {
+                    table[last] = EMPTY;
+                    return;
+                }
+                slot = mix(current) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            table[last] = current;
+        }
+    }
+
+    /**
+     * 扩容并重新散列全部元素。
+     */
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity];
+        int mask = newCapacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int index = mix(value) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.software.code.common.util;
+
+import java.util.Arrays;
+
+/**
+ * LongIntHashMap 是一个基于开放寻址法的 long 到 int 的哈希映射，
+ * 用于在内存中按场所 ID 累加计数，避免使用 HashMap&lt;Long, Integer&gt; 带来的装箱和节点开销。
+ * 该类不是线程安全的，由调用方负责加锁。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public class LongIntHashMap {
+
+    // 空槽位标记，业务中的 ID 均为正数，因此使用 0 表示空槽位
+    private static final long EMPTY = 0L;
+
+    // 存储键的数组，长度始终为 2 的幂
+    private long[] keys;
+
+    // 与键位置对应的值
+    private int[] values;
+
+    // 是否包含键 0（0 与空槽位标记冲突，单独记录）
+    private boolean containsZero;
+
+    // 键 0 对应的值
+    private int zeroValue;
+
+    // 当前键值对数量
+    private int size;
+
+    /**
+     * 遍历键值对的回调。
+     */
+    public interface EntryConsumer {
+        /**
+         * 接收一个键值对。
+         *
+         * @param key   键
+         * @param value 值
+         */
+        void accept(long key, int value);
+    }
+
+    /**
+     * 创建一个默认容量的映射。
+     */
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * 创建一个指定初始容量的映射。
+     *
+     * @param expectedSize 预计键值对数量
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = 4;
+        // 按 0.5 的装载因子计算容量
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * 将键对应的值加上 delta，键不存在时视为 0。
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 相加后的值
+     */
+    public int addTo(long key, int delta) {
+        if (key == EMPTY) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue += delta;
+            return zeroValue;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                values[index] += delta;
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = delta;
+        size++;
+        // 装载因子超过 0.5 时扩容
+        if (size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * 获取键对应的值。
+     *
+     * @param key 键
+     * @return 键对应的值，不存在时返回 0
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return containsZero ? zeroValue : 0;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * 遍历全部键值对，顺序不固定。
+     *
+     * @param consumer 接收键值对
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (containsZero) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * 获取键值对数量。
+     *
+     * @return 键值对数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空映射，保留已分配的数组。
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsZero = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * 对键做哈希扰动，避免雪花 ID 低位规律导致聚集。
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 扩容并重新散列全部键值对。
+     */
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = mix(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.software.code.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Kafka 消费者配置类，为每个实例都要消费全部事件的监听器提供不提交位点的容器。
+ * 这类监听器手动分配分区，启动时自行定位消费位置，不需要也不应该在 Kafka 中留下消费组的位点。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * 创建回放事件的监听容器工厂。
+     * 确认模式为 MANUAL 且监听方法不确认，容器不会提交位点；监听器还应设置 enable.auto.commit 为 false。
+     *
+     * @param consumerFactory 由 Spring Boot 根据 spring.kafka.consumer 配置创建的消费者工厂
+     * @return 不提交位点的监听容器工厂
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> replayContainerFactory(
+            ConsumerFactory<String, String> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
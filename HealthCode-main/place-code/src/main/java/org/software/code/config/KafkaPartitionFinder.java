@@ -0,0 +1,49 @@
+package org.software.code.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * KafkaPartitionFinder 在启动时查询主题的全部分区，供手动分配分区的监听器在 topicPartitions 中引用，
+ * 例如 partitions = "#{@kafkaPartitionFinder.partitions('place-scan-topic')}"。
+ * 手动分配分区的消费者不加入消费组，实例之间不分摊分区，每个实例都消费主题的全部分区。
+ * 分区列表只在监听器创建时读取一次，主题增加分区后需要重启服务。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component("kafkaPartitionFinder")
+public class KafkaPartitionFinder {
+
+    private static final Logger logger = LogManager.getLogger(KafkaPartitionFinder.class);
+
+    @Resource
+    private ConsumerFactory<String, String> consumerFactory;
+
+    /**
+     * 查询主题的全部分区编号。
+     *
+     * @param topic 主题名称
+     * @return 分区编号，主题不存在时返回分区 0
+     */
+    public String[] partitions(String topic) {
+        try (Consumer<String, String> consumer = consumerFactory.createConsumer()) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                logger.warn("Topic {} has no partitions yet, assign partition 0", topic);
+                return new String[]{"0"};
+            }
+            String[] partitions = new String[partitionInfos.size()];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = String.valueOf(partitionInfos.get(i).partition());
+            }
+            return partitions;
+        }
+    }
+}
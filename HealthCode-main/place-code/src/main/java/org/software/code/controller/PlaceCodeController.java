@@ -5,14 +5,19 @@ import org.software.code.common.util.JWTUtil;
 import org.software.code.dto.CreatePlaceCodeRequestDto;
 import org.software.code.dto.PidInputDto;
 import org.software.code.dto.PidTokenInputDto;
+import org.software.code.dto.PlaceQueryDto;
 import org.software.code.service.PlaceCodeService;
 import org.software.code.vo.PlaceCodeInfoVo;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -36,7 +41,7 @@ public class PlaceCodeController {
      *
      * @param token  请求头中的 Authorization 字段，即 JWT Token，不能为 null
      * @param request 包含场所码令牌的请求体，经过 @Valid 注解验证
-     * @return 操作成功的统一返回对象
+     * @return 封装了场所风险等级的统一返回对象
      */
     @PostMapping("/scanCodeByToken")
     public Result<?> scanCodeByToken(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
@@ -47,7 +52,8 @@ public class PlaceCodeController {
         long uid = JWTUtil.extractID(token);
         // 调用服务层方法进行场所码扫描
         placeCodeService.scanPlaceCode(uid, pid);
-        return Result.success();
+        // 返回场所当前的风险等级，供扫码端展示
+        return Result.success(placeCodeService.getPlaceRisk(pid));
     }
 
     /**
@@ -57,7 +63,7 @@ public class PlaceCodeController {
      *
      * @param token  请求头中的 authorization 字段，即 JWT Token，不能为 null
      * @param request 包含场所 ID 的请求体，经过 @Valid 注解验证
-     * @return 操作成功的统一返回对象
+     * @return 封装了场所风险等级的统一返回对象
      */
     @PostMapping("/scanCode")
     public Result<?> scanCode(@RequestHeader("authorization") @NotNull(message = "token不能为空") String token,
@@ -68,7 +74,8 @@ public class PlaceCodeController {
         long uid = JWTUtil.extractID(token);
         // 调用服务层方法进行场所码扫描
         placeCodeService.scanPlaceCode(uid, pid);
-        return Result.success();
+        // 返回场所当前的风险等级，供扫码端展示
+        return Result.success(placeCodeService.getPlaceRisk(pid));
     }
 
     /**
@@ -107,6 +114,48 @@ public class PlaceCodeController {
         return Result.success(placeInfoList);
     }
 
+    /**
+     * 用户登录管理系统后，分页获取场所码的接口。
+     * 该接口接收请求头中的 JWT Token 和包含分页游标、每页数量及筛选条件的请求体，
+     * 按场所 ID 升序返回一页场所码信息，以及查询下一页时使用的游标。
+     *
+     * @param token  请求头中的 Authorization 字段，即 JWT Token，不能为 null
+     * @param query 包含分页游标、每页数量以及区、街道、社区和场所状态筛选条件的请求体，经过 @Valid 注解验证
+     * @return 包含一页场所码信息和下一页游标的统一返回对象
+     */
+    @PostMapping("/placeCode/page")
+    public Result<?> getPlaceCodePage(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
+                                      @Valid @RequestBody PlaceQueryDto query) {
+        // 从请求头的令牌提取用户 ID
+        JWTUtil.extractID(token);
+        // 调用服务层方法分页获取场所码信息
+        return Result.success(placeCodeService.getPlaceInfoPage(query));
+    }
+
+    /**
+     * 用户登录管理系统后，批量创建场所码的接口。
+     * 该接口接收请求头中的 JWT Token 和上传的 CSV 文件，文件每行依次为负责人身份证号码、场所名称、
+     * 区编码、街道编码、社区编码和详细地址；创建成功的场所码图片和每行的处理结果清单以 zip 压缩包返回。
+     *
+     * @param token    请求头中的 Authorization 字段，即 JWT Token，不能为 null
+     * @param file     场所列表的 CSV 文件，编码为 UTF-8，首行可以是表头
+     * @param response HTTP 响应，压缩包直接写入响应体
+     * @throws IOException 读取文件或写出压缩包失败时抛出
+     */
+    @PostMapping("/placeCode/import")
+    public void importPlaceCodes(@RequestHeader("Authorization") @NotNull(message = "token不能为空") String token,
+                                 @RequestParam("file") MultipartFile file,
+                                 HttpServletResponse response) throws IOException {
+        // 从请求头的令牌提取用户 ID
+        JWTUtil.extractID(token);
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=place-codes.zip");
+        try (InputStream in = file.getInputStream()) {
+            placeCodeService.importPlaceCodes(in, response.getOutputStream());
+        }
+        response.flushBuffer();
+    }
+
     /**
      * 对场所码状态进行反转操作的接口。
      * 该接口接收请求头中的 JWT Token 和包含场所 ID 的请求体，
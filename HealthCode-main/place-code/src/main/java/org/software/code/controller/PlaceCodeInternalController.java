@@ -2,22 +2,45 @@ package org.software.code.controller;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
 import org.software.code.common.except.ExceptionEnum;
 import org.software.code.common.result.Result;
 import org.software.code.common.util.JWTUtil;
+import org.software.code.common.util.LongHashSet;
 import org.software.code.dto.AddPlaceInputDto;
+import org.software.code.dto.ContactTraceRequestDto;
+import org.software.code.dto.CountVisitorsRequestDto;
 import org.software.code.dto.GetPlacesByUserListRequestDto;
+import org.software.code.dto.OccupancyQueryDto;
 import org.software.code.dto.OppositePlaceCodeRequestDto;
+import org.software.code.dto.PlaceQueryDto;
+import org.software.code.dto.PlaceRiskDto;
 import org.software.code.dto.ScanPlaceCodeRequestDto;
 import org.software.code.service.PlaceCodeService;
+import org.software.code.service.occupancy.OccupancyCounter;
+import org.software.code.service.risk.PlaceRiskCache;
+import org.software.code.service.scan.ScanDeduplicator;
+import org.software.code.service.scan.ScanIngestor;
+import org.software.code.service.visit.VisitIndex;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.Resource;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -39,6 +62,26 @@ public class PlaceCodeInternalController {
     @Resource
     private PlaceCodeService placeCodeService;
 
+    // 注入扫码记录缓冲写入器，用于获取写入统计信息
+    @Resource
+    private ScanIngestor scanIngestor;
+
+    // 注入重复扫码抑制器，用于获取抑制统计信息
+    @Resource
+    private ScanDeduplicator scanDeduplicator;
+
+    // 注入实时客流计数器，用于获取客流统计信息
+    @Resource
+    private OccupancyCounter occupancyCounter;
+
+    // 注入到访记录内存索引，用于获取索引统计信息
+    @Resource
+    private VisitIndex visitIndex;
+
+    // 注入场所风险缓存，用于获取缓存统计信息
+    @Resource
+    private PlaceRiskCache placeRiskCache;
+
     // 日期格式化对象，用于将字符串日期转换为 Date 类型
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
@@ -67,6 +110,19 @@ public class PlaceCodeInternalController {
         return Result.success(placeCodeService.getPlaces());
     }
 
+    /**
+     * 分页获取场所信息的接口。
+     * 按场所 ID 升序返回一页场所信息，可按区、街道、社区和场所状态筛选，
+     * 调用方用返回的游标查询下一页，不必一次下载全部场所。
+     *
+     * @param query 包含分页游标、每页数量和筛选条件的请求体
+     * @return 封装了一页场所信息和下一页游标的 Result 对象
+     */
+    @PostMapping("/getPlacePage")
+    public Result<?> getPlacePage(@RequestBody @Valid PlaceQueryDto query) {
+        return Result.success(placeCodeService.getPlacePage(query));
+    }
+
     /**
      * 根据场所 ID 和时间范围获取场所记录的接口。
      * 接收场所 ID、开始时间和结束时间作为请求参数，
@@ -99,13 +155,36 @@ public class PlaceCodeInternalController {
         return Result.success(placeCodeService.getRecordByPid(pid, startDate, endDate));
     }
 
+    /**
+     * 批量统计场所到访人数的接口。
+     * 接收场所 ID 列表、时间范围 [start_time, end_time) 和阳性人员列表，返回与场所列表一一对应的
+     * 到访人数和阳性人数，供核酸检测服务一次请求计算一批场所的风险等级，不需要逐个场所拉取到访人员列表。
+     *
+     * @param request 包含场所 ID 列表、时间范围和阳性人员列表的请求体，经过 @Valid 注解进行数据验证
+     * @return 封装了到访人数统计的 Result 对象，或日期格式错误的结果
+     */
+    @PostMapping("/countVisitorsByPids")
+    public Result<?> countVisitorsByPids(@Valid @RequestBody CountVisitorsRequestDto request) {
+        Date startDate;
+        Date endDate;
+        try {
+            startDate = timeFormat.parse(request.getStart_time());
+            endDate = timeFormat.parse(request.getEnd_time());
+        } catch (ParseException e) {
+            logger.error("Date parsing error: start_time={}, end_time={}, message={}", request.getStart_time(), request.getEnd_time(), e.getMessage());
+            return Result.failed(ExceptionEnum.DATETIME_FORMAT_ERROR.getMsg());
+        }
+        return Result.success(placeCodeService.countVisitorsByPids(request.getPids(), startDate, endDate,
+                request.getPositive_uids()));
+    }
+
     /**
      * 扫描场所码的接口。
      * 接收一个包含扫描信息的请求体，从请求体的令牌中提取场所 ID，
-     * 调用服务层的 scanPlaceCode 方法进行扫描操作，并返回操作成功的结果。
+     * 调用服务层的 scanPlaceCode 方法进行扫描操作，并返回该场所当前的风险等级，供扫码端展示。
      *
      * @param request 包含扫描信息的请求体，经过 @Valid 注解进行数据验证
-     * @return 操作成功的 Result 对象
+     * @return 封装了场所风险等级的 Result 对象
      */
     @PostMapping("/scanPlaceCode")
     public Result<?> scanPlaceCode(@Valid @RequestBody ScanPlaceCodeRequestDto request) {
@@ -113,7 +192,37 @@ public class PlaceCodeInternalController {
         long pid = JWTUtil.extractID(request.getToken());
         // 调用服务层方法进行扫描操作
         placeCodeService.scanPlaceCode(request.getUid(), pid);
-        return Result.success();
+        return Result.success(placeCodeService.getPlaceRisk(pid));
+    }
+
+    /**
+     * 获取扫码记录缓冲写入的统计信息的接口，包括队列深度、写入批次和暂存记录数等。
+     *
+     * @return 封装了统计信息的 Result 对象
+     */
+    @GetMapping("/scanIngestMetrics")
+    public Result<?> scanIngestMetrics() {
+        return Result.success(scanIngestor.getMetrics());
+    }
+
+    /**
+     * 获取重复扫码抑制的统计信息的接口，包括被抑制的扫码次数和窗口内记录的扫码数。
+     *
+     * @return 封装了统计信息的 Result 对象
+     */
+    @GetMapping("/scanDedupMetrics")
+    public Result<?> scanDedupMetrics() {
+        return Result.success(scanDeduplicator.getMetrics());
+    }
+
+    /**
+     * 获取到访记录内存索引的统计信息的接口，包括覆盖的起始日期、段数和记录数。
+     *
+     * @return 封装了统计信息的 Result 对象
+     */
+    @GetMapping("/visitIndexMetrics")
+    public Result<?> visitIndexMetrics() {
+        return Result.success(visitIndex.getMetrics());
     }
 
     /**
@@ -155,10 +264,98 @@ public class PlaceCodeInternalController {
             // 返回日期格式错误的结果
             return Result.failed(ExceptionEnum.DATETIME_FORMAT_ERROR.getMsg());
         }
-        // 调用服务层方法获取场所信息并返回结果
+        // 按返回方式调用服务层方法获取场所信息并返回结果
+        if ("distinct".equals(request.getMode())) {
+            return Result.success(placeCodeService.getDistinctPlacesByUserList(request.getUidList(), startDate, endDate));
+        }
+        if ("count".equals(request.getMode())) {
+            return Result.success(placeCodeService.countPlacesByUserList(request.getUidList(), startDate, endDate));
+        }
         return Result.success(placeCodeService.getPlacesByUserList(request.getUidList(), startDate, endDate));
     }
 
+    /**
+     * 以流式响应返回用户列表在时间范围内到访过的场所的接口。
+     * 请求体与 getPlacesByUserList 相同，响应体是一个场所 ID 的 JSON 数组（不包装为 Result），
+     * 分块查询的结果边查询边写出，结果较大时不需要在内存中保存整个列表。
+     * mode 为 distinct 时每个场所只写出一次，否则每次到访写出一次，不支持 count。
+     * 写出过程中查询失败时响应会被截断，调用方解析 JSON 失败即表示查询未完成。
+     *
+     * @param request 包含用户列表、开始时间和结束时间的请求体，经过 @Valid 注解进行数据验证
+     * @return 写出场所 ID 数组的流式响应
+     */
+    @PostMapping(value = "/streamPlacesByUserList", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPlacesByUserList(@Valid @RequestBody GetPlacesByUserListRequestDto request) {
+        Date startDate;
+        Date endDate;
+        try {
+            // 将开始时间字符串解析为 Date 类型
+            startDate = timeFormat.parse(request.getStart_time());
+            // 将结束时间字符串解析为 Date 类型
+            endDate = timeFormat.parse(request.getEnd_time());
+        } catch (ParseException e) {
+            logger.error("Date parsing error: start_time={}, end_time={}, message={}", request.getStart_time(), request.getEnd_time(), e.getMessage());
+            throw new BusinessException(ExceptionEnum.DATETIME_FORMAT_ERROR);
+        }
+        if ("count".equals(request.getMode())) {
+            throw new BusinessException(ExceptionEnum.REQUEST_PARAMETER_ERROR);
+        }
+        boolean distinct = "distinct".equals(request.getMode());
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            LongHashSet written = distinct ? new LongHashSet() : null;
+            boolean[] first = {true};
+            writer.write('[');
+            placeCodeService.forEachPlaceOfUserList(request.getUidList(), startDate, endDate, pid -> {
+                if (written != null && !written.add(pid)) {
+                    return;
+                }
+                try {
+                    if (!first[0]) {
+                        writer.write(',');
+                    }
+                    first[0] = false;
+                    writer.write(Long.toString(pid));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.write(']');
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 密接追踪的接口。
+     * 接收一个包含追踪起点用户列表、时间范围、同场时间窗口和追踪层级的请求体，
+     * 返回在同一场所、时间窗口内与追踪起点同场的密接，以及与密接同场的次密接，
+     * 若日期解析失败则返回日期格式错误的结果。
+     *
+     * @param request 包含追踪参数的请求体，经过 @Valid 注解进行数据验证
+     * @return 封装了追踪结果的 Result 对象，或日期格式错误的结果
+     */
+    @PostMapping("/traceContacts")
+    public Result<?> traceContacts(@Valid @RequestBody ContactTraceRequestDto request) {
+        Date startDate;
+        Date endDate;
+        try {
+            // 将开始时间字符串解析为 Date 类型
+            startDate = timeFormat.parse(request.getStart_time());
+            // 将结束时间字符串解析为 Date 类型
+            endDate = timeFormat.parse(request.getEnd_time());
+        } catch (ParseException e) {
+            // 记录日期解析错误日志
+            logger.error("Date parsing error: start_time={}, end_time={}, message={}", request.getStart_time(), request.getEnd_time(), e.getMessage());
+            // 返回日期格式错误的结果
+            return Result.failed(ExceptionEnum.DATETIME_FORMAT_ERROR.getMsg());
+        }
+        int windowMinutes = request.getWindowMinutes() == null ? 30 : request.getWindowMinutes();
+        int degree = request.getDegree() == null ? 2 : request.getDegree();
+        return Result.success(placeCodeService.traceContacts(request.getUidList(), startDate, endDate,
+                windowMinutes, degree, request.getLimit()));
+    }
+
     /**
      * 获取所有场所 ID 的接口。
      * 调用服务层的 getAllPids 方法获取所有场所 ID 列表，
@@ -175,17 +372,105 @@ public class PlaceCodeInternalController {
 
     /**
      * 设置场所风险等级的接口。
-     * 接收场所 ID 和风险等级作为请求参数，
-     * 目前此方法仅预留，待实现具体的设置场所风险等级逻辑，
-     * 暂时返回操作成功的结果。
+     * 接收场所 ID 和风险等级作为请求参数，风险等级发生变化时写入数据库和风险缓存，
+     * 风险等级升高时发布风险升高事件。
      *
      * @param pid 场所 ID
-     * @param risk 风险等级
+     * @param risk 风险等级，取值为 green、yellow 或 red
      * @return 操作成功的 Result 对象
      */
     @PutMapping("/setPlaceRisk")
-    public Result<?> setPlaceRisk(@RequestParam("pid") Long pid, @RequestParam("risk") String risk) {
-        // TODO 设置场所的风险等级
+    public Result<?> setPlaceRisk(@RequestParam("pid") @NotNull(message = "pid不能为空") Long pid,
+                                  @RequestParam("risk") @Pattern(regexp = "green|yellow|red", message = "risk只能为green、yellow或red") String risk) {
+        placeCodeService.setPlaceRisks(Collections.singletonList(new PlaceRiskDto(pid, risk)));
         return Result.success();
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量设置场所风险等级的接口。
+     * 接收场所风险等级列表作为请求体，只写入风险等级发生变化的场所，
+     * 并返回风险等级发生变化的场所数。
+     *
+     * @param risks 场所风险等级列表，每个元素经过 @Valid 注解进行数据验证
+     * @return 封装了变化场所数的 Result 对象
+     */
+    @PutMapping("/setPlaceRisks")
+    public Result<?> setPlaceRisks(@RequestBody @NotNull(message = "风险列表不能为空") List<@Valid PlaceRiskDto> risks) {
+        return Result.success(placeCodeService.setPlaceRisks(risks));
+    }
+
+    /**
+     * 查询单个场所风险等级的接口，结果来自内存中的风险缓存。
+     *
+     * @param pid 场所 ID
+     * @return 封装了风险等级的 Result 对象，场所不存在时数据为 null
+     */
+    @GetMapping("/getPlaceRisk")
+    public Result<?> getPlaceRisk(@RequestParam("pid") @NotNull(message = "pid不能为空") Long pid) {
+        return Result.success(placeCodeService.getPlaceRisk(pid));
+    }
+
+    /**
+     * 批量查询场所风险等级的接口，结果来自内存中的风险缓存。
+     *
+     * @param pids 场所 ID 列表
+     * @return 封装了场所 ID 到风险等级映射的 Result 对象，不存在的场所不包含在内
+     */
+    @PostMapping("/getPlaceRisks")
+    public Result<?> getPlaceRisks(@RequestBody @NotNull(message = "场所列表不能为空") List<Long> pids) {
+        return Result.success(placeCodeService.getPlaceRisks(pids));
+    }
+
+    /**
+     * 获取场所风险缓存的统计信息的接口，包括缓存的场所数、查询次数和回落到数据库的次数。
+     *
+     * @return 封装了统计信息的 Result 对象
+     */
+    @GetMapping("/placeRiskCacheMetrics")
+    public Result<?> placeRiskCacheMetrics() {
+        return Result.success(placeRiskCache.getMetrics());
+    }
+
+    /**
+     * 查询单个场所实时客流的接口，结果来自内存中的扫码计数，包括在场人数和最近扫码人次。
+     *
+     * @param pid 场所 ID
+     * @return 封装了场所客流的 Result 对象
+     */
+    @GetMapping("/getOccupancy")
+    public Result<?> getOccupancy(@RequestParam("pid") @NotNull(message = "pid不能为空") Long pid) {
+        return Result.success(placeCodeService.getOccupancy(pid));
+    }
+
+    /**
+     * 批量查询场所实时客流的接口，结果来自内存中的扫码计数。
+     *
+     * @param pids 场所 ID 列表
+     * @return 封装了客流列表的 Result 对象，顺序与请求一致
+     */
+    @PostMapping("/getOccupancies")
+    public Result<?> getOccupancies(@RequestBody @NotNull(message = "场所列表不能为空") List<Long> pids) {
+        return Result.success(placeCodeService.getOccupancies(pids));
+    }
+
+    /**
+     * 查询区域内客流最多的场所的接口，可按区、街道、社区筛选，按在场人数降序返回。
+     *
+     * @param query 包含区域筛选条件和返回数量的请求体
+     * @return 封装了客流列表的 Result 对象
+     */
+    @PostMapping("/getBusiestPlaces")
+    public Result<?> getBusiestPlaces(@RequestBody @Valid OccupancyQueryDto query) {
+        return Result.success(placeCodeService.getBusiestPlaces(query));
+    }
+
+    /**
+     * 获取实时客流统计的统计信息的接口，包括累计记录的扫码数和内存中的计数条目数。
+     *
+     * @return 封装了统计信息的 Result 对象
+     */
+    @GetMapping("/occupancyMetrics")
+    public Result<?> occupancyMetrics() {
+        return Result.success(occupancyCounter.getMetrics());
+    }
+}
@@ -0,0 +1,65 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * 该类是密接追踪请求的数据传输对象（DTO），
+ * 封装了作为追踪起点的用户 ID 列表、追踪的时间范围、同场时间窗口、追踪层级和返回数量。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class ContactTraceRequestDto {
+
+    /**
+     * 作为追踪起点的用户 ID 列表，通常是确诊或阳性人员。
+     */
+    @NotNull(message = "uidList不能为空")
+    @Size(min = 1, max = 10000, message = "uidList的数量应在1到10000之间")
+    @JsonProperty("uidList")
+    private List<Long> uidList;
+
+    /**
+     * 追踪的开始时间，格式为 yyyy-MM-dd HH:mm:ss。
+     */
+    @NotNull(message = "开始时间不能为空")
+    @JsonProperty("start_time")
+    private String start_time;
+
+    /**
+     * 追踪的结束时间，格式为 yyyy-MM-dd HH:mm:ss。
+     */
+    @NotNull(message = "结束时间不能为空")
+    @JsonProperty("end_time")
+    private String end_time;
+
+    /**
+     * 同场时间窗口（分钟），到访时间相差不超过该值视为同场，默认为 30 分钟。
+     */
+    @Min(value = 0, message = "windowMinutes不能小于0")
+    @Max(value = 1440, message = "windowMinutes不能大于1440")
+    @JsonProperty("windowMinutes")
+    private Integer windowMinutes;
+
+    /**
+     * 追踪层级，1 表示只追踪密接，2 表示同时追踪次密接，默认为 2。
+     */
+    @Min(value = 1, message = "degree只能为1或2")
+    @Max(value = 2, message = "degree只能为1或2")
+    @JsonProperty("degree")
+    private Integer degree;
+
+    /**
+     * 返回的最大接触者数量，不填时使用服务配置的默认值。
+     */
+    @Min(value = 1, message = "limit不能小于1")
+    @JsonProperty("limit")
+    private Integer limit;
+}
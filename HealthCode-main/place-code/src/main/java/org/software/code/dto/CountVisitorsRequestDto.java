@@ -0,0 +1,46 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * CountVisitorsRequestDto 是批量统计场所到访人数请求的数据传输对象（DTO），
+ * 核酸检测服务自动调整场所风险等级时，一次请求统计一批场所在时间范围内的到访人数和阳性人数。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class CountVisitorsRequestDto {
+
+    /**
+     * 要统计的场所 ID 列表，在 JSON 序列化和反序列化时对应 "pids" 字段。
+     */
+    @NotNull(message = "pids不能为空")
+    @Size(min = 1, message = "pids不能为空")
+    @JsonProperty("pids")
+    private List<Long> pids;
+
+    /**
+     * 统计的开始时间（包含），在 JSON 序列化和反序列化时对应 "start_time" 字段。
+     */
+    @NotNull(message = "开始时间不能为空")
+    @JsonProperty("start_time")
+    private String start_time;
+
+    /**
+     * 统计的结束时间（不包含），在 JSON 序列化和反序列化时对应 "end_time" 字段。
+     */
+    @NotNull(message = "结束时间不能为空")
+    @JsonProperty("end_time")
+    private String end_time;
+
+    /**
+     * 阳性人员的用户 ID 列表，可以为空，在 JSON 序列化和反序列化时对应 "positive_uids" 字段。
+     */
+    @JsonProperty("positive_uids")
+    private List<Long> positive_uids;
+}
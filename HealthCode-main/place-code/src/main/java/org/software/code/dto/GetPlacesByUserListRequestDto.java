@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 import java.util.List;
 
@@ -47,4 +48,13 @@ public class GetPlacesByUserListRequestDto {
     @NotNull(message = "结束时间不能为空")
     @JsonProperty("end_time")
     private String end_time;
-}
\ No newline at end of file
+
+    /**
+     * 返回方式：all 表示每次到访返回一条场所 ID（默认），distinct 表示每个场所只返回一次，
+     * count 表示只返回到访过的场所数。
+     * 在 JSON 序列化和反序列化时，该字段对应的名称为 "mode"。
+     */
+    @Pattern(regexp = "all|distinct|count", message = "mode只能为all、distinct或count")
+    @JsonProperty("mode")
+    private String mode;
+}
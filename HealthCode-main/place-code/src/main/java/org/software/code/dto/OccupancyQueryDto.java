@@ -0,0 +1,43 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * 该类是查询区域内客流最多的场所的数据传输对象（DTO），
+ * 封装了区、街道、社区筛选条件和返回数量，区域条件都为 null 时在全部场所中查询。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class OccupancyQueryDto {
+
+    /**
+     * 场所所在区的编码。
+     */
+    @JsonProperty("district")
+    private Integer district;
+
+    /**
+     * 场所所在街道的编码。
+     */
+    @JsonProperty("street")
+    private Integer street;
+
+    /**
+     * 场所所在社区的编码。
+     */
+    @JsonProperty("community")
+    private Long community;
+
+    /**
+     * 返回的场所数量，默认为 10。
+     */
+    @Min(value = 1, message = "limit不能小于1")
+    @Max(value = 1000, message = "limit不能大于1000")
+    @JsonProperty("limit")
+    private Integer limit;
+}
@@ -0,0 +1,55 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * 该类是分页查询场所列表的数据传输对象（DTO），
+ * 封装了分页游标、每页数量以及按区域和场所状态筛选的条件，为 null 的条件不参与筛选。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class PlaceQueryDto {
+
+    /**
+     * 分页游标，即上一页返回的 nextAfterPid，查询第一页时不填。
+     */
+    @JsonProperty("afterPid")
+    private Long afterPid;
+
+    /**
+     * 每页的场所数量，默认为 100。
+     */
+    @Min(value = 1, message = "size不能小于1")
+    @Max(value = 1000, message = "size不能大于1000")
+    @JsonProperty("size")
+    private Integer size;
+
+    /**
+     * 场所所在区的编码。
+     */
+    @JsonProperty("district")
+    private Integer district;
+
+    /**
+     * 场所所在街道的编码。
+     */
+    @JsonProperty("street")
+    private Integer street;
+
+    /**
+     * 场所所在社区的编码。
+     */
+    @JsonProperty("community")
+    private Long community;
+
+    /**
+     * 场所状态，false：关停，true：开启。
+     */
+    @JsonProperty("status")
+    private Boolean status;
+}
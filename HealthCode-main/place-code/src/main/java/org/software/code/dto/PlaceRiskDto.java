@@ -0,0 +1,36 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+
+/**
+ * PlaceRiskDto 是一个数据传输对象（DTO），用于封装单个场所的风险等级，
+ * 核酸检测服务批量更新场所风险等级时以该对象的列表作为请求体。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlaceRiskDto {
+
+    /**
+     * 场所的唯一标识，在 JSON 序列化和反序列化时对应 "pid" 字段。
+     */
+    @NotNull(message = "pid不能为空")
+    @JsonProperty("pid")
+    private Long pid;
+
+    /**
+     * 风险等级，取值为 green、yellow 或 red，在 JSON 序列化和反序列化时对应 "risk" 字段。
+     */
+    @NotNull(message = "risk不能为空")
+    @Pattern(regexp = "green|yellow|red", message = "risk只能为green、yellow或red")
+    @JsonProperty("risk")
+    private String risk;
+}
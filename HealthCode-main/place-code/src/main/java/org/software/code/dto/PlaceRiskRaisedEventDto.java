@@ -0,0 +1,43 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PlaceRiskRaisedEventDto 是一个数据传输对象（DTO），用于封装场所风险等级升高事件。
+ * 场所码服务在写入的风险等级高于原风险等级时，向 Kafka 主题 "place-risk-raised-topic" 发送该事件，
+ * 供行程码、通知等服务及时处理到访过该场所的人员。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlaceRiskRaisedEventDto {
+
+    /**
+     * 场所的唯一标识，在 JSON 序列化和反序列化时对应 "pid" 字段。
+     */
+    @JsonProperty("pid")
+    private Long pid;
+
+    /**
+     * 原风险等级，在 JSON 序列化和反序列化时对应 "oldRisk" 字段。
+     */
+    @JsonProperty("oldRisk")
+    private String oldRisk;
+
+    /**
+     * 新风险等级，在 JSON 序列化和反序列化时对应 "newRisk" 字段。
+     */
+    @JsonProperty("newRisk")
+    private String newRisk;
+
+    /**
+     * 风险等级变化时间的毫秒时间戳，在 JSON 序列化和反序列化时对应 "time" 字段。
+     */
+    @JsonProperty("time")
+    private Long time;
+}
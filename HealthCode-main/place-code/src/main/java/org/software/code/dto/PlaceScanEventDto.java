@@ -0,0 +1,37 @@
+package org.software.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PlaceScanEventDto 是一个数据传输对象（DTO），用于封装场所码服务发布的扫码事件。
+ * 每当用户扫描场所码时，场所码服务会向 Kafka 主题 "place-scan-topic" 发送一条该事件，
+ * 核酸检测服务据此增量更新场所的滑动窗口到访人数。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlaceScanEventDto {
+
+    /**
+     * 扫码用户的唯一标识，在 JSON 序列化和反序列化时对应 "uid" 字段。
+     */
+    @JsonProperty("uid")
+    private Long uid;
+
+    /**
+     * 被扫描场所的唯一标识，在 JSON 序列化和反序列化时对应 "pid" 字段。
+     */
+    @JsonProperty("pid")
+    private Long pid;
+
+    /**
+     * 扫码时间的毫秒时间戳，在 JSON 序列化和反序列化时对应 "time" 字段。
+     */
+    @JsonProperty("time")
+    private Long time;
+}
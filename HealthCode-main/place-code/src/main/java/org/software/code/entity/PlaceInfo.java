@@ -53,6 +53,12 @@ public class PlaceInfo implements Serializable {
     @TableField(value = "status")
     private Boolean status;
 
+    /**
+     * 风险代码，0：green，1：yellow，2：red
+     */
+    @TableField(value = "risk")
+    private Integer risk;
+
     /**
      * 记录创建时间
      */
@@ -86,6 +92,7 @@ public class PlaceInfo implements Serializable {
             && (this.getAreaId() == null ? other.getAreaId() == null : this.getAreaId().equals(other.getAreaId()))
             && (this.getAddress() == null ? other.getAddress() == null : this.getAddress().equals(other.getAddress()))
             && (this.getStatus() == null ? other.getStatus() == null : this.getStatus().equals(other.getStatus()))
+            && (this.getRisk() == null ? other.getRisk() == null : this.getRisk().equals(other.getRisk()))
             && (this.getCreatedAt() == null ? other.getCreatedAt() == null : this.getCreatedAt().equals(other.getCreatedAt()))
             && (this.getUpdatedAt() == null ? other.getUpdatedAt() == null : this.getUpdatedAt().equals(other.getUpdatedAt()));
     }
@@ -100,6 +107,7 @@ public class PlaceInfo implements Serializable {
         result = prime * result + ((getAreaId() == null) ? 0 : getAreaId().hashCode());
         result = prime * result + ((getAddress() == null) ? 0 : getAddress().hashCode());
         result = prime * result + ((getStatus() == null) ? 0 : getStatus().hashCode());
+        result = prime * result + ((getRisk() == null) ? 0 : getRisk().hashCode());
         result = prime * result + ((getCreatedAt() == null) ? 0 : getCreatedAt().hashCode());
         result = prime * result + ((getUpdatedAt() == null) ? 0 : getUpdatedAt().hashCode());
         return result;
@@ -117,6 +125,7 @@ public class PlaceInfo implements Serializable {
         sb.append(", areaId=").append(areaId);
         sb.append(", address=").append(address);
         sb.append(", status=").append(status);
+        sb.append(", risk=").append(risk);
         sb.append(", createdAt=").append(createdAt);
         sb.append(", updatedAt=").append(updatedAt);
         sb.append(", serialVersionUID=").append(serialVersionUID);
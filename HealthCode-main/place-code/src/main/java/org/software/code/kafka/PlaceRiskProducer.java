@@ -0,0 +1,55 @@
+package org.software.code.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.dto.PlaceRiskRaisedEventDto;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+
+/**
+ * PlaceRiskProducer 是一个 Kafka 生产者服务类，
+ * 用于在场所风险等级升高时向 "place-risk-raised-topic" 主题发布风险升高事件。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Service
+public class PlaceRiskProducer {
+
+    // 日志记录器，用于记录消息发送失败等错误信息
+    private static final Logger logger = LogManager.getLogger(PlaceRiskProducer.class);
+
+    // 风险升高事件主题
+    private static final String TOPIC = "place-risk-raised-topic";
+
+    /**
+     * 注入 KafkaTemplate，消息的键和值均为字符串类型。
+     */
+    @Resource
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    /**
+     * ObjectMapper 用于将风险升高事件序列化为 JSON 字符串。
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 发送一条风险升高事件，以场所 ID 作为消息键，保证同一场所的事件在同一分区内有序。
+     *
+     * @param pid     场所 ID
+     * @param oldRisk 原风险等级
+     * @param newRisk 新风险等级
+     * @param time    变化时间（毫秒）
+     */
+    public void sendRiskRaisedEvent(long pid, String oldRisk, String newRisk, long time) {
+        try {
+            String messageStr = objectMapper.writeValueAsString(new PlaceRiskRaisedEventDto(pid, oldRisk, newRisk, time));
+            kafkaTemplate.send(TOPIC, String.valueOf(pid), messageStr);
+        } catch (Exception e) {
+            // 事件发送失败不影响风险等级本身的写入
+            logger.error("Failed to send place risk raised event, pid: {}, message: {}", pid, e.getMessage());
+        }
+    }
+}
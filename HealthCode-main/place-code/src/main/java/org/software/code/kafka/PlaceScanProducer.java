@@ -0,0 +1,55 @@
+package org.software.code.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.dto.PlaceScanEventDto;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+
+/**
+ * PlaceScanProducer 是一个 Kafka 生产者服务类，
+ * 用于在用户扫描场所码后向 "place-scan-topic" 主题发布扫码事件，
+ * 供核酸检测服务的场所风险实时计算引擎增量更新场所到访人数。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Service
+public class PlaceScanProducer {
+
+    // 日志记录器，用于记录消息发送失败等错误信息
+    private static final Logger logger = LogManager.getLogger(PlaceScanProducer.class);
+
+    // 扫码事件主题
+    private static final String TOPIC = "place-scan-topic";
+
+    /**
+     * 注入 KafkaTemplate，消息的键和值均为字符串类型。
+     */
+    @Resource
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    /**
+     * ObjectMapper 用于将扫码事件序列化为 JSON 字符串。
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 发送一条扫码事件，以场所 ID 作为消息键，保证同一场所的事件在同一分区内有序。
+     *
+     * @param uid  扫码用户 ID
+     * @param pid  场所 ID
+     * @param time 扫码时间（毫秒）
+     */
+    public void sendScanEvent(long uid, long pid, long time) {
+        try {
+            String messageStr = objectMapper.writeValueAsString(new PlaceScanEventDto(uid, pid, time));
+            kafkaTemplate.send(TOPIC, String.valueOf(pid), messageStr);
+        } catch (Exception e) {
+            // 事件发送失败不影响扫码记录本身
+            logger.error("Failed to send place scan event, uid: {}, pid: {}, message: {}", uid, pid, e.getMessage());
+        }
+    }
+}
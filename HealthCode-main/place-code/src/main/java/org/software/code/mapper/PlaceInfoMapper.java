@@ -1,8 +1,15 @@
 package org.software.code.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.software.code.entity.PlaceInfo;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
 * @description 针对表【place_info】的数据库操作Mapper
 * @createDate 2025-02-20 15:24:05
@@ -11,8 +18,83 @@ import org.software.code.entity.PlaceInfo;
  * @author “101”计划《软件工程》实践教材案例团队
 */
 public interface PlaceInfoMapper extends BaseMapper<PlaceInfo> {
-}
 
+    /**
+     * 用一条多行 INSERT 语句批量写入场所，风险代码使用默认值。
+     *
+     * @param records 场所列表，不能为空
+     * @return 写入的行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO place_info (pid, uid, place_name, area_id, address, status) VALUES "
+            + "<foreach collection='records' item='r' separator=','>"
+            + "(#{r.pid}, #{r.uid}, #{r.placeName}, #{r.areaId}, #{r.address}, #{r.status})"
+            + "</foreach>"
+            + "</script>")
+    int insertBatch(@Param("records") List<PlaceInfo> records);
+
+    /**
+     * 按场所 ID 顺序分页读取场所的风险代码，用于加载风险缓存。
+     *
+     * @param afterPid 已读取的最大场所 ID
+     * @param limit    最大记录数
+     * @return 只包含 pid 和 risk 的场所列表，按场所 ID 升序排列
+     */
+    @Select("SELECT pid, risk FROM place_info WHERE pid > #{afterPid} ORDER BY pid LIMIT #{limit}")
+    List<PlaceInfo> selectRiskPage(@Param("afterPid") long afterPid, @Param("limit") int limit);
 
+    /**
+     * 查询更新时间不早于指定时间的场所的风险代码，用于增量刷新风险缓存。
+     *
+     * @param since 起始时间（数据库时间）
+     * @return 只包含 pid 和 risk 的场所列表
+     */
+    @Select("SELECT pid, risk FROM place_info WHERE updated_at >= #{since}")
+    List<PlaceInfo> selectRiskChangedSince(@Param("since") LocalDateTime since);
 
+    /**
+     * 查询一批场所当前的风险代码。
+     *
+     * @param pids 场所 ID 列表，不能为空
+     * @return 只包含 pid 和 risk 的场所列表，不存在的场所不返回
+     */
+    @Select("<script>"
+            + "SELECT pid, risk FROM place_info WHERE pid IN "
+            + "<foreach collection='pids' item='pid' open='(' separator=',' close=')'>#{pid}</foreach>"
+            + "</script>")
+    List<PlaceInfo> selectRisksByPids(@Param("pids") List<Long> pids);
 
+    /**
+     * 用一条 UPDATE 语句批量更新场所的风险代码。
+     *
+     * @param records 包含 pid 和 risk 的场所列表，不能为空
+     * @return 更新的行数
+     */
+    @Update("<script>"
+            + "UPDATE place_info SET risk = CASE pid "
+            + "<foreach collection='records' item='r'>WHEN #{r.pid} THEN #{r.risk} </foreach>"
+            + "END WHERE pid IN "
+            + "<foreach collection='records' item='r' open='(' separator=',' close=')'>#{r.pid}</foreach>"
+            + "</script>")
+    int updateRiskBatch(@Param("records") List<PlaceInfo> records);
+
+    /**
+     * 查询位于一批区域内的场所 ID。
+     *
+     * @param areaIds 区域编码 ID 列表，不能为空
+     * @return 场所 ID 列表
+     */
+    @Select("<script>"
+            + "SELECT pid FROM place_info WHERE area_id IN "
+            + "<foreach collection='areaIds' item='areaId' open='(' separator=',' close=')'>#{areaId}</foreach>"
+            + "</script>")
+    List<Long> selectPidsByAreaIds(@Param("areaIds") List<Long> areaIds);
+
+    /**
+     * 查询数据库的当前时间，增量刷新以数据库时间为准，避免与应用服务器时钟不一致。
+     *
+     * @return 数据库当前时间
+     */
+    @Select("SELECT NOW()")
+    LocalDateTime selectNow();
+}
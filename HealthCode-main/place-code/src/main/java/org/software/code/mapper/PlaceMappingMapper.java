@@ -1,8 +1,16 @@
 package org.software.code.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.software.code.entity.PlaceMapping;
 
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
 /**
 * @description 针对表【place_mapping】的数据库操作Mapper
 * @createDate 2025-02-20 15:24:05
@@ -11,8 +19,109 @@ import org.software.code.entity.PlaceMapping;
  * @author “101”计划《软件工程》实践教材案例团队
 */
 public interface PlaceMappingMapper extends BaseMapper<PlaceMapping> {
-}
 
+    /**
+     * 用一条多行 INSERT 语句批量写入扫码记录。
+     *
+     * @param records 扫码记录列表，不能为空
+     * @return 写入的行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO place_mapping (pid, uid, time) VALUES "
+            + "<foreach collection='records' item='r' separator=','>(#{r.pid}, #{r.uid}, #{r.time})</foreach>"
+            + "</script>")
+    int insertBatch(@Param("records") List<PlaceMapping> records);
+
+    /**
+     * 按主键顺序读取主键大于 afterId 的扫码记录，用于增量加载到访索引。
+     *
+     * @param afterId 已读取的最大主键
+     * @param limit   最大记录数
+     * @return 扫码记录列表，按主键升序排列
+     */
+    @Select("SELECT id, pid, uid, time FROM place_mapping WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<PlaceMapping> selectAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 查询指定时间之后的第一条扫码记录的主键。
+     *
+     * @param since 起始时间
+     * @return 主键，没有记录时返回 null
+     */
+    @Select("SELECT MIN(id) FROM place_mapping WHERE time >= #{since}")
+    Long selectMinIdSince(@Param("since") Date since);
+
+    /**
+     * 查询最大的主键。
+     *
+     * @return 主键，表为空时返回 null
+     */
+    @Select("SELECT MAX(id) FROM place_mapping")
+    Long selectMaxId();
 
+    /**
+     * 按主键顺序分页读取一个分区中的扫码记录，用于导出归档文件。
+     *
+     * @param partition 分区名，由调用方校验格式
+     * @param afterId   上一页最后一条记录的 ID
+     * @param limit     每页条数
+     * @return 扫码记录列表，按 ID 升序排列
+     */
+    @Select("SELECT id, pid, uid, time FROM place_mapping PARTITION (${partition}) "
+            + "WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<PlaceMapping> selectPartitionPage(@Param("partition") String partition,
+                                           @Param("afterId") long afterId,
+                                           @Param("limit") int limit);
 
+    /**
+     * 统计一个分区中的记录数。
+     *
+     * @param partition 分区名，由调用方校验格式
+     * @return 记录数
+     */
+    @Select("SELECT COUNT(*) FROM place_mapping PARTITION (${partition})")
+    long countPartition(@Param("partition") String partition);
 
+    /**
+     * 按顺序查询 place_mapping 的分区名，表未分区时返回一个 null 元素。
+     *
+     * @return 分区名列表
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'place_mapping' "
+            + "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> selectPartitionNames();
+
+    /**
+     * 查询最早的到访时间，用于首次划分日分区。
+     *
+     * @return 最早的到访时间，表为空时返回 null
+     */
+    @Select("SELECT MIN(time) FROM place_mapping")
+    LocalDateTime selectMinTime();
+
+    /**
+     * 查询到访时间由日期改为精确时间的迁移执行完成的时间，此前写入的到访只有日期，时刻均为 00:00:00。
+     *
+     * @return 迁移完成的时间，迁移尚未执行时返回 null
+     */
+    @Select("SELECT installed_on FROM flyway_schema_history "
+            + "WHERE script = 'V2__visit_time_datetime.sql' AND success = 1")
+    LocalDateTime selectVisitTimeCutover();
+
+    /**
+     * 将兜底分区 p_max 拆分为若干新的日分区和新的 p_max。
+     *
+     * @param partitions 分区定义列表，由调用方生成
+     */
+    @Update("ALTER TABLE place_mapping REORGANIZE PARTITION p_max INTO (${partitions})")
+    void reorganizeMaxPartition(@Param("partitions") String partitions);
+
+    /**
+     * 删除一个过期的分区。
+     *
+     * @param partition 分区名，由调用方校验格式
+     */
+    @Update("ALTER TABLE place_mapping DROP PARTITION ${partition}")
+    void dropPartition(@Param("partition") String partition);
+}
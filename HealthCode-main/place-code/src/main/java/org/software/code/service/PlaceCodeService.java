@@ -2,12 +2,24 @@ package org.software.code.service;
 
 import org.software.code.dto.AddPlaceInputDto;
 import org.software.code.dto.CreatePlaceCodeRequestDto;
+import org.software.code.dto.OccupancyQueryDto;
+import org.software.code.dto.PlaceQueryDto;
+import org.software.code.dto.PlaceRiskDto;
+import org.software.code.vo.ContactTraceVo;
 import org.software.code.vo.GetPlaceVo;
+import org.software.code.vo.OccupancyVo;
 import org.software.code.vo.PlaceCodeInfoVo;
+import org.software.code.vo.PlacePageVo;
+import org.software.code.vo.VisitorCountVo;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
 
 /**
  * PlaceCodeService 是一个服务接口，定义了场所码相关业务逻辑的操作方法。
@@ -33,6 +45,14 @@ public interface PlaceCodeService {
      */
     List<GetPlaceVo> getPlaces();
 
+    /**
+     * 分页获取场所的信息，支持按区域和场所状态筛选。
+     *
+     * @param query 包含分页游标、每页数量和筛选条件的查询对象。
+     * @return 一页场所信息及查询下一页的游标。
+     */
+    PlacePageVo<GetPlaceVo> getPlacePage(PlaceQueryDto query);
+
     /**
      * 根据场所 ID 和时间范围获取相关记录。
      *
@@ -43,6 +63,17 @@ public interface PlaceCodeService {
      */
     List<Long> getRecordByPid(long pid, Date startTime, Date endTime);
 
+    /**
+     * 批量统计一批场所在 [startTime, endTime) 内的到访人数和其中的阳性人数，同一用户多次到访只计一次。
+     *
+     * @param pids 场所的唯一标识列表。
+     * @param startTime 统计的开始时间（包含）。
+     * @param endTime 统计的结束时间（不包含）。
+     * @param positiveUids 阳性人员的用户 ID 列表，可以为 null。
+     * @return 与场所列表一一对应的到访人数和阳性人数。
+     */
+    VisitorCountVo countVisitorsByPids(List<Long> pids, Date startTime, Date endTime, List<Long> positiveUids);
+
     /**
      * 更改场所码的状态。
      *
@@ -65,10 +96,54 @@ public interface PlaceCodeService {
      * @param uidList 用户唯一标识的列表。
      * @param startTime 查询的开始时间。
      * @param endTime 查询的结束时间。
-     * @return 符合条件的场所 ID 列表。
+     * @return 符合条件的场所 ID 列表，每次到访一条。
      */
     List<Long> getPlacesByUserList(List<Long> uidList, Date startTime, Date endTime);
 
+    /**
+     * 根据用户列表和时间范围获取到访过的场所，每个场所只返回一次。
+     *
+     * @param uidList 用户唯一标识的列表。
+     * @param startTime 查询的开始时间。
+     * @param endTime 查询的结束时间。
+     * @return 去重后的场所 ID 数组，顺序不固定。
+     */
+    long[] getDistinctPlacesByUserList(List<Long> uidList, Date startTime, Date endTime);
+
+    /**
+     * 根据用户列表和时间范围统计到访过的场所数。
+     *
+     * @param uidList 用户唯一标识的列表。
+     * @param startTime 查询的开始时间。
+     * @param endTime 查询的结束时间。
+     * @return 去重后的场所数。
+     */
+    int countPlacesByUserList(List<Long> uidList, Date startTime, Date endTime);
+
+    /**
+     * 逐个输出一组用户在时间范围内到访过的场所 ID，每次到访输出一次。
+     *
+     * @param uidList 用户唯一标识的列表。
+     * @param startTime 查询的开始时间。
+     * @param endTime 查询的结束时间。
+     * @param consumer 在调用线程中接收场所 ID。
+     */
+    void forEachPlaceOfUserList(List<Long> uidList, Date startTime, Date endTime, LongConsumer consumer);
+
+    /**
+     * 追踪与一组人员在同一场所、同场时间窗口内到访的密接和次密接。
+     *
+     * @param uidList 追踪起点的用户唯一标识列表。
+     * @param startTime 追踪的开始时间。
+     * @param endTime 追踪的结束时间。
+     * @param windowMinutes 同场时间窗口（分钟）。
+     * @param degree 追踪层级，1 只追踪密接，2 同时追踪次密接。
+     * @param limit 返回的最大接触者数量，为 null 时使用默认值。
+     * @return 按层级和同场次数排序的接触者及统计信息。
+     */
+    ContactTraceVo traceContacts(List<Long> uidList, Date startTime, Date endTime,
+                                 int windowMinutes, int degree, Integer limit);
+
     /**
      * 创建一个新的场所码。
      *
@@ -83,6 +158,23 @@ public interface PlaceCodeService {
      */
     List<PlaceCodeInfoVo> getPlaceInfoList();
 
+    /**
+     * 分页获取场所码的详细信息，支持按区域和场所状态筛选。
+     *
+     * @param query 包含分页游标、每页数量和筛选条件的查询对象。
+     * @return 一页场所码详细信息及查询下一页的游标。
+     */
+    PlacePageVo<PlaceCodeInfoVo> getPlaceInfoPage(PlaceQueryDto query);
+
+    /**
+     * 批量创建场所码，并将场所码图片和每行的处理结果写入 zip 压缩包。
+     *
+     * @param in  CSV 文件的输入流，每行依次为身份证号码、场所名称、区编码、街道编码、社区编码、详细地址。
+     * @param out 压缩包的输出流，不会被关闭。
+     * @throws IOException 读取或写出失败时抛出。
+     */
+    void importPlaceCodes(InputStream in, OutputStream out) throws IOException;
+
     /**
      * 反转指定场所码的状态。
      *
@@ -96,4 +188,52 @@ public interface PlaceCodeService {
      * @return 包含所有场所唯一标识的列表。
      */
     List<Long> getAllPids();
-}
\ No newline at end of file
+
+    /**
+     * 批量写入场所的风险等级，只更新风险等级发生变化的场所，风险等级升高时发布风险升高事件。
+     *
+     * @param risks 场所风险等级列表，同一场所出现多次时以最后一次为准。
+     * @return 风险等级发生变化的场所数。
+     */
+    int setPlaceRisks(List<PlaceRiskDto> risks);
+
+    /**
+     * 查询单个场所的风险等级。
+     *
+     * @param pid 场所的唯一标识。
+     * @return "green"、"yellow" 或 "red"，场所不存在时返回 null。
+     */
+    String getPlaceRisk(long pid);
+
+    /**
+     * 批量查询场所的风险等级。
+     *
+     * @param pids 场所唯一标识的列表。
+     * @return 场所 ID 到风险等级的映射，不存在的场所不包含在内。
+     */
+    Map<Long, String> getPlaceRisks(List<Long> pids);
+
+    /**
+     * 查询场所的实时客流。
+     *
+     * @param pid 场所的唯一标识。
+     * @return 场所的在场人数和最近扫码人次。
+     */
+    OccupancyVo getOccupancy(long pid);
+
+    /**
+     * 批量查询场所的实时客流。
+     *
+     * @param pids 场所唯一标识的列表。
+     * @return 与 pids 顺序一致的客流列表。
+     */
+    List<OccupancyVo> getOccupancies(List<Long> pids);
+
+    /**
+     * 查询区域内客流最多的场所。
+     *
+     * @param query 包含区、街道、社区筛选条件和返回数量的查询对象。
+     * @return 按在场人数、最近扫码人次降序排列的客流列表。
+     */
+    List<OccupancyVo> getBusiestPlaces(OccupancyQueryDto query);
+}
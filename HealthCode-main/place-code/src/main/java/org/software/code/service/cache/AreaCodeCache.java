@@ -0,0 +1,179 @@
+package org.software.code.service.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.client.UserClient;
+import org.software.code.common.result.Result;
+import org.software.code.dto.AreaCodeDto;
+import org.software.code.vo.AreaCodeSnapshotVo;
+import org.software.code.vo.AreaCodeVo;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AreaCodeCache 在本地缓存用户服务的全部区域编码，按 ID 查询区域编码时不再远程调用。
+ * 缓存定期携带版本号向用户服务拉取快照，区域编码未变化时用户服务只返回版本号；
+ * 缓存中没有的 ID（如刚新增的区域编码）回落到按 ID 的远程调用，并写入缓存。
+ * 场所列表按区、街道、社区筛选时，也通过缓存把筛选条件换算为区域编码 ID；
+ * 批量登记场所时按区、街道、社区编码查询区域编码，缓存中没有时回落到获取或创建区域编码的远程调用。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class AreaCodeCache {
+
+    private static final Logger logger = LogManager.getLogger(AreaCodeCache.class);
+
+    // 用于将远程调用返回的数据转换为视图对象，ObjectMapper 是线程安全的，全局共用一个实例
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Resource
+    private UserClient userClient;
+
+    // 区域编码 ID 到区域编码的映射
+    private volatile Map<Long, AreaCodeVo> areaCodes = new ConcurrentHashMap<>();
+
+    // 区、街道、社区编码到区域编码的映射
+    private volatile Map<String, AreaCodeVo> areaCodesByCode = new ConcurrentHashMap<>();
+
+    // 当前缓存对应的版本号，尚未加载时为 null
+    private volatile String version;
+
+    /**
+     * 根据 ID 获取区域编码。
+     *
+     * @param id 区域编码 ID
+     * @return 区域编码，不存在时返回 null
+     */
+    public AreaCodeVo get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        AreaCodeVo areaCodeVo = areaCodes.get(id);
+        if (areaCodeVo != null) {
+            return areaCodeVo;
+        }
+        Result<?> result = userClient.getAreaCodeByID(id);
+        areaCodeVo = result == null ? null : toAreaCodeVo(result.getData());
+        put(areaCodeVo);
+        return areaCodeVo;
+    }
+
+    /**
+     * 根据区、街道、社区编码获取区域编码，缓存中没有时调用用户服务获取，用户服务会创建不存在的区域编码。
+     *
+     * @param district  区编码
+     * @param street    街道编码
+     * @param community 社区编码
+     * @return 区域编码，用户服务返回空数据时返回 null
+     */
+    public AreaCodeVo getByCode(Integer district, Integer street, Long community) {
+        AreaCodeVo areaCodeVo = areaCodesByCode.get(codeOf(district, street, community));
+        if (areaCodeVo != null) {
+            return areaCodeVo;
+        }
+        Result<?> result = userClient.getAreaCodeID(new AreaCodeDto(district, street, community));
+        areaCodeVo = result == null ? null : toAreaCodeVo(result.getData());
+        if (areaCodeVo != null) {
+            areaCodeVo.setDistrict(district);
+            areaCodeVo.setStreet(street);
+            areaCodeVo.setCommunity(community);
+            put(areaCodeVo);
+        }
+        return areaCodeVo;
+    }
+
+    /**
+     * 查找符合条件的区域编码 ID，为 null 的条件不参与筛选。
+     * 缓存尚未加载时先同步拉取一次快照，仍未加载成功时返回 null。
+     *
+     * @param district  区编码
+     * @param street    街道编码
+     * @param community 社区编码
+     * @return 符合条件的区域编码 ID 列表，缓存不可用时返回 null
+     */
+    public List<Long> findIds(Integer district, Integer street, Long community) {
+        if (version == null) {
+            refresh();
+            if (version == null) {
+                return null;
+            }
+        }
+        List<Long> ids = new ArrayList<>();
+        for (AreaCodeVo areaCodeVo : areaCodes.values()) {
+            if ((district == null || district.equals(areaCodeVo.getDistrict()))
+                    && (street == null || street.equals(areaCodeVo.getStreet()))
+                    && (community == null || community.equals(areaCodeVo.getCommunity()))) {
+                ids.add(areaCodeVo.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 写入一条已知的区域编码，如新增场所时获取或创建的区域编码。
+     *
+     * @param areaCodeVo 区域编码
+     */
+    public void put(AreaCodeVo areaCodeVo) {
+        if (areaCodeVo != null && areaCodeVo.getId() != null) {
+            areaCodes.put(areaCodeVo.getId(), areaCodeVo);
+            areaCodesByCode.put(codeOf(areaCodeVo.getDistrict(), areaCodeVo.getStreet(), areaCodeVo.getCommunity()),
+                    areaCodeVo);
+        }
+    }
+
+    /**
+     * 携带当前版本号向用户服务拉取区域编码快照，版本号变化时整体替换缓存。
+     * 应用启动后立即执行一次，之后定期执行；用户服务不可用时保留原有缓存。
+     */
+    @Scheduled(fixedDelayString = "${area-code.cache.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            Result<?> result = userClient.getAreaCodeSnapshot(version);
+            if (result == null || result.getData() == null) {
+                return;
+            }
+            AreaCodeSnapshotVo snapshotVo = OBJECT_MAPPER.convertValue(result.getData(), AreaCodeSnapshotVo.class);
+            if (!Boolean.TRUE.equals(snapshotVo.getModified()) || snapshotVo.getAreaCodes() == null) {
+                return;
+            }
+            Map<Long, AreaCodeVo> loaded = new ConcurrentHashMap<>(snapshotVo.getAreaCodes().size() * 2);
+            Map<String, AreaCodeVo> loadedByCode = new ConcurrentHashMap<>(snapshotVo.getAreaCodes().size() * 2);
+            for (AreaCodeVo areaCodeVo : snapshotVo.getAreaCodes()) {
+                loaded.put(areaCodeVo.getId(), areaCodeVo);
+                loadedByCode.put(codeOf(areaCodeVo.getDistrict(), areaCodeVo.getStreet(), areaCodeVo.getCommunity()),
+                        areaCodeVo);
+            }
+            areaCodes = loaded;
+            areaCodesByCode = loadedByCode;
+            version = snapshotVo.getVersion();
+            logger.info("Area code cache refreshed, version: {}, size: {}", version, loaded.size());
+        } catch (Exception e) {
+            logger.warn("Failed to refresh area code cache, message: {}", e.getMessage());
+        }
+    }
+
+    private static String codeOf(Integer district, Integer street, Long community) {
+        return district + ":" + street + ":" + community;
+    }
+
+    /**
+     * 将远程调用返回的数据转换为区域编码视图对象。
+     *
+     * @param data 远程调用返回的数据
+     * @return 区域编码视图对象，数据为空时返回 null
+     */
+    public static AreaCodeVo toAreaCodeVo(Object data) {
+        return data == null ? null : OBJECT_MAPPER.convertValue(data, AreaCodeVo.class);
+    }
+}
@@ -2,7 +2,8 @@ package org.software.code.service.impl;
 
 import cn.hutool.core.util.IdUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,24 +11,53 @@ import org.software.code.client.UserClient;
 import org.software.code.common.except.BusinessException;
 import org.software.code.common.except.ExceptionEnum;
 import org.software.code.common.result.Result;
+import org.software.code.common.util.LongHashSet;
 import org.software.code.dto.AddPlaceInputDto;
 import org.software.code.dto.AreaCodeDto;
 import org.software.code.dto.CreatePlaceCodeRequestDto;
+import org.software.code.dto.OccupancyQueryDto;
+import org.software.code.dto.PlaceQueryDto;
+import org.software.code.dto.PlaceRiskDto;
 import org.software.code.entity.PlaceInfo;
 import org.software.code.entity.PlaceMapping;
+import org.software.code.kafka.PlaceRiskProducer;
+import org.software.code.kafka.PlaceScanProducer;
 import org.software.code.mapper.PlaceInfoMapper;
 import org.software.code.mapper.PlaceMappingMapper;
 import org.software.code.service.PlaceCodeService;
+import org.software.code.service.cache.AreaCodeCache;
+import org.software.code.service.occupancy.OccupancyCounter;
+import org.software.code.service.onboard.PlaceOnboarder;
+import org.software.code.service.risk.PlaceRiskCache;
+import org.software.code.service.scan.ScanDeduplicator;
+import org.software.code.service.scan.ScanIngestor;
+import org.software.code.service.trace.ContactTracer;
+import org.software.code.service.visit.ChunkedVisitQuery;
+import org.software.code.service.visit.VisitIndex;
 import org.software.code.vo.AreaCodeVo;
+import org.software.code.vo.ContactTraceVo;
 import org.software.code.vo.GetPlaceVo;
+import org.software.code.vo.OccupancyVo;
 import org.software.code.vo.PlaceCodeInfoVo;
+import org.software.code.vo.PlacePageVo;
 import org.software.code.vo.UserInfoVo;
+import org.software.code.vo.VisitorCountVo;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +71,22 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
     // 日志记录器，用于记录业务操作中的关键信息和错误信息
     private static final Logger logger = LogManager.getLogger(PlaceCodeServiceImpl.class);
 
+    // 批量写入风险等级时每条 SQL 处理的最大场所数
+    private static final int RISK_BATCH_SIZE = 1000;
+
+    // 分页查询场所列表时的默认每页数量
+    private static final int DEFAULT_PLACE_PAGE_SIZE = 100;
+
+    // 查询客流最多的场所时的默认返回数量
+    private static final int DEFAULT_BUSIEST_LIMIT = 10;
+
+    // 获取全部场所列表时每页读取的场所数，每页批量查询一次用户信息
+    private static final int PLACE_LIST_PAGE_SIZE = 1000;
+
+    // 用于将远程调用返回的数据转换为视图对象，ObjectMapper 是线程安全的，全局共用一个实例
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     // 注入 PlaceInfo 表的 Mapper，用于操作 PlaceInfo 实体对应的数据库表
     @Resource
     private PlaceInfoMapper placeInfoMapper;
@@ -53,6 +99,50 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
     @Resource
     UserClient userClient;
 
+    // 注入区域编码缓存，用于在本地查询区域编码
+    @Resource
+    private AreaCodeCache areaCodeCache;
+
+    // 注入扫码事件生产者，用于发布扫码事件
+    @Resource
+    private PlaceScanProducer placeScanProducer;
+
+    // 注入风险升高事件生产者，用于发布场所风险升高事件
+    @Resource
+    private PlaceRiskProducer placeRiskProducer;
+
+    // 注入场所风险缓存，用于在内存中查询场所风险等级
+    @Resource
+    private PlaceRiskCache placeRiskCache;
+
+    // 注入扫码记录缓冲写入器，用于合并写入扫码记录
+    @Resource
+    private ScanIngestor scanIngestor;
+
+    // 注入重复扫码抑制器，用于丢弃抑制窗口内的重复扫码
+    @Resource
+    private ScanDeduplicator scanDeduplicator;
+
+    // 注入到访记录内存索引，用于查询最近若干天的到访记录
+    @Resource
+    private VisitIndex visitIndex;
+
+    // 注入分块并行查询器，用于按用户列表查询数据库中的到访场所
+    @Resource
+    private ChunkedVisitQuery chunkedVisitQuery;
+
+    // 注入密接追踪器，用于在到访索引上追踪密接和次密接
+    @Resource
+    private ContactTracer contactTracer;
+
+    // 注入实时客流计数器，用于按分钟统计场所的扫码人次
+    @Resource
+    private OccupancyCounter occupancyCounter;
+
+    // 注入场所批量登记器，用于批量创建场所码并生成场所码图片
+    @Resource
+    private PlaceOnboarder placeOnboarder;
+
     /**
      * 添加一个新的场所。
      *
@@ -68,8 +158,8 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
         // 调用用户服务获取地址编码对应的 ID
         Result<?> areaCode = userClient.getAreaCodeID(
                 new AreaCodeDto(placeDto.getDistrict(), placeDto.getStreet(), placeDto.getCommunity()));
-        ObjectMapper objectMapper = new ObjectMapper();
-        AreaCodeVo areaCodeVo = objectMapper.convertValue(areaCode.getData(), AreaCodeVo.class);
+        AreaCodeVo areaCodeVo = OBJECT_MAPPER.convertValue(areaCode.getData(), AreaCodeVo.class);
+        areaCodeCache.put(areaCodeVo);
 
         // 设置场所的地址编码 ID 和地址
         placeInfo.setAreaId(areaCodeVo.getId());
@@ -86,31 +176,36 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
 
     /**
      * 获取所有场所的信息。
+     * 按场所 ID 分页读取，每页批量查询一次用户信息，区域编码从本地缓存读取。
      *
      * @return 包含所有场所信息的列表，每个场所信息封装在 GetPlaceVo 对象中。
      */
     @Override
     public List<GetPlaceVo> getPlaces() {
-        // 查询所有场所信息
-        List<PlaceInfo> placeInfoList = placeInfoMapper.selectList(new QueryWrapper<>());
-        return placeInfoList.stream()
-                .map(placeInfo -> {
-                    // 创建 GetPlaceVo 对象并复制场所信息
-                    GetPlaceVo getPlaceVo = new GetPlaceVo();
-                    BeanUtils.copyProperties(placeInfo, getPlaceVo);
-                    // 调用用户服务获取地址编码信息
-                    Result<?> areaCodeResult = userClient.getAreaCodeByID(placeInfo.getAreaId());
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    AreaCodeVo areaCodeVo = objectMapper.convertValue(areaCodeResult.getData(), AreaCodeVo.class);
-                    // 调用用户服务获取用户信息
-                    Result<?> result = userClient.getUserByUID(placeInfo.getUid());
-                    UserInfoVo userInfo = objectMapper.convertValue(result.getData(), UserInfoVo.class);
-                    // 设置场所管理员的身份证和手机号
-                    getPlaceVo.setIdentityCard(userInfo.getIdentityCard());
-                    getPlaceVo.setPhoneNumber(userInfo.getPhoneNumber());
-                    return getPlaceVo;
-                })
-                .collect(Collectors.toList());
+        List<GetPlaceVo> getPlaceVoList = new ArrayList<>();
+        PlaceQueryDto query = new PlaceQueryDto();
+        do {
+            List<PlaceInfo> placeInfoList = selectPlacePage(query, PLACE_LIST_PAGE_SIZE);
+            getPlaceVoList.addAll(toGetPlaceVoList(placeInfoList));
+            query.setAfterPid(nextAfterPid(placeInfoList, PLACE_LIST_PAGE_SIZE));
+        } while (query.getAfterPid() != null);
+        return getPlaceVoList;
+    }
+
+    /**
+     * 分页获取场所的信息，支持按区域和场所状态筛选。
+     *
+     * @param query 包含分页游标、每页数量和筛选条件的查询对象。
+     * @return 一页场所信息及查询下一页的游标。
+     */
+    @Override
+    public PlacePageVo<GetPlaceVo> getPlacePage(PlaceQueryDto query) {
+        int size = query.getSize() == null ? DEFAULT_PLACE_PAGE_SIZE : query.getSize();
+        List<PlaceInfo> placeInfoList = selectPlacePage(query, size + 1);
+        PlacePageVo<GetPlaceVo> pageVo = new PlacePageVo<>();
+        pageVo.setNextAfterPid(trimPage(placeInfoList, size));
+        pageVo.setRecords(toGetPlaceVoList(placeInfoList));
+        return pageVo;
     }
 
     /**
@@ -123,12 +218,107 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
      */
     @Override
     public List<Long> getRecordByPid(long pid, Date startTime, Date endTime) {
+        if (!visitIndex.isReady()) {
+            return selectUidsByPid(pid, startTime, endTime, true);
+        }
+        // 早于索引覆盖范围的部分查询数据库，其余部分从内存索引读取
+        Date coverageStart = visitIndex.getCoverageStart();
+        List<Long> uids = new ArrayList<>();
+        if (startTime.before(coverageStart)) {
+            boolean endBeforeCoverage = endTime.before(coverageStart);
+            uids.addAll(selectUidsByPid(pid, startTime, endBeforeCoverage ? endTime : coverageStart, endBeforeCoverage));
+            if (endBeforeCoverage) {
+                return uids;
+            }
+            startTime = coverageStart;
+        }
+        visitIndex.forEachUidOfPid(pid, startTime, endTime, uids::add);
+        return uids;
+    }
+
+    /**
+     * 批量统计一批场所在 [startTime, endTime) 内的到访人数和其中的阳性人数。
+     * 索引覆盖的部分从内存读取，早于覆盖范围或索引不可用时查询数据库，到访用户在原始类型集合中去重。
+     *
+     * @param pids 场所的唯一标识列表。
+     * @param startTime 统计的开始时间（包含）。
+     * @param endTime 统计的结束时间（不包含）。
+     * @param positiveUids 阳性人员的用户 ID 列表，可以为 null。
+     * @return 与场所列表一一对应的到访人数和阳性人数。
+     */
+    @Override
+    public VisitorCountVo countVisitorsByPids(List<Long> pids, Date startTime, Date endTime, List<Long> positiveUids) {
+        LongHashSet positiveSet = new LongHashSet(positiveUids == null ? 0 : positiveUids.size());
+        if (positiveUids != null) {
+            for (Long uid : positiveUids) {
+                positiveSet.add(uid);
+            }
+        }
+        Date coverageStart = visitIndex.isReady() ? visitIndex.getCoverageStart() : null;
+        // 索引的查询范围包含结束时间，[startTime, endTime) 对应索引中的 [startTime, endTime - 1 毫秒]
+        Date lastMillis = new Date(endTime.getTime() - 1);
+        int[] visitors = new int[pids.size()];
+        int[] positives = new int[pids.size()];
+        LongHashSet visited = new LongHashSet();
+        for (int i = 0; i < pids.size(); i++) {
+            long pid = pids.get(i);
+            visited.clear();
+            Date from = startTime;
+            if (coverageStart == null || from.before(coverageStart)) {
+                Date to = coverageStart == null || !endTime.after(coverageStart) ? endTime : coverageStart;
+                for (Long uid : selectUidsByPid(pid, from, to, false)) {
+                    visited.add(uid);
+                }
+                from = to;
+            }
+            if (from.before(endTime)) {
+                visitIndex.forEachUidOfPid(pid, from, lastMillis, visited::add);
+            }
+            visitors[i] = visited.size();
+            positives[i] = countCommon(visited, positiveSet);
+        }
+        VisitorCountVo countVo = new VisitorCountVo();
+        countVo.setVisitors(visitors);
+        countVo.setPositives(positives);
+        return countVo;
+    }
+
+    /**
+     * 统计两个集合的公共元素数，遍历较小的集合。
+     */
+    private static int countCommon(LongHashSet a, LongHashSet b) {
+        LongHashSet small = a.size() <= b.size() ? a : b;
+        LongHashSet large = small == a ? b : a;
+        int[] count = new int[1];
+        small.forEach(value -> {
+            if (large.contains(value)) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * 从数据库查询到访过指定场所的用户 ID。
+     *
+     * @param pid 场所的唯一标识。
+     * @param startTime 查询的开始时间（包含）。
+     * @param endTime 查询的结束时间。
+     * @param endInclusive 是否包含结束时间。
+     * @return 用户 ID 列表，每次到访一条。
+     */
+    private List<Long> selectUidsByPid(long pid, Date startTime, Date endTime, boolean endInclusive) {
         // 构建查询条件
         LambdaQueryWrapper<PlaceMapping> lambdaQueryWrapper = new LambdaQueryWrapper<>();
         lambdaQueryWrapper
                 .select(PlaceMapping::getUid) // 查询 uid 字段
                 .eq(PlaceMapping::getPid, pid)
-                .between(PlaceMapping::getTime, startTime, endTime);
+                .ge(PlaceMapping::getTime, startTime);
+        if (endInclusive) {
+            lambdaQueryWrapper.le(PlaceMapping::getTime, endTime);
+        } else {
+            lambdaQueryWrapper.lt(PlaceMapping::getTime, endTime);
+        }
         // 执行查询并将结果转换为 Long 类型列表
         return placeMappingMapper.selectObjs(lambdaQueryWrapper).stream()
                 .map(obj -> (Long) obj)
@@ -163,9 +353,27 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
         PlaceMapping placeMapping = new PlaceMapping();
         placeMapping.setPid(pid);
         placeMapping.setUid(uid);
-        placeMapping.setTime(new Date());
-        // 将扫描记录插入数据库
-        placeMappingMapper.insert(placeMapping);
+        Date now = new Date();
+        placeMapping.setTime(now);
+        // 同一用户在抑制窗口内重复扫描同一场所时不再记录，也不发布扫码事件
+        if (!scanDeduplicator.tryAccept(uid, pid, now.getTime())) {
+            return;
+        }
+        try {
+            if (scanIngestor.isEnabled()) {
+                // 放入缓冲队列，由写入线程合并为多行 INSERT 写入数据库
+                scanIngestor.submit(placeMapping);
+            } else {
+                // 将扫描记录插入数据库
+                placeMappingMapper.insert(placeMapping);
+            }
+        } catch (RuntimeException e) {
+            // 写入失败时撤销，用户重新扫码不会被当作重复扫码
+            scanDeduplicator.forget(uid, pid, now.getTime());
+            throw e;
+        }
+        // 发布扫码事件，供场所风险实时计算和各实例的实时客流统计使用
+        placeScanProducer.sendScanEvent(uid, pid, now.getTime());
     }
 
     /**
@@ -174,19 +382,91 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
      * @param uidList 用户唯一标识的列表。
      * @param startTime 查询的开始时间。
      * @param endTime 查询的结束时间。
-     * @return 符合条件的场所 ID 列表。
+     * @return 符合条件的场所 ID 列表，每次到访一条。
      */
     @Override
     public List<Long> getPlacesByUserList(List<Long> uidList, Date startTime, Date endTime) {
-        // 构建查询条件
-        LambdaQueryWrapper<PlaceMapping> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.in(PlaceMapping::getUid, uidList)
-                .between(PlaceMapping::getTime, startTime, endTime)
-                .select(PlaceMapping::getPid);
-        // 执行查询并将结果转换为 Long 类型列表
-        return placeMappingMapper.selectObjs(queryWrapper).stream()
-                .map(obj -> (Long) obj)
-                .collect(Collectors.toList());
+        List<Long> pids = new ArrayList<>();
+        forEachPlaceOfUserList(uidList, startTime, endTime, pids::add);
+        return pids;
+    }
+
+    /**
+     * 根据用户列表和时间范围获取到访过的场所，每个场所只返回一次。
+     *
+     * @param uidList 用户唯一标识的列表。
+     * @param startTime 查询的开始时间。
+     * @param endTime 查询的结束时间。
+     * @return 去重后的场所 ID 数组，顺序不固定。
+     */
+    @Override
+    public long[] getDistinctPlacesByUserList(List<Long> uidList, Date startTime, Date endTime) {
+        LongHashSet pids = new LongHashSet();
+        forEachPlaceOfUserList(uidList, startTime, endTime, pids::add);
+        return pids.toArray();
+    }
+
+    /**
+     * 根据用户列表和时间范围统计到访过的场所数。
+     *
+     * @param uidList 用户唯一标识的列表。
+     * @param startTime 查询的开始时间。
+     * @param endTime 查询的结束时间。
+     * @return 去重后的场所数。
+     */
+    @Override
+    public int countPlacesByUserList(List<Long> uidList, Date startTime, Date endTime) {
+        LongHashSet pids = new LongHashSet();
+        forEachPlaceOfUserList(uidList, startTime, endTime, pids::add);
+        return pids.size();
+    }
+
+    /**
+     * 逐个输出一组用户在时间范围内到访过的场所 ID，每次到访输出一次，场所 ID 在调用线程中按查询完成的顺序输出。
+     *
+     * @param uidList 用户唯一标识的列表。
+     * @param startTime 查询的开始时间。
+     * @param endTime 查询的结束时间。
+     * @param consumer 接收场所 ID。
+     */
+    @Override
+    public void forEachPlaceOfUserList(List<Long> uidList, Date startTime, Date endTime, LongConsumer consumer) {
+        if (uidList.isEmpty()) {
+            return;
+        }
+        if (!visitIndex.isReady()) {
+            chunkedVisitQuery.forEachPidOfUsers(uidList, startTime, endTime, true, consumer);
+            return;
+        }
+        // 早于索引覆盖范围的部分分块查询数据库，其余部分从内存索引读取
+        Date coverageStart = visitIndex.getCoverageStart();
+        if (startTime.before(coverageStart)) {
+            boolean endBeforeCoverage = endTime.before(coverageStart);
+            chunkedVisitQuery.forEachPidOfUsers(uidList, startTime, endBeforeCoverage ? endTime : coverageStart,
+                    endBeforeCoverage, consumer);
+            if (endBeforeCoverage) {
+                return;
+            }
+            startTime = coverageStart;
+        }
+        visitIndex.forEachPidOfUids(uidList, startTime, endTime, consumer);
+    }
+
+    /**
+     * 追踪与一组人员在同一场所、同场时间窗口内到访的密接和次密接。
+     *
+     * @param uidList 追踪起点的用户唯一标识列表。
+     * @param startTime 追踪的开始时间。
+     * @param endTime 追踪的结束时间。
+     * @param windowMinutes 同场时间窗口（分钟）。
+     * @param degree 追踪层级，1 只追踪密接，2 同时追踪次密接。
+     * @param limit 返回的最大接触者数量，为 null 时使用默认值。
+     * @return 按层级和同场次数排序的接触者及统计信息。
+     */
+    @Override
+    public ContactTraceVo traceContacts(List<Long> uidList, Date startTime, Date endTime,
+                                        int windowMinutes, int degree, Integer limit) {
+        return contactTracer.trace(uidList, startTime, endTime, windowMinutes, degree, limit);
     }
 
     /**
@@ -198,8 +478,7 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
     public void createPlaceCode(CreatePlaceCodeRequestDto request) {
         // 调用用户服务根据身份证号码获取用户信息
         Result<?> result = userClient.getUserByID(request.getIdentity_card());
-        ObjectMapper objectMapper = new ObjectMapper();
-        UserInfoVo userInfoVo = objectMapper.convertValue(result.getData(), UserInfoVo.class);
+        UserInfoVo userInfoVo = OBJECT_MAPPER.convertValue(result.getData(), UserInfoVo.class);
 
         // 创建 PlaceInfo 对象并设置场所 ID、用户 ID 和场所名称
         PlaceInfo placeInfo = new PlaceInfo();
@@ -211,7 +490,8 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
         // 调用用户服务获取地址编码对应的 ID
         Result<?> areaCode = userClient.getAreaCodeID(
                 new AreaCodeDto(request.getDistrict_id(), request.getStreet_id(), request.getCommunity_id()));
-        AreaCodeVo areaCodeVo = objectMapper.convertValue(areaCode.getData(), AreaCodeVo.class);
+        AreaCodeVo areaCodeVo = OBJECT_MAPPER.convertValue(areaCode.getData(), AreaCodeVo.class);
+        areaCodeCache.put(areaCodeVo);
 
         // 设置场所的地址编码 ID 和地址
         placeInfo.setAreaId(areaCodeVo.getId());
@@ -224,34 +504,172 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
 
     /**
      * 获取所有场所码的详细信息。
+     * 按场所 ID 分页读取，每页批量查询一次用户信息，区域编码从本地缓存读取。
      *
      * @return 包含所有场所码详细信息的列表，每个场所码信息封装在 PlaceCodeInfoVo 对象中。
      */
     @Override
     public List<PlaceCodeInfoVo> getPlaceInfoList() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        // 查询所有场所信息
-        List<PlaceInfo> placeInfoList = placeInfoMapper.selectList(new QueryWrapper<>());
-        return placeInfoList.stream()
-                .map(placeInfo -> {
-                    // 创建 PlaceCodeInfoVo 对象并复制场所信息
-                    PlaceCodeInfoVo placeCodeInfoVo = new PlaceCodeInfoVo();
-                    BeanUtils.copyProperties(placeInfo, placeCodeInfoVo);
-                    // 调用用户服务获取地址编码信息
-                    Result<?> areaCodeResult = userClient.getAreaCodeByID(placeInfo.getAreaId());
-                    AreaCodeVo areaCodeVo = objectMapper.convertValue(areaCodeResult.getData(), AreaCodeVo.class);
-                    // 设置地址编码信息
-                    placeCodeInfoVo.setCommunityId(areaCodeVo.getCommunity());
-                    placeCodeInfoVo.setDistrictId(areaCodeVo.getDistrict());
-                    placeCodeInfoVo.setStreetId(areaCodeVo.getStreet());
-                    // 调用用户服务获取用户信息
-                    Result<?> userResult = userClient.getUserByUID(placeInfo.getUid());
-                    UserInfoVo userInfoVo = objectMapper.convertValue(userResult.getData(), UserInfoVo.class);
-                    // 设置场所管理员的身份证信息
-                    placeCodeInfoVo.setIdentityCard(userInfoVo.getIdentityCard());
-                    return placeCodeInfoVo;
-                })
+        List<PlaceCodeInfoVo> placeCodeInfoVoList = new ArrayList<>();
+        PlaceQueryDto query = new PlaceQueryDto();
+        do {
+            List<PlaceInfo> placeInfoList = selectPlacePage(query, PLACE_LIST_PAGE_SIZE);
+            placeCodeInfoVoList.addAll(toPlaceCodeInfoVoList(placeInfoList));
+            query.setAfterPid(nextAfterPid(placeInfoList, PLACE_LIST_PAGE_SIZE));
+        } while (query.getAfterPid() != null);
+        return placeCodeInfoVoList;
+    }
+
+    /**
+     * 分页获取场所码的详细信息，支持按区域和场所状态筛选。
+     *
+     * @param query 包含分页游标、每页数量和筛选条件的查询对象。
+     * @return 一页场所码详细信息及查询下一页的游标。
+     */
+    @Override
+    public PlacePageVo<PlaceCodeInfoVo> getPlaceInfoPage(PlaceQueryDto query) {
+        int size = query.getSize() == null ? DEFAULT_PLACE_PAGE_SIZE : query.getSize();
+        List<PlaceInfo> placeInfoList = selectPlacePage(query, size + 1);
+        PlacePageVo<PlaceCodeInfoVo> pageVo = new PlacePageVo<>();
+        pageVo.setNextAfterPid(trimPage(placeInfoList, size));
+        pageVo.setRecords(toPlaceCodeInfoVoList(placeInfoList));
+        return pageVo;
+    }
+
+    /**
+     * 批量创建场所码，负责人和区域编码按批查询，场所按批写入，场所码图片并行生成。
+     *
+     * @param in  CSV 文件的输入流。
+     * @param out 压缩包的输出流。
+     * @throws IOException 读取或写出失败时抛出。
+     */
+    @Override
+    public void importPlaceCodes(InputStream in, OutputStream out) throws IOException {
+        placeOnboarder.importPlaces(in, out);
+    }
+
+    /**
+     * 按场所 ID 升序读取一页场所，区、街道、社区条件先通过区域编码缓存换算为区域编码 ID。
+     *
+     * @param query 包含分页游标和筛选条件的查询对象。
+     * @param limit 最多读取的场所数。
+     * @return 场所列表，按场所 ID 升序排列。
+     */
+    private List<PlaceInfo> selectPlacePage(PlaceQueryDto query, int limit) {
+        LambdaQueryWrapper<PlaceInfo> queryWrapper = new LambdaQueryWrapper<>();
+        if (query.getDistrict() != null || query.getStreet() != null || query.getCommunity() != null) {
+            List<Long> areaIds = areaCodeCache.findIds(query.getDistrict(), query.getStreet(), query.getCommunity());
+            if (areaIds == null) {
+                throw new BusinessException(ExceptionEnum.PLACE_AREA_UNAVAILABLE);
+            }
+            if (areaIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            queryWrapper.in(PlaceInfo::getAreaId, areaIds);
+        }
+        queryWrapper.select(PlaceInfo::getPid, PlaceInfo::getUid, PlaceInfo::getPlaceName, PlaceInfo::getAreaId,
+                        PlaceInfo::getAddress, PlaceInfo::getStatus)
+                .gt(query.getAfterPid() != null, PlaceInfo::getPid, query.getAfterPid())
+                .eq(query.getStatus() != null, PlaceInfo::getStatus, query.getStatus())
+                .orderByAsc(PlaceInfo::getPid)
+                .last("LIMIT " + limit);
+        return placeInfoMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 读取到整页时返回最后一个场所 ID 作为下一页的游标，否则返回 null。
+     */
+    private static Long nextAfterPid(List<PlaceInfo> placeInfoList, int size) {
+        return placeInfoList.size() < size ? null : placeInfoList.get(placeInfoList.size() - 1).getPid();
+    }
+
+    /**
+     * 去掉多读取的一条记录，多读取到记录说明还有下一页，返回本页最后一个场所 ID 作为游标，否则返回 null。
+     */
+    private static Long trimPage(List<PlaceInfo> placeInfoList, int size) {
+        if (placeInfoList.size() <= size) {
+            return null;
+        }
+        placeInfoList.subList(size, placeInfoList.size()).clear();
+        return placeInfoList.get(size - 1).getPid();
+    }
+
+    /**
+     * 将一页场所转换为 GetPlaceVo，补充场所管理员的身份证、手机号和场所的区域编码。
+     */
+    private List<GetPlaceVo> toGetPlaceVoList(List<PlaceInfo> placeInfoList) {
+        Map<Long, UserInfoVo> users = getUsers(placeInfoList);
+        List<GetPlaceVo> getPlaceVoList = new ArrayList<>(placeInfoList.size());
+        for (PlaceInfo placeInfo : placeInfoList) {
+            GetPlaceVo getPlaceVo = new GetPlaceVo();
+            BeanUtils.copyProperties(placeInfo, getPlaceVo);
+            getPlaceVo.setName(placeInfo.getPlaceName());
+            AreaCodeVo areaCodeVo = areaCodeCache.get(placeInfo.getAreaId());
+            if (areaCodeVo != null) {
+                getPlaceVo.setDistrict(areaCodeVo.getDistrict());
+                getPlaceVo.setStreet(areaCodeVo.getStreet());
+                getPlaceVo.setCommunity(areaCodeVo.getCommunity());
+            }
+            UserInfoVo userInfoVo = users.get(placeInfo.getUid());
+            if (userInfoVo != null) {
+                getPlaceVo.setIdentityCard(userInfoVo.getIdentityCard());
+                getPlaceVo.setPhoneNumber(userInfoVo.getPhoneNumber());
+            }
+            getPlaceVoList.add(getPlaceVo);
+        }
+        return getPlaceVoList;
+    }
+
+    /**
+     * 将一页场所转换为 PlaceCodeInfoVo，补充场所管理员的身份证和场所的区域编码。
+     */
+    private List<PlaceCodeInfoVo> toPlaceCodeInfoVoList(List<PlaceInfo> placeInfoList) {
+        Map<Long, UserInfoVo> users = getUsers(placeInfoList);
+        List<PlaceCodeInfoVo> placeCodeInfoVoList = new ArrayList<>(placeInfoList.size());
+        for (PlaceInfo placeInfo : placeInfoList) {
+            PlaceCodeInfoVo placeCodeInfoVo = new PlaceCodeInfoVo();
+            BeanUtils.copyProperties(placeInfo, placeCodeInfoVo);
+            AreaCodeVo areaCodeVo = areaCodeCache.get(placeInfo.getAreaId());
+            if (areaCodeVo != null) {
+                placeCodeInfoVo.setCommunityId(areaCodeVo.getCommunity());
+                placeCodeInfoVo.setDistrictId(areaCodeVo.getDistrict());
+                placeCodeInfoVo.setStreetId(areaCodeVo.getStreet());
+            }
+            UserInfoVo userInfoVo = users.get(placeInfo.getUid());
+            if (userInfoVo != null) {
+                placeCodeInfoVo.setIdentityCard(userInfoVo.getIdentityCard());
+            }
+            placeCodeInfoVoList.add(placeCodeInfoVo);
+        }
+        return placeCodeInfoVoList;
+    }
+
+    /**
+     * 用一次远程调用批量获取一页场所的管理员信息。
+     *
+     * @param placeInfoList 场所列表。
+     * @return 用户 ID 到用户信息的映射，不存在的用户不包含在内。
+     */
+    private Map<Long, UserInfoVo> getUsers(List<PlaceInfo> placeInfoList) {
+        List<Long> uids = placeInfoList.stream()
+                .map(PlaceInfo::getUid)
+                .filter(Objects::nonNull)
+                .distinct()
                 .collect(Collectors.toList());
+        if (uids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Result<?> result = userClient.getUserListByUIDList(uids);
+        if (result == null || result.getData() == null) {
+            return Collections.emptyMap();
+        }
+        List<UserInfoVo> userInfoVoList = OBJECT_MAPPER.convertValue(result.getData(),
+                new TypeReference<List<UserInfoVo>>() {});
+        Map<Long, UserInfoVo> users = new HashMap<>(userInfoVoList.size() * 2);
+        for (UserInfoVo userInfoVo : userInfoVoList) {
+            users.put(userInfoVo.getUid(), userInfoVo);
+        }
+        return users;
     }
 
     /**
@@ -293,4 +711,136 @@ public class PlaceCodeServiceImpl implements PlaceCodeService {
                 .map(obj -> (Long) obj)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量写入场所的风险等级，只更新风险等级发生变化的场所，风险等级升高时发布风险升高事件。
+     * 每批先查询当前风险等级，再用一条 UPDATE 语句写入变化的场所，写入后立即更新风险缓存。
+     *
+     * @param risks 场所风险等级列表，同一场所出现多次时以最后一次为准。
+     * @return 风险等级发生变化的场所数。
+     */
+    @Override
+    public int setPlaceRisks(List<PlaceRiskDto> risks) {
+        Map<Long, Byte> latest = new LinkedHashMap<>();
+        for (PlaceRiskDto risk : risks) {
+            latest.put(risk.getPid(), PlaceRiskCache.toRiskCode(risk.getRisk()));
+        }
+        List<Long> pids = new ArrayList<>(latest.keySet());
+        int changedCount = 0;
+        for (int from = 0; from < pids.size(); from += RISK_BATCH_SIZE) {
+            List<Long> chunk = new ArrayList<>(pids.subList(from, Math.min(from + RISK_BATCH_SIZE, pids.size())));
+            Map<Long, Byte> current = new HashMap<>();
+            for (PlaceInfo place : placeInfoMapper.selectRisksByPids(chunk)) {
+                current.put(place.getPid(), place.getRisk() == null ? PlaceRiskCache.GREEN : place.getRisk().byteValue());
+            }
+            List<PlaceInfo> changed = new ArrayList<>();
+            for (Long pid : chunk) {
+                Byte oldCode = current.get(pid);
+                byte newCode = latest.get(pid);
+                if (oldCode == null) {
+                    logger.warn("Skip risk of unknown place, pid: {}", pid);
+                } else if (oldCode != newCode) {
+                    PlaceInfo place = new PlaceInfo();
+                    place.setPid(pid);
+                    place.setRisk((int) newCode);
+                    changed.add(place);
+                }
+            }
+            if (changed.isEmpty()) {
+                continue;
+            }
+            placeInfoMapper.updateRiskBatch(changed);
+            placeRiskCache.apply(changed);
+            changedCount += changed.size();
+            long now = System.currentTimeMillis();
+            for (PlaceInfo place : changed) {
+                byte oldCode = current.get(place.getPid());
+                if (place.getRisk() > oldCode) {
+                    placeRiskProducer.sendRiskRaisedEvent(place.getPid(), PlaceRiskCache.toRiskLevel(oldCode),
+                            PlaceRiskCache.toRiskLevel(place.getRisk().byteValue()), now);
+                }
+            }
+        }
+        return changedCount;
+    }
+
+    /**
+     * 查询单个场所的风险等级，缓存加载完成后不访问数据库。
+     *
+     * @param pid 场所的唯一标识。
+     * @return "green"、"yellow" 或 "red"，场所不存在时返回 null。
+     */
+    @Override
+    public String getPlaceRisk(long pid) {
+        return placeRiskCache.getRiskLevel(pid);
+    }
+
+    /**
+     * 批量查询场所的风险等级，缓存加载完成后不访问数据库。
+     *
+     * @param pids 场所唯一标识的列表。
+     * @return 场所 ID 到风险等级的映射，不存在的场所不包含在内。
+     */
+    @Override
+    public Map<Long, String> getPlaceRisks(List<Long> pids) {
+        return placeRiskCache.getRiskLevels(pids);
+    }
+
+    /**
+     * 查询场所的实时客流，结果来自内存中的扫码计数。
+     *
+     * @param pid 场所的唯一标识。
+     * @return 场所的在场人数和最近扫码人次。
+     */
+    @Override
+    public OccupancyVo getOccupancy(long pid) {
+        checkOccupancyEnabled();
+        return occupancyCounter.get(pid);
+    }
+
+    /**
+     * 批量查询场所的实时客流，结果来自内存中的扫码计数。
+     *
+     * @param pids 场所唯一标识的列表。
+     * @return 与 pids 顺序一致的客流列表。
+     */
+    @Override
+    public List<OccupancyVo> getOccupancies(List<Long> pids) {
+        checkOccupancyEnabled();
+        return occupancyCounter.get(pids);
+    }
+
+    /**
+     * 查询区域内客流最多的场所，区、街道、社区条件先通过区域编码缓存换算为区域内的场所。
+     *
+     * @param query 包含区、街道、社区筛选条件和返回数量的查询对象。
+     * @return 按在场人数、最近扫码人次降序排列的客流列表。
+     */
+    @Override
+    public List<OccupancyVo> getBusiestPlaces(OccupancyQueryDto query) {
+        checkOccupancyEnabled();
+        int limit = query.getLimit() == null ? DEFAULT_BUSIEST_LIMIT : query.getLimit();
+        if (query.getDistrict() == null && query.getStreet() == null && query.getCommunity() == null) {
+            return occupancyCounter.top(null, limit);
+        }
+        List<Long> areaIds = areaCodeCache.findIds(query.getDistrict(), query.getStreet(), query.getCommunity());
+        if (areaIds == null) {
+            throw new BusinessException(ExceptionEnum.PLACE_AREA_UNAVAILABLE);
+        }
+        if (areaIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> pids = placeInfoMapper.selectPidsByAreaIds(areaIds);
+        LongHashSet candidates = new LongHashSet(pids.size());
+        for (Long pid : pids) {
+            candidates.add(pid);
+        }
+        return occupancyCounter.top(candidates, limit);
+    }
+
+    private void checkOccupancyEnabled() {
+        if (!occupancyCounter.isEnabled()) {
+            throw new BusinessException(ExceptionEnum.PLACE_OCCUPANCY_DISABLED);
+        }
+    }
+}
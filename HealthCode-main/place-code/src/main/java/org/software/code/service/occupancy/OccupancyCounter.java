@@ -0,0 +1,321 @@
+package org.software.code.service.occupancy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.util.LongHashSet;
+import org.software.code.common.util.LongIntHashMap;
+import org.software.code.dto.PlaceScanEventDto;
+import org.software.code.vo.OccupancyVo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OccupancyCounter 在内存中按分钟统计每个场所的扫码人次，用于查询场所的实时客流。
+ * 统计窗口按分钟切分为若干桶，每个桶是一个场所 ID 到扫码人次的 LongIntHashMap，
+ * 过期的桶在轮转时清空复用，查询只需累加窗口内的桶，不再扫描 place_mapping。
+ * 系统没有离场记录，扫码后 dwellMinutes 分钟内视为仍在场所内。
+ * 为减少锁竞争，按场所 ID 分为多个分段各自加锁。
+ * 扫码可能经过任意一个服务实例，因此计数不在扫码请求中累加，而是由每个实例手动分配扫码事件主题
+ * （"place-scan-topic"）的全部分区，每个实例都收到全部扫码，各自的统计结果一致。
+ * 手动分配分区不加入消费组，也不提交位点，服务重启不会在 Kafka 中留下新的消费组；
+ * 启动时从统计窗口的起点开始消费，不必等待一个窗口就能恢复统计。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class OccupancyCounter implements ConsumerSeekAware {
+
+    private static final Logger logger = LogManager.getLogger(OccupancyCounter.class);
+
+    // 分段数，必须为 2 的幂
+    private static final int STRIPES = 64;
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    // 在场人数多的排在前面，相同时最近扫码人次多的排在前面，再按场所 ID 升序
+    private static final Comparator<OccupancyVo> BUSIEST_FIRST = Comparator
+            .comparing(OccupancyVo::getPresent, Comparator.reverseOrder())
+            .thenComparing(OccupancyVo::getRecent, Comparator.reverseOrder())
+            .thenComparing(OccupancyVo::getPid);
+
+    /**
+     * 是否统计场所的实时客流。
+     */
+    @Value("${occupancy.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 统计最近扫码人次的窗口（分钟）。
+     */
+    @Value("${occupancy.window-minutes:60}")
+    private int windowMinutes;
+
+    /**
+     * 扫码后视为仍在场所内的时长（分钟）。
+     */
+    @Value("${occupancy.dwell-minutes:30}")
+    private int dwellMinutes;
+
+    private Stripe[] stripes;
+
+    private final LongAdder recorded = new LongAdder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 按配置创建分段和分钟桶。
+     */
+    @PostConstruct
+    public void init() {
+        windowMinutes = Math.max(1, windowMinutes);
+        dwellMinutes = Math.max(1, dwellMinutes);
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(Math.max(windowMinutes, dwellMinutes));
+        }
+    }
+
+    /**
+     * 是否统计场所的实时客流。
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 监听扫码事件，手动分配主题的全部分区，每个实例都会收到全部扫码。
+     *
+     * @param messageStr 扫码事件的 JSON 字符串
+     */
+    @KafkaListener(topicPartitions = @TopicPartition(
+            topic = "place-scan-topic", partitions = "#{@kafkaPartitionFinder.partitions('place-scan-topic')}"),
+            containerFactory = "replayContainerFactory", properties = "enable.auto.commit:false",
+            autoStartup = "${occupancy.enabled:true}")
+    public void consumeScanEvent(String messageStr) {
+        try {
+            PlaceScanEventDto event = objectMapper.readValue(messageStr, PlaceScanEventDto.class);
+            long time = event.getTime() == null ? System.currentTimeMillis() : event.getTime();
+            record(event.getPid(), time);
+        } catch (Exception e) {
+            logger.error("Invalid place scan event: {}, message: {}", messageStr, e.getMessage());
+        }
+    }
+
+    /**
+     * 启动时从统计窗口的起点开始消费，更早的扫码已经超出窗口。
+     */
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments,
+                                     ConsumerSeekCallback callback) {
+        long since = System.currentTimeMillis() - Math.max(windowMinutes, dwellMinutes) * MINUTE_MILLIS;
+        callback.seekToTimestamp(assignments.keySet(), since);
+    }
+
+    /**
+     * 记录一次扫码。
+     *
+     * @param pid  场所 ID
+     * @param time 扫码时间（毫秒）
+     */
+    public void record(long pid, long time) {
+        if (!enabled) {
+            return;
+        }
+        long minute = time / MINUTE_MILLIS;
+        if (minute <= System.currentTimeMillis() / MINUTE_MILLIS - Math.max(windowMinutes, dwellMinutes)) {
+            // 已超出统计窗口
+            return;
+        }
+        Stripe stripe = stripeOf(pid);
+        synchronized (stripe) {
+            stripe.add(pid, minute);
+        }
+        recorded.increment();
+    }
+
+    /**
+     * 查询一个场所的实时客流。
+     *
+     * @param pid 场所 ID
+     * @return 场所的在场人数和最近扫码人次
+     */
+    public OccupancyVo get(long pid) {
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        Stripe stripe = stripeOf(pid);
+        int present;
+        int recent;
+        synchronized (stripe) {
+            present = stripe.count(pid, minute - dwellMinutes + 1, minute);
+            recent = stripe.count(pid, minute - windowMinutes + 1, minute);
+        }
+        return toOccupancyVo(pid, present, recent);
+    }
+
+    /**
+     * 查询一批场所的实时客流。
+     *
+     * @param pids 场所 ID 列表
+     * @return 与 pids 顺序一致的客流列表
+     */
+    public List<OccupancyVo> get(List<Long> pids) {
+        List<OccupancyVo> occupancyVoList = new ArrayList<>(pids.size());
+        for (Long pid : pids) {
+            if (pid != null) {
+                occupancyVoList.add(get(pid));
+            }
+        }
+        return occupancyVoList;
+    }
+
+    /**
+     * 查询客流最多的场所，只返回窗口内有扫码的场所。
+     *
+     * @param candidates 参与排名的场所 ID，为 null 时在全部场所中排名
+     * @param limit      返回的场所数量
+     * @return 按在场人数、最近扫码人次降序排列的客流列表
+     */
+    public List<OccupancyVo> top(LongHashSet candidates, int limit) {
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        long presentFrom = minute - dwellMinutes + 1;
+        long recentFrom = minute - windowMinutes + 1;
+        // 堆顶是当前入选场所中客流最少的一个
+        PriorityQueue<OccupancyVo> heap = new PriorityQueue<>(limit + 1, BUSIEST_FIRST.reversed());
+        for (Stripe stripe : stripes) {
+            LongIntHashMap present = new LongIntHashMap();
+            LongIntHashMap recent = new LongIntHashMap();
+            synchronized (stripe) {
+                stripe.sum(candidates, presentFrom, minute, present);
+                stripe.sum(candidates, recentFrom, minute, recent);
+            }
+            recent.forEach((pid, count) -> offer(heap, toOccupancyVo(pid, present.get(pid), count), limit));
+            present.forEach((pid, count) -> {
+                if (recent.get(pid) == 0) {
+                    offer(heap, toOccupancyVo(pid, count, 0), limit);
+                }
+            });
+        }
+        List<OccupancyVo> occupancyVoList = new ArrayList<>(heap);
+        occupancyVoList.sort(BUSIEST_FIRST);
+        return occupancyVoList;
+    }
+
+    /**
+     * 获取实时客流统计的统计信息。
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Object> getMetrics() {
+        long tracked = 0;
+        if (stripes != null) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    tracked += stripe.size();
+                }
+            }
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("windowMinutes", windowMinutes);
+        metrics.put("dwellMinutes", dwellMinutes);
+        metrics.put("recorded", recorded.sum());
+        metrics.put("trackedEntries", tracked);
+        return metrics;
+    }
+
+    private Stripe stripeOf(long pid) {
+        long h = pid * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 58) & (STRIPES - 1)];
+    }
+
+    private static void offer(PriorityQueue<OccupancyVo> heap, OccupancyVo occupancyVo, int limit) {
+        heap.offer(occupancyVo);
+        if (heap.size() > limit) {
+            heap.poll();
+        }
+    }
+
+    private static OccupancyVo toOccupancyVo(long pid, int present, int recent) {
+        OccupancyVo occupancyVo = new OccupancyVo();
+        occupancyVo.setPid(pid);
+        occupancyVo.setPresent(present);
+        occupancyVo.setRecent(recent);
+        return occupancyVo;
+    }
+
+    /**
+     * 一个分段中按分钟轮转的桶。
+     */
+    private static final class Stripe {
+
+        private final LongIntHashMap[] counts;
+
+        // 每个槽位当前保存的分钟序号
+        private final long[] minuteIds;
+
+        private Stripe(int slots) {
+            counts = new LongIntHashMap[slots];
+            minuteIds = new long[slots];
+            for (int i = 0; i < slots; i++) {
+                counts[i] = new LongIntHashMap();
+                minuteIds[i] = -1;
+            }
+        }
+
+        private void add(long pid, long minute) {
+            int slot = (int) (minute % counts.length);
+            if (minuteIds[slot] > minute) {
+                // 槽位已轮转到更新的分钟，记录已超出窗口
+                return;
+            }
+            if (minuteIds[slot] != minute) {
+                // 槽位中是已经过期的桶，清空后复用
+                counts[slot].clear();
+                minuteIds[slot] = minute;
+            }
+            counts[slot].addTo(pid, 1);
+        }
+
+        private int count(long pid, long fromMinute, long toMinute) {
+            int count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (minuteIds[i] >= fromMinute && minuteIds[i] <= toMinute) {
+                    count += counts[i].get(pid);
+                }
+            }
+            return count;
+        }
+
+        private void sum(LongHashSet candidates, long fromMinute, long toMinute, LongIntHashMap into) {
+            for (int i = 0; i < counts.length; i++) {
+                if (minuteIds[i] >= fromMinute && minuteIds[i] <= toMinute) {
+                    counts[i].forEach((pid, count) -> {
+                        if (candidates == null || candidates.contains(pid)) {
+                            into.addTo(pid, count);
+                        }
+                    });
+                }
+            }
+        }
+
+        private long size() {
+            long size = 0;
+            for (LongIntHashMap map : counts) {
+                size += map.size();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package org.software.code.service.onboard;
+
+import cn.hutool.core.util.IdUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.client.UserClient;
+import org.software.code.common.result.Result;
+import org.software.code.entity.PlaceInfo;
+import org.software.code.mapper.PlaceInfoMapper;
+import org.software.code.service.cache.AreaCodeCache;
+import org.software.code.vo.AreaCodeVo;
+import org.software.code.vo.UserInfoVo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * PlaceOnboarder 批量登记场所并生成场所码。
+ * 上传的 CSV 文件逐行读取，每批行用一次远程调用按身份证号码查询场所负责人，
+ * 区域编码从本地缓存获取，预先分配雪花 ID 后用一条多行 INSERT 写入 place_info。
+ * 写入成功的场所在线程池中并行生成场所码图片，与下一批的登记同时进行，
+ * 图片按行顺序写入 zip 压缩包，最后写入记录每行处理结果的清单 places.csv。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class PlaceOnboarder {
+
+    private static final Logger logger = LogManager.getLogger(PlaceOnboarder.class);
+
+    // 用于将远程调用返回的数据转换为视图对象，ObjectMapper 是线程安全的，全局共用一个实例
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // CSV 的列：身份证号码、场所名称、区编码、街道编码、社区编码、详细地址
+    private static final int COLUMNS = 6;
+
+    // 与 place_info 的列长度一致
+    private static final int MAX_NAME_LENGTH = 64;
+    private static final int MAX_ADDRESS_LENGTH = 255;
+
+    // 一条记录跨行时最多读取的字符数，超过时认为引号没有闭合，避免一个缺失的引号吞掉后面所有行
+    private static final int MAX_RECORD_LENGTH = 1024;
+
+    private static final String MANIFEST_NAME = "places.csv";
+
+    private static final String MANIFEST_HEADER = "line,pid,identity_card,name,address,result\n";
+
+    /**
+     * 每批处理的行数。
+     */
+    @Value("${place-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Resource
+    private UserClient userClient;
+
+    @Resource
+    private AreaCodeCache areaCodeCache;
+
+    @Resource
+    private PlaceInfoMapper placeInfoMapper;
+
+    @Resource
+    private PlaceQrCodeRenderer placeQrCodeRenderer;
+
+    /**
+     * 批量登记 CSV 文件中的场所，并将场所码图片和处理结果清单写入 zip 压缩包。
+     * CSV 每行依次为身份证号码、场所名称、区编码、街道编码、社区编码、详细地址，首行可以是表头。
+     * 按 RFC 4180 解析，双引号包围的字段可以包含逗号、双引号和换行，包含换行的记录跨越多个物理行，
+     * 清单中的行号为记录的起始行；场所名称和地址不允许包含换行，这样的记录按格式错误跳过。
+     * 某行格式错误、负责人或区域不存在时跳过该行，并在清单中记录原因。
+     *
+     * @param in  CSV 文件的输入流，编码为 UTF-8
+     * @param out 输出流，方法返回后压缩包已写完，但不会关闭输出流
+     * @throws IOException 读取或写出失败时抛出
+     */
+    public void importPlaces(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        ZipOutputStream zip = new ZipOutputStream(out);
+        StringBuilder manifest = new StringBuilder(MANIFEST_HEADER);
+        long start = System.currentTimeMillis();
+        int[] counts = new int[2];
+        List<PlaceRow> chunk = new ArrayList<>(chunkSize);
+        List<PlaceRow> pending = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.trim().isEmpty() || (lineNumber == 1 && line.startsWith("identity_card"))) {
+                continue;
+            }
+            int recordLine = lineNumber;
+            // 双引号个数为奇数时引号没有闭合，换行属于字段内容，继续读取下一个物理行
+            int quotes = countQuotes(line);
+            if (quotes % 2 != 0) {
+                StringBuilder record = new StringBuilder(line);
+                String next;
+                while (quotes % 2 != 0 && record.length() <= MAX_RECORD_LENGTH
+                        && (next = reader.readLine()) != null) {
+                    lineNumber++;
+                    record.append('\n').append(next);
+                    quotes += countQuotes(next);
+                }
+                line = record.toString();
+            }
+            chunk.add(PlaceRow.parse(recordLine, line, quotes % 2 == 0));
+            if (chunk.size() >= chunkSize) {
+                onboard(chunk);
+                // 上一批的图片在本批登记期间已经开始生成
+                if (pending != null) {
+                    write(pending, zip, manifest, counts);
+                }
+                pending = chunk;
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            onboard(chunk);
+        }
+        if (pending != null) {
+            write(pending, zip, manifest, counts);
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, zip, manifest, counts);
+        }
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+        zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.finish();
+        logger.info("Imported {} places in {} ms, skipped {} rows",
+                counts[0], System.currentTimeMillis() - start, counts[1]);
+    }
+
+    /**
+     * 登记一批场所：批量查询负责人，获取区域编码，分配场所 ID 后批量写入，并提交生成场所码图片的任务。
+     */
+    private void onboard(List<PlaceRow> rows) {
+        try {
+            Map<String, Long> owners = getOwners(rows);
+            Map<String, AreaCodeVo> areas = new HashMap<>();
+            List<PlaceInfo> records = new ArrayList<>(rows.size());
+            for (PlaceRow row : rows) {
+                if (row.error != null) {
+                    continue;
+                }
+                Long uid = owners.get(row.identityCard);
+                if (uid == null) {
+                    row.error = "owner not found";
+                    continue;
+                }
+                AreaCodeVo areaCodeVo = areas.computeIfAbsent(row.district + ":" + row.street + ":" + row.community,
+                        key -> areaCodeCache.getByCode(row.district, row.street, row.community));
+                if (areaCodeVo == null || areaCodeVo.getId() == null) {
+                    row.error = "area not found";
+                    continue;
+                }
+                PlaceInfo placeInfo = new PlaceInfo();
+                placeInfo.setPid(IdUtil.getSnowflake().nextId());
+                placeInfo.setUid(uid);
+                placeInfo.setPlaceName(row.name);
+                placeInfo.setAreaId(areaCodeVo.getId());
+                placeInfo.setAddress(row.address);
+                // 默认开启场所状态
+                placeInfo.setStatus(true);
+                row.pid = placeInfo.getPid();
+                records.add(placeInfo);
+            }
+            if (!records.isEmpty()) {
+                placeInfoMapper.insertBatch(records);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to onboard {} places, message: {}", rows.size(), e.getMessage());
+            for (PlaceRow row : rows) {
+                if (row.error == null) {
+                    row.error = "onboard failed";
+                    row.pid = null;
+                }
+            }
+            return;
+        }
+        for (PlaceRow row : rows) {
+            if (row.pid != null) {
+                row.image = placeQrCodeRenderer.renderAsync(row.pid);
+            }
+        }
+    }
+
+    /**
+     * 用一次远程调用按身份证号码查询一批行的场所负责人。
+     *
+     * @return 身份证号码到用户 ID 的映射，不存在的用户不包含在内
+     */
+    private Map<String, Long> getOwners(List<PlaceRow> rows) {
+        Set<String> identityCards = new LinkedHashSet<>();
+        for (PlaceRow row : rows) {
+            if (row.error == null) {
+                identityCards.add(row.identityCard);
+            }
+        }
+        Map<String, Long> owners = new HashMap<>();
+        if (identityCards.isEmpty()) {
+            return owners;
+        }
+        Result<?> result = userClient.getUserListByIDList(new ArrayList<>(identityCards));
+        if (result == null || result.getData() == null) {
+            return owners;
+        }
+        List<UserInfoVo> userInfoVoList = OBJECT_MAPPER.convertValue(result.getData(),
+                new TypeReference<List<UserInfoVo>>() {});
+        for (UserInfoVo userInfoVo : userInfoVoList) {
+            owners.put(userInfoVo.getIdentityCard(), userInfoVo.getUid());
+        }
+        return owners;
+    }
+
+    /**
+     * 按行顺序将一批场所的场所码图片写入压缩包，并记录每行的处理结果。
+     */
+    private void write(List<PlaceRow> rows, ZipOutputStream zip, StringBuilder manifest, int[] counts)
+            throws IOException {
+        // PNG 已经压缩过，不再重复压缩
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        for (PlaceRow row : rows) {
+            String result;
+            if (row.image != null) {
+                counts[0]++;
+                try {
+                    byte[] png = row.image.join();
+                    zip.putNextEntry(new ZipEntry(row.pid + ".png"));
+                    zip.write(png);
+                    zip.closeEntry();
+                    result = "created";
+                } catch (CompletionException e) {
+                    logger.error("Failed to render place code {}, message: {}", row.pid, e.getMessage());
+                    result = "created, qrcode failed";
+                }
+            } else {
+                counts[1]++;
+                result = row.error;
+            }
+            manifest.append(row.line).append(',')
+                    .append(row.pid == null ? "" : row.pid).append(',')
+                    .append(escape(row.identityCard)).append(',')
+                    .append(escape(row.name)).append(',')
+                    .append(escape(row.address)).append(',')
+                    .append(escape(result)).append('\n');
+        }
+    }
+
+    private static int countQuotes(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * CSV 中的一行场所及其处理结果。
+     */
+    private static final class PlaceRow {
+        private final int line;
+        private String identityCard;
+        private String name;
+        private Integer district;
+        private Integer street;
+        private Long community;
+        private String address;
+        // 跳过该行的原因，为 null 表示有效
+        private String error;
+        private Long pid;
+        private CompletableFuture<byte[]> image;
+
+        private PlaceRow(int line) {
+            this.line = line;
+        }
+
+        /**
+         * 解析一条 CSV 记录，字段可以用双引号包围，格式错误时记录原因。
+         *
+         * @param line   记录的起始行号
+         * @param text   记录内容，跨行的记录以换行符连接
+         * @param closed 引号是否全部闭合
+         */
+        private static PlaceRow parse(int line, String text, boolean closed) {
+            PlaceRow row = new PlaceRow(line);
+            if (!closed) {
+                row.error = "unterminated quote";
+                return row;
+            }
+            List<String> fields = split(text);
+            if (fields.size() < COLUMNS) {
+                row.error = "expected " + COLUMNS + " columns";
+                return row;
+            }
+            row.identityCard = fields.get(0);
+            row.name = fields.get(1);
+            row.address = fields.get(5);
+            if (row.identityCard.isEmpty() || row.name.isEmpty() || row.address.isEmpty()) {
+                row.error = "blank field";
+                return row;
+            }
+            if (containsLineBreak(row.identityCard) || containsLineBreak(row.name) || containsLineBreak(row.address)) {
+                row.error = "line break in field";
+                return row;
+            }
+            if (row.name.length() > MAX_NAME_LENGTH || row.address.length() > MAX_ADDRESS_LENGTH) {
+                row.error = "field too long";
+                return row;
+            }
+            try {
+                row.district = Integer.valueOf(fields.get(2));
+                row.street = Integer.valueOf(fields.get(3));
+                row.community = Long.valueOf(fields.get(4));
+            } catch (NumberFormatException e) {
+                row.error = "invalid area code";
+            }
+            return row;
+        }
+
+        private static boolean containsLineBreak(String value) {
+            return value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        }
+
+        private static List<String> split(String text) {
+            List<String> fields = new ArrayList<>(COLUMNS);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString().trim());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString().trim());
+            return fields;
+        }
+    }
+}
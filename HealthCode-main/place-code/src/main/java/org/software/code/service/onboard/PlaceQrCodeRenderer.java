@@ -0,0 +1,121 @@
+package org.software.code.service.onboard;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.software.code.common.util.JWTUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PlaceQrCodeRenderer 将场所码生成为 PNG 图片，供场所张贴。
+ * 场所码的内容是以场所 ID 为主题的 JWT，与扫码接口解析的令牌一致。
+ * 生成图片是 CPU 密集的操作，批量登记场所时在专用线程池中并行生成。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class PlaceQrCodeRenderer {
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * 场所码图片的边长（像素）。
+     */
+    @Value("${place-import.qrcode.size:300}")
+    private int size;
+
+    /**
+     * 场所码的有效期（天）。
+     */
+    @Value("${place-import.qrcode.validity-days:36500}")
+    private long validityDays;
+
+    /**
+     * 并行生成图片的线程数，为 0 时使用 CPU 核数。
+     */
+    @Value("${place-import.render-parallelism:0}")
+    private int parallelism;
+
+    private ThreadPoolExecutor pool;
+
+    /**
+     * 创建生成图片的线程池，空闲线程会被回收。
+     */
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "place-qrcode-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 关闭线程池。
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 在线程池中生成场所码图片。
+     *
+     * @param pid 场所 ID
+     * @return PNG 图片的字节内容，生成失败时以异常完成
+     */
+    public CompletableFuture<byte[]> renderAsync(long pid) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return render(pid);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, pool);
+    }
+
+    /**
+     * 在调用线程中生成场所码图片。
+     *
+     * @param pid 场所 ID
+     * @return PNG 图片的字节内容
+     * @throws IOException 编码或写出图片失败时抛出
+     */
+    public byte[] render(long pid) throws IOException {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.MARGIN, 2);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        String token = JWTUtil.generateJWToken(pid, validityDays * DAY_MILLIS);
+        BitMatrix matrix;
+        try {
+            matrix = new QRCodeWriter().encode(token, BarcodeFormat.QR_CODE, size, size, hints);
+        } catch (WriterException e) {
+            throw new IOException(e);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        MatrixToImageWriter.writeToStream(matrix, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,271 @@
+package org.software.code.service.risk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.common.util.LongByteHashMap;
+import org.software.code.entity.PlaceInfo;
+import org.software.code.mapper.PlaceInfoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * PlaceRiskCache 在内存中保存全部场所的风险代码，场所 ID 和风险代码保存在 LongByteHashMap 中，每个场所约占 9 字节。
+ * 启动后从 place_info 分页加载全部场所，之后按 updated_at 定期增量刷新，其他实例写入的风险等级也会在一个刷新间隔内生效；
+ * 本实例写入的风险等级在写库后立即更新到缓存。加载完成前的查询回落到数据库。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class PlaceRiskCache {
+
+    private static final Logger logger = LogManager.getLogger(PlaceRiskCache.class);
+
+    /**
+     * 低风险的风险代码，对应 "green"。
+     */
+    public static final byte GREEN = 0;
+
+    /**
+     * 中风险的风险代码，对应 "yellow"。
+     */
+    public static final byte YELLOW = 1;
+
+    /**
+     * 高风险的风险代码，对应 "red"。
+     */
+    public static final byte RED = 2;
+
+    // 缓存中不存在的场所
+    private static final byte UNKNOWN = -1;
+
+    // 增量刷新时向前多查询的秒数，覆盖更新时间早于上次刷新、但提交晚于上次刷新的事务
+    private static final int OVERLAP_SECONDS = 10;
+
+    // 回落到数据库时每条查询的最大场所数
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    /**
+     * 是否启用风险缓存，关闭时查询全部走数据库。
+     */
+    @Value("${place-risk.cache-enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 加载缓存时每页读取的场所数。
+     */
+    @Value("${place-risk.load-page-size:50000}")
+    private int pageSize;
+
+    @Resource
+    private PlaceInfoMapper placeInfoMapper;
+
+    // 场所 ID 到风险代码的映射，由读写锁保护
+    private LongByteHashMap risks = new LongByteHashMap();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 缓存是否已完成加载
+    private volatile boolean ready;
+
+    // 下次增量刷新的起始时间（数据库时间）
+    private LocalDateTime refreshSince;
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * 定期刷新缓存，首次执行时加载全部场所。
+     */
+    @Scheduled(fixedDelayString = "${place-risk.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime now = placeInfoMapper.selectNow();
+            if (!ready) {
+                LongByteHashMap loaded = new LongByteHashMap();
+                long afterPid = Long.MIN_VALUE;
+                List<PlaceInfo> page;
+                do {
+                    page = placeInfoMapper.selectRiskPage(afterPid, pageSize);
+                    for (PlaceInfo place : page) {
+                        loaded.put(place.getPid(), codeOf(place));
+                        afterPid = place.getPid();
+                    }
+                } while (page.size() == pageSize);
+                lock.writeLock().lock();
+                try {
+                    risks = loaded;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                ready = true;
+                logger.info("Place risk cache loaded {} places", loaded.size());
+            } else {
+                apply(placeInfoMapper.selectRiskChangedSince(refreshSince));
+            }
+            refreshSince = now.minusSeconds(OVERLAP_SECONDS);
+        } catch (Exception e) {
+            logger.error("Failed to refresh place risk cache, message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存是否可用。
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 将已写入数据库的风险代码更新到缓存。
+     *
+     * @param places 包含 pid 和 risk 的场所列表
+     */
+    public void apply(List<PlaceInfo> places) {
+        if (places.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (PlaceInfo place : places) {
+                risks.put(place.getPid(), codeOf(place));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询单个场所的风险等级。
+     *
+     * @param pid 场所 ID
+     * @return "green"、"yellow" 或 "red"，场所不存在时返回 null
+     */
+    public String getRiskLevel(long pid) {
+        lookups.increment();
+        if (!isReady()) {
+            fallbacks.increment();
+            PlaceInfo place = placeInfoMapper.selectById(pid);
+            return place == null ? null : toRiskLevel(codeOf(place));
+        }
+        byte code;
+        lock.readLock().lock();
+        try {
+            code = risks.get(pid, UNKNOWN);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return code == UNKNOWN ? null : toRiskLevel(code);
+    }
+
+    /**
+     * 批量查询场所的风险等级。
+     *
+     * @param pids 场所 ID 列表
+     * @return 场所 ID 到风险等级的映射，不存在的场所不包含在内
+     */
+    public Map<Long, String> getRiskLevels(List<Long> pids) {
+        lookups.add(pids.size());
+        Map<Long, String> result = new LinkedHashMap<>();
+        if (!isReady()) {
+            fallbacks.add(pids.size());
+            for (int from = 0; from < pids.size(); from += QUERY_CHUNK_SIZE) {
+                List<Long> chunk = new ArrayList<>(pids.subList(from, Math.min(from + QUERY_CHUNK_SIZE, pids.size())));
+                for (PlaceInfo place : placeInfoMapper.selectRisksByPids(chunk)) {
+                    result.put(place.getPid(), toRiskLevel(codeOf(place)));
+                }
+            }
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            for (Long pid : pids) {
+                byte code = risks.get(pid, UNKNOWN);
+                if (code != UNKNOWN) {
+                    result.put(pid, toRiskLevel(code));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 获取风险缓存的统计信息。
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ready", isReady());
+        lock.readLock().lock();
+        try {
+            metrics.put("places", risks.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.put("lookups", lookups.sum());
+        metrics.put("fallbacks", fallbacks.sum());
+        synchronized (this) {
+            metrics.put("refreshSince", refreshSince);
+        }
+        return metrics;
+    }
+
+    /**
+     * 将风险等级字符串转换为风险代码。
+     *
+     * @param riskLevel "green"、"yellow" 或 "red"
+     * @return 风险代码
+     * @throws BusinessException 风险等级无效时抛出
+     */
+    public static byte toRiskCode(String riskLevel) {
+        if ("green".equals(riskLevel)) {
+            return GREEN;
+        }
+        if ("yellow".equals(riskLevel)) {
+            return YELLOW;
+        }
+        if ("red".equals(riskLevel)) {
+            return RED;
+        }
+        throw new BusinessException(ExceptionEnum.REQUEST_PARAMETER_ERROR);
+    }
+
+    /**
+     * 将风险代码转换为风险等级字符串。
+     *
+     * @param code 风险代码
+     * @return "green"、"yellow" 或 "red"
+     */
+    public static String toRiskLevel(byte code) {
+        switch (code) {
+            case GREEN:
+                return "green";
+            case YELLOW:
+                return "yellow";
+            default:
+                return "red";
+        }
+    }
+
+    private static byte codeOf(PlaceInfo place) {
+        return place.getRisk() == null ? GREEN : place.getRisk().byteValue();
+    }
+}
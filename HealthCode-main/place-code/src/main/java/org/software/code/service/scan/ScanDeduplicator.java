@@ -0,0 +1,195 @@
+package org.software.code.service.scan;
+
+import org.software.code.common.util.LongHashSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ScanDeduplicator 在内存中抑制重复扫码：同一用户在抑制窗口内重复扫描同一场所时，只保留第一次扫码。
+ * 窗口按时间切分为若干桶，每个桶是一个保存 (用户, 场所) 组合哈希值的 LongHashSet，
+ * 扫码时只需检查最近几个桶，过期的桶在轮转时清空复用，内存占用只与窗口内的扫码数有关。
+ * 因此判断为重复的实际间隔介于窗口长度和窗口长度加一个桶宽之间。
+ * 为减少锁竞争，按哈希值分为多个分段各自加锁。每个服务实例各自维护窗口，
+ * 同一用户的重复扫码落到不同实例时不会被抑制。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class ScanDeduplicator {
+
+    // 分段数，必须为 2 的幂
+    private static final int STRIPES = 64;
+
+    /**
+     * 是否启用重复扫码抑制。
+     */
+    @Value("${scan.dedup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 抑制窗口（分钟）。
+     */
+    @Value("${scan.dedup.window-minutes:5}")
+    private int windowMinutes;
+
+    /**
+     * 窗口切分的桶数。
+     */
+    @Value("${scan.dedup.buckets:5}")
+    private int bucketCount;
+
+    private Stripe[] stripes;
+
+    private long bucketMillis;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * 按配置创建分段和时间桶。
+     */
+    @PostConstruct
+    public void init() {
+        bucketMillis = Math.max(1, windowMinutes * 60_000L / bucketCount);
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            // 当前桶之外再保留 bucketCount 个桶，覆盖整个窗口
+            stripes[i] = new Stripe(bucketCount + 1);
+        }
+    }
+
+    /**
+     * 判断一次扫码是否需要记录，需要记录时同时把它加入窗口。
+     *
+     * @param uid  用户 ID
+     * @param pid  场所 ID
+     * @param time 扫码时间（毫秒）
+     * @return 窗口内没有同一用户扫描同一场所的记录时返回 true，重复扫码返回 false
+     */
+    public boolean tryAccept(long uid, long pid, long time) {
+        if (!enabled || windowMinutes <= 0) {
+            return true;
+        }
+        long key = key(uid, pid);
+        Stripe stripe = stripes[(int) key & (STRIPES - 1)];
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.addIfAbsent(key, time / bucketMillis);
+        }
+        if (added) {
+            accepted.increment();
+        } else {
+            suppressed.increment();
+        }
+        return added;
+    }
+
+    /**
+     * 撤销一次已接受的扫码，用于扫码记录写入失败的情况，以免用户重试时被当作重复扫码。
+     *
+     * @param uid  用户 ID
+     * @param pid  场所 ID
+     * @param time 扫码时间（毫秒）
+     */
+    public void forget(long uid, long pid, long time) {
+        if (!enabled || windowMinutes <= 0) {
+            return;
+        }
+        long key = key(uid, pid);
+        Stripe stripe = stripes[(int) key & (STRIPES - 1)];
+        synchronized (stripe) {
+            stripe.remove(key, time / bucketMillis);
+        }
+    }
+
+    /**
+     * 获取重复扫码抑制的统计信息。
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Object> getMetrics() {
+        long tracked = 0;
+        if (stripes != null) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    tracked += stripe.size();
+                }
+            }
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("windowMinutes", windowMinutes);
+        metrics.put("accepted", accepted.sum());
+        metrics.put("suppressed", suppressed.sum());
+        metrics.put("trackedKeys", tracked);
+        return metrics;
+    }
+
+    /**
+     * 将用户 ID 和场所 ID 组合为一个 64 位哈希值，不同组合冲突的概率可以忽略。
+     */
+    private static long key(long uid, long pid) {
+        long h = uid * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(pid * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 一个分段中按时间轮转的桶。
+     */
+    private static final class Stripe {
+
+        private final LongHashSet[] sets;
+
+        // 每个槽位当前保存的桶序号
+        private final long[] bucketIds;
+
+        private Stripe(int slots) {
+            sets = new LongHashSet[slots];
+            bucketIds = new long[slots];
+            for (int i = 0; i < slots; i++) {
+                sets[i] = new LongHashSet();
+                bucketIds[i] = -1;
+            }
+        }
+
+        private boolean addIfAbsent(long key, long bucket) {
+            for (int i = 0; i < sets.length; i++) {
+                if (bucketIds[i] > bucket - sets.length && bucketIds[i] <= bucket && sets[i].contains(key)) {
+                    return false;
+                }
+            }
+            int slot = (int) (bucket % sets.length);
+            if (bucketIds[slot] != bucket) {
+                // 槽位中是已经过期的桶，清空后复用
+                sets[slot].clear();
+                bucketIds[slot] = bucket;
+            }
+            sets[slot].add(key);
+            return true;
+        }
+
+        private void remove(long key, long bucket) {
+            int slot = (int) (bucket % sets.length);
+            if (bucketIds[slot] == bucket) {
+                sets[slot].remove(key);
+            }
+        }
+
+        private long size() {
+            long size = 0;
+            for (LongHashSet set : sets) {
+                size += set.size();
+            }
+            return size;
+        }
+    }
+}
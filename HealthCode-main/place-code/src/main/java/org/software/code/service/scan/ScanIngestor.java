@@ -0,0 +1,427 @@
+package org.software.code.service.scan;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.entity.PlaceMapping;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ScanIngestor 是扫码记录的缓冲写入器。
+ * 扫码请求把记录放入无锁的有界队列后即可返回，单独的写入线程在队列攒满一批或距上次写入超过间隔时，
+ * 用一条多行 INSERT 写入 place_mapping，数据库的写入次数不再随扫码次数线性增长。
+ * 确认级别可以配置：flush 表示等待所在批次写入后才返回，enqueue 表示放入队列即返回；
+ * enqueue 模式下写入失败的记录，以及两种模式下停止服务时未写完的记录，会暂存到本地文件，之后补写。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class ScanIngestor {
+
+    private static final Logger logger = LogManager.getLogger(ScanIngestor.class);
+
+    /**
+     * 扫码记录的确认级别。
+     */
+    public enum Ack {
+        // 放入队列后即返回
+        ENQUEUE,
+        // 所在批次写入数据库后才返回
+        FLUSH
+    }
+
+    /**
+     * 是否启用缓冲写入，关闭时扫码记录在请求线程中逐条写入。
+     */
+    @Value("${scan.ingest.buffered:true}")
+    private boolean buffered;
+
+    /**
+     * 确认级别，enqueue 或 flush。
+     */
+    @Value("${scan.ingest.ack:flush}")
+    private String ack;
+
+    /**
+     * 单个批次的最大记录数。
+     */
+    @Value("${scan.ingest.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    /**
+     * 队列未攒满一批时的最长写入间隔（毫秒）。
+     */
+    @Value("${scan.ingest.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    /**
+     * 队列容量，队列满时拒绝新的扫码记录。
+     */
+    @Value("${scan.ingest.queue-capacity:100000}")
+    private int queueCapacity;
+
+    /**
+     * flush 模式下等待写入完成的最长时间，也是停止服务时等待写完队列的最长时间（毫秒）。
+     */
+    @Value("${scan.ingest.timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * 补写暂存文件的间隔（毫秒）。
+     */
+    @Value("${scan.ingest.spool-retry-interval-ms:30000}")
+    private long spoolRetryIntervalMs;
+
+    /**
+     * 暂存记录的最大补写次数，达到后转入死信文件。
+     */
+    @Value("${scan.ingest.spool-max-retries:10}")
+    private int spoolMaxRetries;
+
+    @Resource
+    private PlaceMappingMapper placeMappingMapper;
+
+    @Resource
+    private ScanSpool scanSpool;
+
+    // 待写入的记录队列，容量由 depth 控制
+    private final ConcurrentLinkedQueue<PendingScan> queue = new ConcurrentLinkedQueue<>();
+
+    // 队列中（含已预留位置）的记录数
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private Ack ackMode;
+
+    // 写入线程
+    private Thread writerThread;
+
+    // 写入器是否在接收新记录
+    private volatile boolean running;
+
+    // 统计信息
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong spooledRows = new AtomicLong();
+    private final AtomicLong replayedRows = new AtomicLong();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private volatile long lastFlushMillis;
+
+    /**
+     * 启动写入线程，并补写上次停止时暂存的记录。
+     */
+    @PostConstruct
+    public void start() {
+        if (!buffered) {
+            return;
+        }
+        ackMode = Ack.valueOf(ack.trim().toUpperCase());
+        replaySpool();
+        running = true;
+        writerThread = new Thread(this::runLoop, "place-scan-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Buffered scan ingestion started, ack: {}, max batch size: {}", ackMode, maxBatchSize);
+    }
+
+    /**
+     * 停止接收新记录并写完队列中的记录，超时仍未写完的记录暂存到本地文件，下次启动时补写。
+     * 暂存的记录一定会被补写，因此仍在等待的提交方按写入成功返回，不会重试后重复写入；
+     * 只有暂存失败时才通知提交方失败。
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(timeoutMs);
+        List<PendingScan> remaining = new ArrayList<>();
+        PendingScan pending;
+        while ((pending = queue.poll()) != null) {
+            depth.decrementAndGet();
+            remaining.add(pending);
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        List<PlaceMapping> records = new ArrayList<>(remaining.size());
+        for (PendingScan scan : remaining) {
+            records.add(scan.record);
+        }
+        boolean spooled = spool(records);
+        for (PendingScan scan : remaining) {
+            if (scan.future == null) {
+                continue;
+            }
+            if (spooled) {
+                scan.future.complete(null);
+            } else {
+                scan.future.completeExceptionally(new BusinessException(ExceptionEnum.PLACE_SCAN_BUSY));
+            }
+        }
+        if (spooled) {
+            logger.warn("Spooled {} unflushed scans on shutdown", records.size());
+        }
+    }
+
+    /**
+     * 是否启用缓冲写入。
+     */
+    public boolean isEnabled() {
+        return buffered;
+    }
+
+    /**
+     * 提交一条扫码记录，flush 模式下等待所在批次写入完成。
+     *
+     * @param record 扫码记录
+     * @throws BusinessException 队列已满、等待超时或写入失败时抛出
+     */
+    public void submit(PlaceMapping record) {
+        if (!running || !reserve()) {
+            rejected.incrementAndGet();
+            throw new BusinessException(ExceptionEnum.PLACE_SCAN_BUSY);
+        }
+        PendingScan pending = new PendingScan(record, ackMode == Ack.FLUSH);
+        queue.offer(pending);
+        accepted.incrementAndGet();
+        if (depth.get() >= maxBatchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        if (pending.future == null) {
+            return;
+        }
+        try {
+            pending.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new BusinessException(ExceptionEnum.USER_PLACE_CODE_INSERT_FAIL);
+        } catch (TimeoutException e) {
+            // 超时后记录仍可能被写入，由调用方决定是否重试
+            throw new BusinessException(ExceptionEnum.PLACE_SCAN_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ExceptionEnum.PLACE_SCAN_BUSY);
+        }
+    }
+
+    /**
+     * 获取缓冲写入的统计信息。
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("buffered", buffered);
+        metrics.put("ack", ackMode);
+        metrics.put("queueDepth", depth.get());
+        metrics.put("maxQueueDepth", maxDepth.get());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("accepted", accepted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("flushedRows", flushedRows.get());
+        metrics.put("flushedBatches", flushedBatches.get());
+        metrics.put("failedRows", failedRows.get());
+        metrics.put("spooledRows", spooledRows.get());
+        metrics.put("replayedRows", replayedRows.get());
+        metrics.put("lastFlushMillis", lastFlushMillis);
+        return metrics;
+    }
+
+    /**
+     * 在队列中预留一个位置，队列已满时返回 false。
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = depth.get();
+            if (current >= queueCapacity) {
+                return false;
+            }
+            if (depth.compareAndSet(current, current + 1)) {
+                maxDepth.accumulate(current + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 写入线程的主循环：队列攒满一批或距上次写入超过间隔时写入一批，停止后继续写完队列中的记录。
+     */
+    private void runLoop() {
+        List<PendingScan> batch = new ArrayList<>(maxBatchSize);
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long nextFlush = System.nanoTime() + intervalNanos;
+        long nextReplay = System.currentTimeMillis() + spoolRetryIntervalMs;
+        while (running || depth.get() > 0) {
+            long wait = nextFlush - System.nanoTime();
+            if (running && depth.get() < maxBatchSize && wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            PendingScan pending;
+            while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+                batch.add(pending);
+            }
+            depth.addAndGet(-batch.size());
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+            nextFlush = System.nanoTime() + intervalNanos;
+            if (running && System.currentTimeMillis() >= nextReplay) {
+                replaySpool();
+                nextReplay = System.currentTimeMillis() + spoolRetryIntervalMs;
+            }
+        }
+    }
+
+    /**
+     * 用一条多行 INSERT 写入一个批次，并通知等待的提交方。
+     * 写入失败时等待的提交方收到异常，已确认的记录暂存到本地文件。
+     */
+    private void flush(List<PendingScan> batch) {
+        List<PlaceMapping> records = new ArrayList<>(batch.size());
+        for (PendingScan pending : batch) {
+            records.add(pending.record);
+        }
+        long start = System.nanoTime();
+        try {
+            placeMappingMapper.insertBatch(records);
+            lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            flushedRows.addAndGet(records.size());
+            flushedBatches.incrementAndGet();
+            for (PendingScan pending : batch) {
+                if (pending.future != null) {
+                    pending.future.complete(null);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to write scan batch of {} records, message: {}", batch.size(), e.getMessage());
+            failedRows.addAndGet(records.size());
+            List<PlaceMapping> acknowledged = new ArrayList<>();
+            for (PendingScan pending : batch) {
+                if (pending.future != null) {
+                    pending.future.completeExceptionally(e);
+                } else {
+                    acknowledged.add(pending.record);
+                }
+            }
+            spool(acknowledged);
+        }
+    }
+
+    /**
+     * 补写暂存文件中的记录。整批写入失败时逐条写入，被数据库拒绝的记录转入死信文件；
+     * 数据库不可用时本条记录补写次数加一、其余记录原样放回暂存文件，等待下次补写。
+     * 取出的文件在本轮处理完成后才删除，中途崩溃时已写入的记录会被再次写入。
+     */
+    private void replaySpool() {
+        List<ScanSpool.SpooledScan> scans = scanSpool.drain();
+        if (scans.isEmpty()) {
+            return;
+        }
+        int replayed = 0;
+        for (int from = 0; from < scans.size(); from += maxBatchSize) {
+            List<ScanSpool.SpooledScan> chunk = scans.subList(from, Math.min(from + maxBatchSize, scans.size()));
+            List<PlaceMapping> records = new ArrayList<>(chunk.size());
+            for (ScanSpool.SpooledScan scan : chunk) {
+                records.add(scan.getRecord());
+            }
+            try {
+                placeMappingMapper.insertBatch(records);
+                replayed += chunk.size();
+                continue;
+            } catch (Exception e) {
+                logger.warn("Failed to replay {} spooled scans in batch, retry one by one, message: {}",
+                        chunk.size(), e.getMessage());
+            }
+            // 逐条写入，找出被数据库拒绝的记录
+            for (int i = 0; i < chunk.size(); i++) {
+                ScanSpool.SpooledScan scan = chunk.get(i);
+                try {
+                    placeMappingMapper.insertBatch(Collections.singletonList(scan.getRecord()));
+                    replayed++;
+                } catch (DataIntegrityViolationException e) {
+                    logger.error("Spooled scan rejected by database, uid: {}, pid: {}, message: {}",
+                            scan.getRecord().getUid(), scan.getRecord().getPid(), e.getMessage());
+                    if (!scanSpool.deadLetter(scan)) {
+                        // 保留已取出的文件，下次重新补写
+                        return;
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to replay spooled scans, message: {}", e.getMessage());
+                    boolean exhausted = scan.getAttempts() + 1 >= spoolMaxRetries;
+                    boolean saved = exhausted ? scanSpool.deadLetter(scan) : scanSpool.retryLater(scan);
+                    if (saved && scanSpool.requeue(chunk.subList(i + 1, chunk.size()))
+                            && scanSpool.requeue(scans.subList(from + chunk.size(), scans.size()))) {
+                        scanSpool.complete();
+                    }
+                    replayedRows.addAndGet(replayed);
+                    return;
+                }
+            }
+        }
+        // 全部写入或转入死信后才删除已取出的文件，中途崩溃时下次重新补写
+        scanSpool.complete();
+        replayedRows.addAndGet(replayed);
+        logger.info("Replayed {} of {} spooled scans", replayed, scans.size());
+    }
+
+    /**
+     * 将记录暂存到本地文件。
+     *
+     * @return 暂存成功或没有记录时返回 true
+     */
+    private boolean spool(List<PlaceMapping> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        if (scanSpool.append(records)) {
+            spooledRows.addAndGet(records.size());
+            return true;
+        }
+        logger.error("Lost {} acknowledged scans", records.size());
+        return false;
+    }
+
+    /**
+     * 队列中等待写入的记录，flush 模式下带有完成通知。
+     */
+    private static final class PendingScan {
+        private final PlaceMapping record;
+        private final CompletableFuture<Void> future;
+
+        private PendingScan(PlaceMapping record, boolean waitFlush) {
+            this.record = record;
+            this.future = waitFlush ? new CompletableFuture<>() : null;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.software.code.service.scan;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.entity.PlaceMapping;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ScanSpool 是扫码记录的本地磁盘暂存文件。
+ * 已向用户确认但未能写入数据库的扫码记录（数据库不可用，或停止服务时未写完）
+ * 以 "用户ID\t场所ID\t扫码时间毫秒\t已补写次数" 的行格式追加到本地文件中，由 ScanIngestor 在启动时和定期补写。
+ * 取出的文件在本轮补写完成后才删除，补写中途崩溃或数据库失败时下次重新补写，记录至少写入一次；
+ * 数据库拒绝的记录和补写次数达到上限的记录转入死信文件，不再补写。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class ScanSpool {
+
+    private static final Logger logger = LogManager.getLogger(ScanSpool.class);
+
+    /**
+     * 暂存文件路径。
+     */
+    @Value("${scan.ingest.spool-file:place-scan-spool.data}")
+    private String spoolFile;
+
+    /**
+     * 死信文件路径，无法补写的记录写入该文件，需要人工处理。
+     */
+    @Value("${scan.ingest.dead-letter-file:place-scan-dead-letter.data}")
+    private String deadLetterFile;
+
+    /**
+     * 暂存文件中的一条扫码记录。
+     */
+    public static final class SpooledScan {
+
+        private final PlaceMapping record;
+
+        private final int attempts;
+
+        private SpooledScan(PlaceMapping record, int attempts) {
+            this.record = record;
+            this.attempts = attempts;
+        }
+
+        public PlaceMapping getRecord() {
+            return record;
+        }
+
+        /**
+         * 已从暂存文件补写失败的次数。
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    /**
+     * 将一批扫码记录追加到暂存文件。
+     *
+     * @param records 扫码记录
+     * @return 写入成功返回 true
+     */
+    public boolean append(Collection<PlaceMapping> records) {
+        List<String> lines = new ArrayList<>(records.size());
+        for (PlaceMapping record : records) {
+            lines.add(format(record, 0));
+        }
+        return append(spoolFile, lines);
+    }
+
+    /**
+     * 将一条补写失败的记录放回暂存文件，补写次数加一。
+     *
+     * @param scan 补写失败的记录
+     * @return 写入成功返回 true
+     */
+    public boolean retryLater(SpooledScan scan) {
+        return append(spoolFile, Collections.singletonList(format(scan.record, scan.attempts + 1)));
+    }
+
+    /**
+     * 将本轮没有补写的记录原样放回暂存文件。
+     *
+     * @param scans 没有补写的记录
+     * @return 写入成功或没有记录时返回 true
+     */
+    public boolean requeue(Collection<SpooledScan> scans) {
+        List<String> lines = new ArrayList<>(scans.size());
+        for (SpooledScan scan : scans) {
+            lines.add(format(scan.record, scan.attempts));
+        }
+        return append(spoolFile, lines);
+    }
+
+    /**
+     * 将一条无法补写的记录写入死信文件。
+     *
+     * @param scan 无法补写的记录
+     * @return 写入成功返回 true
+     */
+    public boolean deadLetter(SpooledScan scan) {
+        return append(deadLetterFile, Collections.singletonList(format(scan.record, scan.attempts + 1)));
+    }
+
+    private synchronized boolean append(String path, List<String> lines) {
+        if (lines.isEmpty()) {
+            return true;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(path).toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to spool {} scans to {}, message: {}", lines.size(), path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 取出暂存文件中的全部扫码记录。
+     * 先将文件原子重命名，再读取重命名后的文件，取出期间新追加的记录会写入新文件，不会丢失。
+     * 重命名后的文件保留到调用 complete 为止，上一轮未完成时本轮重新读取该文件；无法解析的行转入死信文件。
+     *
+     * @return 扫码记录列表，没有记录或读取失败时为空
+     */
+    public List<SpooledScan> drain() {
+        List<SpooledScan> scans = new ArrayList<>();
+        List<String> malformed = new ArrayList<>();
+        File file = new File(spoolFile);
+        File draining = drainingFile();
+        synchronized (this) {
+            // 上一次取出过程中断时，先处理残留的文件
+            if (!draining.exists()) {
+                if (!file.exists()) {
+                    return scans;
+                }
+                try {
+                    Files.move(file.toPath(), draining.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    logger.error("Failed to rotate spool file {}, message: {}", spoolFile, e.getMessage());
+                    return scans;
+                }
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(draining.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                SpooledScan scan = parse(line);
+                if (scan == null) {
+                    if (!line.isEmpty()) {
+                        logger.warn("Move malformed spooled scan to dead letter file: {}", line);
+                        malformed.add(line);
+                    }
+                    continue;
+                }
+                scans.add(scan);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read spool file {}, message: {}", draining, e.getMessage());
+            return new ArrayList<>();
+        }
+        if (!append(deadLetterFile, malformed)) {
+            // 保留文件，下次重新读取
+            return new ArrayList<>();
+        }
+        if (scans.isEmpty()) {
+            complete();
+        }
+        return scans;
+    }
+
+    /**
+     * 删除已取出的文件，应在取出的记录全部写入数据库、放回暂存文件或转入死信后调用。
+     */
+    public void complete() {
+        try {
+            Files.deleteIfExists(drainingFile().toPath());
+        } catch (IOException e) {
+            logger.error("Failed to delete spool file {}, message: {}", drainingFile(), e.getMessage());
+        }
+    }
+
+    private File drainingFile() {
+        return new File(spoolFile + ".draining");
+    }
+
+    private static String format(PlaceMapping record, int attempts) {
+        return record.getUid() + "\t" + record.getPid() + "\t" + record.getTime().getTime() + "\t" + attempts;
+    }
+
+    /**
+     * 解析一行记录，兼容不含补写次数的旧格式 "用户ID\t场所ID\t扫码时间毫秒"，无法解析时返回 null。
+     */
+    private static SpooledScan parse(String line) {
+        String[] parts = line.split("\t");
+        if (parts.length != 3 && parts.length != 4) {
+            return null;
+        }
+        try {
+            PlaceMapping record = new PlaceMapping();
+            record.setUid(Long.parseLong(parts[0]));
+            record.setPid(Long.parseLong(parts[1]));
+            record.setTime(new Date(Long.parseLong(parts[2])));
+            return new SpooledScan(record, parts.length == 4 ? Integer.parseInt(parts[3]) : 0);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
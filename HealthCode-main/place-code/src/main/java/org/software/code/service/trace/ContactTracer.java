@@ -0,0 +1,435 @@
+package org.software.code.service.trace;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.common.util.LongHashSet;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.software.code.service.visit.VisitIndex;
+import org.software.code.vo.ContactTraceVo;
+import org.software.code.vo.ContactVo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ContactTracer 根据到访索引追踪与指定人员同场的密接和次密接。
+ * 用户与场所构成二部图，追踪按层展开：先取出上一层人员在时间范围内的全部到访，按场所分组并按时间排序；
+ * 再在专用线程池中并行扫描每个场所在相应时段的到访，到访时间与上一层某次到访相差不超过同场时间窗口的用户即为接触者，
+ * 扫描时段不超出追踪的时间范围，范围之外的到访不计为同场。
+ * 全程只访问到访索引中的基本类型数组，不查询数据库。次密接以密接为起点再展开一层，已是追踪起点或密接的用户不再计入。
+ * 到访时间由日期改为精确时间之前写入的到访只有日期，时刻均为 00:00:00，按同场时间窗口匹配会把当天所有到访者误判为密接，
+ * 因此追踪只使用切换时间之后的到访，密接和次密接两层都不使用切换前的到访，并在结果中返回切换时间。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class ContactTracer {
+
+    private static final Logger logger = LogManager.getLogger(ContactTracer.class);
+
+    /**
+     * 并行展开的线程数，为 0 时使用 CPU 核数。
+     */
+    @Value("${trace.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * 未指定时返回的接触者数量。
+     */
+    @Value("${trace.default-limit:1000}")
+    private int defaultLimit;
+
+    /**
+     * 单次返回的接触者数量上限。
+     */
+    @Value("${trace.max-limit:10000}")
+    private int maxLimit;
+
+    /**
+     * 追踪次密接时最多展开的密接人数，按排名取前若干名。
+     */
+    @Value("${trace.max-second-degree-sources:5000}")
+    private int maxSecondDegreeSources;
+
+    /**
+     * 每名接触者列出的共同场所和同场人员的最大数量。
+     */
+    @Value("${trace.max-listed:20}")
+    private int maxListed;
+
+    /**
+     * 到访时间精确到秒的起始时间（yyyy-MM-dd HH:mm:ss），为空时取到访时间迁移执行完成的时间。
+     */
+    @Value("${trace.precise-visits-since:}")
+    private String preciseVisitsSince;
+
+    @Resource
+    private VisitIndex visitIndex;
+
+    @Resource
+    private PlaceMappingMapper placeMappingMapper;
+
+    private ForkJoinPool pool;
+
+    // 到访时间精确到秒的起始时间，为 null 时所有到访都精确到秒
+    private Date preciseSince;
+
+    /**
+     * 创建并行展开使用的线程池，并确定到访时间精确到秒的起始时间。
+     */
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        preciseSince = resolvePreciseSince();
+        logger.info("Contact tracing uses visits since {}", preciseSince);
+    }
+
+    /**
+     * 优先使用配置的切换时间，否则查询迁移记录；都无法确定时认为所有到访都精确到秒。
+     */
+    private Date resolvePreciseSince() {
+        if (preciseVisitsSince != null && !preciseVisitsSince.trim().isEmpty()) {
+            try {
+                return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(preciseVisitsSince.trim());
+            } catch (ParseException e) {
+                logger.error("Invalid trace.precise-visits-since {}, message: {}", preciseVisitsSince, e.getMessage());
+            }
+        }
+        try {
+            LocalDateTime cutover = placeMappingMapper.selectVisitTimeCutover();
+            return cutover == null ? null : Date.from(cutover.atZone(ZoneId.systemDefault()).toInstant());
+        } catch (Exception e) {
+            logger.warn("Failed to read visit time cutover, message: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 关闭线程池。
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 追踪与一组人员同场的密接和次密接。
+     *
+     * @param uidList       追踪起点的用户 ID
+     * @param startTime     追踪的开始时间（包含），不能早于到访索引的覆盖范围
+     * @param endTime       追踪的结束时间（包含）
+     * @param windowMinutes 同场时间窗口（分钟）
+     * @param degree        追踪层级，1 只追踪密接，2 同时追踪次密接
+     * @param limit         返回的最大接触者数量，为 null 时使用默认值
+     * @return 追踪结果
+     * @throws BusinessException 到访索引未就绪或时间范围无效时抛出
+     */
+    public ContactTraceVo trace(List<Long> uidList, Date startTime, Date endTime,
+                                int windowMinutes, int degree, Integer limit) {
+        long begin = System.nanoTime();
+        if (!visitIndex.isReady()) {
+            throw new BusinessException(ExceptionEnum.PLACE_TRACE_UNAVAILABLE);
+        }
+        if (startTime.after(endTime) || startTime.before(visitIndex.getCoverageStart())) {
+            throw new BusinessException(ExceptionEnum.PLACE_TRACE_RANGE_INVALID);
+        }
+        // 切换之前的到访只有日期，不参与匹配
+        boolean clipped = preciseSince != null && startTime.before(preciseSince);
+        Date effectiveStart = clipped ? preciseSince : startTime;
+        long fromSecond = Math.floorDiv(effectiveStart.getTime() + 999, 1000L);
+        long toSecond = Math.floorDiv(endTime.getTime(), 1000L);
+        long window = windowMinutes * 60L;
+
+        long[] seeds = uidList.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        LongHashSet excluded = new LongHashSet(seeds.length);
+        for (long seed : seeds) {
+            excluded.add(seed);
+        }
+        List<Contact> first = fromSecond > toSecond ? new ArrayList<>()
+                : rank(expand(seeds, fromSecond, toSecond, window, excluded, 1).values());
+        List<Contact> second = new ArrayList<>();
+        boolean truncated = false;
+        if (degree >= 2 && !first.isEmpty()) {
+            for (Contact contact : first) {
+                excluded.add(contact.uid);
+            }
+            int sourceCount = Math.min(first.size(), maxSecondDegreeSources);
+            truncated = sourceCount < first.size();
+            long[] sources = new long[sourceCount];
+            for (int i = 0; i < sourceCount; i++) {
+                sources[i] = first.get(i).uid;
+            }
+            Arrays.sort(sources);
+            second = rank(expand(sources, fromSecond, toSecond, window, excluded, 2).values());
+        }
+
+        int max = Math.min(limit == null ? defaultLimit : limit, maxLimit);
+        List<ContactVo> contacts = new ArrayList<>(Math.min(max, first.size() + second.size()));
+        for (Contact contact : first) {
+            if (contacts.size() >= max) {
+                break;
+            }
+            contacts.add(toVo(contact));
+        }
+        for (Contact contact : second) {
+            if (contacts.size() >= max) {
+                break;
+            }
+            contacts.add(toVo(contact));
+        }
+        ContactTraceVo result = new ContactTraceVo();
+        result.setSeedCount(seeds.length);
+        result.setFirstDegreeCount(first.size());
+        result.setSecondDegreeCount(second.size());
+        result.setTruncated(truncated);
+        result.setPreciseSince(preciseSince);
+        result.setRangeClipped(clipped);
+        result.setElapsedMillis((System.nanoTime() - begin) / 1_000_000);
+        result.setContacts(contacts);
+        logger.info("Traced {} seeds: {} first-degree and {} second-degree contacts in {} ms",
+                seeds.length, first.size(), second.size(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 以一组人员为起点展开一层：按场所分组收集他们的到访，再并行扫描各场所同时段的到访。
+     *
+     * @param sources    去重并升序排列的上一层人员 ID
+     * @param fromSecond 起始时间（epoch 秒）
+     * @param toSecond   结束时间（epoch 秒）
+     * @param window     同场时间窗口（秒）
+     * @param excluded   不计为接触者的用户，展开期间只读
+     * @param degree     本层的接触层级
+     * @return 用户 ID 到接触者的映射
+     */
+    private Map<Long, Contact> expand(long[] sources, long fromSecond, long toSecond, long window,
+                                      LongHashSet excluded, int degree) {
+        Map<Long, VisitGroup> groupMap = new HashMap<>();
+        visitIndex.forEachVisitOfUids(sources, fromSecond, toSecond,
+                (uid, pid, time) -> groupMap.computeIfAbsent(pid, VisitGroup::new).add(uid, time));
+        List<VisitGroup> groups = new ArrayList<>(groupMap.values());
+        if (groups.isEmpty()) {
+            return new HashMap<>();
+        }
+        // 到访多的场所先展开，减少最后少数大任务拖慢整体的情况
+        groups.sort(Comparator.comparingInt((VisitGroup group) -> group.size).reversed());
+
+        int taskCount = Math.min(groups.size(), pool.getParallelism() * 4);
+        List<ForkJoinTask<Map<Long, Contact>>> tasks = new ArrayList<>(taskCount);
+        for (int t = 0; t < taskCount; t++) {
+            int offset = t;
+            tasks.add(pool.submit(() -> {
+                Map<Long, Contact> local = new HashMap<>();
+                for (int i = offset; i < groups.size(); i += taskCount) {
+                    scan(groups.get(i), fromSecond, toSecond, window, excluded, degree, local);
+                }
+                return local;
+            }));
+        }
+        Map<Long, Contact> contacts = tasks.get(0).join();
+        for (int t = 1; t < taskCount; t++) {
+            for (Contact contact : tasks.get(t).join().values()) {
+                Contact existing = contacts.putIfAbsent(contact.uid, contact);
+                if (existing != null) {
+                    existing.merge(contact);
+                }
+            }
+        }
+        return contacts;
+    }
+
+    /**
+     * 扫描一个场所在上一层人员到访前后的到访，记录同场的接触者。
+     * 扫描时段限制在追踪的时间范围 [fromSecond, toSecond] 内，fromSecond 不早于到访时间精确到秒的起始时间。
+     */
+    private void scan(VisitGroup group, long fromSecond, long toSecond, long window, LongHashSet excluded,
+                      int degree, Map<Long, Contact> contacts) {
+        group.sort();
+        long[] times = group.times;
+        long[] sources = group.sources;
+        int size = group.size;
+        long from = Math.max(times[0] - window, fromSecond);
+        long to = Math.min(times[size - 1] + window, toSecond);
+        visitIndex.forEachVisitOfPid(group.pid, from, to, (uid, pid, time) -> {
+            if (excluded.contains(uid)) {
+                return;
+            }
+            int first = lowerBound(times, size, time - window);
+            int last = lowerBound(times, size, time + window + 1);
+            if (first >= last) {
+                return;
+            }
+            Contact contact = contacts.computeIfAbsent(uid, key -> new Contact(key, degree));
+            contact.encounters += last - first;
+            contact.places.add(pid);
+            for (int k = first; k < last; k++) {
+                contact.sources.add(sources[k]);
+            }
+        });
+    }
+
+    /**
+     * 按同场次数、共同场所数降序排列接触者，相同时按用户 ID 排列。
+     */
+    private static List<Contact> rank(Collection<Contact> contacts) {
+        List<Contact> ranked = new ArrayList<>(contacts);
+        ranked.sort((a, b) -> {
+            if (a.encounters != b.encounters) {
+                return Long.compare(b.encounters, a.encounters);
+            }
+            if (a.places.size() != b.places.size()) {
+                return Integer.compare(b.places.size(), a.places.size());
+            }
+            return Long.compare(a.uid, b.uid);
+        });
+        return ranked;
+    }
+
+    private ContactVo toVo(Contact contact) {
+        ContactVo vo = new ContactVo();
+        vo.setUid(contact.uid);
+        vo.setDegree(contact.degree);
+        vo.setEncounters(contact.encounters);
+        vo.setSharedPlaceCount(contact.places.size());
+        vo.setSharedPlaces(firstSorted(contact.places));
+        vo.setSourceCount(contact.sources.size());
+        vo.setSources(firstSorted(contact.sources));
+        return vo;
+    }
+
+    private List<Long> firstSorted(LongHashSet set) {
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        List<Long> list = new ArrayList<>(Math.min(values.length, maxListed));
+        for (int i = 0; i < values.length && i < maxListed; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * 在 values 的前 size 个元素中查找第一个不小于 key 的位置。
+     */
+    private static int lowerBound(long[] values, int size, long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 上一层人员在同一场所的全部到访。
+     */
+    private static final class VisitGroup {
+
+        private final long pid;
+
+        private long[] times = new long[4];
+
+        private long[] sources = new long[4];
+
+        private int size;
+
+        private VisitGroup(long pid) {
+            this.pid = pid;
+        }
+
+        private void add(long source, long time) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                sources = Arrays.copyOf(sources, size * 2);
+            }
+            times[size] = time;
+            sources[size] = source;
+            size++;
+        }
+
+        /**
+         * 按到访时间做稳定的归并排序，人员 ID 随时间一起移动，到访数量和时间取值都没有限制。
+         */
+        private void sort() {
+            long[] sourceTimes = times;
+            long[] sourceIds = sources;
+            long[] targetTimes = new long[times.length];
+            long[] targetIds = new long[sources.length];
+            for (int width = 1; width < size; width <<= 1) {
+                for (int low = 0; low < size; low += width << 1) {
+                    int mid = Math.min(low + width, size);
+                    int high = Math.min(low + (width << 1), size);
+                    int i = low;
+                    int j = mid;
+                    for (int k = low; k < high; k++) {
+                        if (j >= high || (i < mid && sourceTimes[i] <= sourceTimes[j])) {
+                            targetTimes[k] = sourceTimes[i];
+                            targetIds[k] = sourceIds[i++];
+                        } else {
+                            targetTimes[k] = sourceTimes[j];
+                            targetIds[k] = sourceIds[j++];
+                        }
+                    }
+                }
+                long[] swapTimes = sourceTimes;
+                sourceTimes = targetTimes;
+                targetTimes = swapTimes;
+                long[] swapIds = sourceIds;
+                sourceIds = targetIds;
+                targetIds = swapIds;
+            }
+            times = sourceTimes;
+            sources = sourceIds;
+        }
+    }
+
+    /**
+     * 追踪过程中累计的一名接触者。
+     */
+    private static final class Contact {
+
+        private final long uid;
+
+        private final int degree;
+
+        private long encounters;
+
+        private final LongHashSet places = new LongHashSet(2);
+
+        private final LongHashSet sources = new LongHashSet(2);
+
+        private Contact(long uid, int degree) {
+            this.uid = uid;
+            this.degree = degree;
+        }
+
+        private void merge(Contact other) {
+            encounters += other.encounters;
+            other.places.forEach(places::add);
+            other.sources.forEach(sources::add);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.software.code.service.visit;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.common.except.BusinessException;
+import org.software.code.common.except.ExceptionEnum;
+import org.software.code.entity.PlaceMapping;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * ChunkedVisitQuery 从数据库查询一组用户到访过的场所。
+ * 用户列表去重排序后切分为固定大小的分块，每个分块是一条 IN 列表有界的查询，
+ * 在专用线程池中并行执行；结果在调用线程中按分块完成的顺序交给调用方，调用方不需要考虑并发。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class ChunkedVisitQuery {
+
+    private static final Logger logger = LogManager.getLogger(ChunkedVisitQuery.class);
+
+    /**
+     * 每条查询的 IN 列表中的最大用户数。
+     */
+    @Value("${visit.query.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 并行执行分块查询的线程数。
+     */
+    @Value("${visit.query.parallelism:8}")
+    private int parallelism;
+
+    /**
+     * 一次查询全部分块的最长时间（毫秒）。
+     */
+    @Value("${visit.query.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Resource
+    private PlaceMappingMapper placeMappingMapper;
+
+    private ThreadPoolExecutor pool;
+
+    /**
+     * 创建执行分块查询的线程池，空闲线程会被回收。
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "place-visit-query-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 关闭线程池。
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 查询一组用户在时间范围内到访过的场所 ID，每次到访输出一次。
+     *
+     * @param uidList      用户 ID 列表，重复的用户只查询一次
+     * @param startTime    查询的开始时间（包含）
+     * @param endTime      查询的结束时间
+     * @param endInclusive 是否包含结束时间
+     * @param consumer     在调用线程中接收场所 ID
+     * @throws BusinessException 分块查询失败或超时时抛出
+     */
+    public void forEachPidOfUsers(List<Long> uidList, Date startTime, Date endTime, boolean endInclusive,
+                                  LongConsumer consumer) {
+        long[] uids = uidList.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        if (uids.length == 0) {
+            return;
+        }
+        if (uids.length <= chunkSize) {
+            // 只有一个分块时直接在调用线程中执行
+            for (long pid : selectChunk(uids, startTime, endTime, endInclusive)) {
+                consumer.accept(pid);
+            }
+            return;
+        }
+        CompletionService<long[]> completionService = new ExecutorCompletionService<>(pool);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int from = 0; from < uids.length; from += chunkSize) {
+            long[] chunk = Arrays.copyOfRange(uids, from, Math.min(from + chunkSize, uids.length));
+            futures.add(completionService.submit(() -> selectChunk(chunk, startTime, endTime, endInclusive)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Future<long[]> done = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    logger.error("Chunked place query over {} users timed out after {} ms", uids.length, timeoutMs);
+                    throw new BusinessException(ExceptionEnum.USER_PLACE_CODE_SELECT_FAIL);
+                }
+                for (long pid : done.get()) {
+                    consumer.accept(pid);
+                }
+            }
+        } catch (ExecutionException e) {
+            logger.error("Chunked place query failed, message: {}", e.getCause().getMessage());
+            throw new BusinessException(ExceptionEnum.USER_PLACE_CODE_SELECT_FAIL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ExceptionEnum.USER_PLACE_CODE_SELECT_FAIL);
+        } finally {
+            // 出错或调用方中断时取消尚未执行的分块
+            for (Future<long[]> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 查询一个分块的用户到访过的场所 ID。
+     */
+    private long[] selectChunk(long[] uids, Date startTime, Date endTime, boolean endInclusive) {
+        List<Long> uidList = new ArrayList<>(uids.length);
+        for (long uid : uids) {
+            uidList.add(uid);
+        }
+        LambdaQueryWrapper<PlaceMapping> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(PlaceMapping::getUid, uidList)
+                .ge(PlaceMapping::getTime, startTime)
+                .select(PlaceMapping::getPid);
+        if (endInclusive) {
+            queryWrapper.le(PlaceMapping::getTime, endTime);
+        } else {
+            queryWrapper.lt(PlaceMapping::getTime, endTime);
+        }
+        List<Object> rows = placeMappingMapper.selectObjs(queryWrapper);
+        long[] pids = new long[rows.size()];
+        int size = 0;
+        for (Object row : rows) {
+            if (row != null) {
+                pids[size++] = (Long) row;
+            }
+        }
+        return size == pids.length ? pids : Arrays.copyOf(pids, size);
+    }
+}
@@ -0,0 +1,122 @@
+package org.software.code.service.visit;
+
+import org.software.code.entity.PlaceMapping;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * VisitArchiveStore 将 place_mapping 过期日分区中的扫码记录导出为本地磁盘上的归档文件，每天一个文件。
+ * 文件是 gzip 压缩的 CSV，首行为表头 id,pid,uid,time，之后每行一条扫码记录，按 ID 升序排列。
+ * 归档文件只追加不修改，多个实例共享时归档目录应挂载到同一存储上。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class VisitArchiveStore {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String HEADER = "id,pid,uid,time";
+
+    /**
+     * 分页读取待归档记录的数据源。
+     */
+    public interface PageSource {
+        /**
+         * 读取 ID 大于 afterId 的下一页记录。
+         *
+         * @param afterId 上一页最后一条记录的 ID
+         * @return 按 ID 升序排列的记录，没有更多记录时返回空列表
+         */
+        List<PlaceMapping> next(long afterId);
+    }
+
+    @Value("${visit-partition.archive-dir:archive/place-mapping}")
+    private String archiveDir;
+
+    /**
+     * 将一天的扫码记录导出为归档文件，先写入临时文件，校验完整后再替换正式文件。
+     *
+     * @param day    日期
+     * @param source 该日记录的数据源
+     * @return 写入的记录数
+     * @throws IOException 写入失败或校验不通过时抛出
+     */
+    public long export(LocalDate day, PageSource source) throws IOException {
+        Path file = fileOf(day);
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        // SimpleDateFormat 不是线程安全的，每次导出创建一个
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long rows = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 65536), StandardCharsets.UTF_8))) {
+            writer.write(HEADER);
+            writer.write('\n');
+            long afterId = 0;
+            List<PlaceMapping> page;
+            while (!(page = source.next(afterId)).isEmpty()) {
+                for (PlaceMapping record : page) {
+                    writer.write(String.valueOf(record.getId()));
+                    writer.write(',');
+                    writer.write(String.valueOf(record.getPid()));
+                    writer.write(',');
+                    writer.write(String.valueOf(record.getUid()));
+                    writer.write(',');
+                    writer.write(timeFormat.format(record.getTime()));
+                    writer.write('\n');
+                    afterId = record.getId();
+                    rows++;
+                }
+            }
+        }
+        long written = countRows(tmp);
+        if (written != rows) {
+            throw new IOException("Archive " + tmp + " has " + written + " rows, expected " + rows);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * 重新读取归档文件并统计记录数，用于确认文件完整写出。
+     */
+    private static long countRows(Path file) throws IOException {
+        long rows = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 65536), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException("Archive " + file + " has an unexpected header: " + line);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private Path fileOf(LocalDate day) {
+        return Paths.get(archiveDir, "place_mapping_" + day.format(DAY_FORMAT) + ".csv.gz");
+    }
+}
@@ -0,0 +1,19 @@
+package org.software.code.service.visit;
+
+/**
+ * VisitConsumer 接收到访索引输出的一次到访记录，参数均为基本类型，遍历时不产生装箱对象。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@FunctionalInterface
+public interface VisitConsumer {
+
+    /**
+     * 接收一次到访。
+     *
+     * @param uid  用户 ID
+     * @param pid  场所 ID
+     * @param time 到访时间（epoch 秒）
+     */
+    void accept(long uid, long pid, long time);
+}
@@ -0,0 +1,352 @@
+package org.software.code.service.visit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.entity.PlaceMapping;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongConsumer;
+
+/**
+ * VisitIndex 是 place_mapping 最近若干天到访记录的内存索引，用于按场所查询到访用户、按用户列表查询到访场所。
+ * 记录按天分桶，每天由若干个 VisitSegment 组成，新记录写成小段，相邻的小段按大小两两合并，
+ * 每天的段数保持在对数级别。索引启动后从数据库加载窗口内的记录，之后按主键定期增量拉取新记录，
+ * 因此多个实例写入的扫码记录都会被索引，延迟为一个拉取间隔。
+ * 自增主键在并发事务下可能乱序提交，拉取时跳过的主键会在一段时间内重试。
+ * 查询范围早于窗口的部分由调用方回落到数据库查询。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class VisitIndex {
+
+    private static final Logger logger = LogManager.getLogger(VisitIndex.class);
+
+    // 单次记录的主键空洞超过该值时不再逐个重试，视为自增值跳跃
+    private static final int MAX_GAP = 1000;
+
+    // 同时重试的空洞主键上限
+    private static final int MAX_MISSING = 100000;
+
+    /**
+     * 是否启用内存索引，关闭时查询全部走数据库。
+     */
+    @Value("${visit.index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 索引覆盖的天数，不含当天。
+     */
+    @Value("${visit.index.window-days:14}")
+    private int windowDays;
+
+    /**
+     * 每次拉取的最大记录数。
+     */
+    @Value("${visit.index.page-size:50000}")
+    private int pageSize;
+
+    /**
+     * 主键空洞的重试时长（毫秒），超过后认为对应的事务已回滚。
+     */
+    @Value("${visit.index.gap-retention-ms:60000}")
+    private long gapRetentionMs;
+
+    @Resource
+    private PlaceMappingMapper placeMappingMapper;
+
+    // 按天（epoch day）分桶的段
+    private final ConcurrentSkipListMap<Long, VisitSegment[]> days = new ConcurrentSkipListMap<>();
+
+    // 已拉取的最大主键
+    private long lastId;
+
+    // 尚未出现的主键及其放弃重试的时间
+    private final LinkedHashMap<Long, Long> missingIds = new LinkedHashMap<>();
+
+    // 索引是否已完成加载
+    private volatile boolean ready;
+
+    // 索引覆盖的第一天
+    private volatile LocalDate coverageStart;
+
+    /**
+     * 定期拉取新记录，首次执行时从数据库加载窗口内的全部记录。
+     */
+    @Scheduled(fixedDelayString = "${visit.index.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDate start = LocalDate.now().minusDays(windowDays);
+            if (!ready) {
+                Long firstId = placeMappingMapper.selectMinIdSince(toDate(start));
+                if (firstId != null) {
+                    lastId = firstId - 1;
+                } else {
+                    Long maxId = placeMappingMapper.selectMaxId();
+                    lastId = maxId == null ? 0 : maxId;
+                }
+                coverageStart = start;
+                // 加载前的主键空洞对应的事务早已结束，不需要重试
+                long loaded = pullNewRecords(false);
+                ready = true;
+                logger.info("Visit index loaded {} records since {}", loaded, start);
+                return;
+            }
+            if (start.isAfter(coverageStart)) {
+                coverageStart = start;
+                days.headMap(start.toEpochDay()).clear();
+            }
+            pullNewRecords(true);
+            retryMissing();
+        } catch (Exception e) {
+            logger.error("Failed to update visit index, message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 索引是否可用。
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 获取索引覆盖范围的起始时间，早于该时间的查询应回落到数据库。
+     *
+     * @return 起始时间
+     */
+    public Date getCoverageStart() {
+        return toDate(coverageStart);
+    }
+
+    /**
+     * 输出在 [startTime, endTime] 内到访过指定场所的用户 ID，每次到访输出一次。
+     *
+     * @param pid       场所 ID
+     * @param startTime 起始时间（包含），不早于 getCoverageStart
+     * @param endTime   结束时间（包含）
+     * @param consumer  接收用户 ID
+     */
+    public void forEachUidOfPid(long pid, Date startTime, Date endTime, LongConsumer consumer) {
+        forEachDay(startTime.getTime(), endTime.getTime(),
+                (segment, from, to, base) -> segment.forEachUidOfPid(pid, from, to, consumer));
+    }
+
+    /**
+     * 输出一组用户在 [startTime, endTime] 内到访过的场所 ID，每次到访输出一次。
+     *
+     * @param uids      用户 ID 列表
+     * @param startTime 起始时间（包含），不早于 getCoverageStart
+     * @param endTime   结束时间（包含）
+     * @param consumer  接收场所 ID
+     */
+    public void forEachPidOfUids(List<Long> uids, Date startTime, Date endTime, LongConsumer consumer) {
+        long[] sorted = uids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        forEachDay(startTime.getTime(), endTime.getTime(),
+                (segment, from, to, base) -> segment.forEachPidOfUids(sorted, from, to, consumer));
+    }
+
+    /**
+     * 输出指定场所在 [fromSecond, toSecond] 内的到访记录，时间均为 epoch 秒。
+     *
+     * @param pid        场所 ID
+     * @param fromSecond 起始时间（包含）
+     * @param toSecond   结束时间（包含）
+     * @param consumer   接收到访记录
+     */
+    public void forEachVisitOfPid(long pid, long fromSecond, long toSecond, VisitConsumer consumer) {
+        forEachDay(fromSecond * 1000, toSecond * 1000,
+                (segment, from, to, base) -> segment.forEachVisitOfPid(pid, from, to, base, consumer));
+    }
+
+    /**
+     * 输出一组用户在 [fromSecond, toSecond] 内的到访记录，时间均为 epoch 秒。
+     *
+     * @param sortedUids 去重并升序排列的用户 ID
+     * @param fromSecond 起始时间（包含）
+     * @param toSecond   结束时间（包含）
+     * @param consumer   接收到访记录
+     */
+    public void forEachVisitOfUids(long[] sortedUids, long fromSecond, long toSecond, VisitConsumer consumer) {
+        forEachDay(fromSecond * 1000, toSecond * 1000,
+                (segment, from, to, base) -> segment.forEachVisitOfUids(sortedUids, from, to, base, consumer));
+    }
+
+    /**
+     * 获取索引的统计信息。
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Object> getMetrics() {
+        long records = 0;
+        int segments = 0;
+        for (VisitSegment[] daySegments : days.values()) {
+            segments += daySegments.length;
+            for (VisitSegment segment : daySegments) {
+                records += segment.size();
+            }
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ready", isReady());
+        metrics.put("coverageStart", coverageStart);
+        metrics.put("days", days.size());
+        metrics.put("segments", segments);
+        metrics.put("records", records);
+        synchronized (this) {
+            metrics.put("lastId", lastId);
+            metrics.put("missingIds", missingIds.size());
+        }
+        return metrics;
+    }
+
+    private interface SegmentVisitor {
+        void visit(VisitSegment segment, int fromSecond, int toSecond, long baseSecond);
+    }
+
+    /**
+     * 遍历 [startMillis, endMillis] 覆盖的每一天的每个段，并把时间范围换算为当天的秒数。
+     */
+    private void forEachDay(long startMillis, long endMillis, SegmentVisitor visitor) {
+        ZoneId zone = ZoneId.systemDefault();
+        if (startMillis > endMillis) {
+            return;
+        }
+        LocalDate firstDay = Instant.ofEpochMilli(startMillis).atZone(zone).toLocalDate();
+        LocalDate lastDay = Instant.ofEpochMilli(endMillis).atZone(zone).toLocalDate();
+        for (Map.Entry<Long, VisitSegment[]> entry
+                : days.subMap(firstDay.toEpochDay(), true, lastDay.toEpochDay(), true).entrySet()) {
+            long dayStart = LocalDate.ofEpochDay(entry.getKey()).atStartOfDay(zone).toInstant().toEpochMilli();
+            int from = (int) Math.max(0, Math.floorDiv(startMillis - dayStart + 999, 1000L));
+            int to = (int) Math.min(Integer.MAX_VALUE, Math.floorDiv(endMillis - dayStart, 1000L));
+            if (from > to) {
+                continue;
+            }
+            for (VisitSegment segment : entry.getValue()) {
+                visitor.visit(segment, from, to, dayStart / 1000);
+            }
+        }
+    }
+
+    /**
+     * 按主键顺序拉取新记录，直到没有更多记录。
+     *
+     * @param trackGaps 是否记录主键空洞以便重试
+     */
+    private long pullNewRecords(boolean trackGaps) {
+        long total = 0;
+        long now = System.currentTimeMillis();
+        while (true) {
+            List<PlaceMapping> page = placeMappingMapper.selectAfterId(lastId, pageSize);
+            for (PlaceMapping record : page) {
+                long gap = record.getId() - lastId - 1;
+                if (trackGaps && gap > 0 && gap <= MAX_GAP) {
+                    for (long id = lastId + 1; id < record.getId() && missingIds.size() < MAX_MISSING; id++) {
+                        missingIds.put(id, now + gapRetentionMs);
+                    }
+                }
+                lastId = record.getId();
+            }
+            add(page);
+            total += page.size();
+            if (page.size() < pageSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * 重试之前跳过的主键，补上延迟提交的记录，超过重试时长的主键不再重试。
+     */
+    private void retryMissing() {
+        if (missingIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(missingIds.keySet());
+        for (int from = 0; from < ids.size(); from += 1000) {
+            List<PlaceMapping> found = placeMappingMapper.selectBatchIds(ids.subList(from, Math.min(from + 1000, ids.size())));
+            for (PlaceMapping record : found) {
+                missingIds.remove(record.getId());
+            }
+            add(found);
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Long, Long>> iterator = missingIds.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 将一批记录按天写成新段，并合并过小的段。
+     */
+    private void add(List<PlaceMapping> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        Map<Long, List<PlaceMapping>> byDay = new HashMap<>();
+        long firstDay = coverageStart.toEpochDay();
+        for (PlaceMapping record : records) {
+            if (record.getTime() == null || record.getUid() == null || record.getPid() == null) {
+                continue;
+            }
+            long day = Instant.ofEpochMilli(record.getTime().getTime()).atZone(zone).toLocalDate().toEpochDay();
+            if (day >= firstDay) {
+                byDay.computeIfAbsent(day, key -> new ArrayList<>()).add(record);
+            }
+        }
+        for (Map.Entry<Long, List<PlaceMapping>> entry : byDay.entrySet()) {
+            long dayStart = LocalDate.ofEpochDay(entry.getKey()).atStartOfDay(zone).toInstant().toEpochMilli();
+            List<PlaceMapping> dayRecords = entry.getValue();
+            int size = dayRecords.size();
+            long[] uids = new long[size];
+            long[] pids = new long[size];
+            int[] seconds = new int[size];
+            for (int i = 0; i < size; i++) {
+                PlaceMapping record = dayRecords.get(i);
+                uids[i] = record.getUid();
+                pids[i] = record.getPid();
+                seconds[i] = (int) ((record.getTime().getTime() - dayStart) / 1000);
+            }
+            VisitSegment[] current = days.get(entry.getKey());
+            List<VisitSegment> segments = current == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(current));
+            segments.add(VisitSegment.build(uids, pids, seconds, size));
+            // 最后一个段不小于前一个段的一半时合并，各段大小大致按 2 的幂递减
+            while (segments.size() >= 2) {
+                VisitSegment last = segments.get(segments.size() - 1);
+                VisitSegment previous = segments.get(segments.size() - 2);
+                if (last.size() * 2L < previous.size()) {
+                    break;
+                }
+                segments.remove(segments.size() - 1);
+                segments.set(segments.size() - 1, VisitSegment.merge(previous, last));
+            }
+            days.put(entry.getKey(), segments.toArray(new VisitSegment[0]));
+        }
+    }
+
+    private static Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,248 @@
+package org.software.code.service.visit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * VisitPartitionMaintainer 定期维护 place_mapping 的日分区。
+ * 表按到访时间划分为 pYYYYMMDD 分区和兜底分区 p_max，维护任务提前从 p_max 中拆分出未来日期的分区；
+ * 超过保留天数的分区先导出为归档文件并校验行数，再删除分区，删除分区不产生逐行删除的开销。
+ * 分区 DDL 通过 Redis 锁保证同一时间只有一个实例执行。
+ * 导出和 REORGANIZE PARTITION 可能持续较长时间，维护任务在独立线程上执行，不占用 Spring 的调度线程，
+ * 避免阻塞到访索引轮询、场所风险缓存和区域编码缓存的刷新。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Component
+public class VisitPartitionMaintainer {
+
+    private static final Logger logger = LogManager.getLogger(VisitPartitionMaintainer.class);
+
+    // 维护任务的 Redis 锁
+    private static final String LOCK_KEY = "place-code:visit-partition-lock";
+
+    // 锁的值与持有者一致时才删除，锁过期后被其他实例获得时不会误删
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final Pattern DAY_PARTITION = Pattern.compile("p(\\d{8})");
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // 导出分区时每页读取的记录数
+    private static final int EXPORT_PAGE_SIZE = 20000;
+
+    /**
+     * 在线表保留的天数，不含当天。
+     */
+    @Value("${visit-partition.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * 提前创建的未来日期分区数。
+     */
+    @Value("${visit-partition.days-ahead:7}")
+    private int daysAhead;
+
+    /**
+     * 删除过期分区前是否导出为归档文件。
+     */
+    @Value("${visit-partition.archive-enabled:true}")
+    private boolean archiveEnabled;
+
+    /**
+     * 维护任务持有锁的最长时间（秒），应大于导出一个分区的耗时。
+     */
+    @Value("${visit-partition.lock-seconds:3600}")
+    private long lockSeconds;
+
+    /**
+     * 到访索引覆盖的天数，索引启动时从数据库加载这段时间的记录，保留天数不能小于它。
+     */
+    @Value("${visit.index.window-days:14}")
+    private int indexWindowDays;
+
+    /**
+     * 服务启动后首次执行维护的延迟（毫秒）。
+     */
+    @Value("${visit-partition.initial-delay-ms:60000}")
+    private long initialDelayMs;
+
+    /**
+     * 上次维护结束到下次开始的间隔（毫秒）。
+     */
+    @Value("${visit-partition.maintenance-interval-ms:3600000}")
+    private long maintenanceIntervalMs;
+
+    @Resource
+    private PlaceMappingMapper placeMappingMapper;
+
+    @Resource
+    private VisitArchiveStore visitArchiveStore;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 校验配置，保留天数不足以覆盖到访索引时按索引的窗口保留，并启动维护线程。
+     */
+    @PostConstruct
+    public void init() {
+        if (retentionDays <= indexWindowDays) {
+            logger.warn("visit-partition.retention-days {} does not cover visit.index.window-days {}, use {}",
+                    retentionDays, indexWindowDays, indexWindowDays + 1);
+            retentionDays = indexWindowDays + 1;
+        }
+        daysAhead = Math.max(1, daysAhead);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "visit-partition-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, initialDelayMs, maintenanceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止维护线程。
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 定期创建未来日期的分区，并归档删除过期分区。
+     */
+    public void maintain() {
+        String owner = UUID.randomUUID().toString();
+        Boolean locked;
+        try {
+            locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, Duration.ofSeconds(lockSeconds));
+        } catch (Exception e) {
+            // 任务抛出异常会取消后续调度，获取锁失败时只记录日志，等待下次执行
+            logger.error("Failed to acquire visit partition lock, message: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            List<String> partitions = placeMappingMapper.selectPartitionNames();
+            if (partitions.isEmpty() || partitions.contains(null)) {
+                logger.warn("Table place_mapping is not partitioned, skip maintenance");
+                return;
+            }
+            TreeSet<LocalDate> days = toDays(partitions);
+            createPartitions(days);
+            retirePartitions(days);
+        } catch (Exception e) {
+            logger.error("Failed to maintain place_mapping partitions, message: {}", e.getMessage());
+        } finally {
+            try {
+                stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(LOCK_KEY), owner);
+            } catch (Exception e) {
+                logger.error("Failed to release visit partition lock, message: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从 p_max 中拆分出缺少的日分区，直到当天之后 daysAhead 天。
+     * 首次执行时从最早一条记录的日期开始，但不早于保留期的第一天，
+     * 更早的记录都落入第一个分区，随该分区过期一起归档，避免为历史数据创建大量分区。
+     */
+    private void createPartitions(TreeSet<LocalDate> days) {
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(daysAhead);
+        LocalDate first;
+        if (!days.isEmpty()) {
+            first = days.last().plusDays(1);
+        } else {
+            LocalDateTime minTime = placeMappingMapper.selectMinTime();
+            LocalDate oldestKept = today.minusDays(retentionDays);
+            first = minTime == null || minTime.toLocalDate().isAfter(today) ? today : minTime.toLocalDate();
+            if (first.isBefore(oldestKept)) {
+                first = oldestKept;
+            }
+        }
+        if (first.isAfter(last)) {
+            return;
+        }
+        StringBuilder definitions = new StringBuilder();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            definitions.append("PARTITION ").append(partitionOf(day))
+                    .append(" VALUES LESS THAN (TO_DAYS('")
+                    .append(day.plusDays(1))
+                    .append("')), ");
+            days.add(day);
+        }
+        definitions.append("PARTITION p_max VALUES LESS THAN MAXVALUE");
+        placeMappingMapper.reorganizeMaxPartition(definitions.toString());
+        logger.info("Created place_mapping partitions from {} to {}", first, last);
+    }
+
+    /**
+     * 删除超过保留天数的分区，开启归档时先导出，导出行数与分区行数不一致时保留分区，下次重新导出。
+     */
+    private void retirePartitions(TreeSet<LocalDate> days) throws IOException {
+        LocalDate oldestKept = LocalDate.now().minusDays(retentionDays);
+        for (LocalDate day : days.headSet(oldestKept)) {
+            String partition = partitionOf(day);
+            if (archiveEnabled) {
+                long expected = placeMappingMapper.countPartition(partition);
+                long exported = visitArchiveStore.export(day,
+                        afterId -> placeMappingMapper.selectPartitionPage(partition, afterId, EXPORT_PAGE_SIZE));
+                if (exported != expected) {
+                    logger.error("Archive of partition {} has {} rows, expected {}, keep partition",
+                            partition, exported, expected);
+                    continue;
+                }
+                logger.info("Archived partition {} with {} rows", partition, exported);
+            }
+            placeMappingMapper.dropPartition(partition);
+            logger.info("Dropped partition {}", partition);
+        }
+    }
+
+    private static TreeSet<LocalDate> toDays(List<String> partitions) {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (String partition : partitions) {
+            Matcher matcher = DAY_PARTITION.matcher(partition);
+            if (matcher.matches()) {
+                days.add(LocalDate.parse(matcher.group(1), DAY_FORMAT));
+            }
+        }
+        return days;
+    }
+
+    private static String partitionOf(LocalDate day) {
+        return "p" + day.format(DAY_FORMAT);
+    }
+}
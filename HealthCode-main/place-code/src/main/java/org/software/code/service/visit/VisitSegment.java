@@ -0,0 +1,262 @@
+package org.software.code.service.visit;
+
+import java.util.function.LongConsumer;
+
+/**
+ * VisitSegment 是同一天内一批到访记录的只读段。
+ * 记录以三个基本类型数组保存，按用户 ID 排序，另有一个按场所 ID 排序的位置数组，
+ * 因此按用户和按场所都可以二分定位到连续的区间，每条记录约占 24 字节。
+ * 段创建后不再修改，可以被多个线程同时读取；新记录写入新段，小段再两两合并为大段。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+public final class VisitSegment {
+
+    // 按用户 ID 排序的记录
+    private final long[] uids;
+    private final long[] pids;
+    // 到访时间相对当天零点的秒数
+    private final int[] seconds;
+
+    // 按场所 ID 排序的记录位置
+    private final int[] byPid;
+
+    private VisitSegment(long[] uids, long[] pids, int[] seconds, int[] byPid) {
+        this.uids = uids;
+        this.pids = pids;
+        this.seconds = seconds;
+        this.byPid = byPid;
+    }
+
+    /**
+     * 由未排序的记录创建段，传入的数组不再被调用方使用。
+     *
+     * @param uids    用户 ID
+     * @param pids    场所 ID
+     * @param seconds 到访时间相对当天零点的秒数
+     * @param size    记录数
+     * @return 段
+     */
+    public static VisitSegment build(long[] uids, long[] pids, int[] seconds, int size) {
+        int[] order = identity(size);
+        sortByKey(order, uids);
+        long[] sortedUids = new long[size];
+        long[] sortedPids = new long[size];
+        int[] sortedSeconds = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedUids[i] = uids[order[i]];
+            sortedPids[i] = pids[order[i]];
+            sortedSeconds[i] = seconds[order[i]];
+        }
+        int[] byPid = identity(size);
+        sortByKey(byPid, sortedPids);
+        return new VisitSegment(sortedUids, sortedPids, sortedSeconds, byPid);
+    }
+
+    /**
+     * 合并两个段，两个排序都按归并完成，不重新排序。
+     *
+     * @param a 段
+     * @param b 段
+     * @return 包含两个段全部记录的新段
+     */
+    public static VisitSegment merge(VisitSegment a, VisitSegment b) {
+        int sizeA = a.size();
+        int sizeB = b.size();
+        int size = sizeA + sizeB;
+        long[] uids = new long[size];
+        long[] pids = new long[size];
+        int[] seconds = new int[size];
+        // 两个段中每条记录在新段中的位置
+        int[] positionA = new int[sizeA];
+        int[] positionB = new int[sizeB];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < size; k++) {
+            if (j >= sizeB || (i < sizeA && a.uids[i] <= b.uids[j])) {
+                uids[k] = a.uids[i];
+                pids[k] = a.pids[i];
+                seconds[k] = a.seconds[i];
+                positionA[i++] = k;
+            } else {
+                uids[k] = b.uids[j];
+                pids[k] = b.pids[j];
+                seconds[k] = b.seconds[j];
+                positionB[j++] = k;
+            }
+        }
+        int[] byPid = new int[size];
+        i = 0;
+        j = 0;
+        for (int k = 0; k < size; k++) {
+            if (j >= sizeB || (i < sizeA && a.pids[a.byPid[i]] <= b.pids[b.byPid[j]])) {
+                byPid[k] = positionA[a.byPid[i++]];
+            } else {
+                byPid[k] = positionB[b.byPid[j++]];
+            }
+        }
+        return new VisitSegment(uids, pids, seconds, byPid);
+    }
+
+    /**
+     * 获取段中的记录数。
+     */
+    public int size() {
+        return uids.length;
+    }
+
+    /**
+     * 输出到访过指定场所、到访时间在 [fromSecond, toSecond] 内的用户 ID，每次到访输出一次。
+     *
+     * @param pid        场所 ID
+     * @param fromSecond 起始秒数（包含）
+     * @param toSecond   结束秒数（包含）
+     * @param consumer   接收用户 ID
+     */
+    public void forEachUidOfPid(long pid, int fromSecond, int toSecond, LongConsumer consumer) {
+        forEachVisitOfPid(pid, fromSecond, toSecond, 0, (uid, visitPid, time) -> consumer.accept(uid));
+    }
+
+    /**
+     * 输出指定场所在 [fromSecond, toSecond] 内的到访记录，到访时间为 baseSecond 加上当天的秒数。
+     *
+     * @param pid        场所 ID
+     * @param fromSecond 起始秒数（包含）
+     * @param toSecond   结束秒数（包含）
+     * @param baseSecond 当天零点的 epoch 秒
+     * @param consumer   接收到访记录
+     */
+    public void forEachVisitOfPid(long pid, int fromSecond, int toSecond, long baseSecond, VisitConsumer consumer) {
+        int low = 0;
+        int high = byPid.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (pids[byPid[mid]] < pid) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int k = low; k < byPid.length && pids[byPid[k]] == pid; k++) {
+            int position = byPid[k];
+            if (seconds[position] >= fromSecond && seconds[position] <= toSecond) {
+                consumer.accept(uids[position], pid, baseSecond + seconds[position]);
+            }
+        }
+    }
+
+    /**
+     * 输出一组用户到访过的、到访时间在 [fromSecond, toSecond] 内的场所 ID，每次到访输出一次。
+     *
+     * @param sortedUids 去重并升序排列的用户 ID
+     * @param fromSecond 起始秒数（包含）
+     * @param toSecond   结束秒数（包含）
+     * @param consumer   接收场所 ID
+     */
+    public void forEachPidOfUids(long[] sortedUids, int fromSecond, int toSecond, LongConsumer consumer) {
+        forEachVisitOfUids(sortedUids, fromSecond, toSecond, 0, (uid, pid, time) -> consumer.accept(pid));
+    }
+
+    /**
+     * 输出一组用户在 [fromSecond, toSecond] 内的到访记录，到访时间为 baseSecond 加上当天的秒数。
+     * 用户较少时逐个二分查找，较多时与段按顺序归并扫描。
+     *
+     * @param sortedUids 去重并升序排列的用户 ID
+     * @param fromSecond 起始秒数（包含）
+     * @param toSecond   结束秒数（包含）
+     * @param baseSecond 当天零点的 epoch 秒
+     * @param consumer   接收到访记录
+     */
+    public void forEachVisitOfUids(long[] sortedUids, int fromSecond, int toSecond, long baseSecond,
+                                   VisitConsumer consumer) {
+        if ((long) sortedUids.length * 16 < uids.length) {
+            for (long uid : sortedUids) {
+                emitVisits(lowerBound(uid), uid, fromSecond, toSecond, baseSecond, consumer);
+            }
+            return;
+        }
+        int position = 0;
+        for (long uid : sortedUids) {
+            while (position < uids.length && uids[position] < uid) {
+                position++;
+            }
+            position = emitVisits(position, uid, fromSecond, toSecond, baseSecond, consumer);
+        }
+    }
+
+    private int emitVisits(int position, long uid, int fromSecond, int toSecond, long baseSecond,
+                           VisitConsumer consumer) {
+        while (position < uids.length && uids[position] == uid) {
+            if (seconds[position] >= fromSecond && seconds[position] <= toSecond) {
+                consumer.accept(uid, pids[position], baseSecond + seconds[position]);
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private int lowerBound(long uid) {
+        int low = 0;
+        int high = uids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (uids[mid] < uid) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] identity(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * 按 key[order[i]] 对位置数组做稳定的归并排序，排序时键与位置一起移动，保持顺序访问内存。
+     */
+    private static void sortByKey(int[] order, long[] key) {
+        int size = order.length;
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = key[order[i]];
+        }
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        long[] sourceKeys = keys;
+        int[] source = order;
+        long[] targetKeys = keyBuffer;
+        int[] target = orderBuffer;
+        for (int width = 1; width < size; width <<= 1) {
+            for (int low = 0; low < size; low += width << 1) {
+                int mid = Math.min(low + width, size);
+                int high = Math.min(low + (width << 1), size);
+                int i = low;
+                int j = mid;
+                for (int k = low; k < high; k++) {
+                    if (j >= high || (i < mid && sourceKeys[i] <= sourceKeys[j])) {
+                        targetKeys[k] = sourceKeys[i];
+                        target[k] = source[i++];
+                    } else {
+                        targetKeys[k] = sourceKeys[j];
+                        target[k] = source[j++];
+                    }
+                }
+            }
+            long[] swapKeys = sourceKeys;
+            sourceKeys = targetKeys;
+            targetKeys = swapKeys;
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, size);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.software.code.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * AreaCodeSnapshotVo 是用户服务返回的全部区域编码快照，用于刷新本地的区域编码缓存。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class AreaCodeSnapshotVo {
+    /**
+     * 区域编码表当前的版本号。
+     */
+    private String version;
+
+    /**
+     * 相对于请求时携带的版本号是否发生了变化，未变化时 areaCodes 为 null。
+     */
+    private Boolean modified;
+
+    /**
+     * 全部区域编码，仅在发生变化时返回。
+     */
+    private List<AreaCodeVo> areaCodes;
+}
@@ -0,0 +1,54 @@
+package org.software.code.vo;
+
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ContactTraceVo 是一个视图对象（VO），用于封装一次密接追踪的结果和统计信息。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class ContactTraceVo {
+    /**
+     * 追踪起点的用户数（去重后）。
+     */
+    private Integer seedCount;
+
+    /**
+     * 找到的密接人数。
+     */
+    private Integer firstDegreeCount;
+
+    /**
+     * 找到的次密接人数。
+     */
+    private Integer secondDegreeCount;
+
+    /**
+     * 追踪次密接时是否只展开了排名靠前的部分密接。
+     */
+    private Boolean truncated;
+
+    /**
+     * 到访时间精确到秒的起始时间，此前的到访只记录了日期，不参与同场匹配；为 null 时所有到访都参与匹配。
+     */
+    private Date preciseSince;
+
+    /**
+     * 追踪时间范围是否有一部分早于 preciseSince 而未被追踪。
+     */
+    private Boolean rangeClipped;
+
+    /**
+     * 追踪耗时（毫秒）。
+     */
+    private Long elapsedMillis;
+
+    /**
+     * 按层级、同场次数和共同场所数排序的接触者。
+     */
+    private List<ContactVo> contacts;
+}
@@ -0,0 +1,48 @@
+package org.software.code.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * ContactVo 是一个视图对象（VO），用于封装密接追踪结果中的一名接触者。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class ContactVo {
+    /**
+     * 接触者的用户唯一标识。
+     */
+    private Long uid;
+
+    /**
+     * 接触层级，1 表示密接，2 表示次密接。
+     */
+    private Integer degree;
+
+    /**
+     * 同场次数，即接触者与上一层人员在同一场所、时间窗口内的到访组合数。
+     */
+    private Long encounters;
+
+    /**
+     * 共同到访的场所数。
+     */
+    private Integer sharedPlaceCount;
+
+    /**
+     * 共同到访的场所 ID，最多返回若干个。
+     */
+    private List<Long> sharedPlaces;
+
+    /**
+     * 与之同场的上一层人员数，密接对应追踪起点，次密接对应密接。
+     */
+    private Integer sourceCount;
+
+    /**
+     * 与之同场的上一层人员 ID，最多返回若干个。
+     */
+    private List<Long> sources;
+}
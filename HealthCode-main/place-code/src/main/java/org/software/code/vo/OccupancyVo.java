@@ -0,0 +1,28 @@
+package org.software.code.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+/**
+ * OccupancyVo 是一个场所的实时客流统计，数据来自内存中的扫码计数，按分钟粒度滑动。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class OccupancyVo {
+    /**
+     * 场所 ID。
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long pid;
+
+    /**
+     * 视为仍在场所内的人数，即最近 dwellMinutes 分钟内的扫码人次。
+     */
+    private Integer present;
+
+    /**
+     * 最近 windowMinutes 分钟内的扫码人次。
+     */
+    private Integer recent;
+}
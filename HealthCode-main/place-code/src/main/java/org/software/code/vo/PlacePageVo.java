@@ -0,0 +1,26 @@
+package org.software.code.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * PlacePageVo 是分页查询场所列表的一页结果，按场所 ID 升序排列。
+ *
+ * @param <T> 场所信息的视图对象类型
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class PlacePageVo<T> {
+    /**
+     * 本页的场所信息。
+     */
+    private List<T> records;
+
+    /**
+     * 查询下一页时使用的游标，没有下一页时为 null。
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long nextAfterPid;
+}
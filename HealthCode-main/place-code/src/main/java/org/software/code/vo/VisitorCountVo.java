@@ -0,0 +1,21 @@
+package org.software.code.vo;
+
+import lombok.Data;
+
+/**
+ * VisitorCountVo 是一批场所在时间范围内的到访人数统计，数组下标与请求中的场所 ID 列表一一对应。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class VisitorCountVo {
+    /**
+     * 各场所的到访人数，同一用户多次到访只计一次。
+     */
+    private int[] visitors;
+
+    /**
+     * 各场所的到访人中属于阳性人员的人数。
+     */
+    private int[] positives;
+}
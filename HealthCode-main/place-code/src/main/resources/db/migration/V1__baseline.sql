@@ -0,0 +1,26 @@
+-- 场所码服务的基线表结构，即引入迁移之前的表结构，与 healthcode.sql 中 health_code_place_code 部分一致。
+-- 已用 healthcode.sql 初始化的库由 baseline-on-migrate 标记为该版本，不会重复执行。
+
+-- 场所信息表
+CREATE TABLE place_info (
+    pid BIGINT PRIMARY KEY COMMENT '场所唯一标识',
+    uid BIGINT COMMENT '关联的场所负责人用户 ID',
+    place_name VARCHAR(64) COMMENT '场所名称',
+    area_id BIGINT NOT NULL COMMENT '场所所在区域的 ID',
+    address VARCHAR(255) NOT NULL COMMENT '场所详细地址',
+    status BOOLEAN NOT NULL COMMENT 'false：关停，true：开启',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '记录更新时间',
+    INDEX place_info_idx_uid (uid)
+);
+
+-- 场所映射表
+CREATE TABLE place_mapping (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '场所映射记录的唯一标识',
+    pid BIGINT COMMENT '场所唯一标识',
+    uid BIGINT COMMENT '用户唯一标识',
+    time DATE DEFAULT (CURDATE()) COMMENT '用户访问场所的日期',
+    INDEX place_mapping_idx_time (time),
+    INDEX place_mapping_idx_pid (pid),
+    INDEX place_mapping_idx_uid (uid, time)
+);
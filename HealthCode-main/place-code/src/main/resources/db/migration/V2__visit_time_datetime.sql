@@ -0,0 +1,4 @@
+-- 到访时间由日期改为精确到秒的时间，用于按同场时间窗口追踪密接。
+-- 已有记录只有日期，转换后时刻均为 00:00:00；密接追踪以本迁移完成的时间为界，不使用此前的到访
+ALTER TABLE place_mapping
+    MODIFY time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '用户访问场所的时间';
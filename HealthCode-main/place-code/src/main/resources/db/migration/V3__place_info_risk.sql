@@ -0,0 +1,4 @@
+-- 场所信息表增加风险等级，由场所风险计算写入，场所风险缓存按 updated_at 增量刷新
+ALTER TABLE place_info
+    ADD COLUMN risk TINYINT NOT NULL DEFAULT 0 COMMENT '风险代码，0：green，1：yellow，2：red' AFTER status,
+    ADD INDEX place_info_idx_updated_at (updated_at);
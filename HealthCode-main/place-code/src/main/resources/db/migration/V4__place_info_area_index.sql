@@ -0,0 +1,3 @@
+-- 按区域分页查询场所，索引包含 pid 以便按 pid 翻页
+ALTER TABLE place_info
+    ADD INDEX place_info_idx_area_id (area_id, pid);
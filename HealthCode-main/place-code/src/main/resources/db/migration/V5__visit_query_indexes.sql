@@ -0,0 +1,13 @@
+-- 到访查询的覆盖索引
+
+-- 按场所和时间范围查询到访用户（同场人员、密接追踪），索引包含 uid 以避免回表，
+-- 取代原来的单列索引 (pid)
+ALTER TABLE place_mapping
+    DROP INDEX place_mapping_idx_pid,
+    ADD INDEX place_mapping_idx_pid_time (pid, time, uid);
+
+-- 按用户列表和时间范围查询到访场所（行程、密接追踪），索引包含 pid 以避免回表，
+-- 取代原来的 (uid, time)
+ALTER TABLE place_mapping
+    DROP INDEX place_mapping_idx_uid,
+    ADD INDEX place_mapping_idx_uid_time (uid, time, pid);
@@ -0,0 +1,15 @@
+-- place_mapping 按到访时间做日分区，过期分区由 VisitPartitionMaintainer 归档后删除
+-- 修改主键和分区都会复制整张表，执行期间阻塞扫码写入，应在低峰期升级
+
+-- 分区键必须包含在每个唯一索引中，主键改为 (id, time)，id 仍然自增且唯一；
+-- 分区键不能为空，time 改为 NOT NULL
+ALTER TABLE place_mapping
+    MODIFY time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '用户访问场所的时间',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, time);
+
+-- 初始只有兜底分区 p_max，维护任务启动后拆分出 pYYYYMMDD 日分区，并提前创建未来日期的分区
+ALTER TABLE place_mapping
+    PARTITION BY RANGE (TO_DAYS(time)) (
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,127 @@
+package org.software.code.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LongHashSet 的单元测试，覆盖元素 0、扩容、回移删除和遍历。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class LongHashSetTest {
+
+    @Test
+    void addContainsAndRemove() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(-7));
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(-7));
+        assertFalse(set.contains(43));
+        assertEquals(2, set.size());
+
+        assertTrue(set.remove(42));
+        assertFalse(set.remove(42));
+        assertFalse(set.contains(42));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void zeroIsAnOrdinaryElement() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertArrayEquals(new long[]{0}, set.toArray());
+
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        LongHashSet set = new LongHashSet(2);
+        for (long i = 1; i <= 10000; i++) {
+            // 雪花 ID 的低位规律，连续值会落在相邻槽位
+            assertTrue(set.add(i << 22));
+        }
+
+        assertEquals(10000, set.size());
+        for (long i = 1; i <= 10000; i++) {
+            assertTrue(set.contains(i << 22));
+        }
+        assertFalse(set.contains(10001L << 22));
+    }
+
+    @Test
+    void matchesHashSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(20240301L);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            // 取值范围较小，使探测链上的删除和回移足够频繁
+            long value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value), "remove " + value);
+            } else {
+                assertEquals(expected.add(value), set.add(value), "add " + value);
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value = 0; value < 2000; value++) {
+            assertEquals(expected.contains(value), set.contains(value), "contains " + value);
+        }
+        assertEquals(sorted(expected), sortedArray(set.toArray()));
+        Set<Long> visited = new HashSet<>();
+        set.forEach(value -> assertTrue(visited.add(value), "visited twice " + value));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void clearKeepsSetUsable() {
+        LongHashSet set = new LongHashSet();
+        set.add(0);
+        set.add(1);
+        set.add(2);
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(1));
+        assertEquals(0, set.toArray().length);
+        assertTrue(set.add(1));
+        assertArrayEquals(new long[]{1}, set.toArray());
+    }
+
+    private static String sorted(Set<Long> values) {
+        long[] array = new long[values.size()];
+        int i = 0;
+        for (long value : values) {
+            array[i++] = value;
+        }
+        return sortedArray(array);
+    }
+
+    private static String sortedArray(long[] array) {
+        long[] copy = array.clone();
+        Arrays.sort(copy);
+        return Arrays.toString(copy);
+    }
+}
@@ -0,0 +1,90 @@
+package org.software.code.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * LongIntHashMap 的单元测试，覆盖累加、键 0、扩容和遍历。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class LongIntHashMapTest {
+
+    @Test
+    void addToAccumulates() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertEquals(3, map.addTo(42, 3));
+        assertEquals(5, map.addTo(42, 2));
+        assertEquals(4, map.addTo(42, -1));
+        assertEquals(-2, map.addTo(7, -2));
+
+        assertEquals(4, map.get(42));
+        assertEquals(-2, map.get(7));
+        assertEquals(0, map.get(43));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void zeroIsAnOrdinaryKey() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertEquals(0, map.get(0));
+
+        assertEquals(1, map.addTo(0, 1));
+        assertEquals(3, map.addTo(0, 2));
+        assertEquals(3, map.get(0));
+        assertEquals(1, map.size());
+
+        Map<Long, Integer> entries = entries(map);
+        assertEquals(1, entries.size());
+        assertEquals(3, entries.get(0L));
+    }
+
+    @Test
+    void matchesHashMapAfterGrowth() {
+        Random random = new Random(20240301L);
+        LongIntHashMap map = new LongIntHashMap(2);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            // 雪花 ID 的低位规律，连续值会落在相邻槽位
+            long key = (long) random.nextInt(5000) << 22;
+            int delta = random.nextInt(10) - 3;
+            int sum = expected.merge(key, delta, Integer::sum);
+            assertEquals(sum, map.addTo(key, delta), "addTo " + key);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), map.get(entry.getKey()), "get " + entry.getKey());
+        }
+        assertEquals(expected, entries(map));
+    }
+
+    @Test
+    void clearKeepsMapUsable() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.addTo(0, 5);
+        map.addTo(1, 6);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(0));
+        assertEquals(0, map.get(1));
+        assertNull(entries(map).get(1L));
+        assertEquals(2, map.addTo(1, 2));
+        assertEquals(1, map.size());
+    }
+
+    private static Map<Long, Integer> entries(LongIntHashMap map) {
+        Map<Long, Integer> entries = new HashMap<>();
+        map.forEach((key, value) -> assertNull(entries.put(key, value), "visited twice " + key));
+        return entries;
+    }
+}
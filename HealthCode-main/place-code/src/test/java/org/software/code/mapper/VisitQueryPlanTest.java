@@ -0,0 +1,171 @@
+package org.software.code.mapper;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * place_mapping 到访查询执行计划的回归测试。
+ * 在嵌入式 MariaDB 上执行 Flyway 迁移，按 VisitPartitionMaintainer 的方式拆分日分区并写入测试数据，
+ * 对每个到访查询执行 EXPLAIN，断言其使用预期的覆盖索引并只访问时间范围内的分区。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class VisitQueryPlanTest {
+
+    private static final String SCHEMA = "health_code_place_code";
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static DB db;
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(SCHEMA);
+        String url = config.getURL(SCHEMA);
+
+        Flyway.configure().dataSource(url, "root", "").locations("classpath:db/migration").load().migrate();
+
+        connection = DriverManager.getConnection(url, "root", "");
+        try (Statement statement = connection.createStatement()) {
+            // 与维护任务生成的分区定义一致，覆盖测试数据所在的日期
+            StringBuilder definitions = new StringBuilder();
+            LocalDate today = LocalDate.now();
+            for (LocalDate day = today.minusDays(31); !day.isAfter(today.plusDays(1)); day = day.plusDays(1)) {
+                definitions.append("PARTITION ").append(partitionOf(day))
+                        .append(" VALUES LESS THAN (TO_DAYS('").append(day.plusDays(1)).append("')), ");
+            }
+            definitions.append("PARTITION p_max VALUES LESS THAN MAXVALUE");
+            statement.execute("ALTER TABLE place_mapping REORGANIZE PARTITION p_max INTO (" + definitions + ")");
+            // 数据量足够大时优化器才会按真实场景选择索引
+            statement.execute("INSERT INTO place_mapping (pid, uid, time) "
+                    + "SELECT seq % 2000, seq % 5000, NOW() - INTERVAL (seq % 30) DAY - INTERVAL (seq % 1440) MINUTE "
+                    + "FROM seq_1_to_100000");
+            statement.execute("ANALYZE TABLE place_mapping");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    @Test
+    void uidsByPidAndTimeAreCovered() throws SQLException {
+        Plan plan = explain("SELECT uid FROM place_mapping "
+                + "WHERE pid = 42 AND time >= NOW() - INTERVAL 14 DAY AND time <= NOW()");
+        assertUses(plan, "place_mapping_idx_pid_time");
+        assertEquals("range", plan.type);
+        assertCovered(plan);
+    }
+
+    @Test
+    void pidsByUidListAndTimeAreCovered() throws SQLException {
+        Plan plan = explain("SELECT pid FROM place_mapping "
+                + "WHERE uid IN (1, 42, 4242) AND time >= NOW() - INTERVAL 14 DAY AND time < NOW()");
+        assertUses(plan, "place_mapping_idx_uid_time");
+        assertEquals("range", plan.type);
+        assertCovered(plan);
+    }
+
+    @Test
+    void oneDayQueryPrunesPartitions() throws SQLException {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Plan plan = explain("SELECT uid FROM place_mapping "
+                + "WHERE pid = 42 AND time >= CURDATE() - INTERVAL 1 DAY AND time < CURDATE()");
+        assertNotNull(plan.partitions, "No partition information: " + plan);
+        List<String> partitions = Arrays.asList(plan.partitions.split(","));
+        // TO_DAYS 不是严格单调的，右端点所在的分区可能无法排除
+        assertTrue(partitions.size() <= 2, "Partitions not pruned: " + plan);
+        assertTrue(partitions.contains(partitionOf(yesterday)), "Unexpected partitions: " + plan);
+        assertFalse(partitions.contains("p_max"), "Unexpected partitions: " + plan);
+    }
+
+    @Test
+    void recentWindowSkipsOldPartitions() throws SQLException {
+        Plan plan = explain("SELECT MIN(id) FROM place_mapping WHERE time >= CURDATE() - INTERVAL 14 DAY");
+        assertNotNull(plan.partitions, "No partition information: " + plan);
+        List<String> partitions = Arrays.asList(plan.partitions.split(","));
+        assertFalse(partitions.contains(partitionOf(LocalDate.now().minusDays(15))), "Partitions not pruned: " + plan);
+        assertTrue(partitions.contains(partitionOf(LocalDate.now())), "Unexpected partitions: " + plan);
+    }
+
+    private static Plan explain(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN PARTITIONS " + sql)) {
+            assertTrue(resultSet.next(), "No plan for " + sql);
+            return new Plan(resultSet.getString("table"), resultSet.getString("partitions"),
+                    resultSet.getString("type"), resultSet.getString("key"), resultSet.getString("Extra"));
+        }
+    }
+
+    private static void assertUses(Plan plan, String index) {
+        assertNotEquals("ALL", plan.type, "Full table scan: " + plan);
+        assertEquals(index, plan.key, "Unexpected index: " + plan);
+    }
+
+    private static void assertCovered(Plan plan) {
+        assertTrue(plan.extra != null && plan.extra.contains("Using index"), "Not a covering index: " + plan);
+    }
+
+    private static String partitionOf(LocalDate day) {
+        return "p" + day.format(DAY_FORMAT);
+    }
+
+    private static final class Plan {
+
+        private final String table;
+
+        private final String partitions;
+
+        private final String type;
+
+        private final String key;
+
+        private final String extra;
+
+        private Plan(String table, String partitions, String type, String key, String extra) {
+            this.table = table;
+            this.partitions = partitions;
+            this.type = type;
+            this.key = key;
+            this.extra = extra;
+        }
+
+        @Override
+        public String toString() {
+            return "table=" + table + ", partitions=" + partitions + ", type=" + type
+                    + ", key=" + key + ", extra=" + extra;
+        }
+    }
+}
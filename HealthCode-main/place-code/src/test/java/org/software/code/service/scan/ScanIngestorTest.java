@@ -0,0 +1,154 @@
+package org.software.code.service.scan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.software.code.entity.PlaceMapping;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.software.code.service.scan.ScanSpoolTest.record;
+import static org.software.code.service.scan.ScanSpoolTest.records;
+
+/**
+ * ScanIngestor 补写暂存记录的单元测试，覆盖逐条重试、死信、补写失败后放回，以及补写中途崩溃后的重新补写。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class ScanIngestorTest {
+
+    @TempDir
+    Path dir;
+
+    private ScanSpool spool;
+
+    private PlaceMappingMapper mapper;
+
+    private final List<PlaceMapping> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        spool = new ScanSpool();
+        ReflectionTestUtils.setField(spool, "spoolFile", dir.resolve("scan-spool.data").toString());
+        ReflectionTestUtils.setField(spool, "deadLetterFile", dir.resolve("scan-dead-letter.data").toString());
+        mapper = mock(PlaceMappingMapper.class);
+    }
+
+    @Test
+    void replaysAllScansInBatches() {
+        spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000), record(3, 30, 3000)));
+        failOn(0, null);
+
+        replay(newIngestor(2, 10));
+
+        assertEquals(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000), record(3, 30, 3000)), written);
+        assertFalse(Files.exists(dir.resolve("scan-spool.data.draining")));
+        assertTrue(spool.drain().isEmpty());
+    }
+
+    @Test
+    void rejectedScanGoesToDeadLetter() throws IOException {
+        spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000), record(3, 30, 3000)));
+        failOn(2, new DataIntegrityViolationException("Data too long"));
+
+        replay(newIngestor(2, 10));
+
+        assertEquals(Arrays.asList(record(1, 10, 1000), record(3, 30, 3000)), written);
+        assertEquals(Collections.singletonList("2\t20\t2000\t1"),
+                Files.readAllLines(dir.resolve("scan-dead-letter.data"), StandardCharsets.UTF_8));
+        assertTrue(spool.drain().isEmpty());
+    }
+
+    @Test
+    void failedReplayPutsRemainingScansBack() {
+        spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000),
+                record(3, 30, 3000), record(4, 40, 4000)));
+        failOn(2, new QueryTimeoutException("Lock wait timeout"));
+
+        replay(newIngestor(2, 10));
+
+        assertEquals(Collections.singletonList(record(1, 10, 1000)), written);
+        List<ScanSpool.SpooledScan> left = spool.drain();
+        assertEquals(Arrays.asList(record(2, 20, 2000), record(3, 30, 3000), record(4, 40, 4000)), records(left));
+        assertEquals(1, left.get(0).getAttempts());
+        assertEquals(0, left.get(1).getAttempts());
+    }
+
+    @Test
+    void exhaustedScanGoesToDeadLetter() throws IOException {
+        spool.append(Collections.singletonList(record(2, 20, 2000)));
+        failOn(2, new QueryTimeoutException("Lock wait timeout"));
+
+        replay(newIngestor(2, 1));
+
+        assertTrue(written.isEmpty());
+        assertEquals(Collections.singletonList("2\t20\t2000\t1"),
+                Files.readAllLines(dir.resolve("scan-dead-letter.data"), StandardCharsets.UTF_8));
+        assertTrue(spool.drain().isEmpty());
+    }
+
+    @Test
+    void crashDuringReplayReplaysAgainOnRestart() {
+        spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000), record(3, 30, 3000)));
+        // 写入第一批后进程退出，异常不会被补写逻辑捕获
+        failOn(3, new StackOverflowError());
+        ScanIngestor crashed = newIngestor(2, 10);
+        assertThrows(StackOverflowError.class, () -> replay(crashed));
+        assertEquals(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000)), written);
+
+        written.clear();
+        failOn(0, null);
+        replay(newIngestor(2, 10));
+
+        // 至少写入一次：已写入的第一批会被重新写入
+        assertEquals(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000), record(3, 30, 3000)), written);
+        assertTrue(spool.drain().isEmpty());
+    }
+
+    private ScanIngestor newIngestor(int maxBatchSize, int spoolMaxRetries) {
+        ScanIngestor ingestor = new ScanIngestor();
+        ReflectionTestUtils.setField(ingestor, "maxBatchSize", maxBatchSize);
+        ReflectionTestUtils.setField(ingestor, "spoolMaxRetries", spoolMaxRetries);
+        ReflectionTestUtils.setField(ingestor, "placeMappingMapper", mapper);
+        ReflectionTestUtils.setField(ingestor, "scanSpool", spool);
+        return ingestor;
+    }
+
+    private static void replay(ScanIngestor ingestor) {
+        ReflectionTestUtils.invokeMethod(ingestor, "replaySpool");
+    }
+
+    /**
+     * 写入包含指定用户的记录时抛出 failure，其余记录写入 written。
+     */
+    private void failOn(long uid, Throwable failure) {
+        doAnswer(invocation -> {
+            List<PlaceMapping> records = invocation.getArgument(0);
+            for (PlaceMapping record : records) {
+                if (failure != null && record.getUid() == uid) {
+                    throw failure;
+                }
+            }
+            written.addAll(records);
+            return records.size();
+        }).when(mapper).insertBatch(anyList());
+    }
+}
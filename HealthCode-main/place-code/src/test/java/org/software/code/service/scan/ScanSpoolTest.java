@@ -0,0 +1,160 @@
+package org.software.code.service.scan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.software.code.entity.PlaceMapping;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ScanSpool 的单元测试，覆盖取出、补写中途崩溃后的重新取出、补写次数和死信文件。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class ScanSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    private Path spoolFile;
+
+    private Path deadLetterFile;
+
+    @BeforeEach
+    void setUp() {
+        spoolFile = dir.resolve("scan-spool.data");
+        deadLetterFile = dir.resolve("scan-dead-letter.data");
+    }
+
+    @Test
+    void drainReturnsAppendedScansUntilComplete() {
+        ScanSpool spool = newSpool();
+        assertTrue(spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000))));
+
+        List<ScanSpool.SpooledScan> scans = spool.drain();
+
+        assertEquals(2, scans.size());
+        assertEquals(record(1, 10, 1000), scans.get(0).getRecord());
+        assertEquals(record(2, 20, 2000), scans.get(1).getRecord());
+        assertEquals(0, scans.get(0).getAttempts());
+        assertTrue(Files.exists(draining()));
+        assertFalse(Files.exists(spoolFile));
+
+        spool.complete();
+
+        assertFalse(Files.exists(draining()));
+        assertTrue(spool.drain().isEmpty());
+    }
+
+    @Test
+    void crashDuringReplayDrainsSameScansAgain() {
+        ScanSpool spool = newSpool();
+        spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000)));
+        assertEquals(2, spool.drain().size());
+        // 取出后、complete 之前进程退出，期间又有新记录写入暂存文件
+        ScanSpool restarted = newSpool();
+        restarted.append(Collections.singletonList(record(3, 30, 3000)));
+
+        List<ScanSpool.SpooledScan> scans = restarted.drain();
+
+        assertEquals(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000)), records(scans));
+        restarted.complete();
+        assertEquals(Collections.singletonList(record(3, 30, 3000)), records(restarted.drain()));
+    }
+
+    @Test
+    void retryLaterCountsAttemptsAndRequeueKeepsThem() {
+        ScanSpool spool = newSpool();
+        spool.append(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000)));
+        List<ScanSpool.SpooledScan> first = spool.drain();
+        assertTrue(spool.retryLater(first.get(0)));
+        assertTrue(spool.requeue(first.subList(1, 2)));
+        spool.complete();
+
+        List<ScanSpool.SpooledScan> second = spool.drain();
+        assertEquals(Arrays.asList(record(1, 10, 1000), record(2, 20, 2000)), records(second));
+        assertEquals(1, second.get(0).getAttempts());
+        assertEquals(0, second.get(1).getAttempts());
+        assertTrue(spool.retryLater(second.get(0)));
+        spool.complete();
+
+        assertEquals(2, spool.drain().get(0).getAttempts());
+    }
+
+    @Test
+    void deadLetterAndMalformedLinesAreSetAside() throws IOException {
+        Files.write(spoolFile, Arrays.asList("1\t10\t1000\t0", "not a scan", "", "2\tx\t2000"),
+                StandardCharsets.UTF_8);
+        ScanSpool spool = newSpool();
+
+        List<ScanSpool.SpooledScan> scans = spool.drain();
+        assertEquals(Collections.singletonList(record(1, 10, 1000)), records(scans));
+        assertTrue(spool.deadLetter(scans.get(0)));
+        spool.complete();
+
+        assertEquals(Arrays.asList("not a scan", "2\tx\t2000", "1\t10\t1000\t1"),
+                Files.readAllLines(deadLetterFile, StandardCharsets.UTF_8));
+        assertTrue(spool.drain().isEmpty());
+    }
+
+    @Test
+    void onlyMalformedLinesCompleteTheDrain() throws IOException {
+        Files.write(spoolFile, Collections.singletonList("garbage"), StandardCharsets.UTF_8);
+        ScanSpool spool = newSpool();
+
+        assertTrue(spool.drain().isEmpty());
+
+        assertFalse(Files.exists(draining()));
+        assertEquals(Collections.singletonList("garbage"), Files.readAllLines(deadLetterFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readsLegacyLinesWithoutAttempts() throws IOException {
+        Files.write(spoolFile, Collections.singletonList("7\t70\t7000"), StandardCharsets.UTF_8);
+
+        List<ScanSpool.SpooledScan> scans = newSpool().drain();
+
+        assertEquals(Collections.singletonList(record(7, 70, 7000)), records(scans));
+        assertEquals(0, scans.get(0).getAttempts());
+    }
+
+    private ScanSpool newSpool() {
+        ScanSpool spool = new ScanSpool();
+        ReflectionTestUtils.setField(spool, "spoolFile", spoolFile.toString());
+        ReflectionTestUtils.setField(spool, "deadLetterFile", deadLetterFile.toString());
+        return spool;
+    }
+
+    private Path draining() {
+        return dir.resolve("scan-spool.data.draining");
+    }
+
+    static PlaceMapping record(long uid, long pid, long time) {
+        PlaceMapping record = new PlaceMapping();
+        record.setUid(uid);
+        record.setPid(pid);
+        record.setTime(new Date(time));
+        return record;
+    }
+
+    static List<PlaceMapping> records(List<ScanSpool.SpooledScan> scans) {
+        PlaceMapping[] records = new PlaceMapping[scans.size()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = scans.get(i).getRecord();
+        }
+        return Arrays.asList(records);
+    }
+}
@@ -0,0 +1,225 @@
+package org.software.code.service.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.software.code.mapper.PlaceMappingMapper;
+import org.software.code.service.visit.VisitConsumer;
+import org.software.code.service.visit.VisitIndex;
+import org.software.code.vo.ContactTraceVo;
+import org.software.code.vo.ContactVo;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ContactTracer 的单元测试。
+ * 到访索引用内存中的到访列表模拟，覆盖同场时间窗口的边界、次密接展开、追踪时间范围的截断和切换时间之前到访的排除。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class ContactTracerTest {
+
+    // 2024-03-01 00:00:00 UTC
+    private static final long DAY = 1709251200L;
+
+    private static final int WINDOW_MINUTES = 15;
+
+    private final List<long[]> visits = new ArrayList<>();
+
+    private ContactTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        VisitIndex visitIndex = mock(VisitIndex.class);
+        when(visitIndex.isReady()).thenReturn(true);
+        when(visitIndex.getCoverageStart()).thenReturn(new Date(0));
+        doAnswer(invocation -> {
+            long[] uids = invocation.getArgument(0);
+            long from = invocation.getArgument(1);
+            long to = invocation.getArgument(2);
+            VisitConsumer consumer = invocation.getArgument(3);
+            for (long[] visit : visits) {
+                if (Arrays.binarySearch(uids, visit[0]) >= 0 && visit[2] >= from && visit[2] <= to) {
+                    consumer.accept(visit[0], visit[1], visit[2]);
+                }
+            }
+            return null;
+        }).when(visitIndex).forEachVisitOfUids(any(long[].class), anyLong(), anyLong(), any(VisitConsumer.class));
+        doAnswer(invocation -> {
+            long pid = invocation.getArgument(0);
+            long from = invocation.getArgument(1);
+            long to = invocation.getArgument(2);
+            VisitConsumer consumer = invocation.getArgument(3);
+            for (long[] visit : visits) {
+                if (visit[1] == pid && visit[2] >= from && visit[2] <= to) {
+                    consumer.accept(visit[0], visit[1], visit[2]);
+                }
+            }
+            return null;
+        }).when(visitIndex).forEachVisitOfPid(anyLong(), anyLong(), anyLong(), any(VisitConsumer.class));
+
+        tracer = new ContactTracer();
+        ReflectionTestUtils.setField(tracer, "parallelism", 2);
+        ReflectionTestUtils.setField(tracer, "defaultLimit", 1000);
+        ReflectionTestUtils.setField(tracer, "maxLimit", 10000);
+        ReflectionTestUtils.setField(tracer, "maxSecondDegreeSources", 5000);
+        ReflectionTestUtils.setField(tracer, "maxListed", 20);
+        ReflectionTestUtils.setField(tracer, "preciseVisitsSince", "");
+        ReflectionTestUtils.setField(tracer, "visitIndex", visitIndex);
+        ReflectionTestUtils.setField(tracer, "placeMappingMapper", mock(PlaceMappingMapper.class));
+        tracer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracer.shutdown();
+    }
+
+    @Test
+    void findsContactsWithinWindow() {
+        visit(1, 100, 3600);
+        // 窗口两端的边界
+        visit(2, 100, 3600 + 900);
+        visit(4, 100, 3600 - 900);
+        visit(3, 100, 3600 + 901);
+        visit(5, 100, 3600 - 901);
+        // 同一时间的其他场所
+        visit(6, 200, 3600);
+
+        ContactTraceVo result = trace(Collections.singletonList(1L), 0, 86399, 1);
+
+        assertEquals(Arrays.asList(2L, 4L), uids(result.getContacts()));
+        assertEquals(2, result.getFirstDegreeCount());
+        assertEquals(0, result.getSecondDegreeCount());
+        assertFalse(result.getRangeClipped());
+        ContactVo contact = result.getContacts().get(0);
+        assertEquals(1, contact.getDegree());
+        assertEquals(1L, contact.getEncounters());
+        assertEquals(Collections.singletonList(100L), contact.getSharedPlaces());
+        assertEquals(Collections.singletonList(1L), contact.getSources());
+    }
+
+    @Test
+    void countsEveryEncounterWithUnorderedVisits() {
+        // 到访按时间乱序输出，依赖场所分组内的排序
+        visit(1, 100, 7000);
+        visit(11, 100, 3000);
+        visit(1, 100, 3600);
+        visit(11, 100, 3500);
+        visit(9, 100, 3300);
+        visit(9, 300, 5000);
+        visit(11, 300, 5500);
+
+        ContactTraceVo result = trace(Arrays.asList(11L, 1L, 11L), 0, 86399, 1);
+
+        assertEquals(2, result.getSeedCount());
+        assertEquals(Collections.singletonList(9L), uids(result.getContacts()));
+        ContactVo contact = result.getContacts().get(0);
+        // 场所 100 与 11 的两次、1 的一次到访同场，场所 300 与 11 同场
+        assertEquals(4L, contact.getEncounters());
+        assertEquals(Arrays.asList(100L, 300L), contact.getSharedPlaces());
+        assertEquals(Arrays.asList(1L, 11L), contact.getSources());
+    }
+
+    @Test
+    void expandsSecondDegreeExcludingSeedsAndFirstDegree() {
+        visit(1, 100, 3600);
+        visit(2, 100, 3700);
+        visit(4, 100, 3800);
+        visit(2, 300, 7200);
+        visit(4, 300, 7200);
+        visit(6, 300, 7100);
+        // 与 2、4 同场，但与 6 相差超过窗口，展开次密接时应被排除
+        visit(1, 300, 8050);
+
+        ContactTraceVo result = trace(Collections.singletonList(1L), 0, 86399, 2);
+
+        assertEquals(Arrays.asList(2L, 4L, 6L), uids(result.getContacts()));
+        assertEquals(2, result.getFirstDegreeCount());
+        assertEquals(1, result.getSecondDegreeCount());
+        ContactVo second = result.getContacts().get(2);
+        assertEquals(2, second.getDegree());
+        // 6 与 2、4 同场，seed 1 不作为次密接的来源
+        assertEquals(Arrays.asList(2L, 4L), second.getSources());
+        assertFalse(result.getTruncated());
+    }
+
+    @Test
+    void ignoresVisitsOutsideTracedRange() {
+        visit(1, 100, 3600 + 60);
+        visit(7, 100, 3600 - 60);
+        visit(1, 200, 7200 - 60);
+        visit(8, 200, 7200 + 60);
+        visit(9, 100, 3600 + 120);
+
+        ContactTraceVo result = trace(Collections.singletonList(1L), 3600, 7200, 1);
+
+        // 窗口超出追踪范围的部分不扫描
+        assertEquals(Collections.singletonList(9L), uids(result.getContacts()));
+    }
+
+    @Test
+    void skipsVisitsBeforePreciseTime() {
+        visit(1, 100, 0);
+        visit(2, 100, 0);
+        visit(1, 200, 7200);
+        visit(3, 200, 7300);
+        Date since = new Date((DAY + 3600) * 1000);
+        ReflectionTestUtils.setField(tracer, "preciseVisitsSince",
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(since));
+        tracer.shutdown();
+        tracer.init();
+
+        ContactTraceVo result = trace(Collections.singletonList(1L), 0, 86399, 1);
+
+        assertTrue(result.getRangeClipped());
+        assertEquals(since, result.getPreciseSince());
+        assertEquals(Collections.singletonList(3L), uids(result.getContacts()));
+    }
+
+    @Test
+    void limitsReturnedContacts() {
+        visit(1, 100, 3600);
+        for (long uid = 20; uid < 30; uid++) {
+            visit(uid, 100, 3600 + uid);
+        }
+
+        ContactTraceVo result = tracer.trace(Collections.singletonList(1L), new Date(DAY * 1000),
+                new Date((DAY + 86399) * 1000), WINDOW_MINUTES, 1, 3);
+
+        assertEquals(10, result.getFirstDegreeCount());
+        assertEquals(Arrays.asList(20L, 21L, 22L), uids(result.getContacts()));
+    }
+
+    private void visit(long uid, long pid, long second) {
+        visits.add(new long[]{uid, pid, DAY + second});
+    }
+
+    private ContactTraceVo trace(List<Long> seeds, long fromSecond, long toSecond, int degree) {
+        return tracer.trace(seeds, new Date((DAY + fromSecond) * 1000), new Date((DAY + toSecond) * 1000),
+                WINDOW_MINUTES, degree, null);
+    }
+
+    private static List<Long> uids(List<ContactVo> contacts) {
+        List<Long> uids = new ArrayList<>(contacts.size());
+        for (ContactVo contact : contacts) {
+            uids.add(contact.getUid());
+        }
+        return uids;
+    }
+}
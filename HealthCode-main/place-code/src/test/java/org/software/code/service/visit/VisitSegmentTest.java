@@ -0,0 +1,153 @@
+package org.software.code.service.visit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * VisitSegment 的单元测试。
+ * 用随机生成的到访记录分别建段、两两合并，与逐条过滤的结果比较按场所和按用户两种查询。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+class VisitSegmentTest {
+
+    private static final long BASE_SECOND = 1709251200L;
+
+    @Test
+    void buildSortsUnorderedVisits() {
+        List<long[]> visits = Arrays.asList(
+                new long[]{30, 2, 50}, new long[]{10, 1, 70}, new long[]{20, 2, 10}, new long[]{10, 2, 30});
+        VisitSegment segment = build(visits);
+
+        assertEquals(4, segment.size());
+        assertEquals(Arrays.asList("10/2/30", "20/2/10", "30/2/50"), ofPid(segment, 2, 0, 86399));
+        assertEquals(Arrays.asList("10/2/30"), ofPid(segment, 2, 20, 40));
+        assertEquals(Arrays.asList("10/1/70", "10/2/30"), ofUids(segment, new long[]{10}, 0, 86399));
+        assertEquals(Collections.emptyList(), ofPid(segment, 3, 0, 86399));
+        assertEquals(Collections.emptyList(), ofUids(segment, new long[]{5, 15, 40}, 0, 86399));
+    }
+
+    @Test
+    void mergedSegmentsMatchSingleSegment() {
+        Random random = new Random(20240301L);
+        List<long[]> all = new ArrayList<>();
+        VisitSegment merged = null;
+        for (int round = 0; round < 6; round++) {
+            List<long[]> visits = randomVisits(random, 1 + random.nextInt(400));
+            all.addAll(visits);
+            VisitSegment segment = build(visits);
+            // 交替左右合并，覆盖两侧段大小不同的情况
+            merged = merged == null ? segment
+                    : round % 2 == 0 ? VisitSegment.merge(merged, segment) : VisitSegment.merge(segment, merged);
+        }
+
+        assertEquals(all.size(), merged.size());
+        for (long pid = 0; pid <= 21; pid++) {
+            assertEquals(expectedOfPid(all, pid, 3600, 7200), ofPid(merged, pid, 3600, 7200), "pid " + pid);
+            assertEquals(expectedOfPid(all, pid, 0, 86399), ofPid(merged, pid, 0, 86399), "pid " + pid);
+        }
+        // 少量用户逐个二分查找，大量用户与段归并扫描
+        long[] few = {3, 17, 42};
+        long[] many = new long[200];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = i;
+        }
+        assertEquals(expectedOfUids(all, few, 3600, 7200), ofUids(merged, few, 3600, 7200));
+        assertEquals(expectedOfUids(all, many, 0, 86399), ofUids(merged, many, 0, 86399));
+    }
+
+    @Test
+    void mergeWithEmptySegment() {
+        VisitSegment segment = build(Arrays.asList(new long[]{1, 9, 100}, new long[]{2, 9, 200}));
+        VisitSegment empty = build(Collections.<long[]>emptyList());
+
+        assertEquals(ofPid(segment, 9, 0, 86399), ofPid(VisitSegment.merge(empty, segment), 9, 0, 86399));
+        assertEquals(ofPid(segment, 9, 0, 86399), ofPid(VisitSegment.merge(segment, empty), 9, 0, 86399));
+    }
+
+    @Test
+    void uidAndPidConsumersSeeEveryVisit() {
+        VisitSegment segment = build(Arrays.asList(
+                new long[]{1, 9, 100}, new long[]{1, 9, 150}, new long[]{2, 9, 200}, new long[]{2, 8, 300}));
+        List<Long> uids = new ArrayList<>();
+        List<Long> pids = new ArrayList<>();
+
+        segment.forEachUidOfPid(9, 0, 86399, uids::add);
+        segment.forEachPidOfUids(new long[]{1, 2}, 120, 86399, pids::add);
+
+        assertEquals(Arrays.asList(1L, 1L, 2L), uids);
+        Collections.sort(pids);
+        assertEquals(Arrays.asList(8L, 9L, 9L), pids);
+    }
+
+    private static List<long[]> randomVisits(Random random, int count) {
+        List<long[]> visits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            visits.add(new long[]{random.nextInt(120), random.nextInt(20), random.nextInt(86400)});
+        }
+        return visits;
+    }
+
+    private static VisitSegment build(List<long[]> visits) {
+        int size = visits.size();
+        long[] uids = new long[size];
+        long[] pids = new long[size];
+        int[] seconds = new int[size];
+        for (int i = 0; i < size; i++) {
+            uids[i] = visits.get(i)[0];
+            pids[i] = visits.get(i)[1];
+            seconds[i] = (int) visits.get(i)[2];
+        }
+        return VisitSegment.build(uids, pids, seconds, size);
+    }
+
+    private static List<String> ofPid(VisitSegment segment, long pid, int fromSecond, int toSecond) {
+        List<String> result = new ArrayList<>();
+        segment.forEachVisitOfPid(pid, fromSecond, toSecond, BASE_SECOND,
+                (uid, visitPid, time) -> result.add(format(uid, visitPid, time - BASE_SECOND)));
+        return sorted(result);
+    }
+
+    private static List<String> ofUids(VisitSegment segment, long[] sortedUids, int fromSecond, int toSecond) {
+        List<String> result = new ArrayList<>();
+        segment.forEachVisitOfUids(sortedUids, fromSecond, toSecond, BASE_SECOND,
+                (uid, pid, time) -> result.add(format(uid, pid, time - BASE_SECOND)));
+        return sorted(result);
+    }
+
+    private static List<String> expectedOfPid(List<long[]> visits, long pid, int fromSecond, int toSecond) {
+        List<String> result = new ArrayList<>();
+        for (long[] visit : visits) {
+            if (visit[1] == pid && visit[2] >= fromSecond && visit[2] <= toSecond) {
+                result.add(format(visit[0], visit[1], visit[2]));
+            }
+        }
+        return sorted(result);
+    }
+
+    private static List<String> expectedOfUids(List<long[]> visits, long[] uids, int fromSecond, int toSecond) {
+        List<String> result = new ArrayList<>();
+        for (long[] visit : visits) {
+            if (Arrays.binarySearch(uids, visit[0]) >= 0 && visit[2] >= fromSecond && visit[2] <= toSecond) {
+                result.add(format(visit[0], visit[1], visit[2]));
+            }
+        }
+        return sorted(result);
+    }
+
+    private static String format(long uid, long pid, long second) {
+        return uid + "/" + pid + "/" + second;
+    }
+
+    private static List<String> sorted(List<String> visits) {
+        Collections.sort(visits);
+        return visits;
+    }
+}
@@ -3,6 +3,7 @@ package org.software.code.controller;
 import org.software.code.common.result.Result;
 import org.software.code.dto.AreaCodeDto;
 import org.software.code.service.UserService;
+import org.software.code.vo.AreaCodeSnapshotVo;
 import org.software.code.vo.AreaCodeVo;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -73,4 +74,20 @@ public class AreaCodeController {
     // 返回包含区域码列表信息的成功结果
     return Result.success(list);
   }
-}
\ No newline at end of file
+
+  /**
+   * 获取全部区域编码的快照，供其他服务在本地缓存区域编码。
+   * 该方法处理 GET 请求，请求路径为 /user/area_code/all，调用方可以传入上次拿到的版本号，
+   * 区域编码未发生变化时只返回版本号，不再返回完整列表。
+   *
+   * @param version 调用方已缓存的版本号，首次获取时不传。
+   * @return 返回一个统一的结果对象，包含区域编码快照。
+   */
+  @GetMapping("/area_code/all")
+  public Result<?> getAreaCodeSnapshot(@RequestParam(name = "version", required = false) String version) {
+    // 调用 UserService 的 getAreaCodeSnapshot 方法，获取区域编码快照
+    AreaCodeSnapshotVo snapshotVo = userService.getAreaCodeSnapshot(version);
+    // 返回包含区域编码快照的成功结果
+    return Result.success(snapshotVo);
+  }
+}
@@ -13,6 +13,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.util.List;
 
@@ -58,6 +59,34 @@ public class UserInternalController {
         return Result.success(userInfoVo);
     }
 
+    /**
+     * 根据用户 ID 列表批量获取用户信息。
+     *
+     * @param uidList 用户唯一标识列表，通过请求体传递，不能为空。
+     * @return 返回一个包含用户信息列表的统一结果对象，不存在的用户会被忽略。
+     */
+    @PostMapping("/getUserListByUIDList")
+    public Result<?> getUserListByUIDList(@RequestBody @NotEmpty(message = "uid列表不能为空") List<Long> uidList) {
+        // 调用 UserService 的 getUserListByUIDList 方法，批量获取用户信息
+        List<UserInfoVo> userInfoVoList = userService.getUserListByUIDList(uidList);
+        // 返回包含用户信息列表的成功结果
+        return Result.success(userInfoVoList);
+    }
+
+    /**
+     * 根据身份证号码列表批量获取用户信息。
+     *
+     * @param identityCardList 用户身份证号码列表，通过请求体传递，不能为空。
+     * @return 返回一个包含用户信息列表的统一结果对象，不存在的用户会被忽略。
+     */
+    @PostMapping("/getUserListByIDList")
+    public Result<?> getUserListByIDList(@RequestBody @NotEmpty(message = "身份证号列表不能为空") List<String> identityCardList) {
+        // 调用 UserService 的 getUserListByIDList 方法，批量获取用户信息
+        List<UserInfoVo> userInfoVoList = userService.getUserListByIDList(identityCardList);
+        // 返回包含用户信息列表的成功结果
+        return Result.success(userInfoVoList);
+    }
+
     /**
      * 用户登录接口，使用 code 进行登录。
      *
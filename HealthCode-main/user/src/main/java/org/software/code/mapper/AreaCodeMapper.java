@@ -2,6 +2,7 @@ package org.software.code.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
 import org.software.code.entity.AreaCode;
 
 /**
@@ -13,6 +14,15 @@ import org.software.code.entity.AreaCode;
 */
 @Mapper
 public interface AreaCodeMapper extends BaseMapper<AreaCode> {
+
+    /**
+     * 查询区域编码表的版本号，由记录数、最大 ID 和最近更新时间拼接而成，
+     * 表中记录发生新增、修改或删除后版本号都会变化。
+     *
+     * @return 版本号
+     */
+    @Select("SELECT CONCAT(COUNT(*), '-', IFNULL(MAX(id), 0), '-', IFNULL(UNIX_TIMESTAMP(MAX(updated_at)), 0)) FROM area_code")
+    String selectVersion();
 }
 
 
@@ -31,6 +31,22 @@ public interface UserService {
      */
     UserInfoVo getUserByID(String identity_card);
 
+    /**
+     * 根据用户唯一标识（UID）列表批量获取用户信息，不存在的 UID 会被忽略。
+     *
+     * @param uidList 用户唯一标识列表
+     * @return 用户信息视图对象列表
+     */
+    List<UserInfoVo> getUserListByUIDList(List<Long> uidList);
+
+    /**
+     * 根据身份证号列表批量获取用户信息，不存在的身份证号会被忽略。
+     *
+     * @param identityCardList 用户身份证号列表
+     * @return 用户信息视图对象列表
+     */
+    List<UserInfoVo> getUserListByIDList(List<String> identityCardList);
+
     /**
      * 用户登录方法，使用微信小程序登录返回的 code 进行登录操作。
      *
@@ -171,4 +187,12 @@ public interface UserService {
      * @return 区域编码信息视图对象列表
      */
     List<AreaCodeVo> getAreaCodeList(AreaCodeDto dto);
-}
\ No newline at end of file
+
+    /**
+     * 获取全部区域编码的快照，供其他服务在本地缓存区域编码。
+     *
+     * @param version 调用方已缓存的版本号，可以为 null
+     * @return 区域编码快照，版本号未变化时不包含区域编码列表
+     */
+    AreaCodeSnapshotVo getAreaCodeSnapshot(String version);
+}
@@ -39,6 +39,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -210,6 +211,76 @@ public class UserServiceImpl implements UserService {
         return userInfoVo;
     }
 
+    /**
+     * 根据用户 UID 列表批量获取用户信息。
+     * 用户信息和区域编码各只查询一次数据库，避免逐个调用 getUserByUID 带来的多次往返。
+     *
+     * @param uidList 用户 UID 列表
+     * @return 用户信息视图对象列表，不存在的 UID 不会出现在结果中
+     */
+    @Override
+    public List<UserInfoVo> getUserListByUIDList(List<Long> uidList) {
+        if (uidList == null || uidList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        LambdaQueryWrapper<UserInfo> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(UserInfo::getUid, uidList.stream().distinct().collect(Collectors.toList()));
+        return toUserInfoVoList(userInfoMapper.selectList(queryWrapper));
+    }
+
+    /**
+     * 根据身份证号列表批量获取用户信息。
+     *
+     * @param identityCardList 用户身份证号列表
+     * @return 用户信息视图对象列表，不存在的身份证号不会出现在结果中
+     */
+    @Override
+    public List<UserInfoVo> getUserListByIDList(List<String> identityCardList) {
+        if (identityCardList == null || identityCardList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        LambdaQueryWrapper<UserInfo> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(UserInfo::getIdentityCard, identityCardList.stream().distinct().collect(Collectors.toList()));
+        return toUserInfoVoList(userInfoMapper.selectList(queryWrapper));
+    }
+
+    /**
+     * 将用户信息实体列表转换为视图对象列表，区域编码通过一次 IN 查询批量获取。
+     *
+     * @param userInfoList 用户信息实体列表
+     * @return 用户信息视图对象列表
+     */
+    private List<UserInfoVo> toUserInfoVoList(List<UserInfo> userInfoList) {
+        if (userInfoList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 批量查询所有用到的区域编码
+        List<Long> areaIds = userInfoList.stream()
+                .map(UserInfo::getAreaId)
+                .distinct()
+                .collect(Collectors.toList());
+        LambdaQueryWrapper<AreaCode> areaCodeQueryWrapper = new LambdaQueryWrapper<>();
+        areaCodeQueryWrapper.in(AreaCode::getId, areaIds);
+        Map<Long, AreaCode> areaCodeMap = areaCodeMapper.selectList(areaCodeQueryWrapper).stream()
+                .collect(Collectors.toMap(AreaCode::getId, areaCode -> areaCode));
+
+        List<UserInfoVo> result = new ArrayList<>(userInfoList.size());
+        for (UserInfo userInfo : userInfoList) {
+            UserInfoVo userInfoVo = new UserInfoVo();
+            // 将 UserInfo 实体的属性复制到 UserInfoVo 视图对象中
+            BeanUtils.copyProperties(userInfo, userInfoVo);
+            AreaCode areaCode = areaCodeMap.get(userInfo.getAreaId());
+            if (areaCode != null) {
+                // 将区域编码信息复制到 UserInfoVo 视图对象中
+                userInfoVo.setDistrict(areaCode.getDistrict());
+                userInfoVo.setStreet(areaCode.getStreet());
+                userInfoVo.setCommunity(areaCode.getCommunity());
+            }
+            result.add(userInfoVo);
+        }
+        return result;
+    }
+
     /**
      * 根据微信的 openID 获取对应的用户 UID。
      *
@@ -913,4 +984,32 @@ public class UserServiceImpl implements UserService {
             })
             .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取全部区域编码的快照。先读取版本号再读取列表，
+     * 两次读取之间发生的变化会在调用方下一次刷新时因版本号不同而被重新拉取。
+     *
+     * @param version 调用方已缓存的版本号，可以为 null
+     * @return 区域编码快照，版本号未变化时不包含区域编码列表
+     */
+    @Override
+    public AreaCodeSnapshotVo getAreaCodeSnapshot(String version) {
+        AreaCodeSnapshotVo snapshotVo = new AreaCodeSnapshotVo();
+        String currentVersion = areaCodeMapper.selectVersion();
+        snapshotVo.setVersion(currentVersion);
+        if (currentVersion.equals(version)) {
+            snapshotVo.setModified(false);
+            return snapshotVo;
+        }
+        List<AreaCodeVo> areaCodes = areaCodeMapper.selectList(null).stream()
+            .map(areaCode -> {
+                AreaCodeVo areaCodeVo = new AreaCodeVo();
+                BeanUtils.copyProperties(areaCode, areaCodeVo);
+                return areaCodeVo;
+            })
+            .collect(Collectors.toList());
+        snapshotVo.setModified(true);
+        snapshotVo.setAreaCodes(areaCodes);
+        return snapshotVo;
+    }
+}
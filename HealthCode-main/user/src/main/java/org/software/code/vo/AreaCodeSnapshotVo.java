@@ -0,0 +1,30 @@
+package org.software.code.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * AreaCodeSnapshotVo 是全部区域编码的快照视图对象，供其他服务在本地缓存区域编码。
+ * 快照带有版本号，调用方携带上次拿到的版本号请求时，若区域编码未发生变化则不返回列表。
+ *
+ * @author “101”计划《软件工程》实践教材案例团队
+ */
+@Data
+public class AreaCodeSnapshotVo {
+    /**
+     * 区域编码表当前的版本号，由记录数、最大 ID 和最近更新时间组成，
+     * 区域编码发生新增、修改或删除后版本号随之变化。
+     */
+    private String version;
+
+    /**
+     * 相对于调用方携带的版本号是否发生了变化，未变化时 areaCodes 为 null。
+     */
+    private Boolean modified;
+
+    /**
+     * 全部区域编码，仅在发生变化时返回。
+     */
+    private List<AreaCodeVo> areaCodes;
+}